@@ -0,0 +1,45 @@
+import { NextRequest, NextResponse } from "next/server";
+import { getServerSession } from "next-auth";
+import { authOptions } from "@/lib/auth";
+import { getJavaApiHeaders } from "@/lib/java-api";
+
+const JAVA_API_URL = process.env.JAVA_API_URL || "http://localhost:8080";
+
+export async function GET(request: NextRequest) {
+  try {
+    const session = await getServerSession(authOptions);
+    if (!session?.user?.email) {
+      return NextResponse.json({ error: "Unauthorized" }, { status: 401 });
+    }
+
+    // EventSource sends Last-Event-ID on reconnect; the backend replays from it
+    const headers: Record<string, string> = await getJavaApiHeaders();
+    const lastEventId = request.headers.get("last-event-id");
+    if (lastEventId) {
+      headers["Last-Event-ID"] = lastEventId;
+    }
+
+    // Aborting with the browser's request releases the backend stream
+    const response = await fetch(`${JAVA_API_URL}/api/events`, {
+      headers,
+      signal: request.signal,
+    });
+    if (!response.ok || !response.body) {
+      const data = await response.json().catch(() => ({}));
+      return NextResponse.json(data, { status: response.status });
+    }
+
+    return new Response(response.body, {
+      headers: {
+        "Content-Type": "text/event-stream",
+        "Cache-Control": "no-cache",
+        "X-Accel-Buffering": "no",
+      },
+    });
+  } catch (error: any) {
+    return NextResponse.json(
+      { error: error.message || "Failed to open event stream" },
+      { status: 500 }
+    );
+  }
+}
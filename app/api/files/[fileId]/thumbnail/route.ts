@@ -0,0 +1,61 @@
+import { NextRequest, NextResponse } from "next/server";
+import { getServerSession } from "next-auth";
+import { authOptions } from "@/lib/auth";
+import { getJavaApiHeaders } from "@/lib/java-api";
+
+const JAVA_API_URL = process.env.JAVA_API_URL || "http://localhost:8080";
+
+export async function GET(
+  request: NextRequest,
+  { params }: { params: { fileId: string } }
+) {
+  try {
+    const session = await getServerSession(authOptions);
+    if (!session?.user?.email) {
+      return NextResponse.json({ error: "Unauthorized" }, { status: 401 });
+    }
+
+    const headers = await getJavaApiHeaders();
+    const ifNoneMatch = request.headers.get("if-none-match");
+    // The version decides whether the response may be cached for good
+    const version = request.nextUrl.searchParams.get("v");
+    const response = await fetch(
+      `${JAVA_API_URL}/api/files/${params.fileId}/thumbnail` +
+        (version ? `?v=${encodeURIComponent(version)}` : ""),
+      {
+        headers: ifNoneMatch ? { ...headers, "If-None-Match": ifNoneMatch } : headers,
+      }
+    );
+
+    // Pass the cache validators through so browsers can revalidate cheaply
+    const cacheHeaders: Record<string, string> = {};
+    for (const name of ["etag", "cache-control"]) {
+      const value = response.headers.get(name);
+      if (value) {
+        cacheHeaders[name] = value;
+      }
+    }
+
+    if (response.status === 304) {
+      return new NextResponse(null, { status: 304, headers: cacheHeaders });
+    }
+
+    if (!response.ok) {
+      const error = await response.text();
+      return NextResponse.json({ error }, { status: response.status });
+    }
+
+    const blob = await response.blob();
+    return new NextResponse(blob, {
+      headers: {
+        ...cacheHeaders,
+        "Content-Type": response.headers.get("content-type") || "image/jpeg",
+      },
+    });
+  } catch (error: any) {
+    return NextResponse.json(
+      { error: error.message || "Failed to load thumbnail" },
+      { status: 500 }
+    );
+  }
+}
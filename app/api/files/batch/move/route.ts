@@ -0,0 +1,29 @@
+import { NextRequest, NextResponse } from "next/server";
+import { getServerSession } from "next-auth";
+import { authOptions } from "@/lib/auth";
+import { getJavaApiHeaders } from "@/lib/java-api";
+
+const JAVA_API_URL = process.env.JAVA_API_URL || "http://localhost:8080";
+
+export async function POST(request: NextRequest) {
+  try {
+    const session = await getServerSession(authOptions);
+    if (!session?.user?.email) {
+      return NextResponse.json({ error: "Unauthorized" }, { status: 401 });
+    }
+
+    const headers = await getJavaApiHeaders();
+    const response = await fetch(`${JAVA_API_URL}/api/files/batch/move`, {
+      method: "POST",
+      headers,
+      body: await request.text(),
+    });
+    const data = await response.json();
+    return NextResponse.json(data, { status: response.status });
+  } catch (error: any) {
+    return NextResponse.json(
+      { error: error.message || "Failed to move files" },
+      { status: 500 }
+    );
+  }
+}
@@ -1,7 +1,7 @@
 import { NextRequest, NextResponse } from "next/server";
 import { getServerSession } from "next-auth";
 import { authOptions } from "@/lib/auth";
-import { javaApiRequest } from "@/lib/java-api";
+import { javaListingRequest } from "@/lib/java-api";
 
 export async function GET(
   request: NextRequest,
@@ -13,9 +13,7 @@ export async function GET(
       return NextResponse.json({ error: "Unauthorized" }, { status: 401 });
     }
 
-    const response = await javaApiRequest(`/api/spaces/${params.id}/activity`);
-    const data = await response.json();
-    return NextResponse.json(data);
+    return await javaListingRequest(request, `/api/spaces/${params.id}/activity`);
   } catch (error: any) {
     return NextResponse.json(
       { error: error.message || "Failed to fetch activity" },
@@ -0,0 +1,65 @@
+import { NextRequest, NextResponse } from "next/server";
+import { getServerSession } from "next-auth";
+import { authOptions } from "@/lib/auth";
+import { getJavaApiHeaders } from "@/lib/java-api";
+
+const JAVA_API_URL = process.env.JAVA_API_URL || "http://localhost:8080";
+
+// Pass the archive through as a stream; buffering it would defeat the point
+async function proxyArchive(
+  request: NextRequest,
+  spaceId: string,
+  body?: string
+) {
+  const session = await getServerSession(authOptions);
+  if (!session?.user?.email) {
+    return NextResponse.json({ error: "Unauthorized" }, { status: 401 });
+  }
+
+  const headers = await getJavaApiHeaders();
+  const response = await fetch(
+    `${JAVA_API_URL}/api/spaces/${spaceId}/archive${request.nextUrl.search}`,
+    { method: body ? "POST" : "GET", headers, body }
+  );
+
+  if (!response.ok || !response.body) {
+    const error = await response.text();
+    return NextResponse.json({ error }, { status: response.status });
+  }
+
+  return new NextResponse(response.body, {
+    headers: {
+      "Content-Type": "application/zip",
+      "Content-Disposition": response.headers.get("content-disposition") || "",
+      "Cache-Control": "no-store",
+    },
+  });
+}
+
+export async function GET(
+  request: NextRequest,
+  { params }: { params: { id: string } }
+) {
+  try {
+    return await proxyArchive(request, params.id);
+  } catch (error: any) {
+    return NextResponse.json(
+      { error: error.message || "Failed to download archive" },
+      { status: 500 }
+    );
+  }
+}
+
+export async function POST(
+  request: NextRequest,
+  { params }: { params: { id: string } }
+) {
+  try {
+    return await proxyArchive(request, params.id, await request.text());
+  } catch (error: any) {
+    return NextResponse.json(
+      { error: error.message || "Failed to download archive" },
+      { status: 500 }
+    );
+  }
+}
@@ -0,0 +1,27 @@
+import { NextRequest, NextResponse } from "next/server";
+import { getServerSession } from "next-auth";
+import { authOptions } from "@/lib/auth";
+import { javaListingRequest } from "@/lib/java-api";
+
+export async function GET(
+  request: NextRequest,
+  { params }: { params: { id: string } }
+) {
+  try {
+    const session = await getServerSession(authOptions);
+    if (!session?.user?.email) {
+      return NextResponse.json({ error: "Unauthorized" }, { status: 401 });
+    }
+
+    const query = request.nextUrl.searchParams.toString();
+    return await javaListingRequest(
+      request,
+      `/api/spaces/${params.id}/changes${query ? `?${query}` : ""}`
+    );
+  } catch (error: any) {
+    return NextResponse.json(
+      { error: error.message || "Failed to fetch changes" },
+      { status: 500 }
+    );
+  }
+}
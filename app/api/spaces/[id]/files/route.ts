@@ -1,7 +1,7 @@
 import { NextRequest, NextResponse } from "next/server";
 import { getServerSession } from "next-auth";
 import { authOptions } from "@/lib/auth";
-import { getJavaApiHeaders } from "@/lib/java-api";
+import { getJavaApiHeaders, javaListingRequest } from "@/lib/java-api";
 
 const JAVA_API_URL = process.env.JAVA_API_URL || "http://localhost:8080";
 
@@ -15,12 +15,7 @@ export async function GET(
       return NextResponse.json({ error: "Unauthorized" }, { status: 401 });
     }
 
-    const headers = await getJavaApiHeaders();
-    const response = await fetch(`${JAVA_API_URL}/api/spaces/${params.id}/files`, {
-      headers,
-    });
-    const data = await response.json();
-    return NextResponse.json(data);
+    return await javaListingRequest(request, `/api/spaces/${params.id}/files`);
   } catch (error: any) {
     return NextResponse.json(
       { error: error.message || "Failed to fetch files" },
@@ -49,7 +44,7 @@ export async function POST(
       body: formData,
     });
     const data = await response.json();
-    return NextResponse.json(data, { status: 201 });
+    return NextResponse.json(data, { status: response.status });
   } catch (error: any) {
     return NextResponse.json(
       { error: error.message || "Failed to upload file" },
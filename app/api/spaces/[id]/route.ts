@@ -13,9 +13,10 @@ export async function GET(
       return NextResponse.json({ error: "Unauthorized" }, { status: 401 });
     }
 
-    const response = await javaApiRequest(`/api/spaces/${params.id}`);
+    const query = request.nextUrl.searchParams.toString();
+    const response = await javaApiRequest(`/api/spaces/${params.id}${query ? `?${query}` : ""}`);
     const data = await response.json();
-    return NextResponse.json(data);
+    return NextResponse.json(data, { status: response.status });
   } catch (error: any) {
     return NextResponse.json(
       { error: error.message || "Failed to fetch space" },
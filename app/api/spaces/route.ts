@@ -1,7 +1,7 @@
 import { NextRequest, NextResponse } from "next/server";
 import { getServerSession } from "next-auth";
 import { authOptions } from "@/lib/auth";
-import { javaApiRequest } from "@/lib/java-api";
+import { javaApiRequest, javaListingRequest } from "@/lib/java-api";
 
 export async function GET(request: NextRequest) {
   try {
@@ -10,9 +10,8 @@ export async function GET(request: NextRequest) {
       return NextResponse.json({ error: "Unauthorized" }, { status: 401 });
     }
 
-    const response = await javaApiRequest("/api/spaces");
-    const data = await response.json();
-    return NextResponse.json(data);
+    const query = request.nextUrl.searchParams.toString();
+    return await javaListingRequest(request, `/api/spaces${query ? `?${query}` : ""}`);
   } catch (error: any) {
     return NextResponse.json(
       { error: error.message || "Failed to fetch spaces" },
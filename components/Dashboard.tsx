@@ -2,7 +2,7 @@
 
 import Link from "next/link";
 import { useSession, signOut } from "next-auth/react";
-import { ChangeEvent, useEffect, useState } from "react";
+import { ChangeEvent, useEffect, useRef, useState } from "react";
 
 interface Space {
   id: string;
@@ -11,12 +11,16 @@ interface Space {
   adminEmail: string;
 }
 
+// Only what the sidebar and header show; members load on the settings page
+const SPACE_FIELDS = "id,name,description,adminEmail";
+
 interface SpaceFile {
   id: string;
   originalFilename: string;
   size: number;
   uploaderEmail: string;
   uploadedAt: string;
+  thumbnailUrl?: string;
 }
 
 interface Activity {
@@ -44,10 +48,48 @@ export default function Dashboard() {
     }
   }, [session?.user?.email]);
 
+  // Change feed handlers read the current space through a ref, since the
+  // stream outlives any one render
+  const selectedSpaceId = useRef<string | null>(null);
+  selectedSpaceId.current = selectedSpace?.id ?? null;
+
+  useEffect(() => {
+    if (!session?.user?.email) return;
+    const events = new EventSource("/api/events");
+
+    const onSpaceContent = (event: MessageEvent) => {
+      const { spaceId } = JSON.parse(event.data);
+      if (spaceId === selectedSpaceId.current) {
+        loadFiles(spaceId);
+        loadActivity(spaceId);
+      }
+    };
+    const onSpaceList = (event: MessageEvent) => {
+      loadSpaces();
+      onSpaceContent(event);
+    };
+    // Sent when the missed events were too many to replay
+    const onReset = () => {
+      loadSpaces();
+      if (selectedSpaceId.current) {
+        loadFiles(selectedSpaceId.current);
+        loadActivity(selectedSpaceId.current);
+      }
+    };
+
+    events.addEventListener("file-added", onSpaceContent);
+    events.addEventListener("file-removed", onSpaceContent);
+    events.addEventListener("member-changed", onSpaceList);
+    events.addEventListener("space-updated", onSpaceList);
+    events.addEventListener("space-deleted", onSpaceList);
+    events.addEventListener("reset", onReset);
+    return () => events.close();
+  }, [session?.user?.email]);
+
   const loadSpaces = async () => {
     setLoadingSpaces(true);
     try {
-      const response = await fetch("/api/spaces");
+      const response = await fetch(`/api/spaces?fields=${SPACE_FIELDS}`);
       if (response.ok) {
         const data = await response.json();
         const list = Array.isArray(data) ? data : [];
@@ -72,7 +114,7 @@ export default function Dashboard() {
 
   const refreshCurrentSpace = async () => {
     if (!selectedSpace) return;
-    const response = await fetch(`/api/spaces/${selectedSpace.id}`);
+    const response = await fetch(`/api/spaces/${selectedSpace.id}?fields=${SPACE_FIELDS}`);
     if (response.ok) {
       const updated = await response.json();
       setSelectedSpace(updated);
@@ -131,13 +173,18 @@ export default function Dashboard() {
     }
   };
 
-  const uploadFile = async (file: File) => {
-    if (!selectedSpace) return;
+  const uploadFiles = async (selected: File[]) => {
+    if (!selectedSpace || selected.length === 0) return;
+    // Several files go up in one batch request instead of one POST each
+    const batch = selected.length > 1;
     const formData = new FormData();
-    formData.append("file", file);
+    for (const file of selected) {
+      formData.append(batch ? "files" : "file", file);
+    }
 
     try {
-      const response = await fetch(`/api/spaces/${selectedSpace.id}/files`, {
+      const endpoint = batch ? "files/batch" : "files";
+      const response = await fetch(`/api/spaces/${selectedSpace.id}/${endpoint}`, {
         method: "POST",
         body: formData,
       });
@@ -306,6 +353,7 @@ export default function Dashboard() {
               <div className="bg-white rounded-lg shadow-sm border border-gray-100">
                 <FilesPanel
                   files={files}
+                  archiveUrl={`/api/spaces/${selectedSpace.id}/archive`}
                   onDownload={downloadFile}
                   onDelete={deleteFile}
                 />
@@ -332,7 +380,7 @@ export default function Dashboard() {
       {showUploadModal && (
         <UploadFileModal
           onClose={() => setShowUploadModal(false)}
-          onUpload={uploadFile}
+          onUpload={uploadFiles}
         />
       )}
     </div>
@@ -341,10 +389,12 @@ export default function Dashboard() {
 
 function FilesPanel({
   files,
+  archiveUrl,
   onDownload,
   onDelete,
 }: {
   files: SpaceFile[];
+  archiveUrl: string;
   onDownload: (id: string, name: string) => void;
   onDelete: (id: string) => void;
 }) {
@@ -352,6 +402,14 @@ function FilesPanel({
     <div className="bg-white rounded-lg shadow-md p-6">
       <div className="flex justify-between items-center mb-4">
         <h2 className="text-xl font-semibold text-gray-800">Files</h2>
+        {files.length > 0 && (
+          <a
+            href={archiveUrl}
+            className="bg-blue-600 hover:bg-blue-700 text-white px-3 py-1 rounded text-sm"
+          >
+            Download all
+          </a>
+        )}
       </div>
       <div className="space-y-3">
         {files.map((file) => (
@@ -360,16 +418,26 @@ function FilesPanel({
             className="p-3 border border-gray-200 rounded-lg hover:bg-gray-50"
           >
             <div className="flex justify-between items-center">
-              <div>
-                <h4 className="font-medium text-gray-800">
-                  {file.originalFilename}
-                </h4>
-                <p className="text-sm text-gray-600">
-                  {formatFileSize(file.size)} • {file.uploaderEmail}
-                </p>
-                <p className="text-xs text-gray-500">
-                  {new Date(file.uploadedAt).toLocaleDateString()}
-                </p>
+              <div className="flex items-center space-x-3">
+                {file.thumbnailUrl && (
+                  <img
+                    src={file.thumbnailUrl}
+                    alt=""
+                    loading="lazy"
+                    className="w-12 h-12 object-cover rounded"
+                  />
+                )}
+                <div>
+                  <h4 className="font-medium text-gray-800">
+                    {file.originalFilename}
+                  </h4>
+                  <p className="text-sm text-gray-600">
+                    {formatFileSize(file.size)} • {file.uploaderEmail}
+                  </p>
+                  <p className="text-xs text-gray-500">
+                    {new Date(file.uploadedAt).toLocaleDateString()}
+                  </p>
+                </div>
               </div>
               <div className="space-x-2">
                 <button
@@ -514,12 +582,12 @@ function UploadFileModal({
   onUpload,
 }: {
   onClose: () => void;
-  onUpload: (file: File) => void;
+  onUpload: (files: File[]) => void;
 }) {
   const handleFileChange = (e: ChangeEvent<HTMLInputElement>) => {
-    const file = e.target.files?.[0];
-    if (file) {
-      onUpload(file);
+    const files = Array.from(e.target.files ?? []);
+    if (files.length) {
+      onUpload(files);
     }
   };
 
@@ -530,6 +598,7 @@ function UploadFileModal({
         <div className="space-y-4">
           <input
             type="file"
+            multiple
             onChange={handleFileChange}
             className="w-full px-3 py-2 border border-gray-300 rounded-lg focus:outline-none focus:ring-2 focus:ring-blue-500"
           />
@@ -1,4 +1,5 @@
 // Helper functions to communicate with Java backend API
+import { NextRequest, NextResponse } from "next/server";
 import { getServerSession } from "next-auth";
 import { authOptions } from "@/lib/auth";
 
@@ -49,3 +50,31 @@ export async function javaApiRequest(
   return response;
 }
 
+
+// Proxy a cached listing: forward the browser's If-None-Match and relay the
+// backend's ETag, so an unchanged listing comes back as an empty 304
+export async function javaListingRequest(
+  request: NextRequest,
+  endpoint: string
+) {
+  const headers: Record<string, string> = await getJavaApiHeaders();
+  const ifNoneMatch = request.headers.get("if-none-match");
+  if (ifNoneMatch) {
+    headers["If-None-Match"] = ifNoneMatch;
+  }
+
+  const response = await fetch(`${JAVA_API_URL}${endpoint}`, { headers });
+
+  const cacheHeaders: Record<string, string> = {};
+  const etag = response.headers.get("etag");
+  if (etag) {
+    cacheHeaders["ETag"] = etag;
+    cacheHeaders["Cache-Control"] = response.headers.get("cache-control") || "private, no-cache";
+  }
+
+  if (response.status === 304) {
+    return new NextResponse(null, { status: 304, headers: cacheHeaders });
+  }
+  const data = await response.json();
+  return NextResponse.json(data, { status: response.status, headers: cacheHeaders });
+}
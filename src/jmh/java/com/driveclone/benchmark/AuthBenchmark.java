@@ -0,0 +1,35 @@
+package com.driveclone.benchmark;
+
+import com.driveclone.auth.NextAuthJwtVerifier;
+import com.driveclone.model.User;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * NextAuthJwtVerifier.verifyToken on tokens shaped like the ones
+ * lib/java-api.ts sends (base64 of {email, name, id}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AuthBenchmark {
+
+    private String token;
+
+    @Setup
+    public void setUp() {
+        String json = "{\"email\":\"someone@example.com\",\"name\":\"Some One\",\"id\":\"clq2v9x1e0000abcd1234efgh\"}";
+        token = Base64.getEncoder().encodeToString(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Benchmark
+    public User verifyToken() {
+        return NextAuthJwtVerifier.verifyToken(token);
+    }
+}
@@ -0,0 +1,110 @@
+package com.driveclone.benchmark;
+
+import com.driveclone.model.SpaceFile;
+import com.driveclone.util.Uuids;
+import spark.RequestResponseFactory;
+import spark.Response;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Shared fixtures for the JMH benchmarks.
+ */
+final class BenchmarkSupport {
+
+    private BenchmarkSupport() {}
+
+    static Path createTempDirectory(String prefix) throws IOException {
+        return Files.createTempDirectory(prefix);
+    }
+
+    static void deleteRecursively(Path root) throws IOException {
+        if (root == null || !Files.exists(root)) {
+            return;
+        }
+        try (Stream<Path> walk = Files.walk(root)) {
+            for (Path path : walk.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    static SpaceFile newFile(String spaceId, int index) {
+        SpaceFile file = new SpaceFile(spaceId, "document-" + index + ".pdf",
+            "spaces/" + spaceId + "/files/" + UUID.randomUUID() + ".pdf",
+            "application/pdf", 1024L * (index % 4096 + 1), "uploader-" + (index % 16),
+            "user" + (index % 16) + "@example.com");
+        file.setId(Uuids.newId());
+        return file;
+    }
+
+    static List<SpaceFile> newFiles(String spaceId, int count) {
+        List<SpaceFile> files = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            files.add(newFile(spaceId, i));
+        }
+        return files;
+    }
+
+    /**
+     * Insert file rows in a single transaction, bypassing the per-row
+     * connection cost of SqliteMetadataService so large fixtures load quickly.
+     */
+    static void seedFiles(Path dbPath, List<SpaceFile> files) throws SQLException {
+        String sql = "INSERT INTO space_files (id, space_id, original_filename, storage_path, content_type, size, uploader_id, uploader_email, uploaded_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        try (Connection conn = DriverManager.getConnection("jdbc:sqlite:" + dbPath)) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                long base = System.currentTimeMillis() - 30L * 24 * 60 * 60 * 1000;
+                int i = 0;
+                for (SpaceFile file : files) {
+                    stmt.setBytes(1, Uuids.toBytes(file.getId()));
+                    stmt.setBytes(2, Uuids.toBytes(file.getSpaceId()));
+                    stmt.setString(3, file.getOriginalFilename());
+                    stmt.setString(4, file.getStoragePath());
+                    stmt.setString(5, file.getContentType());
+                    stmt.setLong(6, file.getSize());
+                    stmt.setString(7, file.getUploaderId());
+                    stmt.setString(8, file.getUploaderEmail());
+                    stmt.setLong(9, base + 1000L * i++);
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+            }
+            conn.commit();
+        }
+    }
+
+    /**
+     * A Spark Response over a no-op servlet response, for exercising JsonResponse.
+     */
+    static Response discardingResponse() {
+        HttpServletResponse raw = (HttpServletResponse) Proxy.newProxyInstance(
+            BenchmarkSupport.class.getClassLoader(),
+            new Class<?>[] {HttpServletResponse.class},
+            (proxy, method, args) -> {
+                Class<?> type = method.getReturnType();
+                if (type == boolean.class) {
+                    return false;
+                }
+                if (type == int.class) {
+                    return 0;
+                }
+                return null;
+            });
+        return RequestResponseFactory.create(raw);
+    }
+}
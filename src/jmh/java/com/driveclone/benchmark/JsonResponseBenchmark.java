@@ -0,0 +1,38 @@
+package com.driveclone.benchmark;
+
+import com.driveclone.model.SpaceFile;
+import com.driveclone.util.JsonResponse;
+import org.openjdk.jmh.annotations.*;
+import spark.Response;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JsonResponse.success serializing file listings of various sizes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonResponseBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int files;
+
+    private List<SpaceFile> listing;
+    private Response response;
+
+    @Setup
+    public void setUp() {
+        listing = BenchmarkSupport.newFiles("6f1c2d3e-4b5a-4c6d-8e7f-9a0b1c2d3e4f", files);
+        response = BenchmarkSupport.discardingResponse();
+    }
+
+    @Benchmark
+    public String success() {
+        return JsonResponse.success(response, listing);
+    }
+}
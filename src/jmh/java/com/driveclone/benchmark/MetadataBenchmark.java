@@ -0,0 +1,90 @@
+package com.driveclone.benchmark;
+
+import com.driveclone.model.Space;
+import com.driveclone.model.SpaceFile;
+import com.driveclone.service.SqliteMetadataService;
+import com.driveclone.util.Uuids;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SqliteMetadataService create/get/list and membership checks against a
+ * temporary database seeded with a configurable number of files.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MetadataBenchmark {
+
+    @Param({"1000", "50000"})
+    public int files;
+
+    private Path directory;
+    private SqliteMetadataService metadata;
+    private String spaceId;
+    private String[] fileIds;
+    private int cursor;
+    private int created;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        directory = BenchmarkSupport.createTempDirectory("driveclone-metadata-bench");
+        Path dbPath = directory.resolve("bench.db");
+        metadata = new SqliteMetadataService(dbPath.toString());
+
+        Space space = new Space("Benchmark", "JMH fixture", "admin-1", "admin@example.com");
+        space.setId(Uuids.newId());
+        spaceId = metadata.createSpace(space);
+        for (int i = 0; i < 50; i++) {
+            metadata.addMemberToSpace(spaceId, "member" + i + "@example.com");
+        }
+
+        List<SpaceFile> seeded = BenchmarkSupport.newFiles(spaceId, files);
+        BenchmarkSupport.seedFiles(dbPath, seeded);
+        fileIds = seeded.stream().map(SpaceFile::getId).toArray(String[]::new);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        metadata.close();
+        BenchmarkSupport.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public String createFile() {
+        return metadata.createFile(BenchmarkSupport.newFile(spaceId, files + created++));
+    }
+
+    @Benchmark
+    public Optional<SpaceFile> getFile() {
+        cursor = (cursor + 7919) % fileIds.length;
+        return metadata.getFile(fileIds[cursor]);
+    }
+
+    @Benchmark
+    public List<SpaceFile> listFiles() {
+        return metadata.getFilesForSpace(spaceId);
+    }
+
+    @Benchmark
+    public Optional<Space> getSpace() {
+        return metadata.getSpace(spaceId);
+    }
+
+    @Benchmark
+    public boolean isUserMemberOfSpace() {
+        return metadata.isUserMemberOfSpace(spaceId, "member42@example.com");
+    }
+
+    @Benchmark
+    public boolean isUserMemberOfSpaceOwner() {
+        return metadata.isUserMemberOfSpace(spaceId, "admin@example.com");
+    }
+}
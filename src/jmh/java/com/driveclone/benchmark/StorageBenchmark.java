@@ -0,0 +1,67 @@
+package com.driveclone.benchmark;
+
+import com.driveclone.service.LocalFileStorageService;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LocalFileStorageService upload and download throughput by file size.
+ * Multiply ops/s by the size parameter for bytes/s. Downloads at or below
+ * MAPPED_CACHE_MAX_FILE_SIZE are served from the mapped-file cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StorageBenchmark {
+
+    @Param({"4096", "1048576", "16777216"})
+    public int size;
+
+    private Path directory;
+    private LocalFileStorageService storage;
+    private byte[] payload;
+    private String downloadPath;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = BenchmarkSupport.createTempDirectory("driveclone-storage-bench");
+        storage = new LocalFileStorageService(directory.toString());
+        payload = new byte[size];
+        new Random(42).nextBytes(payload);
+        downloadPath = storage.uploadFile(new ByteArrayInputStream(payload), "download-space", "fixture.bin",
+            "application/octet-stream");
+    }
+
+    @TearDown(Level.Iteration)
+    public void clearUploads() {
+        storage.deleteAllFilesInSpace("upload-space");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchmarkSupport.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public String upload() {
+        return storage.uploadFile(new ByteArrayInputStream(payload), "upload-space", "payload.bin",
+            "application/octet-stream");
+    }
+
+    @Benchmark
+    public long download() throws IOException {
+        try (InputStream in = storage.downloadFile(downloadPath)) {
+            return in.transferTo(OutputStream.nullOutputStream());
+        }
+    }
+}
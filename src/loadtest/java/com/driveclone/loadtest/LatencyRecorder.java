@@ -0,0 +1,93 @@
+package com.driveclone.loadtest;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Per-route latency samples. Each simulated user owns one recorder, so
+ * recording needs no synchronization; recorders are merged once the run ends
+ * and percentiles are exact.
+ */
+class LatencyRecorder {
+    private final Map<String, Series> series = new TreeMap<>();
+
+    void record(String route, long nanos, boolean ok) {
+        series.computeIfAbsent(route, r -> new Series()).add(nanos, ok);
+    }
+
+    void mergeFrom(LatencyRecorder other) {
+        for (Map.Entry<String, Series> entry : other.series.entrySet()) {
+            series.computeIfAbsent(entry.getKey(), r -> new Series()).addAll(entry.getValue());
+        }
+    }
+
+    /**
+     * Render a fixed-width table with one row per route plus a total row.
+     * @param elapsedSeconds Length of the measured window
+     */
+    String report(double elapsedSeconds) {
+        Map<String, Series> rows = new LinkedHashMap<>(series);
+        Series total = new Series();
+        series.values().forEach(total::addAll);
+        rows.put("TOTAL", total);
+
+        StringBuilder out = new StringBuilder();
+        out.append(String.format(Locale.ROOT, "%-45s %9s %7s %10s %9s %9s %9s %9s%n",
+            "route", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms"));
+        for (Map.Entry<String, Series> row : rows.entrySet()) {
+            Series s = row.getValue();
+            long[] sorted = s.sorted();
+            out.append(String.format(Locale.ROOT, "%-45s %9d %7d %10.1f %9.2f %9.2f %9.2f %9.2f%n",
+                row.getKey(), s.count, s.errors, s.count / elapsedSeconds,
+                millis(percentile(sorted, 0.50)), millis(percentile(sorted, 0.99)),
+                millis(percentile(sorted, 0.999)), millis(sorted.length > 0 ? sorted[sorted.length - 1] : 0)));
+        }
+        return out.toString();
+    }
+
+    private static long percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    private static final class Series {
+        long[] samples = new long[1024];
+        int count;
+        long errors;
+
+        void add(long nanos, boolean ok) {
+            if (count == samples.length) {
+                samples = Arrays.copyOf(samples, count * 2);
+            }
+            samples[count++] = nanos;
+            if (!ok) {
+                errors++;
+            }
+        }
+
+        void addAll(Series other) {
+            if (count + other.count > samples.length) {
+                samples = Arrays.copyOf(samples, Math.max(samples.length * 2, count + other.count));
+            }
+            System.arraycopy(other.samples, 0, samples, count, other.count);
+            count += other.count;
+            errors += other.errors;
+        }
+
+        long[] sorted() {
+            long[] copy = Arrays.copyOf(samples, count);
+            Arrays.sort(copy);
+            return copy;
+        }
+    }
+}
@@ -0,0 +1,367 @@
+package com.driveclone.loadtest;
+
+import com.driveclone.loadtest.SimulatedUser.Operation;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * End-to-end HTTP load test for DriveCloneApp.
+ *
+ * By default a fresh server is started in a child JVM whose working
+ * directory, SQLite database and uploads directory live in a temp folder, so
+ * runs never touch local data. With --storage supabase the server is pointed
+ * at an in-process {@link SupabaseStub} instead of local disk. --target skips
+ * all of that and drives an already running server.
+ *
+ * Each simulated user owns a space seeded with files, is invited to a few
+ * other users' spaces, then loops over a weighted mix of operations. After
+ * the warmup window, every request is timed and the run ends with a per-route
+ * table of throughput and p50/p99/p999 latency.
+ *
+ * Run with: mvn -Ploadtest compile exec:exec -Dloadtest.args="--users 64 --duration 60"
+ */
+public class LoadTest {
+    private static final String DEFAULT_MIX =
+        "list-spaces=15,get-space=5,list-files=25,activity=5,download=30,upload=10,delete=5,members=5";
+
+    public static void main(String[] args) throws Exception {
+        Options options = Options.parse(args);
+        System.exit(new LoadTest().run(options));
+    }
+
+    int run(Options options) throws Exception {
+        Path workDir = null;
+        SupabaseStub stub = null;
+        Process server = null;
+        String baseUrl = options.target;
+        try {
+            if (baseUrl == null) {
+                workDir = Files.createTempDirectory("driveclone-loadtest");
+                if ("supabase".equals(options.storage)) {
+                    stub = SupabaseStub.start(0, options.stubLatencyMillis);
+                    System.out.println("Supabase stub at " + stub.getUrl());
+                }
+                int port = options.port > 0 ? options.port : freePort();
+                server = startServer(options, workDir, port, stub);
+                baseUrl = "http://127.0.0.1:" + port;
+                awaitReady(baseUrl, server, workDir.resolve("server.log"));
+                System.out.println("Server up at " + baseUrl + " (work dir " + workDir + ")");
+            }
+
+            HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .executor(Executors.newCachedThreadPool(daemonThreads("http-client")))
+                .build();
+
+            List<SimulatedUser> users = new ArrayList<>();
+            for (int i = 0; i < options.users; i++) {
+                users.add(new SimulatedUser(client, baseUrl, i, options.fileSize, options.seed + i));
+            }
+            setUp(users, options);
+
+            ExecutorService pool = Executors.newFixedThreadPool(options.users, daemonThreads("load-user"));
+            long warmupEnd = System.nanoTime() + TimeUnit.SECONDS.toNanos(options.warmupSeconds);
+            long end = warmupEnd + TimeUnit.SECONDS.toNanos(options.durationSeconds);
+            List<Future<Long>> results = new ArrayList<>();
+            for (SimulatedUser user : users) {
+                results.add(pool.submit(() -> drive(user, options, warmupEnd, end)));
+            }
+            System.out.printf(Locale.ROOT, "Running %d users: %ds warmup, %ds measured%n",
+                options.users, options.warmupSeconds, options.durationSeconds);
+
+            long failures = 0;
+            for (Future<Long> result : results) {
+                failures += result.get();
+            }
+            pool.shutdown();
+
+            LatencyRecorder merged = new LatencyRecorder();
+            users.forEach(user -> merged.mergeFrom(user.getRecorder()));
+            System.out.println();
+            System.out.print(merged.report(options.durationSeconds));
+            if (failures > 0) {
+                System.out.println(failures + " requests failed with I/O errors");
+            }
+            if (stub != null) {
+                System.out.printf(Locale.ROOT, "Supabase stub: %d objects, %d bytes, requests %s%n",
+                    stub.getObjectCount(), stub.getStoredBytes(), stub.getRequestCounts());
+            }
+            return 0;
+        } finally {
+            if (server != null) {
+                server.destroy();
+                if (!server.waitFor(10, TimeUnit.SECONDS)) {
+                    server.destroyForcibly();
+                }
+            }
+            if (stub != null) {
+                stub.stop();
+            }
+            if (workDir != null) {
+                if (options.keep) {
+                    System.out.println("Kept work dir " + workDir);
+                } else {
+                    deleteRecursively(workDir);
+                }
+            }
+        }
+    }
+
+    private static void setUp(List<SimulatedUser> users, Options options) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(users.size(), 16), daemonThreads("setup"));
+        try {
+            List<Future<?>> pending = new ArrayList<>();
+            for (SimulatedUser user : users) {
+                pending.add(pool.submit(() -> {
+                    user.createSpace(options.seedFiles);
+                    return null;
+                }));
+            }
+            for (Future<?> future : pending) {
+                future.get();
+            }
+            pending.clear();
+            int invites = Math.min(options.members, users.size() - 1);
+            for (int i = 0; i < users.size(); i++) {
+                SimulatedUser owner = users.get(i);
+                int ownerIndex = i;
+                pending.add(pool.submit(() -> {
+                    for (int k = 1; k <= invites; k++) {
+                        owner.invite(SimulatedUser.emailFor((ownerIndex + k) % users.size()));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : pending) {
+                future.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        System.out.printf(Locale.ROOT, "Set up %d spaces with %d files and %d invites each%n",
+            users.size(), options.seedFiles, Math.min(options.members, users.size() - 1));
+    }
+
+    private static long drive(SimulatedUser user, Options options, long warmupEnd, long end) {
+        Random random = new Random(options.seed ^ user.hashCode());
+        long failures = 0;
+        boolean recording = false;
+        for (long now = System.nanoTime(); now < end; now = System.nanoTime()) {
+            if (!recording && now >= warmupEnd) {
+                user.setRecording(true);
+                recording = true;
+            }
+            try {
+                user.perform(options.pick(random));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                failures++;
+            }
+            if (options.thinkMillis > 0) {
+                try {
+                    Thread.sleep(options.thinkMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+        return failures;
+    }
+
+    private static Process startServer(Options options, Path workDir, int port, SupabaseStub stub) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(options.serverJvmArgs);
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add("com.driveclone.DriveCloneApp");
+
+        ProcessBuilder builder = new ProcessBuilder(command)
+            .directory(workDir.toFile())
+            .redirectErrorStream(true)
+            .redirectOutput(workDir.resolve("server.log").toFile());
+        Map<String, String> env = builder.environment();
+        env.put("PORT", String.valueOf(port));
+        env.put("DB_PATH", workDir.resolve("driveclone.db").toString());
+        env.put("STORAGE_PATH", workDir.resolve("uploads").toString());
+        env.put("STORAGE_MODE", options.storage);
+        if (stub != null) {
+            env.put("SUPABASE_URL", stub.getUrl());
+            env.put("SUPABASE_ANON_KEY", "loadtest-anon-key");
+            env.put("SUPABASE_SERVICE_ROLE_KEY", "loadtest-service-role-key");
+        }
+        return builder.start();
+    }
+
+    private static void awaitReady(String baseUrl, Process server, Path log) throws Exception {
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest ping = HttpRequest.newBuilder(URI.create(baseUrl + "/ping")).timeout(Duration.ofSeconds(2)).build();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+        while (System.nanoTime() < deadline) {
+            if (!server.isAlive()) {
+                throw new IllegalStateException("Server exited with " + server.exitValue() + ", see " + log);
+            }
+            try {
+                if (client.send(ping, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return;
+                }
+            } catch (IOException e) {
+                // Not listening yet
+            }
+            Thread.sleep(200);
+        }
+        throw new IllegalStateException("Server did not become ready within 60s, see " + log);
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static void deleteRecursively(Path root) throws IOException {
+        try (Stream<Path> walk = Files.walk(root)) {
+            for (Path path : walk.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    static final class Options {
+        int users = 32;
+        int durationSeconds = 30;
+        int warmupSeconds = 5;
+        int fileSize = 64 * 1024;
+        int seedFiles = 5;
+        int members = 3;
+        long thinkMillis = 0;
+        long seed = 42;
+        int port = 0;
+        String storage = "local";
+        long stubLatencyMillis = 0;
+        String target;
+        boolean keep;
+        List<String> serverJvmArgs = new ArrayList<>();
+        private Operation[] weighted;
+
+        static Options parse(String[] args) {
+            Options options = new Options();
+            String mix = DEFAULT_MIX;
+            for (int i = 0; i < args.length; i++) {
+                String arg = args[i];
+                switch (arg) {
+                    case "--users" -> options.users = Integer.parseInt(args[++i]);
+                    case "--duration" -> options.durationSeconds = Integer.parseInt(args[++i]);
+                    case "--warmup" -> options.warmupSeconds = Integer.parseInt(args[++i]);
+                    case "--file-size" -> options.fileSize = Integer.parseInt(args[++i]);
+                    case "--seed-files" -> options.seedFiles = Integer.parseInt(args[++i]);
+                    case "--members" -> options.members = Integer.parseInt(args[++i]);
+                    case "--think-ms" -> options.thinkMillis = Long.parseLong(args[++i]);
+                    case "--seed" -> options.seed = Long.parseLong(args[++i]);
+                    case "--port" -> options.port = Integer.parseInt(args[++i]);
+                    case "--storage" -> options.storage = args[++i].toLowerCase(Locale.ROOT);
+                    case "--stub-latency-ms" -> options.stubLatencyMillis = Long.parseLong(args[++i]);
+                    case "--target" -> options.target = args[++i].replaceAll("/+$", "");
+                    case "--server-jvm-arg" -> options.serverJvmArgs.add(args[++i]);
+                    case "--mix" -> mix = args[++i];
+                    case "--keep" -> options.keep = true;
+                    case "--help", "-h" -> {
+                        printUsage();
+                        System.exit(0);
+                    }
+                    default -> throw new IllegalArgumentException("Unknown option: " + arg);
+                }
+            }
+            if (!options.storage.equals("local") && !options.storage.equals("supabase")) {
+                throw new IllegalArgumentException("--storage must be local or supabase");
+            }
+            if (options.users < 1 || options.durationSeconds < 1 || options.seedFiles < 1) {
+                throw new IllegalArgumentException("--users, --duration and --seed-files must be positive");
+            }
+            options.weighted = parseMix(mix);
+            return options;
+        }
+
+        Operation pick(Random random) {
+            return weighted[random.nextInt(weighted.length)];
+        }
+
+        private static Operation[] parseMix(String mix) {
+            Map<Operation, Integer> weights = new LinkedHashMap<>();
+            for (String part : mix.split(",")) {
+                String[] kv = part.trim().split("=", 2);
+                if (kv.length != 2) {
+                    throw new IllegalArgumentException("Bad --mix entry '" + part + "', expected op=weight");
+                }
+                weights.put(Operation.fromKey(kv[0].trim()), Integer.parseInt(kv[1].trim()));
+            }
+            List<Operation> table = new ArrayList<>();
+            weights.forEach((operation, weight) -> {
+                for (int i = 0; i < weight; i++) {
+                    table.add(operation);
+                }
+            });
+            if (table.isEmpty()) {
+                throw new IllegalArgumentException("--mix has no positive weights");
+            }
+            return table.toArray(new Operation[0]);
+        }
+
+        private static void printUsage() {
+            System.out.println("""
+                Options:
+                  --users N              simulated users, one thread each (32)
+                  --duration S           measured seconds (30)
+                  --warmup S             unmeasured seconds before measuring (5)
+                  --file-size BYTES      upload size (65536)
+                  --seed-files N         files uploaded to each space before the run (5)
+                  --members N            other users invited to each space (3)
+                  --mix op=w,...         operation weights, ops: list-spaces get-space list-files
+                                         activity download upload delete members
+                  --think-ms MS          pause between a user's requests (0)
+                  --storage MODE         local or supabase (stubbed in-process) (local)
+                  --stub-latency-ms MS   delay added by the Supabase stub (0)
+                  --server-jvm-arg ARG   extra JVM argument for the server, repeatable
+                  --port N               server port, 0 for a free port (0)
+                  --target URL           use a running server instead of starting one
+                  --keep                 keep the temp work dir (DB, uploads, server.log)
+                  --seed N               random seed (42)
+                """);
+        }
+    }
+}
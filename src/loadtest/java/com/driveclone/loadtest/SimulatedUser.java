@@ -0,0 +1,239 @@
+package com.driveclone.loadtest;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * One virtual user: owns a space, knows the files in it, and issues requests
+ * with a bearer token in the format lib/java-api.ts sends (base64 of
+ * {email, name, id}). Not thread-safe; each user runs on its own thread.
+ */
+class SimulatedUser {
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(60);
+
+    private final HttpClient client;
+    private final String baseUrl;
+    private final int index;
+    private final String email;
+    private final String token;
+    private final byte[] payload;
+    private final Random random;
+    private final LatencyRecorder recorder = new LatencyRecorder();
+    private final List<String> fileIds = new ArrayList<>();
+
+    private String spaceId;
+    private int minFiles;
+    private int uploadCounter;
+    private String invitedMember;
+    private volatile boolean recording;
+
+    SimulatedUser(HttpClient client, String baseUrl, int index, int fileSize, long seed) {
+        this.client = client;
+        this.baseUrl = baseUrl;
+        this.index = index;
+        this.email = emailFor(index);
+        this.token = tokenFor(email, "Load User " + index, "load-user-" + index);
+        this.random = new Random(seed);
+        this.payload = new byte[fileSize];
+        random.nextBytes(payload);
+    }
+
+    static String emailFor(int index) {
+        return "loaduser" + index + "@loadtest.local";
+    }
+
+    static String tokenFor(String email, String name, String id) {
+        JsonObject json = new JsonObject();
+        json.addProperty("email", email);
+        json.addProperty("name", name);
+        json.addProperty("id", id);
+        return Base64.getEncoder().encodeToString(json.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    LatencyRecorder getRecorder() {
+        return recorder;
+    }
+
+    void setRecording(boolean recording) {
+        this.recording = recording;
+    }
+
+    /**
+     * Create this user's space and upload the initial files.
+     */
+    void createSpace(int seedFiles) throws IOException, InterruptedException {
+        JsonObject body = new JsonObject();
+        body.addProperty("name", "Load space " + index);
+        body.addProperty("description", "Created by the load test");
+        HttpResponse<String> response = send("POST /api/spaces", json("/api/spaces", "POST", body.toString()));
+        expect(response, 201);
+        spaceId = JsonParser.parseString(response.body()).getAsJsonObject().get("id").getAsString();
+        for (int i = 0; i < seedFiles; i++) {
+            upload();
+        }
+        minFiles = fileIds.size();
+    }
+
+    /**
+     * Invite another simulated user so listings include shared spaces.
+     */
+    void invite(String memberEmail) throws IOException, InterruptedException {
+        JsonObject body = new JsonObject();
+        body.addProperty("email", memberEmail);
+        expect(send("POST /api/spaces/:id/members",
+            json("/api/spaces/" + spaceId + "/members", "POST", body.toString())), 200);
+    }
+
+    /**
+     * Run one operation.
+     */
+    void perform(Operation operation) throws IOException, InterruptedException {
+        switch (operation) {
+            case LIST_SPACES -> send("GET /api/spaces", get("/api/spaces"));
+            case GET_SPACE -> send("GET /api/spaces/:id", get("/api/spaces/" + spaceId));
+            case LIST_FILES -> send("GET /api/spaces/:spaceId/files", get("/api/spaces/" + spaceId + "/files"));
+            case ACTIVITY -> send("GET /api/spaces/:spaceId/activity", get("/api/spaces/" + spaceId + "/activity"));
+            case UPLOAD -> upload();
+            case DOWNLOAD -> download();
+            case DELETE -> deleteFile();
+            case MEMBERS -> toggleMember();
+        }
+    }
+
+    private void upload() throws IOException, InterruptedException {
+        String boundary = "----loadtest" + Long.toHexString(random.nextLong());
+        String filename = "load-" + index + "-" + (uploadCounter++) + ".bin";
+        byte[] head = ("--" + boundary + "\r\n"
+            + "Content-Disposition: form-data; name=\"file\"; filename=\"" + filename + "\"\r\n"
+            + "Content-Type: application/octet-stream\r\n\r\n").getBytes(StandardCharsets.UTF_8);
+        byte[] tail = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8);
+
+        HttpRequest request = authorized("/api/spaces/" + spaceId + "/files")
+            .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+            .POST(HttpRequest.BodyPublishers.ofByteArrays(List.of(head, payload, tail)))
+            .build();
+        HttpResponse<String> response = send("POST /api/spaces/:spaceId/files", request);
+        if (response != null && response.statusCode() == 201) {
+            fileIds.add(JsonParser.parseString(response.body()).getAsJsonObject().get("fileId").getAsString());
+        }
+    }
+
+    private void download() throws IOException, InterruptedException {
+        if (fileIds.isEmpty()) {
+            return;
+        }
+        String fileId = fileIds.get(random.nextInt(fileIds.size()));
+        HttpRequest request = authorized("/api/files/" + fileId).GET().build();
+        long start = System.nanoTime();
+        boolean ok = false;
+        try {
+            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+            ok = response.statusCode() < 400;
+        } finally {
+            record("GET /api/files/:fileId", start, ok);
+        }
+    }
+
+    private void deleteFile() throws IOException, InterruptedException {
+        if (fileIds.size() <= minFiles) {
+            upload();
+            return;
+        }
+        String fileId = fileIds.remove(minFiles + random.nextInt(fileIds.size() - minFiles));
+        send("DELETE /api/files/:fileId", authorized("/api/files/" + fileId).DELETE().build());
+    }
+
+    private void toggleMember() throws IOException, InterruptedException {
+        if (invitedMember == null) {
+            invitedMember = "guest" + index + "-" + Integer.toHexString(random.nextInt()) + "@loadtest.local";
+            JsonObject body = new JsonObject();
+            body.addProperty("email", invitedMember);
+            send("POST /api/spaces/:id/members", json("/api/spaces/" + spaceId + "/members", "POST", body.toString()));
+        } else {
+            send("DELETE /api/spaces/:id/members/:email",
+                authorized("/api/spaces/" + spaceId + "/members/" + invitedMember).DELETE().build());
+            invitedMember = null;
+        }
+    }
+
+    private HttpRequest get(String path) {
+        return authorized(path).GET().build();
+    }
+
+    private HttpRequest json(String path, String method, String body) {
+        return authorized(path)
+            .header("Content-Type", "application/json")
+            .method(method, HttpRequest.BodyPublishers.ofString(body))
+            .build();
+    }
+
+    private HttpRequest.Builder authorized(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+            .timeout(REQUEST_TIMEOUT)
+            .header("Authorization", "Bearer " + token);
+    }
+
+    private HttpResponse<String> send(String route, HttpRequest request) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        HttpResponse<String> response = null;
+        try {
+            response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            return response;
+        } finally {
+            record(route, start, response != null && response.statusCode() < 400);
+        }
+    }
+
+    private void record(String route, long startNanos, boolean ok) {
+        if (recording) {
+            recorder.record(route, System.nanoTime() - startNanos, ok);
+        }
+    }
+
+    private static void expect(HttpResponse<String> response, int status) throws IOException {
+        if (response.statusCode() != status) {
+            throw new IOException("Expected " + status + " but got " + response.statusCode() + ": " + response.body());
+        }
+    }
+
+    /**
+     * Request types in the workload mix, named as they appear in --mix.
+     */
+    enum Operation {
+        LIST_SPACES("list-spaces"),
+        GET_SPACE("get-space"),
+        LIST_FILES("list-files"),
+        ACTIVITY("activity"),
+        UPLOAD("upload"),
+        DOWNLOAD("download"),
+        DELETE("delete"),
+        MEMBERS("members");
+
+        final String key;
+
+        Operation(String key) {
+            this.key = key;
+        }
+
+        static Operation fromKey(String key) {
+            for (Operation operation : values()) {
+                if (operation.key.equals(key)) {
+                    return operation;
+                }
+            }
+            throw new IllegalArgumentException("Unknown operation '" + key + "'");
+        }
+    }
+}
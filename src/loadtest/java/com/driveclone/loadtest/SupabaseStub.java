@@ -0,0 +1,247 @@
+package com.driveclone.loadtest;
+
+import com.google.gson.Gson;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory stand-in for the Supabase Storage object API, covering the calls
+ * SupabaseStorageService makes:
+ *
+ *   POST   /storage/v1/object/{path}        upload (409 if it already exists)
+ *   GET    /storage/v1/object/{path}        download
+ *   DELETE /storage/v1/object/{path}        delete
+ *   POST   /storage/v1/object/list/{prefix} list direct children of prefix
+ *   POST   /storage/v1/object/move          move {bucketId, sourceKey, destinationKey}
+ *
+ * Requests without a bearer token are rejected like the real service. An
+ * optional fixed delay imitates network and backend latency.
+ *
+ * Standalone: java ... com.driveclone.loadtest.SupabaseStub [--port 54321] [--latency-ms 0]
+ */
+public class SupabaseStub {
+    private static final String PREFIX = "/storage/v1/object/";
+    private static final String LIST_PREFIX = "list/";
+    private static final String MOVE_PATH = "move";
+    private static final Gson gson = new Gson();
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final long latencyMillis;
+    private final ConcurrentSkipListMap<String, StoredObject> objects = new ConcurrentSkipListMap<>();
+    private final Map<String, Long> requestCounts = new ConcurrentHashMap<>();
+
+    private SupabaseStub(HttpServer server, ExecutorService executor, long latencyMillis) {
+        this.server = server;
+        this.executor = executor;
+        this.latencyMillis = latencyMillis;
+    }
+
+    /**
+     * Start the stub on localhost.
+     * @param port Port to bind, or 0 for any free port
+     * @param latencyMillis Delay added to every request
+     * @return Running stub
+     */
+    public static SupabaseStub start(int port, long latencyMillis) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 1024);
+        ExecutorService executor = Executors.newFixedThreadPool(64);
+        SupabaseStub stub = new SupabaseStub(server, executor, latencyMillis);
+        server.createContext(PREFIX, stub::handle);
+        server.setExecutor(executor);
+        server.start();
+        return stub;
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public String getUrl() {
+        return "http://127.0.0.1:" + getPort();
+    }
+
+    public int getObjectCount() {
+        return objects.size();
+    }
+
+    public long getStoredBytes() {
+        return objects.values().stream().mapToLong(o -> o.content.length).sum();
+    }
+
+    public Map<String, Long> getRequestCounts() {
+        return Map.copyOf(requestCounts);
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String method = exchange.getRequestMethod();
+            requestCounts.merge(method, 1L, Long::sum);
+            if (latencyMillis > 0) {
+                TimeUnit.MILLISECONDS.sleep(latencyMillis);
+            }
+
+            String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+            if (authorization == null || !authorization.startsWith("Bearer ")) {
+                sendError(exchange, 400, "Unauthorized", "headers must have required property 'authorization'");
+                return;
+            }
+
+            String path = URLDecoder.decode(exchange.getRequestURI().getRawPath().substring(PREFIX.length()),
+                StandardCharsets.UTF_8);
+            if (path.startsWith(LIST_PREFIX) && "POST".equals(method)) {
+                list(exchange, path.substring(LIST_PREFIX.length()));
+                return;
+            }
+            if (path.equals(MOVE_PATH) && "POST".equals(method)) {
+                move(exchange);
+                return;
+            }
+
+            switch (method) {
+                case "POST", "PUT" -> upload(exchange, path, "PUT".equals(method));
+                case "GET" -> download(exchange, path);
+                case "DELETE" -> delete(exchange, path);
+                default -> sendError(exchange, 405, "Method Not Allowed", method + " is not supported");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void upload(HttpExchange exchange, String path, boolean upsert) throws IOException {
+        byte[] content;
+        try (InputStream in = exchange.getRequestBody()) {
+            content = in.readAllBytes();
+        }
+        String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+        StoredObject object = new StoredObject(content, contentType != null ? contentType : "application/octet-stream");
+        boolean allowOverwrite = upsert || "true".equals(exchange.getRequestHeaders().getFirst("x-upsert"));
+        if (allowOverwrite) {
+            objects.put(path, object);
+        } else if (objects.putIfAbsent(path, object) != null) {
+            sendError(exchange, 409, "Duplicate", "The resource already exists");
+            return;
+        }
+        sendJson(exchange, 200, Map.of("Key", path));
+    }
+
+    private void download(HttpExchange exchange, String path) throws IOException {
+        StoredObject object = objects.get(path);
+        if (object == null) {
+            sendError(exchange, 404, "not_found", "Object not found");
+            return;
+        }
+        exchange.getResponseHeaders().set("Content-Type", object.contentType);
+        exchange.sendResponseHeaders(200, object.content.length == 0 ? -1 : object.content.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(object.content);
+        }
+    }
+
+    private void delete(HttpExchange exchange, String path) throws IOException {
+        if (objects.remove(path) == null) {
+            sendError(exchange, 404, "not_found", "Object not found");
+            return;
+        }
+        sendJson(exchange, 200, Map.of("message", "Successfully deleted"));
+    }
+
+    private void move(HttpExchange exchange) throws IOException {
+        MoveRequest request;
+        try (InputStream in = exchange.getRequestBody()) {
+            request = gson.fromJson(new String(in.readAllBytes(), StandardCharsets.UTF_8), MoveRequest.class);
+        }
+        if (request == null || request.bucketId == null || request.sourceKey == null || request.destinationKey == null) {
+            sendError(exchange, 400, "Bad Request", "bucketId, sourceKey and destinationKey are required");
+            return;
+        }
+        String destination = request.bucketId + "/" + request.destinationKey;
+        if (objects.containsKey(destination)) {
+            sendError(exchange, 409, "Duplicate", "The resource already exists");
+            return;
+        }
+        StoredObject object = objects.remove(request.bucketId + "/" + request.sourceKey);
+        if (object == null) {
+            sendError(exchange, 404, "not_found", "Object not found");
+            return;
+        }
+        objects.put(destination, object);
+        sendJson(exchange, 200, Map.of("message", "Successfully moved"));
+    }
+
+    private void list(HttpExchange exchange, String prefix) throws IOException {
+        exchange.getRequestBody().readAllBytes();
+        String directory = prefix.endsWith("/") ? prefix : prefix + "/";
+        List<Map<String, Object>> entries = new ArrayList<>();
+        for (Map.Entry<String, StoredObject> entry : objects.tailMap(directory).entrySet()) {
+            String key = entry.getKey();
+            if (!key.startsWith(directory)) {
+                break;
+            }
+            String name = key.substring(directory.length());
+            if (name.indexOf('/') < 0) {
+                entries.add(Map.of("name", name, "metadata", Map.of(
+                    "size", entry.getValue().content.length,
+                    "mimetype", entry.getValue().contentType)));
+            }
+        }
+        sendJson(exchange, 200, entries);
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String error, String message) throws IOException {
+        sendJson(exchange, status, Map.of("statusCode", String.valueOf(status), "error", error, "message", message));
+    }
+
+    private static void sendJson(HttpExchange exchange, int status, Object body) throws IOException {
+        byte[] bytes = gson.toJson(body).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private record StoredObject(byte[] content, String contentType) {}
+
+    private static final class MoveRequest {
+        String bucketId;
+        String sourceKey;
+        String destinationKey;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = 54321;
+        long latency = 0;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--port" -> port = Integer.parseInt(args[++i]);
+                case "--latency-ms" -> latency = Long.parseLong(args[++i]);
+                default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        SupabaseStub stub = start(port, latency);
+        Runtime.getRuntime().addShutdownHook(new Thread(stub::stop));
+        System.out.println("Supabase storage stub listening on " + stub.getUrl());
+    }
+}
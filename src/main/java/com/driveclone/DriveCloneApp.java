@@ -1,35 +1,71 @@
 package com.driveclone;
 
+import com.driveclone.model.FileRendition;
 import com.driveclone.model.Space;
 import com.driveclone.model.SpaceFile;
+import com.driveclone.metrics.Metrics;
+import com.driveclone.service.ChangeFeed;
+import com.driveclone.service.ContentIndexer;
+import com.driveclone.service.ListingCache;
+import com.driveclone.service.MappedFileCache;
+import com.driveclone.service.QuotaExceededException;
+import com.driveclone.service.RenditionService;
+import com.driveclone.service.SpaceFields;
 import com.driveclone.service.SpaceService;
+import com.driveclone.service.SqliteMetadataService;
+import com.driveclone.tracing.FileSpanExporter;
+import com.driveclone.tracing.Span;
+import com.driveclone.tracing.SpanExporter;
+import com.driveclone.tracing.Tracer;
+import com.driveclone.util.ByteBufferInputStream;
 import com.driveclone.util.GsonConfig;
 import com.driveclone.util.JsonResponse;
 import com.driveclone.auth.NextAuthJwtVerifier;
+import com.driveclone.util.Compression;
+import com.driveclone.web.AccessLog;
+import com.driveclone.web.RequestMetrics;
+import com.driveclone.web.RequestTracing;
+import com.driveclone.web.ResponseCompressor;
+import com.driveclone.web.StaticAssets;
 import com.google.gson.Gson;
 import com.google.gson.JsonObject;
+import org.eclipse.jetty.server.HttpOutput;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import spark.Request;
 import spark.Response;
+import spark.Route;
 import spark.Spark;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Supplier;
 import javax.servlet.MultipartConfigElement;
 
 public class DriveCloneApp {
     private static final Logger logger = LoggerFactory.getLogger(DriveCloneApp.class);
     private static final Gson gson = GsonConfig.getGson();
+    /** Upper bound on multipart boundaries and part headers around an uploaded file. */
+    private static final long MULTIPART_OVERHEAD_BYTES = 4096;
 
     private SpaceService spaceService;
+    private final StaticAssets staticAssets;
+    private final ResponseCompressor responseCompressor;
+    private final boolean compressDownloads;
 
     public DriveCloneApp() {
         // Initialize services
         this.spaceService = new SpaceService();
+        this.staticAssets = StaticAssets.load("/public");
+        this.responseCompressor = new ResponseCompressor();
+        this.compressDownloads = com.driveclone.config.Config.getInstance().isDownloadCompressionEnabled();
     }
 
     public static void main(String[] args) {
@@ -56,9 +92,23 @@ public class DriveCloneApp {
             Spark.port(port);
             logger.info("Starting DriveClone server on port: {}", port);
 
-            // Configure static files
-            Spark.staticFiles.location("/public");
-            
+            // Structured access log: stamp the start time first, emit after the response is built
+            Spark.before(AccessLog::start);
+            Spark.afterAfter(AccessLog::finish);
+
+            // Root span per request; closed last so it covers the other after-filters
+            configureTracing();
+            Spark.before(RequestTracing::start);
+
+            // Request latency histograms and in-flight gauge for /metrics
+            Spark.before(RequestMetrics::start);
+            Spark.afterAfter(RequestMetrics::finish);
+            Spark.afterAfter(RequestTracing::finish);
+            registerCacheGauges();
+            registerDatabaseGauges();
+            registerIndexingGauges();
+            registerRenditionGauges();
+
             // Configure multipart for file uploads
             Spark.before("/api/spaces/*/files", (request, response) -> {
                 if ("POST".equals(request.requestMethod())) {
@@ -67,6 +117,15 @@ public class DriveCloneApp {
                 }
             });
 
+            // Batch uploads may carry many files; parts above 1 MB spill to disk instead of the heap
+            Spark.before("/api/spaces/*/files/batch", (request, response) -> {
+                if ("POST".equals(request.requestMethod())) {
+                    long maxBytes = com.driveclone.config.Config.getInstance().getBatchUploadMaxBytes();
+                    request.raw().setAttribute("org.eclipse.jetty.multipartConfig",
+                        new MultipartConfigElement("/tmp", 100000000, maxBytes, 1024 * 1024));
+                }
+            });
+
             // Enable CORS for API routes only
             Spark.before("/api/*", (request, response) -> {
                 response.header("Access-Control-Allow-Origin", "*");
@@ -86,36 +145,13 @@ public class DriveCloneApp {
                 if (request.uri().equals("/api/login")) {
                     return;
                 }
-                
-                System.out.println("🔒 Authentication middleware triggered for: " + request.uri());
-                
-                String authHeader = request.headers("Authorization");
-                if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-                    System.out.println("❌ No Authorization header found");
-                    response.status(401);
-                    response.type("application/json");
-                    response.body(gson.toJson(Map.of("error", "Authentication failed")));
-                    Spark.halt();
-                    return;
-                }
-                
-                String token = authHeader.substring(7);
-                try {
-                    System.out.println("🔍 Verifying NextAuth token...");
-                    com.driveclone.model.User user = NextAuthJwtVerifier.verifyToken(token);
-                    
-                    // Store user in request attributes for use in route handlers
-                    request.attribute("user", user);
-                    System.out.println("✅ Token verified for user: " + user.getEmail());
-                } catch (Exception e) {
-                    System.out.println("❌ Token verification failed: " + e.getMessage());
-                    logger.warn("Token verification failed: {}", e.getMessage());
-                    response.status(401);
-                    response.type("application/json");
-                    response.body(gson.toJson(Map.of("error", "Authentication failed: " + e.getMessage())));
-                    Spark.halt();
-                }
+                authenticate(request, response);
             });
+            // Operational details (cache contents, query names, queue state) need a signed-in user too
+            Spark.before("/status/*", this::authenticate);
+
+            // Negotiated gzip for JSON API responses
+            Spark.after("/api/*", responseCompressor::compress);
 
             // Routes
             setupRoutes();
@@ -129,69 +165,168 @@ public class DriveCloneApp {
         }
     }
 
+    /**
+     * Verify the NextAuth JWT in the Authorization header and store its user
+     * in the "user" request attribute; halts with 401 otherwise.
+     */
+    private void authenticate(Request request, Response response) {
+        String authHeader = request.headers("Authorization");
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            logger.debug("No Authorization header for {}", request.uri());
+            response.type("application/json");
+            Spark.halt(401, gson.toJson(Map.of("error", "Authentication failed")));
+        }
+
+        String token = authHeader.substring(7);
+        try (Span span = Tracer.startSpan("auth.verifyToken")) {
+            com.driveclone.model.User user = NextAuthJwtVerifier.verifyToken(token);
+
+            // Store user in request attributes for use in route handlers
+            request.attribute("user", user);
+        } catch (Exception e) {
+            logger.warn("Token verification failed: {}", e.getMessage());
+            response.type("application/json");
+            Spark.halt(401, gson.toJson(Map.of("error", "Authentication failed: " + e.getMessage())));
+        }
+    }
+
+    private static void configureTracing() {
+        com.driveclone.config.Config config = com.driveclone.config.Config.getInstance();
+        String exporterName = config.getTraceExporter();
+        SpanExporter exporter = SpanExporter.NONE;
+        if ("file".equalsIgnoreCase(exporterName)) {
+            exporter = new FileSpanExporter(Paths.get(config.getTraceFile()), 8192);
+        } else if (!"none".equalsIgnoreCase(exporterName)) {
+            logger.warn("Unknown TRACE_EXPORTER '{}', traces will not be exported", exporterName);
+        }
+        Tracer.configure(exporter, config.getSlowRequestThresholdMillis());
+        Runtime.getRuntime().addShutdownHook(new Thread(Tracer.getExporter()::close, "span-exporter-shutdown"));
+    }
+
+    private void registerIndexingGauges() {
+        ContentIndexer indexer = spaceService.getContentIndexer();
+        Metrics.registerGauge("driveclone_content_index_queue_depth",
+            "Files waiting for a content indexing worker", indexer::getQueueDepth);
+        Metrics.registerGauge("driveclone_content_index_active_workers",
+            "Content indexing workers currently busy", indexer::getActiveWorkers);
+    }
+
+    private void registerRenditionGauges() {
+        RenditionService renditions = spaceService.getRenditionService();
+        Metrics.registerGauge("driveclone_rendition_queue_depth",
+            "Images waiting for a thumbnail worker", renditions::getQueueDepth);
+    }
+
+    private void registerCacheGauges() {
+        MappedFileCache cache = spaceService.getDownloadCache();
+        if (cache == null) {
+            return;
+        }
+        Metrics.registerGauge("driveclone_download_cache_resident_bytes",
+            "Bytes currently memory-mapped by the download cache", cache::getResidentBytes);
+        Metrics.registerGauge("driveclone_download_cache_hit_ratio",
+            "Download cache hits divided by lookups", cache::getHitRate);
+    }
+
+    private void registerDatabaseGauges() {
+        SqliteMetadataService metadata = spaceService.getMetadataService();
+        Metrics.registerGauge("driveclone_sqlite_statement_cache_hit_ratio",
+            "Prepared statement cache hits divided by lookups", metadata::getStatementCacheHitRate);
+        ListingCache listings = spaceService.getListingCache();
+        Metrics.registerGauge("driveclone_listing_cache_resident_bytes",
+            "Bytes of serialized listings held by the listing cache", listings::getResidentBytes);
+        Metrics.registerGauge("driveclone_listing_cache_hit_ratio",
+            "Listing cache hits divided by lookups", listings::getHitRate);
+        ChangeFeed feed = spaceService.getChangeFeed();
+        Metrics.registerGauge("driveclone_change_feed_subscribers",
+            "Clients connected to the change feed", feed::getSubscriberCount);
+    }
+
     private void setupRoutes() {
-        // Serve index.html at root
-        Spark.get("/", (request, response) -> {
-            response.type("text/html");
-            try {
-                java.io.InputStream is = getClass().getResourceAsStream("/public/index.html");
-                if (is != null) {
-                    byte[] bytes = is.readAllBytes();
-                    return new String(bytes, "UTF-8");
-                } else {
-                    response.status(404);
-                    return "<html><body><h1>HTML file not found</h1></body></html>";
-                }
-            } catch (Exception e) {
-                response.status(500);
-                return "<html><body><h1>Error loading HTML file: " + e.getMessage() + "</h1></body></html>";
-            }
-        });
-        
-        // Static files are served automatically by Spark.staticFiles.location("/public")
+        // Static files from /public (index.html also at root), loaded once at startup
+        staticAssets.registerRoutes();
 
         // Railway port verification route
-        Spark.get("/status", (request, response) -> {
+        get("/status", (request, response) -> {
             response.type("text/plain");
             return "🚀 DriveClone is running on port " + Spark.port();
         });
 
+        // Download cache residency and hit rate
+        get("/status/cache", (request, response) -> {
+            MappedFileCache cache = spaceService.getDownloadCache();
+            return JsonResponse.success(response, cache != null ? cache.getStats() : Map.of());
+        });
+
+        // SQLite connection pool and per-query statement cache usage
+        get("/status/statements", (request, response) ->
+            JsonResponse.success(response, spaceService.getMetadataService().getConnectionStats()));
+
+        // Listing cache residency, hit rate and revalidated polls
+        get("/status/listings", (request, response) ->
+            JsonResponse.success(response, spaceService.getListingCache().getStats()));
+
+        // Change feed subscribers and delivery counts
+        get("/status/events", (request, response) ->
+            JsonResponse.success(response, spaceService.getChangeFeed().getStats()));
+
+        // Content indexing queue and job states
+        get("/status/indexing", (request, response) ->
+            JsonResponse.success(response, spaceService.getContentIndexer().getStats()));
+
+        // Prometheus scrape endpoint
+        get("/metrics", (request, response) -> {
+            response.type(Metrics.contentType());
+            return Metrics.scrape();
+        });
+
 
         // Health check
-        Spark.get("/ping", this::ping);
+        get("/ping", this::ping);
         
         // Test endpoint for LocalDateTime serialization
-        Spark.get("/api/test-datetime", this::testDateTime);
+        get("/api/test-datetime", this::testDateTime);
 
         // API Routes (all under /api/)
         // Authentication routes
-        Spark.post("/api/login", this::login);
+        post("/api/login", this::login);
 
         // Space routes
-        Spark.get("/api/spaces", this::getSpaces);
-        Spark.post("/api/spaces", this::createSpace);
-        Spark.get("/api/spaces/:id", this::getSpace);
-        Spark.put("/api/spaces/:id", this::updateSpace);
-        Spark.delete("/api/spaces/:id", this::deleteSpace);
-        Spark.post("/api/spaces/:id/members", this::addMemberToSpace);
-        Spark.put("/api/spaces/:id/members/:email", this::updateMemberRole);
-        Spark.delete("/api/spaces/:id/members/:email", this::removeMemberFromSpace);
+        get("/api/spaces", this::getSpaces);
+        post("/api/spaces", this::createSpace);
+        get("/api/spaces/:id", this::getSpace);
+        put("/api/spaces/:id", this::updateSpace);
+        delete("/api/spaces/:id", this::deleteSpace);
+        get("/api/spaces/:id/members", this::getMembers);
+        post("/api/spaces/:id/members", this::addMemberToSpace);
+        post("/api/spaces/:id/members/batch", this::addMembersToSpace);
+        put("/api/spaces/:id/members/:email", this::updateMemberRole);
+        delete("/api/spaces/:id/members/:email", this::removeMemberFromSpace);
 
         // File routes
-        Spark.get("/api/spaces/:spaceId/files", this::getFiles);
-        Spark.post("/api/spaces/:spaceId/files", this::uploadFile);
-        Spark.get("/api/files/:fileId", this::downloadFile);
-        Spark.delete("/api/files/:fileId", this::deleteFile);
+        get("/api/spaces/:spaceId/files", this::getFiles);
+        get("/api/spaces/:spaceId/changes", this::getChanges);
+        post("/api/spaces/:spaceId/files", this::uploadFile);
+        post("/api/spaces/:spaceId/files/batch", this::uploadFiles);
+        get("/api/spaces/:spaceId/files/search", this::searchFiles);
+        get("/api/spaces/:spaceId/usage", this::getStorageUsage);
+        get("/api/spaces/:spaceId/archive", this::downloadArchive);
+        post("/api/spaces/:spaceId/archive", this::downloadArchive);
+        get("/api/files/:fileId", this::downloadFile);
+        get("/api/files/:fileId/thumbnail", this::getThumbnail);
+        delete("/api/files/:fileId", this::deleteFile);
+        post("/api/files/batch/delete", this::deleteFiles);
+        post("/api/files/batch/move", this::moveFiles);
 
         // Activity routes
-        Spark.get("/api/spaces/:spaceId/activity", this::getActivityLog);
+        get("/api/spaces/:spaceId/activity", this::getActivityLog);
+
+        // Change feed: server-sent events for the user's spaces
+        get("/api/events", this::streamEvents);
 
         // Global exception handler for all unhandled exceptions
         Spark.exception(Exception.class, (exception, request, response) -> {
             logger.error("Unhandled exception in " + request.requestMethod() + " " + request.uri(), exception);
-            System.out.println("❌ Unhandled exception: " + exception.getMessage());
-            exception.printStackTrace();
-            
             String errorMessage = "Internal server error";
             if (exception.getMessage() != null) {
                 errorMessage += ": " + exception.getMessage();
@@ -201,6 +336,22 @@ public class DriveCloneApp {
         });
     }
 
+    private static void get(String path, Route route) {
+        Spark.get(path, AccessLog.route(path, route));
+    }
+
+    private static void post(String path, Route route) {
+        Spark.post(path, AccessLog.route(path, route));
+    }
+
+    private static void put(String path, Route route) {
+        Spark.put(path, AccessLog.route(path, route));
+    }
+
+    private static void delete(String path, Route route) {
+        Spark.delete(path, AccessLog.route(path, route));
+    }
+
     private Object ping(Request request, Response response) {
         response.type("text/plain");
         return "OK";
@@ -244,20 +395,23 @@ public class DriveCloneApp {
             
             if (spaceService == null) {
                 // Return empty list when service is not available
-                System.out.println("📝 SpaceService not available, returning empty list");
-                System.out.println("✅ JSON response built for /api/spaces");
+                logger.debug("SpaceService not available, returning empty list");
                 JsonResponse.logApiCall(request.requestMethod(), request.uri(), 200, user.getEmail());
                 return JsonResponse.success(response, Collections.emptyList());
             }
             
-            List<Space> spaces = spaceService.getSpacesForUser(user.getEmail());
-
-            // Ensure we always return a valid JSON array, never null
-            List<Space> safeSpaces = JsonResponse.ensureList(spaces);
-            
-            System.out.println("✅ JSON response built for /api/spaces");
-            JsonResponse.logApiCall(request.requestMethod(), request.uri(), 200, user.getEmail());
-            return JsonResponse.success(response, safeSpaces);
+            // Listings leave members out unless ?fields= asks for them
+            SpaceFields fields = SpaceFields.parse(request.queryParams("fields"), SpaceFields.SUMMARY);
+            long version = spaceService.getListingCache().getSpacesVersion(user.getEmail());
+            String body = cachedListing(request, response, "spaces:" + user.getEmail() + ":" + fields, version, () ->
+                // Ensure we always return a valid JSON array, never null
+                JsonResponse.ensureList(spaceService.getSpacesForUser(user.getEmail(), fields)));
+
+            JsonResponse.logApiCall(request.requestMethod(), request.uri(), response.status(), user.getEmail());
+            return body;
+        } catch (IllegalArgumentException e) {
+            JsonResponse.logApiCall(request.requestMethod(), request.uri(), 400, null);
+            return JsonResponse.badRequest(response, e.getMessage());
         } catch (Exception e) {
             logger.error("Error getting spaces", e);
             JsonResponse.logApiCall(request.requestMethod(), request.uri(), 500, null);
@@ -268,32 +422,25 @@ public class DriveCloneApp {
     private Object createSpace(Request request, Response response) {
         try {
             com.driveclone.model.User user = request.attribute("user");
-            System.out.println("🔍 Creating space for user: " + user.getEmail() + " (UID: " + user.getFirebaseUid() + ")");
-            
             JsonObject body = gson.fromJson(request.body(), JsonObject.class);
 
             String name = body.get("name").getAsString();
             String description = body.has("description") ? body.get("description").getAsString() : "";
-            
-            System.out.println("🔍 Space details - Name: " + name + ", Description: " + description);
+            logger.debug("Creating space '{}' for user {} (UID: {})", name, user.getEmail(), user.getFirebaseUid());
 
             String spaceId = spaceService.createSpace(name, description, user.getFirebaseUid(), user.getEmail());
-            System.out.println("✅ Space created with ID: " + spaceId);
-            
             Optional<Space> space = spaceService.getSpace(spaceId);
 
             if (space.isPresent()) {
                 JsonResponse.logApiCall(request.requestMethod(), request.uri(), 201, user.getEmail());
                 return JsonResponse.success(response, space.get(), 201);
             } else {
-                System.out.println("❌ Failed to retrieve created space with ID: " + spaceId);
+                logger.warn("Failed to retrieve created space with ID: {}", spaceId);
                 JsonResponse.logApiCall(request.requestMethod(), request.uri(), 500, user.getEmail());
                 return JsonResponse.internalError(response, "Failed to retrieve created space");
             }
         } catch (Exception e) {
             logger.error("Error creating space", e);
-            System.out.println("❌ Error creating space: " + e.getMessage());
-            e.printStackTrace();
             JsonResponse.logApiCall(request.requestMethod(), request.uri(), 500, null);
             return JsonResponse.internalError(response, "Failed to create space: " + e.getMessage());
         }
@@ -303,8 +450,9 @@ public class DriveCloneApp {
         try {
             com.driveclone.model.User user = request.attribute("user");
             String spaceId = request.params(":id");
+            SpaceFields fields = SpaceFields.parse(request.queryParams("fields"), SpaceFields.ALL);
 
-            Optional<Space> space = spaceService.getSpace(spaceId);
+            Optional<Space> space = spaceService.getSpace(spaceId, fields);
             if (space.isEmpty()) {
                 JsonResponse.logApiCall(request.requestMethod(), request.uri(), 404, user.getEmail());
                 return JsonResponse.notFound(response, "Space not found");
@@ -317,6 +465,9 @@ public class DriveCloneApp {
 
             JsonResponse.logApiCall(request.requestMethod(), request.uri(), 200, user.getEmail());
             return JsonResponse.success(response, space.get());
+        } catch (IllegalArgumentException e) {
+            JsonResponse.logApiCall(request.requestMethod(), request.uri(), 400, null);
+            return JsonResponse.badRequest(response, e.getMessage());
         } catch (Exception e) {
             logger.error("Error getting space", e);
             JsonResponse.logApiCall(request.requestMethod(), request.uri(), 500, null);
@@ -349,7 +500,7 @@ public class DriveCloneApp {
                 space.setDescription(body.get("description").getAsString());
             }
 
-            spaceService.updateSpace(space);
+            spaceService.updateSpace(space, user.getEmail());
 
             JsonResponse.logApiCall(request.requestMethod(), request.uri(), 200, user.getEmail());
             return JsonResponse.success(response, space);
@@ -370,7 +521,7 @@ public class DriveCloneApp {
                 return JsonResponse.forbidden(response, "Only admins can delete spaces");
             }
 
-            spaceService.deleteSpace(spaceId);
+            spaceService.deleteSpace(spaceId, user.getEmail());
 
             JsonResponse.logApiCall(request.requestMethod(), request.uri(), 200, user.getEmail());
             return JsonResponse.success(response, Map.of("message", "Space deleted successfully"));
@@ -415,6 +566,101 @@ public class DriveCloneApp {
         }
     }
 
+    /**
+     * Add the members in {"emails": [...]} with one transaction and one
+     * activity entry.
+     */
+    private Object addMembersToSpace(Request request, Response response) {
+        try {
+            com.driveclone.model.User user = request.attribute("user");
+            String spaceId = request.params(":id");
+            JsonObject body = gson.fromJson(request.body(), JsonObject.class);
+
+            if (!spaceService.isUserAdminOfSpace(spaceId, user.getEmail())) {
+                JsonResponse.logApiCall(request.requestMethod(), request.uri(), 403, user.getEmail());
+                return JsonResponse.forbidden(response, "Only admins can add members");
+            }
+
+            if (body == null || !body.has("emails") || !body.get("emails").isJsonArray()) {
+                JsonResponse.logApiCall(request.requestMethod(), request.uri(), 400, user.getEmail());
+                return JsonResponse.badRequest(response, "Body must contain an emails array");
+            }
+            List<String> emails = new java.util.ArrayList<>();
+            List<String> invalid = new java.util.ArrayList<>();
+            for (com.google.gson.JsonElement element : body.getAsJsonArray("emails")) {
+                String email = element.isJsonPrimitive() ? element.getAsString().trim() : "";
+                if (email.indexOf('@') > 0) {
+                    emails.add(email);
+                } else {
+                    invalid.add(element.toString());
+                }
+            }
+            if (!invalid.isEmpty()) {
+                JsonResponse.logApiCall(request.requestMethod(), request.uri(), 400, user.getEmail());
+                return JsonResponse.badRequest(response, "Invalid emails: " + String.join(", ", invalid));
+            }
+            int maxMembers = com.driveclone.config.Config.getInstance().getBatchInviteMaxMembers();
+            if (emails.isEmpty() || emails.size() > maxMembers) {
+                JsonResponse.logApiCall(request.requestMethod(), request.uri(), 400, user.getEmail());
+                return JsonResponse.badRequest(response, "Between 1 and " + maxMembers + " emails per batch");
+            }
+
+            Optional<Space> spaceOpt = spaceService.getSpace(spaceId);
+            if (spaceOpt.isEmpty()) {
+                JsonResponse.logApiCall(request.requestMethod(), request.uri(), 404, user.getEmail());
+                return JsonResponse.notFound(response, "Space not found");
+            }
+
+            SpaceService.InviteResult result = spaceService.addMembersToSpace(spaceOpt.get(), emails, user.getEmail());
+
+            JsonResponse.logApiCall(request.requestMethod(), request.uri(), 200, user.getEmail());
+            return JsonResponse.success(response, Map.of(
+                "added", result.added(),
+                "alreadyMembers", result.alreadyMembers()));
+        } catch (Exception e) {
+            logger.error("Error adding members to space", e);
+            JsonResponse.logApiCall(request.requestMethod(), request.uri(), 500, null);
+            return JsonResponse.internalError(response, "Failed to add members: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Members of a space a page at a time: ?limit= and the cursor from the
+     * previous page's nextCursor.
+     */
+    private Object getMembers(Request request, Response response) {
+        try {
+            com.driveclone.model.User user = request.attribute("user");
+            String spaceId = request.params(":id");
+
+            if (!spaceService.isUserMemberOfSpace(spaceId, user.getEmail())) {
+                JsonResponse.logApiCall(request.requestMethod(), request.uri(), 403, user.getEmail());
+                return JsonResponse.forbidden(response, "Access denied");
+            }
+
+            int limit = Math.min(Math.max(parseIntParam(request, "limit", 100), 1), 1000);
+            SqliteMetadataService.MemberPage page = spaceService.getMembers(spaceId, request.queryParams("cursor"), limit);
+
+            Map<String, Object> body = new java.util.LinkedHashMap<>();
+            body.put("members", page.members());
+            body.put("limit", limit);
+            body.put("hasMore", page.nextCursor() != null);
+            if (page.nextCursor() != null) {
+                body.put("nextCursor", page.nextCursor());
+            }
+
+            JsonResponse.logApiCall(request.requestMethod(), request.uri(), 200, user.getEmail());
+            return JsonResponse.success(response, body);
+        } catch (IllegalArgumentException e) {
+            JsonResponse.logApiCall(request.requestMethod(), request.uri(), 400, null);
+            return JsonResponse.badRequest(response, e.getMessage());
+        } catch (Exception e) {
+            logger.error("Error listing members", e);
+            JsonResponse.logApiCall(request.requestMethod(), request.uri(), 500, null);
+            return JsonResponse.internalError(response, "Failed to list members: " + e.getMessage());
+        }
+    }
+
     private Object removeMemberFromSpace(Request request, Response response) {
         try {
             com.driveclone.model.User user = request.attribute("user");
@@ -494,19 +740,19 @@ public class DriveCloneApp {
         try {
             com.driveclone.model.User user = request.attribute("user");
             String spaceId = request.params(":spaceId");
+            long version = spaceService.getListingCache().getVersion(spaceId);
 
             if (!spaceService.isUserMemberOfSpace(spaceId, user.getEmail())) {
                 JsonResponse.logApiCall(request.requestMethod(), request.uri(), 403, user.getEmail());
                 return JsonResponse.forbidden(response, "Access denied");
             }
 
-            List<SpaceFile> files = spaceService.getFilesForSpace(spaceId);
+            String body = cachedListing(request, response, "files:" + spaceId, version, () ->
+                // Ensure we always return a valid JSON array, never null
+                JsonResponse.ensureList(spaceService.getFilesForSpace(spaceId)));
             
-            // Ensure we always return a valid JSON array, never null
-            List<SpaceFile> safeFiles = JsonResponse.ensureList(files);
-            
-            JsonResponse.logApiCall(request.requestMethod(), request.uri(), 200, user.getEmail());
-            return JsonResponse.success(response, safeFiles);
+            JsonResponse.logApiCall(request.requestMethod(), request.uri(), response.status(), user.getEmail());
+            return body;
         } catch (Exception e) {
             logger.error("Error getting files", e);
             JsonResponse.logApiCall(request.requestMethod(), request.uri(), 500, null);
@@ -514,13 +760,172 @@ public class DriveCloneApp {
         }
     }
 
+    /**
+     * Incremental sync: what changed in a space after ?since=, a cursor
+     * from an earlier response (0 or absent for everything). Follow
+     * nextCursor while hasMore is set; an unchanged space answers a
+     * revalidated poll with 304.
+     */
+    private Object getChanges(Request request, Response response) {
+        try {
+            com.driveclone.model.User user = request.attribute("user");
+            String spaceId = request.params(":spaceId");
+            long version = spaceService.getListingCache().getVersion(spaceId);
+
+            if (!spaceService.isUserMemberOfSpace(spaceId, user.getEmail())) {
+                JsonResponse.logApiCall(request.requestMethod(), request.uri(), 403, user.getEmail());
+                return JsonResponse.forbidden(response, "Access denied");
+            }
+
+            String sinceParam = request.queryParams("since");
+            long since;
+            try {
+                since = sinceParam == null || sinceParam.isBlank() ? 0 : Long.parseLong(sinceParam.trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid since cursor: " + sinceParam);
+            }
+            if (since < 0) {
+                throw new IllegalArgumentException("Invalid since cursor: " + sinceParam);
+            }
+            int limit = Math.min(Math.max(parseIntParam(request, "limit", 500), 1), 1000);
+
+            String body = cachedListing(request, response, "changes:" + spaceId + ":" + since + ":" + limit, version, () -> {
+                SqliteMetadataService.ChangePage page = spaceService.getChanges(spaceId, since, limit);
+                Map<String, Object> changes = new java.util.LinkedHashMap<>();
+                changes.put("files", page.files());
+                changes.put("deletedFiles", page.deletedFiles());
+                changes.put("members", page.members());
+                changes.put("removedMembers", page.removedMembers());
+                changes.put("nextCursor", Long.toString(page.cursor()));
+                changes.put("hasMore", page.hasMore());
+                return changes;
+            });
+
+            JsonResponse.logApiCall(request.requestMethod(), request.uri(), response.status(), user.getEmail());
+            return body;
+        } catch (IllegalArgumentException e) {
+            JsonResponse.logApiCall(request.requestMethod(), request.uri(), 400, null);
+            return JsonResponse.badRequest(response, e.getMessage());
+        } catch (Exception e) {
+            logger.error("Error getting changes", e);
+            JsonResponse.logApiCall(request.requestMethod(), request.uri(), 500, null);
+            return JsonResponse.internalError(response, "Failed to get changes: " + e.getMessage());
+        }
+    }
+
+    private Object searchFiles(Request request, Response response) {
+        try {
+            com.driveclone.model.User user = request.attribute("user");
+            String spaceId = request.params(":spaceId");
+
+            if (!spaceService.isUserMemberOfSpace(spaceId, user.getEmail())) {
+                JsonResponse.logApiCall(request.requestMethod(), request.uri(), 403, user.getEmail());
+                return JsonResponse.forbidden(response, "Access denied");
+            }
+
+            String query = request.queryParams("q");
+            if (query == null || query.isBlank()) {
+                JsonResponse.logApiCall(request.requestMethod(), request.uri(), 400, user.getEmail());
+                return JsonResponse.badRequest(response, "Query parameter 'q' is required");
+            }
+            int limit = Math.min(Math.max(parseIntParam(request, "limit", 50), 1), 200);
+            int offset = Math.max(parseIntParam(request, "offset", 0), 0);
+
+            // Fetch one extra row to tell whether another page exists
+            boolean byContent = "content".equals(request.queryParams("in"));
+            List<SpaceFile> files = byContent
+                ? spaceService.searchFileContents(spaceId, query, limit + 1, offset)
+                : spaceService.searchFiles(spaceId, query, limit + 1, offset);
+            boolean hasMore = files.size() > limit;
+            if (hasMore) {
+                files = files.subList(0, limit);
+            }
+
+            Map<String, Object> body = new java.util.LinkedHashMap<>();
+            body.put("files", files);
+            body.put("limit", limit);
+            body.put("offset", offset);
+            body.put("hasMore", hasMore);
+            if (hasMore) {
+                body.put("nextOffset", offset + limit);
+            }
+
+            JsonResponse.logApiCall(request.requestMethod(), request.uri(), 200, user.getEmail());
+            return JsonResponse.success(response, body);
+        } catch (Exception e) {
+            logger.error("Error searching files", e);
+            JsonResponse.logApiCall(request.requestMethod(), request.uri(), 500, null);
+            return JsonResponse.internalError(response, "Failed to search files: " + e.getMessage());
+        }
+    }
+
+    private Object getStorageUsage(Request request, Response response) {
+        try {
+            com.driveclone.model.User user = request.attribute("user");
+            String spaceId = request.params(":spaceId");
+
+            if (!spaceService.isUserMemberOfSpace(spaceId, user.getEmail())) {
+                JsonResponse.logApiCall(request.requestMethod(), request.uri(), 403, user.getEmail());
+                return JsonResponse.forbidden(response, "Access denied");
+            }
+
+            JsonResponse.logApiCall(request.requestMethod(), request.uri(), 200, user.getEmail());
+            return JsonResponse.success(response, spaceService.getStorageUsage(spaceId));
+        } catch (Exception e) {
+            logger.error("Error getting storage usage", e);
+            JsonResponse.logApiCall(request.requestMethod(), request.uri(), 500, null);
+            return JsonResponse.internalError(response, "Failed to get storage usage: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Serve a listing at a version: 304 when the client already holds it,
+     * else the JSON cached for the version, else a fresh load that is then
+     * cached. Read the version before the access check and the load, so a
+     * concurrent write can only make the answer look stale, never newer.
+     * @param key Listing identity, including anything that varies per user
+     * @param version Version of the listing's scope
+     * @param load Produces the listing on a miss
+     */
+    private String cachedListing(Request request, Response response, String key, long version,
+                                 Supplier<Object> load) {
+        ListingCache cache = spaceService.getListingCache();
+        String etag = cache.etag(key, version);
+        response.header("ETag", etag);
+        response.header("Cache-Control", "private, no-cache");
+        String matched = cache.notModified(request.headers("If-None-Match"), etag);
+        if (matched != null) {
+            response.raw().setHeader("ETag", matched);
+            response.status(304);
+            return "";
+        }
+        String json = (String) cache.get(key, version);
+        if (json != null) {
+            response.type("application/json");
+            response.status(200);
+            return json;
+        }
+        json = JsonResponse.success(response, load.get());
+        cache.put(key, version, json);
+        return json;
+    }
+
+    private static int parseIntParam(Request request, String name, int defaultValue) {
+        String value = request.queryParams(name);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
     private Object uploadFile(Request request, Response response) {
         try {
             com.driveclone.model.User user = request.attribute("user");
             String spaceId = request.params(":spaceId");
-            
-            System.out.println("🔍 Uploading file to space: " + spaceId);
-            System.out.println("🔍 Content-Type: " + request.contentType());
 
             if (!spaceService.isUserMemberOfSpace(spaceId, user.getEmail())) {
                 JsonResponse.logApiCall(request.requestMethod(), request.uri(), 403, user.getEmail());
@@ -529,15 +934,20 @@ public class DriveCloneApp {
 
             // Ensure multipart/form-data
             if (!request.contentType().startsWith("multipart/form-data")) {
-                System.out.println("❌ Invalid content type: " + request.contentType());
+                logger.debug("Invalid upload content type: {}", request.contentType());
                 JsonResponse.logApiCall(request.requestMethod(), request.uri(), 400, user.getEmail());
                 return JsonResponse.badRequest(response, "Content-Type must be multipart/form-data");
             }
 
+            // Refuse uploads that clearly cannot fit before the body is read
+            long declaredLength = request.contentLength();
+            if (declaredLength > 0) {
+                spaceService.checkQuota(spaceId, user.getEmail(), Math.max(0, declaredLength - MULTIPART_OVERHEAD_BYTES));
+            }
+
             // Get file from multipart form data
             javax.servlet.http.Part uploadedFile = request.raw().getPart("file");
             if (uploadedFile == null) {
-                System.out.println("❌ No file part found in request");
                 JsonResponse.logApiCall(request.requestMethod(), request.uri(), 400, user.getEmail());
                 return JsonResponse.badRequest(response, "No file provided");
             }
@@ -546,25 +956,142 @@ public class DriveCloneApp {
             String contentType = uploadedFile.getContentType();
             long size = uploadedFile.getSize();
             InputStream inputStream = uploadedFile.getInputStream();
-            
-            System.out.println("✅ File details - Name: " + originalFilename + ", Size: " + size + ", Type: " + contentType);
 
             String fileId = spaceService.uploadFile(inputStream, spaceId, originalFilename, 
                                                   contentType, size, user.getFirebaseUid(), user.getEmail());
-            
-            System.out.println("✅ File uploaded successfully with ID: " + fileId);
+            Metrics.BYTES_UPLOADED.inc(size);
 
             JsonResponse.logApiCall(request.requestMethod(), request.uri(), 201, user.getEmail());
             return JsonResponse.success(response, Map.of("fileId", fileId, "message", "File uploaded successfully"), 201);
+        } catch (QuotaExceededException e) {
+            JsonResponse.logApiCall(request.requestMethod(), request.uri(), 413, null);
+            return JsonResponse.payloadTooLarge(response, e.getMessage());
         } catch (Exception e) {
             logger.error("Error uploading file", e);
-            System.out.println("❌ Upload error: " + e.getMessage());
-            e.printStackTrace();
             JsonResponse.logApiCall(request.requestMethod(), request.uri(), 500, null);
             return JsonResponse.internalError(response, "Failed to upload file: " + e.getMessage());
         }
     }
 
+    /**
+     * Multipart upload of many files at once; every part with a filename is
+     * stored. All-or-nothing: if any file fails, none is kept.
+     */
+    private Object uploadFiles(Request request, Response response) {
+        try {
+            com.driveclone.model.User user = request.attribute("user");
+            String spaceId = request.params(":spaceId");
+
+            if (!spaceService.isUserMemberOfSpace(spaceId, user.getEmail())) {
+                JsonResponse.logApiCall(request.requestMethod(), request.uri(), 403, user.getEmail());
+                return JsonResponse.forbidden(response, "Access denied");
+            }
+
+            if (request.contentType() == null || !request.contentType().startsWith("multipart/form-data")) {
+                JsonResponse.logApiCall(request.requestMethod(), request.uri(), 400, user.getEmail());
+                return JsonResponse.badRequest(response, "Content-Type must be multipart/form-data");
+            }
+
+            java.util.Collection<javax.servlet.http.Part> parts;
+            try {
+                parts = request.raw().getParts();
+            } catch (IllegalStateException e) {
+                // Jetty rejects bodies over the configured multipart limits
+                JsonResponse.logApiCall(request.requestMethod(), request.uri(), 413, user.getEmail());
+                return JsonResponse.payloadTooLarge(response, "Batch exceeds the upload size limit");
+            }
+
+            List<SpaceService.FileUpload> uploads = new java.util.ArrayList<>();
+            for (javax.servlet.http.Part part : parts) {
+                if (part.getSubmittedFileName() != null) {
+                    uploads.add(new SpaceService.FileUpload(part.getSubmittedFileName(), part.getContentType(),
+                        part.getSize(), part::getInputStream));
+                }
+            }
+            if (uploads.isEmpty()) {
+                JsonResponse.logApiCall(request.requestMethod(), request.uri(), 400, user.getEmail());
+                return JsonResponse.badRequest(response, "No files provided");
+            }
+            int maxFiles = com.driveclone.config.Config.getInstance().getBatchUploadMaxFiles();
+            if (uploads.size() > maxFiles) {
+                JsonResponse.logApiCall(request.requestMethod(), request.uri(), 400, user.getEmail());
+                return JsonResponse.badRequest(response, "At most " + maxFiles + " files per batch");
+            }
+
+            List<String> fileIds = spaceService.uploadFiles(uploads, spaceId, user.getFirebaseUid(), user.getEmail());
+            List<Map<String, String>> created = new java.util.ArrayList<>(fileIds.size());
+            long bytes = 0;
+            for (int i = 0; i < fileIds.size(); i++) {
+                created.add(Map.of("fileId", fileIds.get(i), "filename", uploads.get(i).originalFilename()));
+                bytes += uploads.get(i).size();
+            }
+            Metrics.BYTES_UPLOADED.inc(bytes);
+
+            JsonResponse.logApiCall(request.requestMethod(), request.uri(), 201, user.getEmail());
+            return JsonResponse.success(response, Map.of(
+                "files", created,
+                "count", created.size(),
+                "message", created.size() + " files uploaded successfully"), 201);
+        } catch (QuotaExceededException e) {
+            JsonResponse.logApiCall(request.requestMethod(), request.uri(), 413, null);
+            return JsonResponse.payloadTooLarge(response, e.getMessage());
+        } catch (Exception e) {
+            logger.error("Error uploading files", e);
+            JsonResponse.logApiCall(request.requestMethod(), request.uri(), 500, null);
+            return JsonResponse.internalError(response, "Failed to upload files: " + e.getMessage());
+        }
+    }
+
+    private Object getThumbnail(Request request, Response response) {
+        try {
+            com.driveclone.model.User user = request.attribute("user");
+            String fileId = request.params(":fileId");
+
+            Optional<SpaceFile> fileOpt = spaceService.getFile(fileId);
+            if (fileOpt.isEmpty()) {
+                JsonResponse.logApiCall(request.requestMethod(), request.uri(), 404, user.getEmail());
+                return JsonResponse.notFound(response, "File not found");
+            }
+            if (!spaceService.isUserMemberOfSpace(fileOpt.get().getSpaceId(), user.getEmail())) {
+                JsonResponse.logApiCall(request.requestMethod(), request.uri(), 403, user.getEmail());
+                return JsonResponse.forbidden(response, "You don't have access to this file");
+            }
+
+            Optional<FileRendition> thumbnail = spaceService.getThumbnail(fileId);
+            if (thumbnail.isEmpty()) {
+                JsonResponse.logApiCall(request.requestMethod(), request.uri(), 404, user.getEmail());
+                return JsonResponse.notFound(response, "Thumbnail not available");
+            }
+
+            // Listings link to ?v=<version>, which names one generated image for good;
+            // any other URL revalidates, as the thumbnail may be regenerated
+            FileRendition rendition = thumbnail.get();
+            String etag = "\"" + fileId + "-" + rendition.getKind() + "-" + rendition.getWidth() + "x"
+                + rendition.getHeight() + "-" + rendition.getVersion() + "\"";
+            response.header("ETag", etag);
+            response.header("Cache-Control", rendition.getVersion().equals(request.queryParams("v"))
+                ? "private, max-age=31536000, immutable" : "private, no-cache");
+            if (etag.equals(request.headers("If-None-Match"))) {
+                response.status(304);
+                JsonResponse.logApiCall(request.requestMethod(), request.uri(), 304, user.getEmail());
+                return "";
+            }
+
+            response.type(rendition.getContentType());
+            response.raw().setContentLengthLong(rendition.getSize());
+            try (InputStream in = spaceService.openRendition(rendition)) {
+                in.transferTo(response.raw().getOutputStream());
+            }
+
+            JsonResponse.logApiCall(request.requestMethod(), request.uri(), 200, user.getEmail());
+            return "";
+        } catch (Exception e) {
+            logger.error("Error serving thumbnail", e);
+            JsonResponse.logApiCall(request.requestMethod(), request.uri(), 500, null);
+            return JsonResponse.internalError(response, "Failed to get thumbnail: " + e.getMessage());
+        }
+    }
+
     private Object downloadFile(Request request, Response response) {
         try {
             com.driveclone.model.User user = request.attribute("user");
@@ -581,15 +1108,35 @@ public class DriveCloneApp {
 
             response.type(file.getContentType());
             response.header("Content-Disposition", "attachment; filename=\"" + file.getOriginalFilename() + "\"");
-            
+
+            // Text-like downloads are gzipped on the fly; everything else goes out as stored
+            boolean gzip = compressDownloads
+                && Compression.isCompressible(file.getContentType())
+                && Compression.accepts(request.headers("Accept-Encoding"), "gzip");
+            response.header("Vary", "Accept-Encoding");
+
             // Stream the file content
-            byte[] buffer = new byte[8192];
-            int bytesRead;
-            while ((bytesRead = inputStream.read(buffer)) != -1) {
-                response.raw().getOutputStream().write(buffer, 0, bytesRead);
+            try (InputStream in = inputStream) {
+                OutputStream out = response.raw().getOutputStream();
+                if (gzip) {
+                    response.header("Content-Encoding", "gzip");
+                    try (OutputStream gzipOut = Compression.gzipStream(out, responseCompressor.getLevel())) {
+                        in.transferTo(gzipOut);
+                    }
+                } else if (in instanceof ByteBufferInputStream mapped && out instanceof HttpOutput httpOutput) {
+                    // Mapped files go to the connector without an on-heap copy
+                    response.raw().setContentLengthLong(mapped.available());
+                    httpOutput.write(mapped.buffer());
+                } else {
+                    byte[] buffer = new byte[8192];
+                    int bytesRead;
+                    while ((bytesRead = in.read(buffer)) != -1) {
+                        out.write(buffer, 0, bytesRead);
+                    }
+                }
             }
-            inputStream.close();
-            
+
+            Metrics.BYTES_DOWNLOADED.inc(file.getSize());
             JsonResponse.logApiCall(request.requestMethod(), request.uri(), 200, user.getEmail());
             return "";
         } catch (Exception e) {
@@ -599,6 +1146,65 @@ public class DriveCloneApp {
         }
     }
 
+    /**
+     * ZIP of a whole space, or of the files listed in ?ids=a,b,c (GET) or
+     * {"fileIds": [...]} (POST, for selections too long for a URL).
+     */
+    private Object downloadArchive(Request request, Response response) {
+        com.driveclone.model.User user = request.attribute("user");
+        String spaceId = request.params(":spaceId");
+        try {
+            Optional<Space> space = spaceService.getSpace(spaceId);
+            if (space.isEmpty()) {
+                JsonResponse.logApiCall(request.requestMethod(), request.uri(), 404, user.getEmail());
+                return JsonResponse.notFound(response, "Space not found");
+            }
+            if (!spaceService.isUserMemberOfSpace(spaceId, user.getEmail())) {
+                JsonResponse.logApiCall(request.requestMethod(), request.uri(), 403, user.getEmail());
+                return JsonResponse.forbidden(response, "Access denied");
+            }
+
+            List<String> fileIds = null;
+            if ("POST".equals(request.requestMethod())) {
+                fileIds = readFileIds(gson.fromJson(request.body(), JsonObject.class));
+                if (fileIds == null) {
+                    JsonResponse.logApiCall(request.requestMethod(), request.uri(), 400, user.getEmail());
+                    return JsonResponse.badRequest(response, "Body must contain a fileIds array");
+                }
+            } else if (request.queryParams("ids") != null) {
+                fileIds = java.util.Arrays.stream(request.queryParams("ids").split(","))
+                    .map(String::trim).filter(id -> !id.isEmpty()).toList();
+            }
+
+            List<SpaceFile> files = spaceService.getFilesForArchive(spaceId, fileIds, user.getEmail());
+            if (files.isEmpty()) {
+                JsonResponse.logApiCall(request.requestMethod(), request.uri(), 404, user.getEmail());
+                return JsonResponse.notFound(response, "No files to archive");
+            }
+
+            String archiveName = space.get().getName().replaceAll("[^A-Za-z0-9._ -]", "_").trim();
+            response.type("application/zip");
+            response.header("Content-Disposition",
+                "attachment; filename=\"" + (archiveName.isEmpty() ? "space" : archiveName) + ".zip\"");
+            response.header("Cache-Control", "no-store");
+
+            long bytes = spaceService.writeArchive(files, response.raw().getOutputStream());
+            Metrics.BYTES_DOWNLOADED.inc(bytes);
+
+            JsonResponse.logApiCall(request.requestMethod(), request.uri(), 200, user.getEmail());
+            return "";
+        } catch (Exception e) {
+            logger.error("Error streaming archive of space: {}", spaceId, e);
+            if (response.raw().isCommitted()) {
+                // Part of the archive is already out; abort so the client sees a failed transfer, not a short ZIP
+                org.eclipse.jetty.server.Request.getBaseRequest(request.raw()).getHttpChannel().abort(e);
+                return "";
+            }
+            JsonResponse.logApiCall(request.requestMethod(), request.uri(), 500, null);
+            return JsonResponse.internalError(response, "Failed to create archive: " + e.getMessage());
+        }
+    }
+
     private Object deleteFile(Request request, Response response) {
         try {
             com.driveclone.model.User user = request.attribute("user");
@@ -615,20 +1221,102 @@ public class DriveCloneApp {
         }
     }
 
+    /**
+     * Delete the files in {"fileIds": [...]}, which may span spaces.
+     */
+    private Object deleteFiles(Request request, Response response) {
+        try {
+            com.driveclone.model.User user = request.attribute("user");
+            JsonObject body = gson.fromJson(request.body(), JsonObject.class);
+            List<String> fileIds = readFileIds(body);
+            if (fileIds == null) {
+                JsonResponse.logApiCall(request.requestMethod(), request.uri(), 400, user.getEmail());
+                return JsonResponse.badRequest(response, "Body must contain a fileIds array");
+            }
+
+            SpaceService.BatchResult result = spaceService.deleteFiles(fileIds, user.getEmail());
+
+            JsonResponse.logApiCall(request.requestMethod(), request.uri(), 200, user.getEmail());
+            return JsonResponse.success(response, Map.of(
+                "deleted", result.processed(),
+                "notFound", result.notFound()));
+        } catch (SecurityException e) {
+            JsonResponse.logApiCall(request.requestMethod(), request.uri(), 403, null);
+            return JsonResponse.forbidden(response, e.getMessage());
+        } catch (Exception e) {
+            logger.error("Error deleting files", e);
+            JsonResponse.logApiCall(request.requestMethod(), request.uri(), 500, null);
+            return JsonResponse.internalError(response, "Failed to delete files: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Move the files in {"fileIds": [...]} into {"targetSpaceId": ...}.
+     */
+    private Object moveFiles(Request request, Response response) {
+        try {
+            com.driveclone.model.User user = request.attribute("user");
+            JsonObject body = gson.fromJson(request.body(), JsonObject.class);
+            List<String> fileIds = readFileIds(body);
+            if (fileIds == null || !body.has("targetSpaceId")) {
+                JsonResponse.logApiCall(request.requestMethod(), request.uri(), 400, user.getEmail());
+                return JsonResponse.badRequest(response, "Body must contain a fileIds array and a targetSpaceId");
+            }
+            String targetSpaceId = body.get("targetSpaceId").getAsString();
+            if (spaceService.getSpace(targetSpaceId).isEmpty()) {
+                JsonResponse.logApiCall(request.requestMethod(), request.uri(), 404, user.getEmail());
+                return JsonResponse.notFound(response, "Target space not found");
+            }
+
+            SpaceService.BatchResult result = spaceService.moveFiles(fileIds, targetSpaceId, user.getEmail());
+
+            JsonResponse.logApiCall(request.requestMethod(), request.uri(), 200, user.getEmail());
+            return JsonResponse.success(response, Map.of(
+                "moved", result.processed(),
+                "notFound", result.notFound()));
+        } catch (SecurityException e) {
+            JsonResponse.logApiCall(request.requestMethod(), request.uri(), 403, null);
+            return JsonResponse.forbidden(response, e.getMessage());
+        } catch (QuotaExceededException e) {
+            JsonResponse.logApiCall(request.requestMethod(), request.uri(), 413, null);
+            return JsonResponse.payloadTooLarge(response, e.getMessage());
+        } catch (Exception e) {
+            logger.error("Error moving files", e);
+            JsonResponse.logApiCall(request.requestMethod(), request.uri(), 500, null);
+            return JsonResponse.internalError(response, "Failed to move files: " + e.getMessage());
+        }
+    }
+
+    /**
+     * The fileIds array of a JSON body, or null if it is missing.
+     */
+    private static List<String> readFileIds(JsonObject body) {
+        if (body == null || !body.has("fileIds") || !body.get("fileIds").isJsonArray()) {
+            return null;
+        }
+        List<String> fileIds = new java.util.ArrayList<>();
+        for (com.google.gson.JsonElement id : body.getAsJsonArray("fileIds")) {
+            fileIds.add(id.getAsString());
+        }
+        return fileIds;
+    }
+
     private Object getActivityLog(Request request, Response response) {
         try {
             com.driveclone.model.User user = request.attribute("user");
             String spaceId = request.params(":spaceId");
+            long version = spaceService.getListingCache().getVersion(spaceId);
 
             if (!spaceService.isUserMemberOfSpace(spaceId, user.getEmail())) {
                 JsonResponse.logApiCall(request.requestMethod(), request.uri(), 403, user.getEmail());
                 return JsonResponse.forbidden(response, "Access denied");
             }
 
-            List<com.driveclone.model.Activity> activities = spaceService.getActivityLog(spaceId);
+            String body = cachedListing(request, response, "activity:" + spaceId, version, () ->
+                spaceService.getActivityLog(spaceId));
 
-            JsonResponse.logApiCall(request.requestMethod(), request.uri(), 200, user.getEmail());
-            return JsonResponse.success(response, activities);
+            JsonResponse.logApiCall(request.requestMethod(), request.uri(), response.status(), user.getEmail());
+            return body;
         } catch (Exception e) {
             logger.error("Error getting activity log", e);
             JsonResponse.logApiCall(request.requestMethod(), request.uri(), 500, null);
@@ -636,4 +1324,101 @@ public class DriveCloneApp {
         }
     }
 
+    /**
+     * Server-sent events for changes in the user's spaces. A client that
+     * reconnects with Last-Event-ID (one sequence per metadata shard) first
+     * gets the events it missed, or a reset event when the gap is too long
+     * to replay. The request keeps its server thread until the client goes
+     * away or falls too far behind.
+     */
+    private Object streamEvents(Request request, Response response) {
+        com.driveclone.model.User user = request.attribute("user");
+        ChangeFeed feed = spaceService.getChangeFeed();
+
+        String lastEventHeader = request.headers("Last-Event-ID");
+        if (lastEventHeader == null) {
+            lastEventHeader = request.queryParams("lastEventId");
+        }
+        long[] lastEventId = null;
+        if (lastEventHeader != null && !lastEventHeader.isBlank()) {
+            try {
+                lastEventId = ChangeFeed.parseEventId(lastEventHeader.trim());
+            } catch (NumberFormatException e) {
+                JsonResponse.logApiCall(request.requestMethod(), request.uri(), 400, user.getEmail());
+                return JsonResponse.badRequest(response, "Invalid Last-Event-ID");
+            }
+        }
+
+        ChangeFeed.Subscription subscription;
+        try {
+            subscription = feed.subscribe(user.getEmail());
+        } catch (IllegalStateException e) {
+            JsonResponse.logApiCall(request.requestMethod(), request.uri(), 503, user.getEmail());
+            return JsonResponse.serviceUnavailable(response, e.getMessage());
+        } catch (Exception e) {
+            logger.error("Error subscribing to change feed", e);
+            JsonResponse.logApiCall(request.requestMethod(), request.uri(), 500, null);
+            return JsonResponse.internalError(response, "Failed to subscribe: " + e.getMessage());
+        }
+
+        try {
+            boolean replayed = lastEventId != null && feed.replay(subscription, lastEventId);
+
+            response.status(200);
+            response.type("text/event-stream");
+            response.header("Cache-Control", "no-cache");
+            response.header("X-Accel-Buffering", "no");
+            OutputStream out = response.raw().getOutputStream();
+            out.write("retry: 3000\n\n".getBytes(StandardCharsets.UTF_8));
+
+            if (lastEventId == null) {
+                feed.start(subscription);
+            } else if (!replayed) {
+                writeEvent(out, feed.start(subscription), "reset", "{}");
+            }
+            out.flush();
+
+            long heartbeatMillis = com.driveclone.config.Config.getInstance().getChangeFeedHeartbeatMillis();
+            while (!subscription.isClosed()) {
+                ChangeFeed.ChangeEvent event = subscription.next(heartbeatMillis);
+                if (event != null) {
+                    writeEvent(out, subscription.getLastEventId(), event.type(), gson.toJson(event.activity()));
+                } else if (!subscription.isClosed()) {
+                    // Comment line; keeps proxies and the idle timeout from closing the stream
+                    out.write(": ping\n\n".getBytes(StandardCharsets.UTF_8));
+                }
+                out.flush();
+            }
+        } catch (IOException e) {
+            logger.debug("Change feed client {} disconnected: {}", user.getEmail(), e.toString());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            logger.error("Error streaming change feed", e);
+            if (!response.raw().isCommitted()) {
+                JsonResponse.logApiCall(request.requestMethod(), request.uri(), 500, null);
+                return JsonResponse.internalError(response, "Failed to stream events: " + e.getMessage());
+            }
+        } finally {
+            feed.unsubscribe(subscription);
+        }
+        JsonResponse.logApiCall(request.requestMethod(), request.uri(), 200, user.getEmail());
+        return "";
+    }
+
+    /**
+     * One event in text/event-stream framing. Multi-line data (pretty
+     * printed JSON) is sent as one data field per line.
+     */
+    private static void writeEvent(OutputStream out, String id, String type, String data) throws IOException {
+        StringBuilder event = new StringBuilder();
+        event.append("id: ").append(id).append('\n');
+        event.append("event: ").append(type).append('\n');
+        for (String line : data.split("\n")) {
+            event.append("data: ").append(line).append('\n');
+        }
+        event.append('\n');
+        out.write(event.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
 }
\ No newline at end of file
@@ -37,7 +37,7 @@ public class NextAuthJwtVerifier {
             user.setName(name);
             user.setFirebaseUid(id); // Reusing this field for NextAuth user ID
             
-            logger.info("Verified NextAuth token for user: {}", email);
+            logger.debug("Verified NextAuth token for user: {}", email);
             return user;
         } catch (Exception e) {
             logger.error("Failed to verify NextAuth token", e);
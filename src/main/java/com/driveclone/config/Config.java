@@ -61,6 +61,26 @@ public class Config {
         return getEnvVar("DB_PATH", "driveclone.db");
     }
 
+    public int getSqlitePoolSize() {
+        return (int) Math.max(1, getLongEnvVar("SQLITE_POOL_SIZE", 8));
+    }
+
+    public int getSqliteStatementCacheSize() {
+        return (int) Math.max(1, getLongEnvVar("SQLITE_STATEMENT_CACHE_SIZE", 64));
+    }
+
+    public long getSqlitePoolTimeoutMillis() {
+        return Math.max(0, getLongEnvVar("SQLITE_POOL_TIMEOUT_MS", 10_000));
+    }
+
+    public int getSqliteBusyTimeoutMillis() {
+        return (int) Math.max(0, getLongEnvVar("SQLITE_BUSY_TIMEOUT_MS", 5_000));
+    }
+
+    public int getSqliteShards() {
+        return (int) Math.max(1, getLongEnvVar("SQLITE_SHARDS", 1));
+    }
+
     // Firebase Configuration
     public String getFirebaseProjectId() {
         return getEnvVar("FIREBASE_PROJECT_ID");
@@ -93,7 +113,134 @@ public class Config {
 
     // Storage Configuration
     public String getStorageMode() {
-        return getEnvVar("STORAGE_MODE", "supabase");
+        return getEnvVar("STORAGE_MODE", "local");
+    }
+
+    public String getStoragePath() {
+        return getEnvVar("STORAGE_PATH", "uploads");
+    }
+
+    // Download Cache Configuration
+    public long getMappedCacheMaxBytes() {
+        return getLongEnvVar("MAPPED_CACHE_MAX_BYTES", 256L * 1024 * 1024);
+    }
+
+    public long getMappedCacheMaxFileSize() {
+        return getLongEnvVar("MAPPED_CACHE_MAX_FILE_SIZE", 4L * 1024 * 1024);
+    }
+
+    // Response Compression Configuration
+    public int getCompressionLevel() {
+        return (int) getLongEnvVar("COMPRESSION_LEVEL", 6);
+    }
+
+    public int getCompressionMinSize() {
+        return (int) getLongEnvVar("COMPRESSION_MIN_SIZE", 1024);
+    }
+
+    public boolean isDownloadCompressionEnabled() {
+        return getBooleanEnvVar("COMPRESS_DOWNLOADS", true);
+    }
+
+    // Content Indexing Configuration
+    public int getContentIndexWorkers() {
+        return (int) Math.max(1, getLongEnvVar("CONTENT_INDEX_WORKERS", 2));
+    }
+
+    public int getContentIndexQueueCapacity() {
+        return (int) Math.max(1, getLongEnvVar("CONTENT_INDEX_QUEUE", 1000));
+    }
+
+    public long getContentIndexMaxBytes() {
+        return getLongEnvVar("CONTENT_INDEX_MAX_BYTES", 1024 * 1024);
+    }
+
+    public int getContentIndexMaxAttempts() {
+        return (int) Math.max(1, getLongEnvVar("CONTENT_INDEX_MAX_ATTEMPTS", 5));
+    }
+
+    // Thumbnail Configuration
+    public int getThumbnailSize() {
+        return (int) Math.max(16, getLongEnvVar("THUMBNAIL_SIZE", 256));
+    }
+
+    public int getRenditionWorkers() {
+        return (int) Math.max(1, getLongEnvVar("RENDITION_WORKERS", 2));
+    }
+
+    public int getRenditionQueueCapacity() {
+        return (int) Math.max(1, getLongEnvVar("RENDITION_QUEUE", 500));
+    }
+
+    public long getRenditionMaxSourceBytes() {
+        return getLongEnvVar("RENDITION_MAX_SOURCE_BYTES", 50L * 1024 * 1024);
+    }
+
+    // Quota Configuration (0 means unlimited)
+    public long getSpaceQuotaBytes() {
+        return Math.max(0, getLongEnvVar("SPACE_QUOTA_BYTES", 0));
+    }
+
+    public long getSpaceQuotaFiles() {
+        return Math.max(0, getLongEnvVar("SPACE_QUOTA_FILES", 0));
+    }
+
+    public long getUploaderQuotaBytes() {
+        return Math.max(0, getLongEnvVar("UPLOADER_QUOTA_BYTES", 0));
+    }
+
+    public long getQuotaReconcileIntervalMinutes() {
+        return Math.max(0, getLongEnvVar("QUOTA_RECONCILE_INTERVAL_MINUTES", 60));
+    }
+
+    // Batch Upload Configuration
+    public int getBatchUploadConcurrency() {
+        return (int) Math.max(1, getLongEnvVar("BATCH_UPLOAD_CONCURRENCY", 4));
+    }
+
+    public int getBatchUploadMaxFiles() {
+        return (int) Math.max(1, getLongEnvVar("BATCH_UPLOAD_MAX_FILES", 1000));
+    }
+
+    public long getBatchUploadMaxBytes() {
+        return getLongEnvVar("BATCH_UPLOAD_MAX_BYTES", 1024L * 1024 * 1024);
+    }
+
+    public long getListingCacheMaxBytes() {
+        return Math.max(0, getLongEnvVar("LISTING_CACHE_MAX_BYTES", 32L * 1024 * 1024));
+    }
+
+    public int getChangeFeedMaxSubscribers() {
+        return (int) Math.max(1, getLongEnvVar("CHANGE_FEED_MAX_SUBSCRIBERS", 64));
+    }
+
+    public int getChangeFeedBufferSize() {
+        return (int) Math.max(1, getLongEnvVar("CHANGE_FEED_BUFFER_SIZE", 256));
+    }
+
+    public int getChangeFeedReplayLimit() {
+        return (int) Math.max(1, getLongEnvVar("CHANGE_FEED_REPLAY_LIMIT", 1000));
+    }
+
+    public long getChangeFeedHeartbeatMillis() {
+        return Math.max(1000, getLongEnvVar("CHANGE_FEED_HEARTBEAT_MS", 15000));
+    }
+
+    public int getBatchInviteMaxMembers() {
+        return (int) Math.max(1, getLongEnvVar("BATCH_INVITE_MAX_MEMBERS", 1000));
+    }
+
+    // Tracing Configuration
+    public String getTraceExporter() {
+        return getEnvVar("TRACE_EXPORTER", "none");
+    }
+
+    public String getTraceFile() {
+        return getEnvVar("TRACE_FILE", "logs/traces.jsonl");
+    }
+
+    public long getSlowRequestThresholdMillis() {
+        return getLongEnvVar("SLOW_REQUEST_THRESHOLD_MS", 1000);
     }
 
     // Admin Configuration
@@ -105,6 +252,20 @@ public class Config {
         return getEnvVar("JWT_SECRET", "default-jwt-secret-for-development");
     }
 
+    private long getLongEnvVar(String key, long defaultValue) {
+        String value = getEnvVar(key, String.valueOf(defaultValue));
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            logger.warn("Invalid {} value '{}', using default {}", key, value, defaultValue);
+            return defaultValue;
+        }
+    }
+
+    private boolean getBooleanEnvVar(String key, boolean defaultValue) {
+        return Boolean.parseBoolean(getEnvVar(key, String.valueOf(defaultValue)).trim());
+    }
+
     private String getEnvVar(String key) {
         return getEnvVar(key, null);
     }
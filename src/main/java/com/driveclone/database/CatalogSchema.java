@@ -0,0 +1,30 @@
+package com.driveclone.database;
+
+import java.util.List;
+
+/**
+ * Schema history of the shard catalog (see {@link ShardLayout}), oldest
+ * first. Add new migrations at the end; never edit one that has shipped.
+ */
+public final class CatalogSchema {
+
+    public static final List<Migration> MIGRATIONS = List.of(
+        Migration.to(1, "map users to their spaces across shards")
+            .sql("""
+                CREATE TABLE IF NOT EXISTS catalog_settings (
+                    name TEXT PRIMARY KEY,
+                    value TEXT NOT NULL
+                )
+            """, """
+                CREATE TABLE IF NOT EXISTS user_spaces (
+                    member_email TEXT NOT NULL,
+                    space_id BLOB NOT NULL,
+                    PRIMARY KEY (member_email, space_id)
+                ) WITHOUT ROWID
+            """,
+                "CREATE INDEX IF NOT EXISTS idx_user_spaces_space ON user_spaces(space_id)")
+    );
+
+    private CatalogSchema() {
+    }
+}
@@ -0,0 +1,228 @@
+package com.driveclone.database;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sqlite.SQLiteConfig;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fixed set of long-lived SQLite connections, each with its own
+ * {@link StatementCache}. Opening a connection per request also threw away
+ * every compiled statement with it; keeping connections open lets the hot
+ * queries be parsed and planned once per connection instead of per call.
+ *
+ * Borrowed connections are handles whose close() returns the connection to
+ * the pool, rolling back anything left uncommitted. The statement cache of
+ * a borrowed connection is reached with {@code unwrap(StatementCache.class)}.
+ *
+ * Every connection opens in WAL mode, so readers do not block the writer,
+ * and with a busy timeout, so a writer waits for the write lock instead of
+ * failing with SQLITE_BUSY. Transactions begun with setAutoCommit(false)
+ * are BEGIN IMMEDIATE: they take the write lock up front, because a
+ * deferred transaction that reads first and then tries to write cannot
+ * wait for the lock and fails at once.
+ */
+public class ConnectionPool implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(ConnectionPool.class);
+
+    private final BlockingQueue<Pooled> idle;
+    private final String url;
+    private final SQLiteConfig sqliteConfig;
+    private final int statementsPerConnection;
+    private final List<Pooled> all = new CopyOnWriteArrayList<>();
+    private final long borrowTimeoutMillis;
+    private final StatementCache.Stats stats;
+    private volatile boolean closed;
+
+    /**
+     * @param url JDBC URL of the database
+     * @param size Number of connections, opened up front
+     * @param statementsPerConnection Bound of each connection's statement cache
+     * @param borrowTimeoutMillis How long a caller waits for a free connection
+     * @param busyTimeoutMillis How long a statement waits for another connection's lock
+     * @param stats Statement usage counters, shared by all connections
+     */
+    public ConnectionPool(String url, int size, int statementsPerConnection, long borrowTimeoutMillis,
+                          int busyTimeoutMillis, StatementCache.Stats stats) throws SQLException {
+        this.url = url;
+        this.sqliteConfig = new SQLiteConfig();
+        sqliteConfig.setJournalMode(SQLiteConfig.JournalMode.WAL);
+        sqliteConfig.setBusyTimeout(busyTimeoutMillis);
+        sqliteConfig.setTransactionMode(SQLiteConfig.TransactionMode.IMMEDIATE);
+        this.statementsPerConnection = statementsPerConnection;
+        this.idle = new ArrayBlockingQueue<>(size);
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.stats = stats;
+        try {
+            for (int i = 0; i < size; i++) {
+                idle.add(open());
+            }
+        } catch (SQLException e) {
+            close();
+            throw e;
+        }
+        logger.info("Opened {} SQLite connections, caching up to {} statements each", size, statementsPerConnection);
+    }
+
+    private Pooled open() throws SQLException {
+        Connection conn = DriverManager.getConnection(url, sqliteConfig.toProperties());
+        Pooled pooled = new Pooled(conn, new StatementCache(conn, statementsPerConnection, stats));
+        all.add(pooled);
+        return pooled;
+    }
+
+    /**
+     * Borrow a connection, waiting if all are in use.
+     * @throws SQLException if none frees up within the borrow timeout
+     */
+    public Connection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+        Pooled pooled;
+        try {
+            pooled = idle.poll(borrowTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted waiting for a database connection", e);
+        }
+        if (pooled == null) {
+            throw new SQLException("No database connection free after " + borrowTimeoutMillis + " ms");
+        }
+        return pooled.borrow();
+    }
+
+    public int getSize() {
+        return all.size();
+    }
+
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    public StatementCache.Stats getStatementStats() {
+        return stats;
+    }
+
+    public Map<String, Object> getStats() {
+        int cached = 0;
+        for (Pooled pooled : all) {
+            cached += pooled.cache.size();
+        }
+        return Map.of(
+            "connections", getSize(),
+            "idleConnections", getIdleCount(),
+            "cachedStatements", cached,
+            "hits", stats.getHits(),
+            "prepares", stats.getPrepares(),
+            "hitRate", stats.getHitRate(),
+            "queries", stats.getQueries()
+        );
+    }
+
+    /**
+     * Close every connection. Connections still borrowed are closed too;
+     * call once requests have stopped.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (Pooled pooled : all) {
+            pooled.cache.clear();
+            try {
+                pooled.connection.close();
+            } catch (SQLException e) {
+                logger.warn("Error closing SQLite connection", e);
+            }
+        }
+        idle.clear();
+    }
+
+    private final class Pooled {
+        final Connection connection;
+        final StatementCache cache;
+
+        Pooled(Connection connection, StatementCache cache) {
+            this.connection = connection;
+            this.cache = cache;
+        }
+
+        /**
+         * A fresh handle per borrow, so a second close() by the same caller
+         * cannot return the connection twice.
+         */
+        Connection borrow() {
+            boolean[] released = new boolean[1];
+            return (Connection) Proxy.newProxyInstance(ConnectionPool.class.getClassLoader(),
+                new Class<?>[] {Connection.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "close":
+                            if (!released[0]) {
+                                released[0] = true;
+                                release();
+                            }
+                            return null;
+                        case "isClosed":
+                            return released[0];
+                        case "unwrap":
+                            if (args[0] == StatementCache.class) {
+                                return cache;
+                            }
+                            return invoke(method, args);
+                        case "isWrapperFor":
+                            return args[0] == StatementCache.class || (boolean) invoke(method, args);
+                        default:
+                            if (released[0] && method.getDeclaringClass() != Object.class) {
+                                throw new SQLException("Connection has been returned to the pool");
+                            }
+                            return invoke(method, args);
+                    }
+                });
+        }
+
+        private Object invoke(Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(connection, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        private void release() {
+            try {
+                cache.releaseAll();
+                if (!connection.getAutoCommit()) {
+                    connection.rollback();
+                    connection.setAutoCommit(true);
+                }
+                idle.add(this);
+            } catch (SQLException e) {
+                logger.error("Replacing SQLite connection that failed to reset", e);
+                cache.clear();
+                try {
+                    connection.close();
+                } catch (SQLException ignored) {
+                    // Already failing
+                }
+                all.remove(this);
+                try {
+                    idle.add(open());
+                } catch (SQLException reopen) {
+                    logger.error("Failed to reopen SQLite connection; pool shrinks to {}", all.size(), reopen);
+                }
+            }
+        }
+    }
+}
@@ -4,18 +4,16 @@ import com.driveclone.config.Config;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
-import java.sql.Statement;
+import java.util.List;
 
+/**
+ * Migrates the metadata database ahead of a deploy, so the server itself
+ * starts against a current schema. Uses the same migrations as
+ * SqliteMetadataService, on every shard and the catalog when sharded.
+ */
 public class DatabaseInitializer {
     private static final Logger logger = LoggerFactory.getLogger(DatabaseInitializer.class);
     private final Config config;
@@ -24,66 +22,40 @@ public class DatabaseInitializer {
         this.config = Config.getInstance();
     }
 
-    public void initializeDatabase() {
+    /**
+     * @return Number of migrations applied
+     */
+    public int initializeDatabase() {
         String dbPath = config.getDbPath();
-        logger.info("Initializing database at: {}", dbPath);
-
-        try {
-            // Check if database file exists
-            Path dbFile = Paths.get(dbPath);
-            boolean dbExists = Files.exists(dbFile);
+        int shards = config.getSqliteShards();
+        int applied = 0;
+        for (String path : ShardLayout.shardPaths(dbPath, shards)) {
+            applied += migrate(path, MetadataSchema.MIGRATIONS);
+        }
+        if (shards > 1) {
+            applied += migrate(ShardLayout.catalogPath(dbPath), CatalogSchema.MIGRATIONS);
+        }
+        return applied;
+    }
 
-            // Create database connection
-            String url = "jdbc:sqlite:" + dbPath;
-            try (Connection connection = DriverManager.getConnection(url)) {
-                logger.info("Connected to SQLite database: {}", dbPath);
+    private int migrate(String path, List<Migration> migrations) {
+        logger.info("Migrating database at: {}", path);
 
-                if (!dbExists) {
-                    logger.info("Database file does not exist, creating schema...");
-                    createSchema(connection);
-                    logger.info("Database schema created successfully");
-                } else {
-                    logger.info("Database file exists, skipping schema creation");
-                }
-            }
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + path)) {
+            SchemaMigrator migrator = new SchemaMigrator(migrations);
+            int applied = migrator.migrate(connection);
+            logger.info("Database at schema version {} ({} migrations applied)", migrator.getLatestVersion(), applied);
+            return applied;
         } catch (SQLException e) {
             logger.error("Failed to initialize database", e);
             throw new RuntimeException("Database initialization failed", e);
         }
     }
 
-    private void createSchema(Connection connection) throws SQLException {
-        try (InputStream schemaStream = getClass().getResourceAsStream("/schema.sql");
-             BufferedReader reader = new BufferedReader(new InputStreamReader(schemaStream))) {
-
-            StringBuilder schema = new StringBuilder();
-            String line;
-            while ((line = reader.readLine()) != null) {
-                schema.append(line).append("\n");
-            }
-
-            // Split schema into individual statements
-            String[] statements = schema.toString().split(";");
-            
-            try (Statement statement = connection.createStatement()) {
-                for (String sql : statements) {
-                    sql = sql.trim();
-                    if (!sql.isEmpty() && !sql.startsWith("--")) {
-                        logger.debug("Executing SQL: {}", sql);
-                        statement.execute(sql);
-                    }
-                }
-            }
-        } catch (IOException e) {
-            logger.error("Failed to read schema file", e);
-            throw new RuntimeException("Failed to read schema file", e);
-        }
-    }
-
     public static void main(String[] args) {
-        // Allow running this class directly for database initialization
+        // Allow running this class directly for database migration
         DatabaseInitializer initializer = new DatabaseInitializer();
-        initializer.initializeDatabase();
-        System.out.println("Database initialization completed successfully!");
+        int applied = initializer.initializeDatabase();
+        System.out.println("Database migration completed successfully! (" + applied + " migrations applied)");
     }
 }
@@ -0,0 +1,447 @@
+package com.driveclone.database;
+
+import java.util.List;
+
+/**
+ * Schema history of the metadata database, oldest first. Add new
+ * migrations at the end; never edit one that has shipped.
+ */
+public final class MetadataSchema {
+    private static final int BACKFILL_BATCH_SIZE = 5000;
+
+    /**
+     * Storage usage as it should be, computed from space_files: one row per
+     * (space, uploader) plus the space total under uploader_email = ''.
+     */
+    public static final String EXPECTED_STORAGE_USAGE = """
+        SELECT space_id, '', sum(size), count(*) FROM space_files GROUP BY space_id
+        UNION ALL
+        SELECT space_id, uploader_email, sum(size), count(*) FROM space_files GROUP BY space_id, uploader_email
+    """;
+
+    /**
+     * Epoch milliseconds from a LocalDateTime.toString() value, read as
+     * server-local time like the models hold it. Unreadable values become
+     * the current time, as the old reader did for missing ones.
+     */
+    private static final String EPOCH_MILLIS = "coalesce(CAST(round((julianday(%s, 'utc') - 2440587.5) * 86400000) AS INTEGER), "
+        + "CAST(round((julianday('now') - 2440587.5) * 86400000) AS INTEGER))";
+
+    /**
+     * 16-byte form of a UUID string, matching Uuids.toBytes: anything not
+     * UUID-shaped keeps its UTF-8 bytes.
+     */
+    private static final String ID_BYTES = "CASE WHEN length(%1$s) = 36"
+        + " AND substr(%1$s, 9, 1) || substr(%1$s, 14, 1) || substr(%1$s, 19, 1) || substr(%1$s, 24, 1) = '----'"
+        + " AND unhex(replace(%1$s, '-', '')) IS NOT NULL"
+        + " THEN unhex(replace(%1$s, '-', '')) ELSE CAST(%1$s AS BLOB) END";
+
+    public static final List<Migration> MIGRATIONS = List.of(
+        baseline(),
+        Migration.to(2, "index file listings and activity by space")
+            .sql("CREATE INDEX IF NOT EXISTS idx_space_files_space_uploaded ON space_files(space_id, uploaded_at)")
+            .sql("CREATE INDEX IF NOT EXISTS idx_activity_space_timestamp ON activity(space_id, timestamp)"),
+        Migration.to(3, "store timestamps as epoch milliseconds")
+            .changeColumnType("spaces", "created_at", "INTEGER", EPOCH_MILLIS.formatted("created_at"), BACKFILL_BATCH_SIZE)
+            .changeColumnType("space_members", "added_at", "INTEGER", EPOCH_MILLIS.formatted("added_at"), BACKFILL_BATCH_SIZE)
+            .changeColumnType("space_files", "uploaded_at", "INTEGER", EPOCH_MILLIS.formatted("uploaded_at"), BACKFILL_BATCH_SIZE)
+            .changeColumnType("activity", "timestamp", "INTEGER", EPOCH_MILLIS.formatted("timestamp"), BACKFILL_BATCH_SIZE),
+        binaryIds(),
+        Migration.to(5, "index members by space and join time")
+            .sql("CREATE INDEX IF NOT EXISTS idx_space_members_space_added ON space_members(space_id, added_at)"),
+        changeJournal(),
+        Migration.to(7, "queue files that predate content indexing")
+            // Every file without a job, text or not: ContentIndexer decides what is
+            // indexable and marks the rest skipped
+            .backfill("""
+                INSERT INTO content_index_jobs (file_id, status, attempts, updated_at)
+                SELECT id, 'pending', 0, CAST(round((julianday('now') - 2440587.5) * 86400000) AS INTEGER)
+                FROM space_files f
+                WHERE NOT EXISTS (SELECT 1 FROM content_index_jobs j WHERE j.file_id = f.id)
+                ORDER BY rowid LIMIT ?
+            """, BACKFILL_BATCH_SIZE),
+        stableFileRowids(),
+        Migration.to(9, "store rendition timestamps as epoch milliseconds")
+            .changeColumnType("file_renditions", "created_at", "INTEGER", EPOCH_MILLIS.formatted("created_at"), BACKFILL_BATCH_SIZE),
+        // Member pages are keyed on (added_at, id); the rowid is not stable
+        Migration.to(10, "index members by space, join time and ID")
+            .sql("DROP INDEX IF EXISTS idx_space_members_space_added",
+                "CREATE INDEX IF NOT EXISTS idx_space_members_space_added ON space_members(space_id, added_at, id)")
+    );
+
+    private MetadataSchema() {
+    }
+
+    /**
+     * Per-space change journal for incremental sync. Triggers append to it
+     * in the same transaction as the write, covering every path that adds,
+     * changes, moves or deletes a file, adds a thumbnail, or changes a
+     * member. Each entry replaces the item's earlier ones, so the journal
+     * holds one row per item (deleted ones as tombstones) and reading it
+     * from the start lists the whole space. AUTOINCREMENT keeps sequences
+     * from being reused after a delete.
+     */
+    private static Migration changeJournal() {
+        return Migration.to(6, "journal file and member changes for incremental sync")
+            .sql("""
+                CREATE TABLE IF NOT EXISTS space_changes (
+                    seq INTEGER PRIMARY KEY AUTOINCREMENT,
+                    space_id BLOB NOT NULL,
+                    kind TEXT NOT NULL,
+                    item_id BLOB NOT NULL,
+                    deleted INTEGER NOT NULL
+                )
+            """,
+                "CREATE INDEX IF NOT EXISTS idx_space_changes_space_seq ON space_changes(space_id, seq)",
+                "CREATE INDEX IF NOT EXISTS idx_space_changes_item ON space_changes(space_id, kind, item_id)",
+                "CREATE TRIGGER IF NOT EXISTS space_changes_file_insert AFTER INSERT ON space_files BEGIN "
+                    + journal("new.space_id", "file", "new.id", false) + " END",
+                "CREATE TRIGGER IF NOT EXISTS space_changes_file_update AFTER UPDATE ON space_files BEGIN "
+                    + journal("new.space_id", "file", "new.id", false) + " END",
+                "CREATE TRIGGER IF NOT EXISTS space_changes_file_move AFTER UPDATE OF space_id ON space_files"
+                    + " WHEN old.space_id IS NOT new.space_id BEGIN "
+                    + journal("old.space_id", "file", "old.id", true) + " END",
+                "CREATE TRIGGER IF NOT EXISTS space_changes_file_delete AFTER DELETE ON space_files BEGIN "
+                    + journal("old.space_id", "file", "old.id", true) + " END",
+                // Thumbnails show in file listings; saveRendition only inserts for existing files
+                "CREATE TRIGGER IF NOT EXISTS space_changes_rendition_insert AFTER INSERT ON file_renditions BEGIN "
+                    + journal("(SELECT space_id FROM space_files WHERE id = new.file_id)", "file", "new.file_id", false) + " END",
+                "CREATE TRIGGER IF NOT EXISTS space_changes_member_insert AFTER INSERT ON space_members BEGIN "
+                    + journal("new.space_id", "member", "new.member_email", false) + " END",
+                "CREATE TRIGGER IF NOT EXISTS space_changes_member_update AFTER UPDATE ON space_members BEGIN "
+                    + journal("new.space_id", "member", "new.member_email", false) + " END",
+                "CREATE TRIGGER IF NOT EXISTS space_changes_member_delete AFTER DELETE ON space_members BEGIN "
+                    + journal("old.space_id", "member", "old.member_email", true) + " END")
+            // Existing files and members, oldest first, so a sync from the start sees them
+            .sql("""
+                INSERT INTO space_changes (space_id, kind, item_id, deleted)
+                SELECT space_id, 'file', id, 0 FROM space_files ORDER BY uploaded_at, rowid
+            """, """
+                INSERT INTO space_changes (space_id, kind, item_id, deleted)
+                SELECT space_id, 'member', member_email, 0 FROM space_members ORDER BY added_at, rowid
+            """);
+    }
+
+    /**
+     * Both search indexes are keyed by the space_files rowid. While that
+     * rowid was implicit, a VACUUM could renumber it and leave index rows
+     * pointing at other files. An INTEGER PRIMARY KEY column is the rowid
+     * itself and is never renumbered, so the table is rebuilt with one,
+     * keeping every file's current number; the indexes stay as they are.
+     */
+    private static Migration stableFileRowids() {
+        return Migration.to(8, "give files a stable rowid for the search indexes")
+            .rebuildTable("space_files", "file_no", "INTEGER", """
+                file_no INTEGER PRIMARY KEY,
+                id BLOB NOT NULL UNIQUE,
+                space_id BLOB NOT NULL,
+                original_filename TEXT NOT NULL,
+                storage_path TEXT NOT NULL,
+                content_type TEXT,
+                size INTEGER NOT NULL,
+                uploader_id TEXT NOT NULL,
+                uploader_email TEXT NOT NULL,
+                uploaded_at INTEGER NOT NULL,
+                FOREIGN KEY (space_id) REFERENCES spaces (id)
+            """, "rowid, id, space_id, original_filename, storage_path, content_type, size, uploader_id, uploader_email, uploaded_at");
+    }
+
+    /**
+     * Trigger body recording the latest change of one item: its earlier
+     * entries are dropped and a new one appended.
+     */
+    private static String journal(String spaceId, String kind, String itemId, boolean deleted) {
+        return "DELETE FROM space_changes WHERE space_id = %1$s AND kind = '%2$s' AND item_id = %3$s; ".formatted(spaceId, kind, itemId)
+            + "INSERT INTO space_changes (space_id, kind, item_id, deleted) VALUES (%1$s, '%2$s', %3$s, %4$d);"
+                .formatted(spaceId, kind, itemId, deleted ? 1 : 0);
+    }
+
+    /**
+     * IDs as 16-byte blobs instead of 36-character text, less than half the
+     * size in every key and index. Key columns cannot change type in place,
+     * so the tables are rebuilt; rowids are kept, which the full-text
+     * indexes are keyed by. The full-text triggers then derive the space
+     * token from the blob, and the derived usage counters are rebuilt.
+     */
+    private static Migration binaryIds() {
+        return Migration.to(4, "store IDs as 16-byte blobs")
+            .rebuildTable("spaces", "id", "BLOB", """
+                id BLOB PRIMARY KEY,
+                name TEXT NOT NULL,
+                description TEXT,
+                admin_id TEXT NOT NULL,
+                admin_email TEXT NOT NULL,
+                created_at INTEGER NOT NULL,
+                member_emails TEXT
+            """, ID_BYTES.formatted("id") + ", name, description, admin_id, admin_email, created_at, member_emails")
+            .rebuildTable("space_members", "space_id", "BLOB", """
+                id BLOB PRIMARY KEY,
+                space_id BLOB NOT NULL,
+                member_email TEXT NOT NULL,
+                role TEXT NOT NULL DEFAULT 'MEMBER',
+                added_at INTEGER NOT NULL,
+                FOREIGN KEY (space_id) REFERENCES spaces (id) ON DELETE CASCADE,
+                UNIQUE(space_id, member_email)
+            """, ID_BYTES.formatted("id") + ", " + ID_BYTES.formatted("space_id") + ", member_email, role, added_at")
+            .rebuildTable("space_files", "id", "BLOB", """
+                id BLOB PRIMARY KEY,
+                space_id BLOB NOT NULL,
+                original_filename TEXT NOT NULL,
+                storage_path TEXT NOT NULL,
+                content_type TEXT,
+                size INTEGER NOT NULL,
+                uploader_id TEXT NOT NULL,
+                uploader_email TEXT NOT NULL,
+                uploaded_at INTEGER NOT NULL,
+                FOREIGN KEY (space_id) REFERENCES spaces (id)
+            """, ID_BYTES.formatted("id") + ", " + ID_BYTES.formatted("space_id")
+                + ", original_filename, storage_path, content_type, size, uploader_id, uploader_email, uploaded_at")
+            .rebuildTable("activity", "id", "BLOB", """
+                id BLOB PRIMARY KEY,
+                space_id BLOB NOT NULL,
+                user_email TEXT NOT NULL,
+                action TEXT NOT NULL,
+                details TEXT,
+                timestamp INTEGER NOT NULL,
+                FOREIGN KEY (space_id) REFERENCES spaces (id)
+            """, ID_BYTES.formatted("id") + ", " + ID_BYTES.formatted("space_id") + ", user_email, action, details, timestamp")
+            .rebuildTable("content_index_jobs", "file_id", "BLOB", """
+                file_id BLOB PRIMARY KEY,
+                status TEXT NOT NULL,
+                attempts INTEGER NOT NULL DEFAULT 0,
+                last_error TEXT,
+                indexed_bytes INTEGER,
+                next_attempt_at INTEGER,
+                updated_at INTEGER NOT NULL
+            """, ID_BYTES.formatted("file_id") + ", status, attempts, last_error, indexed_bytes, next_attempt_at, updated_at")
+            .rebuildTable("file_renditions", "file_id", "BLOB", """
+                file_id BLOB NOT NULL,
+                kind TEXT NOT NULL,
+                storage_path TEXT NOT NULL,
+                content_type TEXT NOT NULL,
+                width INTEGER NOT NULL,
+                height INTEGER NOT NULL,
+                size INTEGER NOT NULL,
+                created_at TEXT NOT NULL,
+                PRIMARY KEY (file_id, kind)
+            """, ID_BYTES.formatted("file_id") + ", kind, storage_path, content_type, width, height, size, created_at")
+            .sql("DROP TRIGGER IF EXISTS space_files_fts_insert", """
+                CREATE TRIGGER space_files_fts_insert AFTER INSERT ON space_files BEGIN
+                    INSERT INTO space_files_fts (rowid, file_id, space_key, original_filename, content_type, uploader_email)
+                    VALUES (new.rowid, new.id, lower(hex(new.space_id)), new.original_filename, new.content_type, new.uploader_email);
+                END
+            """, "DROP TRIGGER IF EXISTS space_files_fts_update", """
+                CREATE TRIGGER space_files_fts_update
+                AFTER UPDATE OF space_id, original_filename, content_type, uploader_email ON space_files BEGIN
+                    UPDATE space_files_fts
+                    SET space_key = lower(hex(new.space_id)), original_filename = new.original_filename,
+                        content_type = new.content_type, uploader_email = new.uploader_email
+                    WHERE rowid = old.rowid;
+                END
+            """, "DROP TRIGGER IF EXISTS file_contents_fts_update", """
+                CREATE TRIGGER file_contents_fts_update AFTER UPDATE OF space_id ON space_files BEGIN
+                    UPDATE file_contents_fts SET space_key = lower(hex(new.space_id)) WHERE rowid = old.rowid;
+                END
+            """)
+            .sql("DROP TABLE IF EXISTS storage_usage", """
+                CREATE TABLE storage_usage (
+                    space_id BLOB NOT NULL,
+                    uploader_email TEXT NOT NULL,
+                    bytes INTEGER NOT NULL,
+                    file_count INTEGER NOT NULL,
+                    PRIMARY KEY (space_id, uploader_email)
+                ) WITHOUT ROWID
+            """, "INSERT INTO storage_usage " + EXPECTED_STORAGE_USAGE);
+    }
+
+    /**
+     * The schema as it stood before versioning. Every statement is
+     * idempotent, so this also adopts databases created by earlier builds
+     * (user_version 0), adding whatever they are missing.
+     */
+    private static Migration baseline() {
+        return Migration.to(1, "baseline schema")
+            .sql("""
+                CREATE TABLE IF NOT EXISTS spaces (
+                    id TEXT PRIMARY KEY,
+                    name TEXT NOT NULL,
+                    description TEXT,
+                    admin_id TEXT NOT NULL,
+                    admin_email TEXT NOT NULL,
+                    created_at TEXT NOT NULL,
+                    member_emails TEXT
+                )
+            """, """
+                CREATE TABLE IF NOT EXISTS space_members (
+                    id TEXT PRIMARY KEY,
+                    space_id TEXT NOT NULL,
+                    member_email TEXT NOT NULL,
+                    role TEXT NOT NULL DEFAULT 'MEMBER',
+                    added_at TEXT NOT NULL,
+                    FOREIGN KEY (space_id) REFERENCES spaces (id) ON DELETE CASCADE,
+                    UNIQUE(space_id, member_email)
+                )
+            """,
+                "CREATE INDEX IF NOT EXISTS idx_space_members_space_id ON space_members(space_id)",
+                "CREATE INDEX IF NOT EXISTS idx_space_members_email ON space_members(member_email)",
+                "CREATE INDEX IF NOT EXISTS idx_space_members_role ON space_members(role)",
+            """
+                CREATE TABLE IF NOT EXISTS space_files (
+                    id TEXT PRIMARY KEY,
+                    space_id TEXT NOT NULL,
+                    original_filename TEXT NOT NULL,
+                    storage_path TEXT NOT NULL,
+                    content_type TEXT,
+                    size INTEGER NOT NULL,
+                    uploader_id TEXT NOT NULL,
+                    uploader_email TEXT NOT NULL,
+                    uploaded_at TEXT NOT NULL,
+                    FOREIGN KEY (space_id) REFERENCES spaces (id)
+                )
+            """, """
+                CREATE TABLE IF NOT EXISTS activity (
+                    id TEXT PRIMARY KEY,
+                    space_id TEXT NOT NULL,
+                    user_email TEXT NOT NULL,
+                    action TEXT NOT NULL,
+                    details TEXT,
+                    timestamp TEXT NOT NULL,
+                    FOREIGN KEY (space_id) REFERENCES spaces (id)
+                )
+            """)
+            // Filename search index. The FTS5 table is kept in step with space_files by
+            // triggers, so it is updated inside the same transaction as the insert or
+            // delete. space_key holds the space ID without dashes as a single token,
+            // which lets one MATCH restrict results to a space before ranking.
+            .sql("""
+                CREATE VIRTUAL TABLE IF NOT EXISTS space_files_fts USING fts5(
+                    file_id UNINDEXED,
+                    space_key,
+                    original_filename,
+                    content_type,
+                    uploader_email,
+                    tokenize = 'unicode61 remove_diacritics 2',
+                    prefix = '2 3'
+                )
+            """, """
+                CREATE TRIGGER IF NOT EXISTS space_files_fts_insert AFTER INSERT ON space_files BEGIN
+                    INSERT INTO space_files_fts (rowid, file_id, space_key, original_filename, content_type, uploader_email)
+                    VALUES (new.rowid, new.id, replace(new.space_id, '-', ''), new.original_filename, new.content_type, new.uploader_email);
+                END
+            """, """
+                CREATE TRIGGER IF NOT EXISTS space_files_fts_delete AFTER DELETE ON space_files BEGIN
+                    DELETE FROM space_files_fts WHERE rowid = old.rowid;
+                END
+            """, """
+                CREATE TRIGGER IF NOT EXISTS space_files_fts_update
+                AFTER UPDATE OF space_id, original_filename, content_type, uploader_email ON space_files BEGIN
+                    UPDATE space_files_fts
+                    SET space_key = replace(new.space_id, '-', ''), original_filename = new.original_filename,
+                        content_type = new.content_type, uploader_email = new.uploader_email
+                    WHERE rowid = old.rowid;
+                END
+            """)
+            // Index files that predate the search index, in rowid order
+            .backfill("""
+                INSERT INTO space_files_fts (rowid, file_id, space_key, original_filename, content_type, uploader_email)
+                SELECT rowid, id, replace(space_id, '-', ''), original_filename, content_type, uploader_email
+                FROM space_files
+                WHERE rowid > coalesce((SELECT rowid FROM space_files_fts ORDER BY rowid DESC LIMIT 1), 0)
+                ORDER BY rowid LIMIT ?
+            """, BACKFILL_BATCH_SIZE)
+            // Content search index and its job table. Rows are keyed by the
+            // space_files rowid like the filename index, and removed by trigger when
+            // the file is deleted. content_index_jobs records the state of each text
+            // file (pending, retry, indexed, skipped, failed) so retries survive
+            // restarts.
+            .sql("""
+                CREATE VIRTUAL TABLE IF NOT EXISTS file_contents_fts USING fts5(
+                    file_id UNINDEXED,
+                    space_key,
+                    content,
+                    tokenize = 'unicode61 remove_diacritics 2',
+                    prefix = '2 3'
+                )
+            """, """
+                CREATE TABLE IF NOT EXISTS content_index_jobs (
+                    file_id TEXT PRIMARY KEY,
+                    status TEXT NOT NULL,
+                    attempts INTEGER NOT NULL DEFAULT 0,
+                    last_error TEXT,
+                    indexed_bytes INTEGER,
+                    next_attempt_at INTEGER,
+                    updated_at INTEGER NOT NULL
+                )
+            """,
+                "CREATE INDEX IF NOT EXISTS idx_content_index_jobs_due ON content_index_jobs(status, next_attempt_at)",
+            """
+                CREATE TRIGGER IF NOT EXISTS file_contents_fts_delete AFTER DELETE ON space_files BEGIN
+                    DELETE FROM file_contents_fts WHERE rowid = old.rowid;
+                    DELETE FROM content_index_jobs WHERE file_id = old.id;
+                END
+            """, """
+                CREATE TRIGGER IF NOT EXISTS file_contents_fts_update AFTER UPDATE OF space_id ON space_files BEGIN
+                    UPDATE file_contents_fts SET space_key = replace(new.space_id, '-', '') WHERE rowid = old.rowid;
+                END
+            """)
+            // Thumbnails and other derived images. Rows go away with the file; the
+            // stored images themselves are deleted by SpaceService.
+            .sql("""
+                CREATE TABLE IF NOT EXISTS file_renditions (
+                    file_id TEXT NOT NULL,
+                    kind TEXT NOT NULL,
+                    storage_path TEXT NOT NULL,
+                    content_type TEXT NOT NULL,
+                    width INTEGER NOT NULL,
+                    height INTEGER NOT NULL,
+                    size INTEGER NOT NULL,
+                    created_at TEXT NOT NULL,
+                    PRIMARY KEY (file_id, kind)
+                )
+            """, """
+                CREATE TRIGGER IF NOT EXISTS file_renditions_delete AFTER DELETE ON space_files BEGIN
+                    DELETE FROM file_renditions WHERE file_id = old.id;
+                END
+            """)
+            // Storage usage counters. Triggers on space_files keep them in the same
+            // transaction as the insert or delete, so reading usage is a primary-key
+            // lookup instead of a SUM over the space. Rows are dropped once their
+            // file count reaches zero. Existing counters are kept when adopting an
+            // older database; only missing rows are filled in.
+            .sql("""
+                CREATE TABLE IF NOT EXISTS storage_usage (
+                    space_id TEXT NOT NULL,
+                    uploader_email TEXT NOT NULL,
+                    bytes INTEGER NOT NULL,
+                    file_count INTEGER NOT NULL,
+                    PRIMARY KEY (space_id, uploader_email)
+                ) WITHOUT ROWID
+            """, """
+                CREATE TRIGGER IF NOT EXISTS storage_usage_insert AFTER INSERT ON space_files BEGIN
+                    INSERT INTO storage_usage (space_id, uploader_email, bytes, file_count)
+                    VALUES (new.space_id, '', new.size, 1), (new.space_id, new.uploader_email, new.size, 1)
+                    ON CONFLICT(space_id, uploader_email) DO UPDATE SET
+                        bytes = bytes + excluded.bytes, file_count = file_count + 1;
+                END
+            """, """
+                CREATE TRIGGER IF NOT EXISTS storage_usage_delete AFTER DELETE ON space_files BEGIN
+                    UPDATE storage_usage SET bytes = bytes - old.size, file_count = file_count - 1
+                    WHERE space_id = old.space_id AND uploader_email IN ('', old.uploader_email);
+                    DELETE FROM storage_usage
+                    WHERE space_id = old.space_id AND uploader_email IN ('', old.uploader_email) AND file_count <= 0;
+                END
+            """, """
+                CREATE TRIGGER IF NOT EXISTS storage_usage_update AFTER UPDATE OF space_id, size, uploader_email ON space_files BEGIN
+                    UPDATE storage_usage SET bytes = bytes - old.size, file_count = file_count - 1
+                    WHERE space_id = old.space_id AND uploader_email IN ('', old.uploader_email);
+                    DELETE FROM storage_usage
+                    WHERE space_id = old.space_id AND uploader_email IN ('', old.uploader_email) AND file_count <= 0;
+                    INSERT INTO storage_usage (space_id, uploader_email, bytes, file_count)
+                    VALUES (new.space_id, '', new.size, 1), (new.space_id, new.uploader_email, new.size, 1)
+                    ON CONFLICT(space_id, uploader_email) DO UPDATE SET
+                        bytes = bytes + excluded.bytes, file_count = file_count + 1;
+                END
+            """,
+                "INSERT OR IGNORE INTO storage_usage SELECT * FROM (" + EXPECTED_STORAGE_USAGE + ")");
+    }
+}
@@ -0,0 +1,321 @@
+package com.driveclone.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One numbered step in the schema history, made of smaller steps that each
+ * commit on their own. {@link SchemaMigrator} records the version only after
+ * every step has run, so an interrupted migration is simply run again: each
+ * step must be safe to repeat (IF NOT EXISTS, {@link #addColumn}, backfills
+ * that only touch rows not yet done).
+ */
+public final class Migration {
+    /**
+     * JDBC work run inside one transaction.
+     */
+    @FunctionalInterface
+    public interface Work {
+        void run(Connection conn) throws SQLException;
+    }
+
+    /**
+     * A step that manages its own transactions.
+     */
+    @FunctionalInterface
+    interface Step {
+        void apply(Connection conn) throws SQLException;
+    }
+
+    private final int version;
+    private final String description;
+    private final List<Step> steps = new ArrayList<>();
+
+    private Migration(int version, String description) {
+        this.version = version;
+        this.description = description;
+    }
+
+    public static Migration to(int version, String description) {
+        return new Migration(version, description);
+    }
+
+    /**
+     * Statements run together in one transaction. An index build goes in a
+     * step of its own, so the write lock is held only while that index is
+     * built and readers carry on meanwhile.
+     */
+    public Migration sql(String... statements) {
+        return run(conn -> {
+            try (Statement stmt = conn.createStatement()) {
+                for (String sql : statements) {
+                    stmt.execute(sql);
+                }
+            }
+        });
+    }
+
+    public Migration run(Work work) {
+        steps.add(conn -> inTransaction(conn, work));
+        return this;
+    }
+
+    /**
+     * ALTER TABLE ... ADD COLUMN, skipped if the column already exists
+     * (SQLite has no ADD COLUMN IF NOT EXISTS). Adding a column only
+     * rewrites the schema row, not the table.
+     */
+    public Migration addColumn(String table, String column, String definition) {
+        return run(conn -> {
+            if (columnType(conn, table, column) != null) {
+                return;
+            }
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("ALTER TABLE " + table + " ADD COLUMN " + column + " " + definition);
+            }
+        });
+    }
+
+    /**
+     * Copy or rewrite rows in batches. The statement takes the batch size
+     * as its only parameter and must select just rows not yet done (for
+     * example by rowid above what the target already holds); it is run in
+     * a transaction per batch until a batch comes back short. Other writers
+     * get the database between batches, the journal stays small, and a
+     * backfill stopped halfway resumes where it left off.
+     */
+    public Migration backfill(String batchSql, int batchSize) {
+        steps.add(conn -> {
+            long total = runBatches(conn, batchSql, batchSize);
+            if (total > 0) {
+                SchemaMigrator.logger.info("Migration {}: backfilled {} rows", version, total);
+            }
+        });
+        return this;
+    }
+
+    /**
+     * Change a column's declared type without rebuilding the table. A
+     * staging column of the new type is added and filled from the
+     * expression in rowid-ordered batches, a transaction each; then, in one
+     * transaction, the old column is dropped, the staging column takes its
+     * name, and indexes on the column are recreated. The column comes out
+     * nullable, since SQLite cannot add a NOT NULL column without a default.
+     * @param expression Value of the new column, computed from the old one;
+     *        must not be NULL for any row
+     */
+    public Migration changeColumnType(String table, String column, String type, String expression, int batchSize) {
+        String staging = column + "_new";
+        steps.add(conn -> {
+            if (type.equalsIgnoreCase(columnType(conn, table, column))) {
+                return;
+            }
+            inTransaction(conn, c -> {
+                if (columnType(c, table, staging) == null) {
+                    try (Statement stmt = c.createStatement()) {
+                        stmt.execute("ALTER TABLE " + table + " ADD COLUMN " + staging + " " + type);
+                    }
+                }
+            });
+            // Walk the table in rowid ranges, so each batch reads only its own rows
+            long total = 0;
+            long low = 0;
+            try (PreparedStatement bound = conn.prepareStatement("SELECT max(rowid) FROM (SELECT rowid FROM " + table
+                     + " WHERE rowid > ? ORDER BY rowid LIMIT ?)");
+                 PreparedStatement update = conn.prepareStatement("UPDATE " + table + " SET " + staging + " = " + expression
+                     + " WHERE rowid > ? AND rowid <= ? AND " + staging + " IS NULL")) {
+                while (true) {
+                    bound.setLong(1, low);
+                    bound.setInt(2, batchSize);
+                    long high;
+                    try (ResultSet rs = bound.executeQuery()) {
+                        high = rs.next() ? rs.getLong(1) : 0;
+                        if (rs.wasNull() || high == 0) {
+                            break;
+                        }
+                    }
+                    long from = low;
+                    int[] affected = new int[1];
+                    inTransaction(conn, c -> {
+                        update.setLong(1, from);
+                        update.setLong(2, high);
+                        affected[0] = update.executeUpdate();
+                    });
+                    total += affected[0];
+                    low = high;
+                }
+            }
+            SchemaMigrator.logger.info("Migration {}: converted {} rows of {}.{} to {}", version, total, table, column, type);
+
+            inTransaction(conn, c -> {
+                Map<String, String> indexes = new LinkedHashMap<>();
+                try (PreparedStatement ps = c.prepareStatement("""
+                    SELECT m.name, m.sql FROM sqlite_master m
+                    WHERE m.type = 'index' AND m.tbl_name = ? AND m.sql IS NOT NULL
+                      AND EXISTS (SELECT 1 FROM pragma_index_info(m.name) i WHERE i.name = ?)
+                """)) {
+                    ps.setString(1, table);
+                    ps.setString(2, column);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            indexes.put(rs.getString(1), rs.getString(2));
+                        }
+                    }
+                }
+                try (Statement stmt = c.createStatement()) {
+                    for (String index : indexes.keySet()) {
+                        stmt.execute("DROP INDEX " + index);
+                    }
+                    stmt.execute("ALTER TABLE " + table + " DROP COLUMN " + column);
+                    stmt.execute("ALTER TABLE " + table + " RENAME COLUMN " + staging + " TO " + column);
+                    for (String createIndex : indexes.values()) {
+                        stmt.execute(createIndex);
+                    }
+                }
+            });
+        });
+        return this;
+    }
+
+    /**
+     * Rebuild a table under a new definition, for changes SQLite cannot make
+     * in place (the type of a key or constrained column), following SQLite's
+     * table rebuild procedure in one transaction: the rows are copied into a
+     * staging table keeping their rowids, the old table is dropped, the
+     * staging table takes its name, and the old table's indexes and
+     * triggers are recreated. Either the whole rebuild lands or none of it
+     * does. Skipped once the column has the new type.
+     *
+     * The rename runs with legacy_alter_table on. Otherwise SQLite re-checks
+     * every trigger in the schema, and a trigger on another table that
+     * names this one fails while the table is mid-swap.
+     * @param columns Column and constraint definitions of the new table
+     * @param select Select list over the old table, one value per new column
+     */
+    public Migration rebuildTable(String table, String column, String type, String columns, String select) {
+        String staging = table + "_new";
+        steps.add(conn -> {
+            if (type.equalsIgnoreCase(columnType(conn, table, column))) {
+                return;
+            }
+            setLegacyAlterTable(conn, true);
+            try {
+                inTransaction(conn, c -> {
+                    List<String> dependents = new ArrayList<>();
+                    try (PreparedStatement ps = c.prepareStatement("""
+                        SELECT sql FROM sqlite_master
+                        WHERE tbl_name = ? AND type IN ('index', 'trigger') AND sql IS NOT NULL
+                        ORDER BY type
+                    """)) {
+                        ps.setString(1, table);
+                        try (ResultSet rs = ps.executeQuery()) {
+                            while (rs.next()) {
+                                dependents.add(rs.getString(1));
+                            }
+                        }
+                    }
+                    try (Statement stmt = c.createStatement()) {
+                        // Left over by a build that copied in batches and stopped halfway
+                        stmt.execute("DROP TABLE IF EXISTS " + staging);
+                        stmt.execute("CREATE TABLE " + staging + " (" + columns + ")");
+                    }
+                    List<String> names = new ArrayList<>();
+                    try (PreparedStatement ps = c.prepareStatement("SELECT name FROM pragma_table_info(?) ORDER BY cid")) {
+                        ps.setString(1, staging);
+                        try (ResultSet rs = ps.executeQuery()) {
+                            while (rs.next()) {
+                                names.add(rs.getString(1));
+                            }
+                        }
+                    }
+                    try (Statement stmt = c.createStatement()) {
+                        int copied = stmt.executeUpdate("INSERT INTO " + staging + " (rowid, " + String.join(", ", names) + ")"
+                            + " SELECT rowid, " + select + " FROM " + table + " ORDER BY rowid");
+                        stmt.execute("DROP TABLE " + table);
+                        stmt.execute("ALTER TABLE " + staging + " RENAME TO " + table);
+                        for (String sql : dependents) {
+                            stmt.execute(sql);
+                        }
+                        SchemaMigrator.logger.info("Migration {}: rebuilt {} with {} rows", version, table, copied);
+                    }
+                });
+            } finally {
+                setLegacyAlterTable(conn, false);
+            }
+        });
+        return this;
+    }
+
+    private static void setLegacyAlterTable(Connection conn, boolean on) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("PRAGMA legacy_alter_table = " + (on ? "ON" : "OFF"));
+        }
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    List<Step> getSteps() {
+        return steps;
+    }
+
+    /**
+     * Run a statement taking the batch size, a transaction per batch, until
+     * a batch affects fewer rows than that.
+     * @return Total rows affected
+     */
+    private static long runBatches(Connection conn, String batchSql, int batchSize) throws SQLException {
+        long total = 0;
+        int rows;
+        do {
+            int[] affected = new int[1];
+            inTransaction(conn, c -> {
+                try (PreparedStatement ps = c.prepareStatement(batchSql)) {
+                    ps.setInt(1, batchSize);
+                    affected[0] = ps.executeUpdate();
+                }
+            });
+            rows = affected[0];
+            total += rows;
+        } while (rows >= batchSize);
+        return total;
+    }
+
+    /**
+     * Declared type of a column, or null if the table has no such column.
+     */
+    private static String columnType(Connection conn, String table, String column) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT type FROM pragma_table_info(?) WHERE name = ?")) {
+            ps.setString(1, table);
+            ps.setString(2, column);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getString(1) : null;
+            }
+        }
+    }
+
+    static void inTransaction(Connection conn, Work work) throws SQLException {
+        conn.setAutoCommit(false);
+        try {
+            work.run(conn);
+            conn.commit();
+        } catch (SQLException | RuntimeException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+}
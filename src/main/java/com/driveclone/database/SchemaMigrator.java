@@ -0,0 +1,75 @@
+package com.driveclone.database;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * Brings a SQLite database up to the latest schema version.
+ *
+ * The current version is kept in PRAGMA user_version, which lives in the
+ * database header, so checking it costs one page read. A database that is
+ * already current runs no DDL at all; otherwise each pending migration is
+ * applied in order and user_version is bumped after it completes.
+ */
+public class SchemaMigrator {
+    static final Logger logger = LoggerFactory.getLogger(SchemaMigrator.class);
+
+    private final List<Migration> migrations;
+
+    public SchemaMigrator(List<Migration> migrations) {
+        for (int i = 0; i < migrations.size(); i++) {
+            if (migrations.get(i).getVersion() != i + 1) {
+                throw new IllegalArgumentException("Migrations must be numbered 1.." + migrations.size()
+                    + " in order, found " + migrations.get(i).getVersion() + " at position " + (i + 1));
+            }
+        }
+        this.migrations = migrations;
+    }
+
+    public int getLatestVersion() {
+        return migrations.size();
+    }
+
+    /**
+     * Apply every migration newer than the database's version.
+     * @return Number of migrations applied
+     * @throws IllegalStateException if the database is newer than this build
+     */
+    public int migrate(Connection conn) throws SQLException {
+        int current = getVersion(conn);
+        int latest = getLatestVersion();
+        if (current == latest) {
+            logger.info("Database schema is current (version {})", current);
+            return 0;
+        }
+        if (current > latest) {
+            throw new IllegalStateException("Database schema version " + current
+                + " is newer than this build supports (" + latest + ")");
+        }
+
+        for (Migration migration : migrations.subList(current, latest)) {
+            long start = System.nanoTime();
+            logger.info("Applying migration {}: {}", migration.getVersion(), migration.getDescription());
+            for (Migration.Step step : migration.getSteps()) {
+                step.apply(conn);
+            }
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("PRAGMA user_version = " + migration.getVersion());
+            }
+            logger.info("Migration {} done in {} ms", migration.getVersion(), (System.nanoTime() - start) / 1_000_000);
+        }
+        return latest - current;
+    }
+
+    public static int getVersion(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery("PRAGMA user_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+}
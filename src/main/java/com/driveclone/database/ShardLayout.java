@@ -0,0 +1,59 @@
+package com.driveclone.database;
+
+import com.driveclone.util.Uuids;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Where the metadata of each space is stored when it is split over several
+ * SQLite files.
+ *
+ * With one shard, the default, the database is the single file at DB_PATH,
+ * as it always was. With N shards, a space's rows (files, members, activity,
+ * renditions, journal) all live in shard {@code hash(id) mod N}, at
+ * DB_PATH.shard{i}.db, and the catalog at DB_PATH.catalog.db maps users to
+ * their spaces. Every shard has the full metadata schema, so a write to one
+ * space is still one transaction on one file, triggers included. Each file
+ * has its own write lock, so writes to spaces in different shards no longer
+ * wait for each other.
+ *
+ * The hash is taken over the stored 16-byte form of the ID, so a space
+ * always maps to the same shard however its ID is cased. Changing the
+ * number of shards moves spaces between files; it requires re-importing the
+ * data and is refused at startup otherwise.
+ */
+public final class ShardLayout {
+
+    private ShardLayout() {
+    }
+
+    /**
+     * Shard holding a space's metadata.
+     */
+    public static int shardOf(String spaceId, int shards) {
+        if (shards == 1) {
+            return 0;
+        }
+        return Math.floorMod(Arrays.hashCode(Uuids.toBytes(spaceId)), shards);
+    }
+
+    /**
+     * Database files of the shards, in shard order.
+     */
+    public static List<String> shardPaths(String dbPath, int shards) {
+        if (shards == 1) {
+            return List.of(dbPath);
+        }
+        List<String> paths = new ArrayList<>(shards);
+        for (int i = 0; i < shards; i++) {
+            paths.add(dbPath + ".shard" + i + ".db");
+        }
+        return paths;
+    }
+
+    public static String catalogPath(String dbPath) {
+        return dbPath + ".catalog.db";
+    }
+}
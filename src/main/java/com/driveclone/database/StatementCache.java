@@ -0,0 +1,240 @@
+package com.driveclone.database;
+
+import io.prometheus.client.Counter;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded LRU of compiled statements for one long-lived connection, keyed by
+ * a query ID. A hit skips SQLite's parse and plan entirely; the statement is
+ * only rebound and re-stepped.
+ *
+ * Statements handed out are wrappers whose close() resets the statement
+ * (closes its open result set, clears parameters and batch) instead of
+ * finalizing it, so callers keep their try-with-resources blocks. Like the
+ * connection it belongs to, a cache is used by one thread at a time.
+ */
+public class StatementCache {
+
+    private final Connection connection;
+    private final int maxStatements;
+    private final Stats stats;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+
+    StatementCache(Connection connection, int maxStatements, Stats stats) {
+        this.connection = connection;
+        this.maxStatements = maxStatements;
+        this.stats = stats;
+    }
+
+    /**
+     * The cached statement for a query ID, compiling it on a miss. One ID
+     * must always name the same SQL; statements built per call (IN lists of
+     * varying length) should use Connection.prepareStatement instead.
+     * @param queryId Stable name of the query, used as key and stats label
+     * @param sql Statement text
+     * @return Statement to bind and execute; close it when done
+     */
+    public PreparedStatement prepare(String queryId, String sql) throws SQLException {
+        Entry entry = entries.get(queryId);
+        if (entry != null && !entry.sql.equals(sql)) {
+            throw new IllegalArgumentException("Query ID " + queryId + " is already used for different SQL");
+        }
+        if (entry != null && entry.inUse) {
+            throw new IllegalStateException("Statement " + queryId + " is already in use on this connection");
+        }
+        if (entry == null) {
+            stats.record(queryId, Stats.PREPARED);
+            entry = new Entry(queryId, sql, connection.prepareStatement(sql));
+            entries.put(queryId, entry);
+            evictOverflow();
+        } else {
+            stats.record(queryId, Stats.HIT);
+        }
+        entry.inUse = true;
+        return entry.handle;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Reset statements a caller left open, before the connection is lent
+     * to the next one.
+     */
+    void releaseAll() throws SQLException {
+        for (Entry entry : entries.values()) {
+            entry.release();
+        }
+    }
+
+    /**
+     * Finalize every cached statement; called when the connection closes.
+     */
+    void clear() {
+        for (Entry entry : entries.values()) {
+            entry.closeQuietly();
+        }
+        entries.clear();
+    }
+
+    /**
+     * Drop least recently used statements above the bound. A statement still
+     * open in a caller is finalized when the caller closes it.
+     */
+    private void evictOverflow() {
+        Iterator<Entry> it = entries.values().iterator();
+        while (entries.size() > maxStatements && it.hasNext()) {
+            Entry eldest = it.next();
+            it.remove();
+            stats.record(eldest.queryId, Stats.EVICTED);
+            eldest.evicted = true;
+            if (!eldest.inUse) {
+                eldest.closeQuietly();
+            }
+        }
+    }
+
+    private static final class Entry {
+        final String queryId;
+        final String sql;
+        final PreparedStatement statement;
+        final PreparedStatement handle;
+        ResultSet resultSet;
+        boolean inUse;
+        boolean evicted;
+
+        Entry(String queryId, String sql, PreparedStatement statement) {
+            this.queryId = queryId;
+            this.sql = sql;
+            this.statement = statement;
+            this.handle = (PreparedStatement) Proxy.newProxyInstance(StatementCache.class.getClassLoader(),
+                new Class<?>[] {PreparedStatement.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "close":
+                            release();
+                            return null;
+                        case "isClosed":
+                            return !inUse;
+                        case "executeQuery":
+                            resultSet = (ResultSet) invoke(method, args);
+                            return resultSet;
+                        default:
+                            return invoke(method, args);
+                    }
+                });
+        }
+
+        private Object invoke(Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(statement, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        /**
+         * Reset for the next caller. An unclosed result set would keep the
+         * SQLite statement mid-step and hold its read lock.
+         */
+        private void release() throws SQLException {
+            if (!inUse) {
+                return;
+            }
+            inUse = false;
+            if (evicted) {
+                closeQuietly();
+                return;
+            }
+            if (resultSet != null) {
+                resultSet.close();
+                resultSet = null;
+            }
+            statement.clearParameters();
+            statement.clearBatch();
+        }
+
+        void closeQuietly() {
+            try {
+                statement.close();
+            } catch (SQLException ignored) {
+                // Finalizing a statement on a closing connection
+            }
+        }
+    }
+
+    /**
+     * Usage counters shared by the caches of every pooled connection.
+     */
+    public static final class Stats {
+        static final int HIT = 0;
+        static final int PREPARED = 1;
+        static final int EVICTED = 2;
+
+        private final Counter counter;
+        private final Map<String, LongAdder[]> byQuery = new ConcurrentHashMap<>();
+
+        /**
+         * @param counter Optional Prometheus counter labelled by result, or null
+         */
+        public Stats(Counter counter) {
+            this.counter = counter;
+        }
+
+        void record(String queryId, int result) {
+            byQuery.computeIfAbsent(queryId, id -> new LongAdder[] {new LongAdder(), new LongAdder(), new LongAdder()})[result]
+                .increment();
+            if (counter != null) {
+                counter.labels(result == HIT ? "hit" : result == PREPARED ? "prepared" : "evicted").inc();
+            }
+        }
+
+        public long getHits() {
+            return sum(HIT);
+        }
+
+        public long getPrepares() {
+            return sum(PREPARED);
+        }
+
+        public double getHitRate() {
+            long hits = getHits();
+            long lookups = hits + getPrepares();
+            return lookups == 0 ? 0 : (double) hits / lookups;
+        }
+
+        /**
+         * Executions, compilations and evictions per query ID.
+         */
+        public Map<String, Map<String, Long>> getQueries() {
+            Map<String, Map<String, Long>> queries = new TreeMap<>();
+            byQuery.forEach((id, counts) -> queries.put(id, Map.of(
+                "executions", counts[HIT].sum() + counts[PREPARED].sum(),
+                "prepares", counts[PREPARED].sum(),
+                "evictions", counts[EVICTED].sum()
+            )));
+            return queries;
+        }
+
+        private long sum(int result) {
+            long total = 0;
+            for (LongAdder[] counts : byQuery.values()) {
+                total += counts[result].sum();
+            }
+            return total;
+        }
+    }
+}
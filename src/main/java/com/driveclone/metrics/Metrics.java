@@ -0,0 +1,146 @@
+package com.driveclone.metrics;
+
+import io.prometheus.client.Collector;
+import io.prometheus.client.CollectorRegistry;
+import io.prometheus.client.Counter;
+import io.prometheus.client.Gauge;
+import io.prometheus.client.GaugeMetricFamily;
+import io.prometheus.client.Histogram;
+import io.prometheus.client.exporter.common.TextFormat;
+import io.prometheus.client.hotspot.DefaultExports;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Central catalog of the metrics exposed at /metrics.
+ *
+ * All collectors live in the Prometheus default registry, alongside the
+ * standard JVM memory, GC, thread and class-loading collectors.
+ */
+public final class Metrics {
+
+    /** Buckets in seconds, 0.5ms to 10s. */
+    private static final double[] LATENCY_BUCKETS = {
+        0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10
+    };
+
+    public static final Histogram HTTP_REQUEST_DURATION = Histogram.build()
+        .name("driveclone_http_request_duration_seconds")
+        .help("HTTP request latency by route template")
+        .labelNames("method", "route", "status")
+        .buckets(LATENCY_BUCKETS)
+        .register();
+
+    public static final Gauge HTTP_IN_FLIGHT = Gauge.build()
+        .name("driveclone_http_requests_in_flight")
+        .help("HTTP requests currently being served")
+        .register();
+
+    public static final Counter BYTES_UPLOADED = Counter.build()
+        .name("driveclone_bytes_uploaded_total")
+        .help("File bytes accepted by upload endpoints")
+        .register();
+
+    public static final Counter BYTES_DOWNLOADED = Counter.build()
+        .name("driveclone_bytes_downloaded_total")
+        .help("File bytes served by download endpoints")
+        .register();
+
+    public static final Histogram SQLITE_QUERY_DURATION = Histogram.build()
+        .name("driveclone_sqlite_query_duration_seconds")
+        .help("SqliteMetadataService latency by method")
+        .labelNames("method")
+        .buckets(LATENCY_BUCKETS)
+        .register();
+
+    public static final Counter SQLITE_ERRORS = Counter.build()
+        .name("driveclone_sqlite_errors_total")
+        .help("SqliteMetadataService failures by method")
+        .labelNames("method")
+        .register();
+
+    public static final Counter SQLITE_STATEMENT_CACHE = Counter.build()
+        .name("driveclone_sqlite_statement_cache_total")
+        .help("Prepared statement cache lookups and evictions (hit, prepared, evicted)")
+        .labelNames("result")
+        .register();
+
+    public static final Histogram STORAGE_OPERATION_DURATION = Histogram.build()
+        .name("driveclone_storage_operation_duration_seconds")
+        .help("Storage backend latency by operation")
+        .labelNames("backend", "operation")
+        .buckets(LATENCY_BUCKETS)
+        .register();
+
+    public static final Counter STORAGE_ERRORS = Counter.build()
+        .name("driveclone_storage_errors_total")
+        .help("Storage backend failures by operation")
+        .labelNames("backend", "operation")
+        .register();
+
+    public static final Counter CONTENT_INDEX_JOBS = Counter.build()
+        .name("driveclone_content_index_jobs_total")
+        .help("Content indexing outcomes (indexed, skipped, retried, failed, rejected)")
+        .labelNames("outcome")
+        .register();
+
+    public static final Counter RENDITIONS = Counter.build()
+        .name("driveclone_renditions_total")
+        .help("Thumbnail generation outcomes (generated, unsupported, failed, rejected)")
+        .labelNames("outcome")
+        .register();
+
+    public static final Counter QUOTA_REJECTIONS = Counter.build()
+        .name("driveclone_quota_rejections_total")
+        .help("Uploads refused for exceeding a quota, by limit (space_bytes, space_files, uploader_bytes)")
+        .labelNames("limit")
+        .register();
+
+    public static final Counter STORAGE_USAGE_CORRECTIONS = Counter.build()
+        .name("driveclone_storage_usage_corrections_total")
+        .help("Usage counter rows fixed by the reconciliation job")
+        .register();
+
+    static {
+        DefaultExports.initialize();
+    }
+
+    private Metrics() {}
+
+    /**
+     * Register a gauge whose value is read at scrape time.
+     * @param name Metric name
+     * @param help Help text
+     * @param value Supplier evaluated on every scrape
+     */
+    public static void registerGauge(String name, String help, DoubleSupplier value) {
+        new Collector() {
+            @Override
+            public List<MetricFamilySamples> collect() {
+                return List.of(new GaugeMetricFamily(name, help, value.getAsDouble()));
+            }
+        }.register();
+    }
+
+    /**
+     * Render every registered metric in the Prometheus text format (0.0.4).
+     * @return Exposition text
+     */
+    public static String scrape() {
+        StringWriter writer = new StringWriter(16 * 1024);
+        try {
+            TextFormat.write004(writer, CollectorRegistry.defaultRegistry.metricFamilySamples());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return writer.toString();
+    }
+
+    public static String contentType() {
+        return TextFormat.CONTENT_TYPE_004;
+    }
+}
@@ -0,0 +1,56 @@
+package com.driveclone.model;
+
+/**
+ * A file waiting to have its text extracted into the content search index.
+ */
+public class ContentIndexJob {
+    private final String fileId;
+    private final String spaceId;
+    private final String storagePath;
+    private final String originalFilename;
+    private final String contentType;
+    private final int attempts;
+
+    public ContentIndexJob(String fileId, String spaceId, String storagePath, String originalFilename,
+                           String contentType, int attempts) {
+        this.fileId = fileId;
+        this.spaceId = spaceId;
+        this.storagePath = storagePath;
+        this.originalFilename = originalFilename;
+        this.contentType = contentType;
+        this.attempts = attempts;
+    }
+
+    public static ContentIndexJob forFile(SpaceFile file) {
+        return new ContentIndexJob(file.getId(), file.getSpaceId(), file.getStoragePath(),
+            file.getOriginalFilename(), file.getContentType(), 0);
+    }
+
+    public ContentIndexJob nextAttempt() {
+        return new ContentIndexJob(fileId, spaceId, storagePath, originalFilename, contentType, attempts + 1);
+    }
+
+    public String getFileId() {
+        return fileId;
+    }
+
+    public String getSpaceId() {
+        return spaceId;
+    }
+
+    public String getStoragePath() {
+        return storagePath;
+    }
+
+    public String getOriginalFilename() {
+        return originalFilename;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+}
@@ -0,0 +1,111 @@
+package com.driveclone.model;
+
+import com.driveclone.util.EpochMillis;
+
+import java.time.LocalDateTime;
+
+/**
+ * A derived image (e.g. a thumbnail) stored beside the original file.
+ */
+public class FileRendition {
+    public static final String THUMBNAIL = "thumbnail";
+
+    private String fileId;
+    private String kind;
+    private String storagePath;
+    private String contentType;
+    private int width;
+    private int height;
+    private long size;
+    private LocalDateTime createdAt;
+
+    public FileRendition() {}
+
+    public FileRendition(String fileId, String kind, String storagePath, String contentType,
+                         int width, int height, long size) {
+        this.fileId = fileId;
+        this.kind = kind;
+        this.storagePath = storagePath;
+        this.contentType = contentType;
+        this.width = width;
+        this.height = height;
+        this.size = size;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    /**
+     * Token that changes whenever a rendition is regenerated, put in its
+     * URL and ETag so a cached copy of an older one is never reused.
+     */
+    public static String version(LocalDateTime createdAt) {
+        return Long.toString(EpochMillis.of(createdAt), 36);
+    }
+
+    public String getVersion() {
+        return version(createdAt);
+    }
+
+    public String getFileId() {
+        return fileId;
+    }
+
+    public void setFileId(String fileId) {
+        this.fileId = fileId;
+    }
+
+    public String getKind() {
+        return kind;
+    }
+
+    public void setKind(String kind) {
+        this.kind = kind;
+    }
+
+    public String getStoragePath() {
+        return storagePath;
+    }
+
+    public void setStoragePath(String storagePath) {
+        this.storagePath = storagePath;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public void setContentType(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public void setWidth(int width) {
+        this.width = width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public void setHeight(int height) {
+        this.height = height;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public void setSize(long size) {
+        this.size = size;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
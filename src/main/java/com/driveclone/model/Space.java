@@ -11,7 +11,8 @@ public class Space {
     private String adminId;
     private String adminEmail;
     private LocalDateTime createdAt;
-    private List<String> memberEmails;
+    // Denormalized copy of the member list, used for lookups; members is what clients see
+    private transient List<String> memberEmails;
     private List<SpaceMember> members = new ArrayList<>();
 
     public Space() {}
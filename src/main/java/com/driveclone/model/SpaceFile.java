@@ -12,6 +12,7 @@ public class SpaceFile {
     private String uploaderId;
     private String uploaderEmail;
     private LocalDateTime uploadedAt;
+    private String thumbnailUrl;
 
     public SpaceFile() {}
 
@@ -99,4 +100,15 @@ public class SpaceFile {
     public void setUploadedAt(LocalDateTime uploadedAt) {
         this.uploadedAt = uploadedAt;
     }
+
+    /**
+     * API path of the thumbnail, or null if none has been generated.
+     */
+    public String getThumbnailUrl() {
+        return thumbnailUrl;
+    }
+
+    public void setThumbnailUrl(String thumbnailUrl) {
+        this.thumbnailUrl = thumbnailUrl;
+    }
 }
@@ -0,0 +1,34 @@
+package com.driveclone.model;
+
+/**
+ * Bytes and file count stored in a space, or by one uploader within it.
+ */
+public class StorageUsage {
+    public static final StorageUsage EMPTY = new StorageUsage(0, 0);
+
+    private long bytes;
+    private long fileCount;
+
+    public StorageUsage() {}
+
+    public StorageUsage(long bytes, long fileCount) {
+        this.bytes = bytes;
+        this.fileCount = fileCount;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    public void setBytes(long bytes) {
+        this.bytes = bytes;
+    }
+
+    public long getFileCount() {
+        return fileCount;
+    }
+
+    public void setFileCount(long fileCount) {
+        this.fileCount = fileCount;
+    }
+}
@@ -0,0 +1,114 @@
+package com.driveclone.service;
+
+import com.driveclone.model.SpaceFile;
+import com.driveclone.util.Compression;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.ZoneId;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Streams a set of stored files into a ZIP archive.
+ *
+ * Files are read one at a time from the storage backend and copied through
+ * a fixed buffer into the archive, so memory use does not depend on the
+ * number or size of files and nothing is spooled to disk. Entries use data
+ * descriptors (the JDK writes sizes and CRC after each entry), which is what
+ * lets the archive be produced in one pass.
+ *
+ * A true STORED entry needs its CRC before the data, which would mean
+ * reading every file twice; already-compressed files are instead written
+ * as deflate level 0, which copies the bytes through in raw blocks
+ * without trying to compress them again.
+ */
+public class ArchiveWriter {
+    private static final Logger logger = LoggerFactory.getLogger(ArchiveWriter.class);
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final StorageService storageService;
+    private final int level;
+
+    public ArchiveWriter(StorageService storageService, int level) {
+        this.storageService = storageService;
+        this.level = level < Deflater.DEFAULT_COMPRESSION || level > Deflater.BEST_COMPRESSION
+            ? Deflater.DEFAULT_COMPRESSION : level;
+    }
+
+    /**
+     * Write the files as a ZIP archive. The stream is finished but not closed.
+     * @return Total uncompressed bytes written
+     */
+    public long write(List<SpaceFile> files, OutputStream out) throws IOException {
+        BufferedOutputStream buffered = new BufferedOutputStream(out, BUFFER_SIZE);
+        ZipOutputStream zip = new ZipOutputStream(buffered);
+        Set<String> names = new HashSet<>();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        long total = 0;
+
+        for (SpaceFile file : files) {
+            ZipEntry entry = new ZipEntry(uniqueName(entryName(file.getOriginalFilename()), names));
+            if (file.getUploadedAt() != null) {
+                entry.setTime(file.getUploadedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+            }
+            zip.setLevel(Compression.isPrecompressed(file.getContentType(), file.getOriginalFilename())
+                ? Deflater.NO_COMPRESSION : level);
+            zip.putNextEntry(entry);
+            try (InputStream in = storageService.downloadFile(file.getStoragePath())) {
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    zip.write(buffer, 0, read);
+                    total += read;
+                }
+            }
+            zip.closeEntry();
+        }
+
+        zip.finish();
+        buffered.flush();
+        logger.debug("Streamed archive of {} files ({} bytes)", files.size(), total);
+        return total;
+    }
+
+    /**
+     * Flat entry name from an uploaded filename: no directories, no drive
+     * letters, nothing that could escape the extraction directory.
+     */
+    static String entryName(String originalFilename) {
+        String name = originalFilename == null ? "" : originalFilename.replace('\\', '/');
+        name = name.substring(name.lastIndexOf('/') + 1).replace(":", "_").trim();
+        if (name.isEmpty() || name.equals(".") || name.equals("..")) {
+            return "file";
+        }
+        return name;
+    }
+
+    /**
+     * Make a name unique within the archive by inserting " (n)" before the
+     * extension. Comparison ignores case, as most extractors do.
+     */
+    static String uniqueName(String name, Set<String> taken) {
+        if (taken.add(name.toLowerCase(Locale.ROOT))) {
+            return name;
+        }
+        int dot = name.lastIndexOf('.');
+        String base = dot > 0 ? name.substring(0, dot) : name;
+        String extension = dot > 0 ? name.substring(dot) : "";
+        for (int n = 1; ; n++) {
+            String candidate = base + " (" + n + ")" + extension;
+            if (taken.add(candidate.toLowerCase(Locale.ROOT))) {
+                return candidate;
+            }
+        }
+    }
+}
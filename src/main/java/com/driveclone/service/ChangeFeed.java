@@ -0,0 +1,390 @@
+package com.driveclone.service;
+
+import com.driveclone.config.Config;
+import com.driveclone.model.Activity;
+import com.driveclone.service.SqliteMetadataService.ActivityEntry;
+import com.driveclone.util.EpochMillis;
+import com.driveclone.util.NamedThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Broker for the per-user change feed (server-sent events).
+ *
+ * Events are activity entries. Every mutation in SpaceService records one.
+ * Each metadata shard numbers its entries on its own, so an event ID is the
+ * subscriber's position in every shard, dot-separated ("12.40.7"); with a
+ * single shard it is just the entry's sequence. SpaceService calls
+ * {@link #publish} once a write has committed. A single dispatcher thread
+ * then reads the entries the space's shard added since its last pass and
+ * hands each one to the subscribers who can see its space. Member and space events look up
+ * the space's members again: a removed member still receives their
+ * removal, and a new member receives events from the addition onwards.
+ *
+ * Each subscriber has a bounded buffer. A subscriber that falls a whole
+ * buffer behind is disconnected, so it cannot hold events in memory. Its
+ * client reconnects with Last-Event-ID and replays the gap from the
+ * activity table.
+ */
+public class ChangeFeed {
+    private static final Logger logger = LoggerFactory.getLogger(ChangeFeed.class);
+
+    private static final ChangeEvent CLOSED = new ChangeEvent(0, Long.MAX_VALUE, "closed", null);
+
+    private final SqliteMetadataService metadataService;
+    private final int maxSubscribers;
+    private final int bufferSize;
+    private final int replayLimit;
+    private final ExecutorService dispatcher = Executors.newSingleThreadExecutor(new NamedThreadFactory("change-feed"));
+    private final AtomicBoolean dispatchPending = new AtomicBoolean();
+    private final Set<Integer> dirtyShards = ConcurrentHashMap.newKeySet();
+    private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+    private final Map<String, Set<Subscription>> bySpace = new ConcurrentHashMap<>();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder replayed = new LongAdder();
+    private final LongAdder slowDisconnects = new LongAdder();
+    private final AtomicLongArray lastSequence;
+
+    public ChangeFeed(SqliteMetadataService metadataService) {
+        Config config = Config.getInstance();
+        this.metadataService = metadataService;
+        this.maxSubscribers = config.getChangeFeedMaxSubscribers();
+        this.bufferSize = config.getChangeFeedBufferSize();
+        this.replayLimit = config.getChangeFeedReplayLimit();
+        this.lastSequence = new AtomicLongArray(latestSequences());
+    }
+
+    /**
+     * One change: an activity entry, the shard and sequence it was recorded
+     * under, and its event type.
+     */
+    public record ChangeEvent(int shard, long sequence, String type, Activity activity) {}
+
+    /**
+     * Note that activity has been committed in a space. Calls made while a
+     * dispatch is already queued are folded into it.
+     */
+    public void publish(String spaceId) {
+        dirtyShards.add(metadataService.shardOf(spaceId));
+        if (dispatchPending.compareAndSet(false, true)) {
+            dispatcher.execute(this::dispatch);
+        }
+    }
+
+    private void dispatch() {
+        dispatchPending.set(false);
+        for (int shard = 0; shard < lastSequence.length(); shard++) {
+            if (!dirtyShards.remove(shard)) {
+                continue;
+            }
+            try {
+                List<ActivityEntry> entries;
+                do {
+                    entries = metadataService.getActivitySince(shard, lastSequence.get(shard), replayLimit);
+                    for (ActivityEntry entry : entries) {
+                        deliver(toEvent(entry));
+                        lastSequence.set(shard, entry.sequence());
+                    }
+                } while (entries.size() == replayLimit);
+            } catch (RuntimeException e) {
+                // Entries not yet read go out with the next publish
+                dirtyShards.add(shard);
+                logger.warn("Change feed dispatch failed for shard {}: {}", shard, e.toString());
+            }
+        }
+    }
+
+    private void deliver(ChangeEvent event) {
+        String spaceId = event.activity().getSpaceId();
+        if (!changesAudience(event.type())) {
+            send(bySpace.get(spaceId), event);
+            return;
+        }
+
+        Set<String> members = metadataService.getMemberEmails(spaceId);
+        for (Subscription subscription : subscriptions) {
+            if (members.contains(subscription.email)) {
+                join(subscription, spaceId);
+            }
+        }
+        Set<Subscription> audience = bySpace.get(spaceId);
+        send(audience, event);
+        if (audience != null) {
+            for (Subscription subscription : audience) {
+                if (!members.contains(subscription.email)) {
+                    leave(subscription, spaceId);
+                }
+            }
+        }
+    }
+
+    private void send(Set<Subscription> audience, ChangeEvent event) {
+        if (audience == null) {
+            return;
+        }
+        for (Subscription subscription : audience) {
+            if (subscription.queue.offer(event)) {
+                delivered.increment();
+            } else {
+                slowDisconnects.increment();
+                logger.info("Disconnecting change feed subscriber {}: {} events behind", subscription.email, bufferSize);
+                close(subscription);
+            }
+        }
+    }
+
+    /**
+     * Register a subscriber for a user's spaces. Events dispatched from now
+     * on are buffered; call {@link #start} or {@link #replay} before reading.
+     * @throws IllegalStateException when the subscriber limit is reached
+     */
+    public synchronized Subscription subscribe(String userEmail) {
+        if (subscriptions.size() >= maxSubscribers) {
+            throw new IllegalStateException("Too many change feed subscribers");
+        }
+        Subscription subscription = new Subscription(userEmail, bufferSize);
+        subscriptions.add(subscription);
+        for (String spaceId : metadataService.getSpaceIdsForUser(userEmail)) {
+            join(subscription, spaceId);
+        }
+        return subscription;
+    }
+
+    /**
+     * Start a new subscriber at the current end of the feed.
+     * @return Event ID the subscriber starts after
+     */
+    public String start(Subscription subscription) {
+        subscription.position = latestSequences();
+        return subscription.getLastEventId();
+    }
+
+    private long[] latestSequences() {
+        long[] latest = new long[metadataService.getShardCount()];
+        for (int shard = 0; shard < latest.length; shard++) {
+            latest[shard] = metadataService.getLatestActivitySequence(shard);
+        }
+        return latest;
+    }
+
+    /**
+     * Positions named by an event ID, one per shard.
+     * @throws NumberFormatException if the ID is malformed
+     */
+    public static long[] parseEventId(String eventId) {
+        String[] parts = eventId.split("\\.", -1);
+        long[] position = new long[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            position[i] = Long.parseLong(parts[i]);
+        }
+        return position;
+    }
+
+    /**
+     * Queue the events after a reconnecting client's last event ID, in the
+     * spaces the user belongs to now; {@link Subscription#next} returns them
+     * first. Shards are merged by time, each in its own order. Returns false
+     * when the gap cannot be replayed: it is longer than the replay limit,
+     * the ID is ahead of the table (a restored database) or was issued for
+     * a different number of shards. The client should then reload its
+     * listings, and the subscriber continues from the current end of the
+     * feed.
+     */
+    public boolean replay(Subscription subscription, long[] lastEventId) {
+        int shards = metadataService.getShardCount();
+        if (lastEventId.length != shards) {
+            return false;
+        }
+        List<List<ActivityEntry>> byShard = new ArrayList<>(shards);
+        int total = 0;
+        for (int shard = 0; shard < shards; shard++) {
+            if (lastEventId[shard] > metadataService.getLatestActivitySequence(shard)) {
+                return false;
+            }
+            List<ActivityEntry> entries = metadataService.getActivitySince(shard, lastEventId[shard],
+                subscription.email, replayLimit + 1);
+            total += entries.size();
+            if (total > replayLimit) {
+                return false;
+            }
+            byShard.add(entries);
+        }
+
+        subscription.position = lastEventId.clone();
+        int[] next = new int[shards];
+        for (int i = 0; i < total; i++) {
+            int earliest = -1;
+            for (int shard = 0; shard < shards; shard++) {
+                if (next[shard] < byShard.get(shard).size() && (earliest < 0
+                        || timestamp(byShard.get(shard).get(next[shard])) < timestamp(byShard.get(earliest).get(next[earliest])))) {
+                    earliest = shard;
+                }
+            }
+            subscription.replayed.add(toEvent(byShard.get(earliest).get(next[earliest]++)));
+        }
+        replayed.add(total);
+        return true;
+    }
+
+    private static long timestamp(ActivityEntry entry) {
+        return EpochMillis.of(entry.activity().getTimestamp());
+    }
+
+    public void unsubscribe(Subscription subscription) {
+        subscriptions.remove(subscription);
+        for (String spaceId : subscription.spaces) {
+            leave(subscription, spaceId);
+        }
+    }
+
+    private void close(Subscription subscription) {
+        unsubscribe(subscription);
+        // Dropped events are replayed on reconnect; make room for the wake-up
+        subscription.queue.clear();
+        subscription.queue.offer(CLOSED);
+    }
+
+    private void join(Subscription subscription, String spaceId) {
+        if (subscription.spaces.add(spaceId)) {
+            bySpace.computeIfAbsent(spaceId, id -> ConcurrentHashMap.newKeySet()).add(subscription);
+        }
+    }
+
+    private void leave(Subscription subscription, String spaceId) {
+        subscription.spaces.remove(spaceId);
+        bySpace.computeIfPresent(spaceId, (id, audience) -> {
+            audience.remove(subscription);
+            return audience.isEmpty() ? null : audience;
+        });
+    }
+
+    private static ChangeEvent toEvent(ActivityEntry entry) {
+        return new ChangeEvent(entry.shard(), entry.sequence(), typeOf(entry.activity().getAction()), entry.activity());
+    }
+
+    /**
+     * Event type for an activity action, as logged by SpaceService and
+     * SqliteMetadataService.
+     */
+    static String typeOf(String action) {
+        return switch (action) {
+            case "uploaded file", "uploaded files", "moved files in", "restored files" -> "file-added";
+            case "deleted file", "deleted files", "moved files out" -> "file-removed";
+            case "added member", "added members", "removed member", "updated member role" -> "member-changed";
+            case "created space", "updated space" -> "space-updated";
+            case "deleted space" -> "space-deleted";
+            default -> "activity";
+        };
+    }
+
+    private static boolean changesAudience(String type) {
+        return type.equals("member-changed") || type.startsWith("space-");
+    }
+
+    public int getSubscriberCount() {
+        return subscriptions.size();
+    }
+
+    public Map<String, Object> getStats() {
+        return Map.of(
+            "subscribers", getSubscriberCount(),
+            "maxSubscribers", maxSubscribers,
+            "lastSequence", join(lastSequence),
+            "delivered", delivered.sum(),
+            "replayed", replayed.sum(),
+            "slowDisconnects", slowDisconnects.sum()
+        );
+    }
+
+    private static String join(AtomicLongArray sequences) {
+        long[] values = new long[sequences.length()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = sequences.get(i);
+        }
+        return join(values);
+    }
+
+    private static String join(long[] sequences) {
+        StringBuilder id = new StringBuilder();
+        for (int i = 0; i < sequences.length; i++) {
+            id.append(i > 0 ? "." : "").append(sequences[i]);
+        }
+        return id.toString();
+    }
+
+    /**
+     * One connected client. Read from a single thread, the one streaming
+     * the response.
+     */
+    public static final class Subscription {
+        private final String email;
+        private final Set<String> spaces = ConcurrentHashMap.newKeySet();
+        private final BlockingQueue<ChangeEvent> queue;
+        private final Deque<ChangeEvent> replayed = new ArrayDeque<>();
+        private long[] position;
+        private boolean closed;
+
+        Subscription(String email, int bufferSize) {
+            this.email = email;
+            this.queue = new ArrayBlockingQueue<>(bufferSize);
+        }
+
+        /**
+         * The next event after those already read, waiting up to the
+         * timeout: replayed events first, then live ones. Live events
+         * already replayed or sent before the start are skipped.
+         * @return The event, or null on timeout or once disconnected
+         */
+        public ChangeEvent next(long timeoutMillis) throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+            while (!closed) {
+                ChangeEvent event = replayed.poll();
+                if (event != null) {
+                    position[event.shard()] = event.sequence();
+                    return event;
+                }
+                event = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                if (event == null) {
+                    return null;
+                }
+                if (event == CLOSED) {
+                    closed = true;
+                } else if (event.sequence() > position[event.shard()]) {
+                    position[event.shard()] = event.sequence();
+                    return event;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Event ID of the last event read: where a reconnect resumes.
+         */
+        public String getLastEventId() {
+            return join(position);
+        }
+
+        /**
+         * Whether the broker dropped this subscriber for falling behind.
+         */
+        public boolean isClosed() {
+            return closed;
+        }
+    }
+}
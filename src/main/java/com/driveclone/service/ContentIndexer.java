@@ -0,0 +1,301 @@
+package com.driveclone.service;
+
+import com.driveclone.config.Config;
+import com.driveclone.metrics.Metrics;
+import com.driveclone.model.ContentIndexJob;
+import com.driveclone.model.SpaceFile;
+import com.driveclone.util.NamedThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Extracts text from uploaded documents into the content search index.
+ *
+ * {@link #submit} is called after an upload has been committed. It records
+ * the job in content_index_jobs and hands the file to a bounded worker
+ * pool, without waiting for it. Workers stream the file from storage,
+ * tokenize it incrementally up to CONTENT_INDEX_MAX_BYTES, and write the
+ * words to file_contents_fts.
+ *
+ * Failures are recorded in content_index_jobs with an exponential backoff,
+ * and a sweeper re-submits due retries, along with any jobs that were
+ * rejected because the queue was full. Files are marked failed after
+ * CONTENT_INDEX_MAX_ATTEMPTS attempts. Since every job has a row, jobs
+ * still queued when the server stopped are picked up by the first sweep
+ * after a restart, as are files that predate the index (see
+ * MetadataSchema).
+ */
+public class ContentIndexer {
+    private static final Logger logger = LoggerFactory.getLogger(ContentIndexer.class);
+
+    private static final Set<String> TEXT_EXTENSIONS = Set.of(
+        "txt", "md", "markdown", "rst", "csv", "tsv", "json", "xml", "yaml", "yml", "toml", "ini", "log",
+        "html", "htm", "css", "js", "jsx", "ts", "tsx", "java", "kt", "scala", "py", "rb", "go", "rs",
+        "c", "h", "cpp", "hpp", "cs", "php", "swift", "sh", "sql", "properties", "gradle"
+    );
+    private static final int MAX_WORD_LENGTH = 64;
+    private static final long BASE_RETRY_DELAY_MILLIS = 5_000;
+    private static final long MAX_RETRY_DELAY_MILLIS = 10 * 60_000;
+    private static final long SWEEP_INTERVAL_SECONDS = 30;
+
+    private final SqliteMetadataService metadataService;
+    private final StorageService storageService;
+    private final ThreadPoolExecutor workers;
+    private final ScheduledExecutorService sweeper;
+    private final int maxBytes;
+    private final int maxAttempts;
+
+    public ContentIndexer(SqliteMetadataService metadataService, StorageService storageService) {
+        Config config = Config.getInstance();
+        this.metadataService = metadataService;
+        this.storageService = storageService;
+        this.maxBytes = (int) Math.min(config.getContentIndexMaxBytes(), Integer.MAX_VALUE);
+        this.maxAttempts = config.getContentIndexMaxAttempts();
+
+        int threads = config.getContentIndexWorkers();
+        this.workers = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(config.getContentIndexQueueCapacity()), new NamedThreadFactory("content-indexer"),
+            new ThreadPoolExecutor.AbortPolicy());
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("content-index-sweeper"));
+        // Jobs queued by the previous run died with its workers; release them before the first sweep
+        this.sweeper.execute(metadataService::releaseContentIndexClaims);
+        this.sweeper.scheduleWithFixedDelay(this::sweep, 0, SWEEP_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        logger.info("Content indexer started with {} workers", threads);
+    }
+
+    /**
+     * Whether a file is treated as text and indexed.
+     */
+    public static boolean isIndexable(String originalFilename, String contentType) {
+        if (contentType != null) {
+            String type = contentType.toLowerCase(Locale.ROOT);
+            if (type.startsWith("text/") || type.contains("json") || type.contains("xml")
+                    || type.contains("javascript") || type.contains("csv") || type.contains("yaml")) {
+                return true;
+            }
+        }
+        if (originalFilename == null) {
+            return false;
+        }
+        int dot = originalFilename.lastIndexOf('.');
+        return dot >= 0 && TEXT_EXTENSIONS.contains(originalFilename.substring(dot + 1).toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Record and queue a freshly uploaded file for indexing. Returns once
+     * the job row is written, without waiting for the indexing itself.
+     */
+    public void submit(SpaceFile file) {
+        if (isIndexable(file.getOriginalFilename(), file.getContentType())) {
+            metadataService.recordContentIndexJob(file.getId(), file.getSpaceId(), "queued", 0, null, null);
+            enqueue(ContentIndexJob.forFile(file));
+        }
+    }
+
+    public int getQueueDepth() {
+        return workers.getQueue().size();
+    }
+
+    public int getActiveWorkers() {
+        return workers.getActiveCount();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("queueDepth", getQueueDepth());
+        stats.put("queueCapacity", getQueueDepth() + workers.getQueue().remainingCapacity());
+        stats.put("activeWorkers", getActiveWorkers());
+        stats.put("completedTasks", workers.getCompletedTaskCount());
+        stats.put("jobs", metadataService.getContentIndexJobCounts());
+        return stats;
+    }
+
+    public void shutdown() {
+        sweeper.shutdownNow();
+        workers.shutdown();
+    }
+
+    private boolean enqueue(ContentIndexJob job) {
+        try {
+            workers.execute(() -> process(job));
+            return true;
+        } catch (RejectedExecutionException e) {
+            Metrics.CONTENT_INDEX_JOBS.labels("rejected").inc();
+            // Persist off the caller's thread; the sweeper picks it up once there is room
+            if (!sweeper.isShutdown()) {
+                sweeper.execute(() -> metadataService.recordContentIndexJob(job.getFileId(), job.getSpaceId(), "pending",
+                    job.getAttempts(), "queue full", null));
+            }
+            return false;
+        }
+    }
+
+    private void process(ContentIndexJob job) {
+        try (InputStream in = storageService.downloadFile(job.getStoragePath())) {
+            Extracted extracted = extractText(in, maxBytes);
+            if (extracted == null) {
+                metadataService.recordContentIndexJob(job.getFileId(), job.getSpaceId(), "skipped", job.getAttempts() + 1,
+                    "binary content", null);
+                Metrics.CONTENT_INDEX_JOBS.labels("skipped").inc();
+                return;
+            }
+            if (metadataService.indexFileContent(job.getFileId(), job.getSpaceId(), extracted.text(), extracted.bytesRead())) {
+                Metrics.CONTENT_INDEX_JOBS.labels("indexed").inc();
+                logger.debug("Indexed {} bytes of {}", extracted.bytesRead(), job.getFileId());
+            }
+        } catch (Exception e) {
+            fail(job, e);
+        }
+    }
+
+    private void fail(ContentIndexJob job, Exception e) {
+        ContentIndexJob next = job.nextAttempt();
+        String message = e.getClass().getSimpleName() + ": " + e.getMessage();
+        if (next.getAttempts() >= maxAttempts) {
+            logger.warn("Giving up indexing {} after {} attempts: {}", job.getFileId(), next.getAttempts(), message);
+            metadataService.recordContentIndexJob(job.getFileId(), job.getSpaceId(), "failed", next.getAttempts(), message, null);
+            Metrics.CONTENT_INDEX_JOBS.labels("failed").inc();
+        } else {
+            long delay = Math.min(BASE_RETRY_DELAY_MILLIS << (next.getAttempts() - 1), MAX_RETRY_DELAY_MILLIS);
+            logger.info("Indexing {} failed (attempt {}), retrying in {} ms: {}",
+                job.getFileId(), next.getAttempts(), delay, message);
+            metadataService.recordContentIndexJob(job.getFileId(), job.getSpaceId(), "retry", next.getAttempts(), message,
+                System.currentTimeMillis() + delay);
+            Metrics.CONTENT_INDEX_JOBS.labels("retried").inc();
+        }
+    }
+
+    private void sweep() {
+        try {
+            int room = workers.getQueue().remainingCapacity();
+            if (room == 0) {
+                return;
+            }
+            List<ContentIndexJob> due = metadataService.getDueContentIndexJobs(room);
+            for (ContentIndexJob job : due) {
+                // Backfilled jobs cover every file that predates the index, text or not
+                if (!isIndexable(job.getOriginalFilename(), job.getContentType())) {
+                    metadataService.recordContentIndexJob(job.getFileId(), job.getSpaceId(), "skipped", job.getAttempts(),
+                        "not a text file", null);
+                    continue;
+                }
+                // Claim the job so the next sweep does not submit it twice
+                metadataService.recordContentIndexJob(job.getFileId(), job.getSpaceId(), "queued", job.getAttempts(), null, null);
+                if (!enqueue(job)) {
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            logger.error("Content index sweep failed", e);
+        }
+    }
+
+    /**
+     * Stream words out of a text file without holding more than the cap in
+     * memory. Words are runs of letters and digits, joined by single spaces;
+     * anything longer than 64 characters is dropped.
+     * @return Extracted text, or null if the data looks binary
+     */
+    static Extracted extractText(InputStream in, int maxBytes) throws IOException {
+        CountingInputStream counted = new CountingInputStream(in, maxBytes);
+        Reader reader = new InputStreamReader(counted, StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE));
+
+        StringBuilder text = new StringBuilder(Math.min(maxBytes, 64 * 1024));
+        StringBuilder word = new StringBuilder(MAX_WORD_LENGTH);
+        char[] buffer = new char[8192];
+        int read;
+        while ((read = reader.read(buffer)) != -1) {
+            for (int i = 0; i < read; i++) {
+                char c = buffer[i];
+                if (c == 0) {
+                    return null;
+                }
+                if (Character.isLetterOrDigit(c) || Character.isSurrogate(c)) {
+                    if (word.length() <= MAX_WORD_LENGTH) {
+                        word.append(c);
+                    }
+                } else if (word.length() > 0) {
+                    appendWord(text, word);
+                }
+            }
+        }
+        if (word.length() > 0) {
+            appendWord(text, word);
+        }
+        return new Extracted(text.toString(), counted.getCount());
+    }
+
+    private static void appendWord(StringBuilder text, StringBuilder word) {
+        if (word.length() <= MAX_WORD_LENGTH) {
+            if (text.length() > 0) {
+                text.append(' ');
+            }
+            text.append(word);
+        }
+        word.setLength(0);
+    }
+
+    record Extracted(String text, long bytesRead) {}
+
+    /**
+     * Reads at most a fixed number of bytes from the underlying stream.
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+        private final long limit;
+        private long count;
+
+        CountingInputStream(InputStream in, long limit) {
+            super(in);
+            this.limit = limit;
+        }
+
+        long getCount() {
+            return count;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (count >= limit) {
+                return -1;
+            }
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (count >= limit) {
+                return -1;
+            }
+            int n = super.read(b, off, (int) Math.min(len, limit - count));
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.driveclone.service;
+
+import com.driveclone.util.Compression;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Version counters for listing scopes, and an LRU of values computed at a
+ * version, chiefly serialized listing JSON.
+ *
+ * Each space is a scope, and so is each user's space list
+ * ({@link #spacesOf}). SpaceService bumps a scope after every write to it has
+ * committed, which retires the values cached for that scope and changes
+ * the ETags of its listings. A reader takes the version before it queries,
+ * so data read during a concurrent write is cached under the old version
+ * and never served once the bump lands. An unchanged poll is answered from
+ * the version and the client's If-None-Match alone.
+ *
+ * Versions live in memory, so every write must go through this process.
+ * ETags carry a per-process epoch, so tags from before a restart never
+ * match.
+ */
+public class ListingCache {
+
+    /** Scope shared by every user's space list, for changes whose audience is unknown. */
+    public static final String SPACES = "spaces";
+
+    /** Weight of a non-string value, such as a cached membership check. */
+    private static final long SMALL_ENTRY_BYTES = 64;
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final ConcurrentHashMap<String, AtomicLong> versions = new ConcurrentHashMap<>();
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private final long maxBytes;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder notModified = new LongAdder();
+    private long residentBytes;
+
+    private record Entry(long version, Object value, long bytes) {}
+
+    public ListingCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    public long getVersion(String scope) {
+        AtomicLong version = versions.get(scope);
+        return version == null ? 0 : version.get();
+    }
+
+    /**
+     * Scope of one user's space list: spaces they own or belong to being
+     * created, renamed, deleted, joined or left.
+     */
+    public static String spacesOf(String email) {
+        return SPACES + ":" + email;
+    }
+
+    /**
+     * Version of a user's space list, which changes with their own scope
+     * and with {@link #SPACES}.
+     */
+    public long getSpacesVersion(String email) {
+        return getVersion(SPACES) + getVersion(spacesOf(email));
+    }
+
+    /**
+     * Mark a scope changed. Call after the write has committed.
+     */
+    public void bump(String scope) {
+        versions.computeIfAbsent(scope, s -> new AtomicLong()).incrementAndGet();
+    }
+
+    /**
+     * Strong ETag for a listing at a version. The key is hashed, so the tag
+     * does not reveal it.
+     */
+    public String etag(String key, long version) {
+        return "\"" + epoch + "." + version + "." + Integer.toHexString(key.hashCode()) + "\"";
+    }
+
+    /**
+     * The ETag an If-None-Match header matches, counting it as a
+     * revalidated poll if there is one. A tag the client got with a gzipped
+     * body carries ResponseCompressor's "-gzip" suffix and matches too.
+     * @return The matched ETag, to send back with the 304, or null
+     */
+    public String notModified(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return null;
+        }
+        String gzipped = Compression.codedEtag(etag, "gzip");
+        for (String tag : ifNoneMatch.split(",")) {
+            String trimmed = tag.trim();
+            if (trimmed.startsWith("W/")) {
+                trimmed = trimmed.substring(2);
+            }
+            if (trimmed.equals(etag) || trimmed.equals(gzipped)) {
+                notModified.increment();
+                return trimmed;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The value cached for a key at exactly this version, or null.
+     */
+    public synchronized Object get(String key, long version) {
+        Entry entry = entries.get(key);
+        if (entry != null && entry.version == version) {
+            hits.increment();
+            return entry.value;
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Cache a value computed at a version. Values for older versions are
+     * replaced; a value older than the one cached is dropped.
+     */
+    public synchronized void put(String key, long version, Object value) {
+        long bytes = value instanceof String text ? 2L * text.length() : SMALL_ENTRY_BYTES;
+        if (bytes > maxBytes) {
+            return;
+        }
+        Entry previous = entries.get(key);
+        if (previous != null) {
+            if (previous.version > version) {
+                return;
+            }
+            residentBytes -= previous.bytes;
+        }
+        entries.put(key, new Entry(version, value, bytes));
+        residentBytes += bytes;
+
+        Iterator<Entry> it = entries.values().iterator();
+        while (residentBytes > maxBytes && it.hasNext()) {
+            residentBytes -= it.next().bytes;
+            it.remove();
+        }
+    }
+
+    public synchronized long getResidentBytes() {
+        return residentBytes;
+    }
+
+    public synchronized int getEntryCount() {
+        return entries.size();
+    }
+
+    public double getHitRate() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0 : (double) h / total;
+    }
+
+    public Map<String, Object> getStats() {
+        return Map.of(
+            "residentBytes", getResidentBytes(),
+            "maxBytes", maxBytes,
+            "entries", getEntryCount(),
+            "scopes", versions.size(),
+            "hits", hits.sum(),
+            "misses", misses.sum(),
+            "notModified", notModified.sum(),
+            "hitRate", getHitRate()
+        );
+    }
+}
@@ -1,20 +1,35 @@
 package com.driveclone.service;
 
+import com.driveclone.config.Config;
+import com.driveclone.metrics.Metrics;
+import com.driveclone.tracing.Span;
+import com.driveclone.tracing.Tracer;
+import com.driveclone.util.ByteBufferInputStream;
+import io.prometheus.client.Histogram;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.*;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.UUID;
 
-public class LocalFileStorageService {
+public class LocalFileStorageService implements StorageService {
     private static final Logger logger = LoggerFactory.getLogger(LocalFileStorageService.class);
     private final String storageBasePath;
+    private final MappedFileCache mappedFileCache;
 
     public LocalFileStorageService() {
-        this.storageBasePath = "uploads";
+        this(Config.getInstance().getStoragePath());
+    }
+
+    public LocalFileStorageService(String storageBasePath) {
+        this.storageBasePath = storageBasePath;
+        Config config = Config.getInstance();
+        this.mappedFileCache = new MappedFileCache(config.getMappedCacheMaxBytes(), config.getMappedCacheMaxFileSize());
         createStorageDirectory();
         logger.info("Local File Storage Service initialized with path: {}", storageBasePath);
     }
@@ -32,8 +47,9 @@ public class LocalFileStorageService {
         }
     }
 
+    @Override
     public String uploadFile(InputStream inputStream, String spaceId, String originalFilename, String contentType) {
-        try {
+        try (Span span = timed("upload")) {
             // Generate unique filename to avoid conflicts
             String fileExtension = getFileExtension(originalFilename);
             String uniqueFilename = UUID.randomUUID().toString() + fileExtension;
@@ -55,27 +71,57 @@ public class LocalFileStorageService {
             logger.info("Uploaded file to local storage: {}", storagePath);
             return storagePath;
         } catch (Exception e) {
+            recordError("upload");
             logger.error("Error uploading file to local storage", e);
             throw new RuntimeException("Failed to upload file to local storage", e);
         }
     }
 
+    @Override
+    public void putFile(String storagePath, byte[] content, String contentType) {
+        try (Span span = timed("put")) {
+            Path fullPath = Paths.get(storageBasePath, storagePath);
+            Files.createDirectories(fullPath.getParent());
+
+            // Write beside the target and rename so readers never see a partial file
+            Path tempPath = fullPath.resolveSibling(fullPath.getFileName() + ".tmp-" + UUID.randomUUID());
+            Files.write(tempPath, content);
+            Files.move(tempPath, fullPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            mappedFileCache.invalidate(storagePath);
+            logger.debug("Stored {} bytes at {}", content.length, storagePath);
+        } catch (Exception e) {
+            recordError("put");
+            logger.error("Error storing file in local storage: {}", storagePath, e);
+            throw new RuntimeException("Failed to store file in local storage", e);
+        }
+    }
+
+    @Override
     public InputStream downloadFile(String storagePath) {
-        try {
+        try (Span span = timed("download")) {
             Path fullPath = Paths.get(storageBasePath, storagePath);
             if (!Files.exists(fullPath)) {
                 throw new RuntimeException("File not found: " + storagePath);
             }
-            
+
+            // Small, hot files are served straight from a shared mapping
+            ByteBuffer mapped = mappedFileCache.get(storagePath, fullPath, Files.size(fullPath));
+            if (mapped != null) {
+                return new ByteBufferInputStream(mapped);
+            }
+
             return Files.newInputStream(fullPath);
         } catch (Exception e) {
+            recordError("download");
             logger.error("Error downloading file from local storage: {}", storagePath, e);
             throw new RuntimeException("Failed to download file from local storage", e);
         }
     }
 
+    @Override
     public void deleteFile(String storagePath) {
-        try {
+        try (Span span = timed("delete")) {
+            mappedFileCache.invalidate(storagePath);
             Path fullPath = Paths.get(storageBasePath, storagePath);
             if (Files.exists(fullPath)) {
                 Files.delete(fullPath);
@@ -84,13 +130,32 @@ public class LocalFileStorageService {
                 logger.warn("File not found for deletion: {}", storagePath);
             }
         } catch (Exception e) {
+            recordError("delete");
             logger.error("Error deleting file from local storage: {}", storagePath, e);
             throw new RuntimeException("Failed to delete file from local storage", e);
         }
     }
 
+    @Override
+    public void moveFile(String fromPath, String toPath) {
+        try (Span span = timed("move")) {
+            mappedFileCache.invalidate(fromPath);
+            Path source = Paths.get(storageBasePath, fromPath);
+            Path target = Paths.get(storageBasePath, toPath);
+            Files.createDirectories(target.getParent());
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+            logger.debug("Moved {} to {}", fromPath, toPath);
+        } catch (Exception e) {
+            recordError("move");
+            logger.error("Error moving file in local storage: {} -> {}", fromPath, toPath, e);
+            throw new RuntimeException("Failed to move file in local storage", e);
+        }
+    }
+
+    @Override
     public void deleteAllFilesInSpace(String spaceId) {
-        try {
+        try (Span span = timed("deleteAll")) {
+            mappedFileCache.invalidatePrefix("spaces/" + spaceId + "/");
             Path spacePath = Paths.get(storageBasePath, "spaces", spaceId);
             if (Files.exists(spacePath)) {
                 Files.walk(spacePath)
@@ -106,11 +171,25 @@ public class LocalFileStorageService {
                 logger.info("Deleted all files in space: {}", spaceId);
             }
         } catch (Exception e) {
+            recordError("deleteAll");
             logger.error("Error deleting files in space: {}", spaceId, e);
             throw new RuntimeException("Failed to delete files in space", e);
         }
     }
 
+    public MappedFileCache getMappedFileCache() {
+        return mappedFileCache;
+    }
+
+    private static Span timed(String operation) {
+        Histogram.Timer timer = Metrics.STORAGE_OPERATION_DURATION.labels("local", operation).startTimer();
+        return Tracer.startSpan("storage.local." + operation).onEnd(timer::observeDuration);
+    }
+
+    private static void recordError(String operation) {
+        Metrics.STORAGE_ERRORS.labels("local", operation).inc();
+    }
+
     private String getFileExtension(String filename) {
         int lastDotIndex = filename.lastIndexOf('.');
         if (lastDotIndex > 0 && lastDotIndex < filename.length() - 1) {
@@ -0,0 +1,140 @@
+package com.driveclone.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded LRU cache of read-only memory-mapped files, keyed by storage path.
+ * Small files are mapped once and served from the page cache without a
+ * read syscall or heap copy per request. Eviction is by total mapped bytes;
+ * dropped mappings are released by the GC.
+ */
+public class MappedFileCache {
+    private static final Logger logger = LoggerFactory.getLogger(MappedFileCache.class);
+
+    private final long maxBytes;
+    private final long maxFileSize;
+    private final LinkedHashMap<String, MappedByteBuffer> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private long residentBytes;
+    private long generation;
+
+    public MappedFileCache(long maxBytes, long maxFileSize) {
+        this.maxBytes = maxBytes;
+        this.maxFileSize = Math.min(maxFileSize, maxBytes);
+    }
+
+    /**
+     * Returns a read-only view of the mapped file, mapping it on a miss.
+     * @param key Storage path used as the cache key
+     * @param file Absolute location of the file on disk
+     * @param size Size of the file in bytes
+     * @return Independent read-only buffer, or null if the file is not cacheable
+     */
+    public ByteBuffer get(String key, Path file, long size) throws IOException {
+        long observedGeneration;
+        synchronized (this) {
+            MappedByteBuffer cached = entries.get(key);
+            if (cached != null) {
+                hits.increment();
+                return cached.asReadOnlyBuffer();
+            }
+            observedGeneration = generation;
+        }
+        if (size <= 0 || size > maxFileSize) {
+            return null;
+        }
+        // Only files the cache could hold count as misses
+        misses.increment();
+
+        MappedByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+
+        synchronized (this) {
+            // Skip insertion if an invalidation raced with the mapping above
+            if (observedGeneration == generation && !entries.containsKey(key)) {
+                entries.put(key, mapped);
+                residentBytes += mapped.capacity();
+                evict();
+            }
+        }
+        return mapped.asReadOnlyBuffer();
+    }
+
+    public synchronized void invalidate(String key) {
+        generation++;
+        MappedByteBuffer removed = entries.remove(key);
+        if (removed != null) {
+            residentBytes -= removed.capacity();
+        }
+    }
+
+    public synchronized void invalidatePrefix(String prefix) {
+        generation++;
+        Iterator<Map.Entry<String, MappedByteBuffer>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, MappedByteBuffer> entry = it.next();
+            if (entry.getKey().startsWith(prefix)) {
+                residentBytes -= entry.getValue().capacity();
+                it.remove();
+            }
+        }
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<String, MappedByteBuffer>> it = entries.entrySet().iterator();
+        while (residentBytes > maxBytes && it.hasNext()) {
+            Map.Entry<String, MappedByteBuffer> eldest = it.next();
+            residentBytes -= eldest.getValue().capacity();
+            it.remove();
+            logger.debug("Evicted mapped file: {}", eldest.getKey());
+        }
+    }
+
+    public synchronized long getResidentBytes() {
+        return residentBytes;
+    }
+
+    public synchronized int getEntryCount() {
+        return entries.size();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public double getHitRate() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0.0 : (double) h / total;
+    }
+
+    public Map<String, Object> getStats() {
+        return Map.of(
+            "residentBytes", getResidentBytes(),
+            "maxBytes", maxBytes,
+            "entries", getEntryCount(),
+            "hits", getHits(),
+            "misses", getMisses(),
+            "hitRate", getHitRate()
+        );
+    }
+}
@@ -0,0 +1,20 @@
+package com.driveclone.service;
+
+/**
+ * Thrown when accepting an upload would take a space or uploader past its quota.
+ */
+public class QuotaExceededException extends RuntimeException {
+    private final String limit;
+
+    public QuotaExceededException(String limit, String message) {
+        super(message);
+        this.limit = limit;
+    }
+
+    /**
+     * Which quota was hit: space_bytes, space_files or uploader_bytes.
+     */
+    public String getLimit() {
+        return limit;
+    }
+}
@@ -0,0 +1,224 @@
+package com.driveclone.service;
+
+import com.driveclone.config.Config;
+import com.driveclone.metrics.Metrics;
+import com.driveclone.model.StorageUsage;
+import com.driveclone.util.NamedThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Enforces per-space and per-uploader storage quotas.
+ *
+ * Committed usage comes from the storage_usage counters, which SQLite
+ * triggers keep in step with space_files. Uploads still being written are
+ * not in those counters yet, so {@link #reserve} also counts in-flight
+ * reservations; the check and the reservation happen under a per-space
+ * lock, which stops concurrent uploads from overshooting together. A
+ * reservation is released once the file row has committed (the counters
+ * then include it) or the upload fails. A space's in-flight entry is
+ * dropped when its last reservation is released, so the map only holds
+ * spaces with uploads in progress.
+ *
+ * A scheduled job recomputes the counters from space_files every
+ * QUOTA_RECONCILE_INTERVAL_MINUTES and logs any drift it corrects.
+ */
+public class QuotaService {
+    private static final Logger logger = LoggerFactory.getLogger(QuotaService.class);
+
+    private final SqliteMetadataService metadataService;
+    private final long spaceQuotaBytes;
+    private final long spaceQuotaFiles;
+    private final long uploaderQuotaBytes;
+    private final Map<String, InFlight> inFlight = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService reconciler;
+
+    public QuotaService(SqliteMetadataService metadataService) {
+        Config config = Config.getInstance();
+        this.metadataService = metadataService;
+        this.spaceQuotaBytes = config.getSpaceQuotaBytes();
+        this.spaceQuotaFiles = config.getSpaceQuotaFiles();
+        this.uploaderQuotaBytes = config.getUploaderQuotaBytes();
+
+        long interval = config.getQuotaReconcileIntervalMinutes();
+        if (interval > 0) {
+            this.reconciler = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("quota-reconciler"));
+            this.reconciler.scheduleWithFixedDelay(this::reconcile, 1, interval, TimeUnit.MINUTES);
+        } else {
+            this.reconciler = null;
+        }
+        logger.info("Quotas: space {} bytes / {} files, uploader {} bytes (0 = unlimited)",
+            spaceQuotaBytes, spaceQuotaFiles, uploaderQuotaBytes);
+    }
+
+    /**
+     * Fail fast if an upload of this size cannot fit, without reserving
+     * anything. Used before the request body is read.
+     * @throws QuotaExceededException if the upload would exceed a quota
+     */
+    public void check(String spaceId, String uploaderEmail, long size) {
+        InFlight pending = inFlight.getOrDefault(spaceId, new InFlight());
+        synchronized (pending) {
+            checkLocked(spaceId, uploaderEmail, size, 1, pending);
+        }
+    }
+
+    /**
+     * Reserve room for an upload. Close the reservation once the file's
+     * metadata has committed, or on failure.
+     * @throws QuotaExceededException if the upload would exceed a quota
+     */
+    public Reservation reserve(String spaceId, String uploaderEmail, long size) {
+        return reserve(spaceId, uploaderEmail, size, 1);
+    }
+
+    /**
+     * Reserve room for several files uploaded together.
+     * @param size Total bytes of the files
+     * @param fileCount Number of files
+     * @throws QuotaExceededException if the files together would exceed a quota
+     */
+    public Reservation reserve(String spaceId, String uploaderEmail, long size, int fileCount) {
+        while (true) {
+            InFlight pending = inFlight.computeIfAbsent(spaceId, id -> new InFlight());
+            synchronized (pending) {
+                if (pending.removed) {
+                    // Its last reservation was released while we waited; use the space's new entry
+                    continue;
+                }
+                checkLocked(spaceId, uploaderEmail, size, fileCount, pending);
+                pending.add(uploaderEmail, size, fileCount);
+                return new Reservation(this, spaceId, pending, uploaderEmail, size, fileCount);
+            }
+        }
+    }
+
+    /**
+     * Usage of a space with its quotas, for the usage endpoint.
+     */
+    public Map<String, Object> getUsage(String spaceId) {
+        StorageUsage usage = metadataService.getStorageUsage(spaceId, null);
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("bytes", usage.getBytes());
+        result.put("fileCount", usage.getFileCount());
+        result.put("quotaBytes", spaceQuotaBytes);
+        result.put("quotaFiles", spaceQuotaFiles);
+        result.put("uploaderQuotaBytes", uploaderQuotaBytes);
+        result.put("uploaders", metadataService.getStorageUsageByUploader(spaceId));
+        return result;
+    }
+
+    public void shutdown() {
+        if (reconciler != null) {
+            reconciler.shutdownNow();
+        }
+    }
+
+    private void checkLocked(String spaceId, String uploaderEmail, long size, int fileCount, InFlight pending) {
+        if (spaceQuotaBytes > 0 || spaceQuotaFiles > 0) {
+            StorageUsage space = metadataService.getStorageUsage(spaceId, null);
+            if (spaceQuotaBytes > 0 && space.getBytes() + pending.bytes + size > spaceQuotaBytes) {
+                reject("space_bytes", "Space storage quota exceeded (" + spaceQuotaBytes + " bytes)");
+            }
+            if (spaceQuotaFiles > 0 && space.getFileCount() + pending.files + fileCount > spaceQuotaFiles) {
+                reject("space_files", "Space file quota exceeded (" + spaceQuotaFiles + " files)");
+            }
+        }
+        if (uploaderQuotaBytes > 0) {
+            StorageUsage uploader = metadataService.getStorageUsage(spaceId, uploaderEmail);
+            long uploaderPending = pending.byUploader.getOrDefault(uploaderEmail, 0L);
+            if (uploader.getBytes() + uploaderPending + size > uploaderQuotaBytes) {
+                reject("uploader_bytes", "Your storage quota in this space is exceeded (" + uploaderQuotaBytes + " bytes)");
+            }
+        }
+    }
+
+    private static void reject(String limit, String message) {
+        Metrics.QUOTA_REJECTIONS.labels(limit).inc();
+        throw new QuotaExceededException(limit, message);
+    }
+
+    private void reconcile() {
+        try {
+            int corrected = metadataService.reconcileStorageUsage();
+            if (corrected > 0) {
+                Metrics.STORAGE_USAGE_CORRECTIONS.inc(corrected);
+                logger.warn("Storage usage reconciliation corrected {} counter rows", corrected);
+            }
+        } catch (RuntimeException e) {
+            logger.error("Storage usage reconciliation failed", e);
+        }
+    }
+
+    /**
+     * Drop a space's entry once nothing is reserved in it. Called holding
+     * the entry's monitor; the entry is marked removed so a reserve() that
+     * already looked it up retries with a fresh one.
+     */
+    private void releaseLocked(String spaceId, InFlight pending) {
+        if (pending.bytes == 0 && pending.files == 0) {
+            pending.removed = true;
+            inFlight.computeIfPresent(spaceId, (id, current) -> current == pending ? null : current);
+        }
+    }
+
+    /**
+     * Bytes and files of a space's uploads that are still being written.
+     * Guarded by its own monitor.
+     */
+    private static final class InFlight {
+        private long bytes;
+        private long files;
+        private final Map<String, Long> byUploader = new HashMap<>();
+        private boolean removed;
+
+        private void add(String uploaderEmail, long size, int count) {
+            bytes += size;
+            files += count;
+            byUploader.merge(uploaderEmail, size, Long::sum);
+            byUploader.remove(uploaderEmail, 0L);
+        }
+    }
+
+    /**
+     * Room held for one upload until it commits or fails.
+     */
+    public static final class Reservation implements AutoCloseable {
+        private final QuotaService quotas;
+        private final String spaceId;
+        private final InFlight pending;
+        private final String uploaderEmail;
+        private final long size;
+        private final int fileCount;
+        private boolean released;
+
+        private Reservation(QuotaService quotas, String spaceId, InFlight pending, String uploaderEmail, long size,
+                            int fileCount) {
+            this.quotas = quotas;
+            this.spaceId = spaceId;
+            this.pending = pending;
+            this.uploaderEmail = uploaderEmail;
+            this.size = size;
+            this.fileCount = fileCount;
+        }
+
+        @Override
+        public void close() {
+            synchronized (pending) {
+                if (!released) {
+                    released = true;
+                    pending.add(uploaderEmail, -size, -fileCount);
+                    quotas.releaseLocked(spaceId, pending);
+                }
+            }
+        }
+    }
+}
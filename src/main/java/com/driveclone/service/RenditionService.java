@@ -0,0 +1,217 @@
+package com.driveclone.service;
+
+import com.driveclone.config.Config;
+import com.driveclone.metrics.Metrics;
+import com.driveclone.model.FileRendition;
+import com.driveclone.model.SpaceFile;
+import com.driveclone.util.NamedThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generates thumbnails for uploaded images in the background.
+ *
+ * After an upload commits, {@link #submit} hands image files to a bounded
+ * worker pool. Each worker decodes the original with javax.imageio,
+ * subsampling large images while reading so memory stays proportional to
+ * the thumbnail size. It scales the result to fit THUMBNAIL_SIZE and stores
+ * a JPEG (or a PNG if the image has transparency) beside the original in
+ * the storage backend. If the queue is full the thumbnail is skipped and
+ * the client keeps its generic icon.
+ */
+public class RenditionService {
+    private static final Logger logger = LoggerFactory.getLogger(RenditionService.class);
+    private static final long MAX_SOURCE_PIXELS = 100_000_000L;
+    private static final float JPEG_QUALITY = 0.82f;
+
+    private final SqliteMetadataService metadataService;
+    private final StorageService storageService;
+    private final ListingCache listingCache;
+    private final ThreadPoolExecutor workers;
+    private final int thumbnailSize;
+    private final long maxSourceBytes;
+
+    public RenditionService(SqliteMetadataService metadataService, StorageService storageService,
+                            ListingCache listingCache) {
+        Config config = Config.getInstance();
+        this.metadataService = metadataService;
+        this.storageService = storageService;
+        this.listingCache = listingCache;
+        this.thumbnailSize = config.getThumbnailSize();
+        this.maxSourceBytes = config.getRenditionMaxSourceBytes();
+
+        int threads = config.getRenditionWorkers();
+        this.workers = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(config.getRenditionQueueCapacity()), new NamedThreadFactory("rendition"),
+            new ThreadPoolExecutor.AbortPolicy());
+        ImageIO.setUseCache(false);
+        logger.info("Rendition service started with {} workers, {}px thumbnails", threads, thumbnailSize);
+    }
+
+    /**
+     * Whether ImageIO can decode files of this type.
+     */
+    public static boolean isSupported(String contentType) {
+        return contentType != null
+            && contentType.toLowerCase(Locale.ROOT).startsWith("image/")
+            && ImageIO.getImageReadersByMIMEType(contentType.toLowerCase(Locale.ROOT)).hasNext();
+    }
+
+    /**
+     * Queue thumbnail generation for a freshly uploaded file. Returns immediately.
+     */
+    public void submit(SpaceFile file) {
+        if (!isSupported(file.getContentType()) || file.getSize() > maxSourceBytes) {
+            return;
+        }
+        try {
+            workers.execute(() -> generateThumbnail(file));
+        } catch (RejectedExecutionException e) {
+            Metrics.RENDITIONS.labels("rejected").inc();
+            logger.debug("Rendition queue full, no thumbnail for {}", file.getId());
+        }
+    }
+
+    public int getQueueDepth() {
+        return workers.getQueue().size();
+    }
+
+    public void shutdown() {
+        workers.shutdown();
+    }
+
+    /**
+     * Storage path of a file's thumbnail, next to the original:
+     * spaces/{space}/files/{uuid}.ext becomes spaces/{space}/files/{uuid}.thumb-256.jpg
+     */
+    static String thumbnailPath(String originalPath, int size, String extension) {
+        int slash = originalPath.lastIndexOf('/');
+        int dot = originalPath.lastIndexOf('.');
+        String base = dot > slash ? originalPath.substring(0, dot) : originalPath;
+        return base + ".thumb-" + size + "." + extension;
+    }
+
+    private void generateThumbnail(SpaceFile file) {
+        try (InputStream in = storageService.downloadFile(file.getStoragePath())) {
+            BufferedImage source = read(in);
+            if (source == null) {
+                Metrics.RENDITIONS.labels("unsupported").inc();
+                return;
+            }
+
+            BufferedImage thumbnail = scale(source, thumbnailSize);
+            boolean alpha = thumbnail.getColorModel().hasAlpha();
+            String format = alpha ? "png" : "jpg";
+            byte[] encoded = encode(thumbnail, alpha);
+
+            String path = thumbnailPath(file.getStoragePath(), thumbnailSize, format);
+            storageService.putFile(path, encoded, alpha ? "image/png" : "image/jpeg");
+            FileRendition rendition = new FileRendition(file.getId(), FileRendition.THUMBNAIL, path,
+                alpha ? "image/png" : "image/jpeg", thumbnail.getWidth(), thumbnail.getHeight(), encoded.length);
+            if (!metadataService.saveRendition(rendition, file.getSpaceId())) {
+                // File was deleted while we worked
+                storageService.deleteFile(path);
+                return;
+            }
+            // File listings carry the thumbnail URL
+            listingCache.bump(file.getSpaceId());
+            Metrics.RENDITIONS.labels("generated").inc();
+            logger.debug("Generated {}x{} thumbnail ({} bytes) for {}",
+                thumbnail.getWidth(), thumbnail.getHeight(), encoded.length, file.getId());
+        } catch (Exception | OutOfMemoryError e) {
+            Metrics.RENDITIONS.labels("failed").inc();
+            logger.warn("Thumbnail generation failed for {}: {}", file.getId(), e.toString());
+        }
+    }
+
+    /**
+     * Decode an image, reading only every n-th pixel when it is much larger
+     * than the thumbnail.
+     * @return Decoded image, or null if no reader accepts the data
+     */
+    private BufferedImage read(InputStream in) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(in)) {
+            if (input == null) {
+                return null;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > MAX_SOURCE_PIXELS) {
+                    throw new IOException("Image too large: " + width + "x" + height);
+                }
+                ImageReadParam param = reader.getDefaultReadParam();
+                int subsampling = Math.max(1, Math.max(width, height) / (thumbnailSize * 2));
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static BufferedImage scale(BufferedImage source, int maxSize) {
+        double ratio = Math.min(1.0, (double) maxSize / Math.max(source.getWidth(), source.getHeight()));
+        int width = Math.max(1, (int) Math.round(source.getWidth() * ratio));
+        int height = Math.max(1, (int) Math.round(source.getHeight() * ratio));
+        boolean alpha = source.getColorModel().hasAlpha();
+
+        BufferedImage target = new BufferedImage(width, height,
+            alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = target.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return target;
+    }
+
+    private static byte[] encode(BufferedImage image, boolean png) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(16 * 1024);
+        if (png) {
+            ImageIO.write(image, "png", out);
+            return out.toByteArray();
+        }
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(JPEG_QUALITY);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,126 @@
+package com.driveclone.service;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The fields of a Space a caller asked for, as in ?fields=id,name. Only
+ * the matching columns are selected, and members are loaded only when
+ * requested; fields left out stay null and are omitted from the JSON.
+ * The id is always included.
+ */
+public final class SpaceFields {
+
+    public enum Field {
+        ID("id", "id"),
+        NAME("name", "name"),
+        DESCRIPTION("description", "description"),
+        ADMIN_ID("adminId", "admin_id"),
+        ADMIN_EMAIL("adminEmail", "admin_email"),
+        CREATED_AT("createdAt", "created_at"),
+        MEMBERS("members", null);
+
+        final String name;
+        final String column;
+
+        Field(String name, String column) {
+            this.name = name;
+            this.column = column;
+        }
+    }
+
+    /** Every field, members included. */
+    public static final SpaceFields ALL = new SpaceFields(EnumSet.allOf(Field.class), true);
+
+    /** Every field but members, for listings. */
+    public static final SpaceFields SUMMARY = new SpaceFields(EnumSet.complementOf(EnumSet.of(Field.MEMBERS)), false);
+
+    private final Set<Field> fields;
+    private final boolean memberEmails;
+    private final String columns;
+    private final String key;
+
+    private SpaceFields(Set<Field> fields, boolean memberEmails) {
+        this.fields = fields;
+        this.memberEmails = memberEmails;
+        List<String> columns = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        for (Field field : fields) {
+            names.add(field.name);
+            if (field.column != null) {
+                columns.add(field.column);
+            }
+        }
+        if (memberEmails) {
+            columns.add("member_emails");
+        }
+        this.columns = String.join(", ", columns);
+        this.key = String.join(",", names) + (memberEmails ? ",memberEmails" : "");
+    }
+
+    /**
+     * Parse a comma-separated field list.
+     * @param value Field names, or null or blank for the default
+     * @param defaults Returned when no fields are given
+     * @throws IllegalArgumentException on an unknown field name
+     */
+    public static SpaceFields parse(String value, SpaceFields defaults) {
+        if (value == null || value.isBlank()) {
+            return defaults;
+        }
+        Set<Field> fields = EnumSet.of(Field.ID);
+        for (String name : value.split(",")) {
+            if (!name.isBlank()) {
+                fields.add(find(name.trim()));
+            }
+        }
+        // The owner heads the member list, built from the admin columns
+        if (fields.contains(Field.MEMBERS)) {
+            fields.add(Field.ADMIN_EMAIL);
+            fields.add(Field.CREATED_AT);
+        }
+        return new SpaceFields(fields, false);
+    }
+
+    private static Field find(String name) {
+        for (Field field : Field.values()) {
+            if (field.name.equals(name)) {
+                return field;
+            }
+        }
+        throw new IllegalArgumentException("Unknown space field: " + name);
+    }
+
+    public boolean includes(Field field) {
+        return fields.contains(field);
+    }
+
+    /**
+     * Whether the denormalized member_emails column is loaded. Only full
+     * reads load it, since updates write the space back from them.
+     */
+    boolean includesMemberEmails() {
+        return memberEmails;
+    }
+
+    /**
+     * Select list over the spaces table.
+     */
+    String columns() {
+        return columns;
+    }
+
+    /**
+     * Stable name of this projection, for statement cache keys.
+     */
+    String key() {
+        return key;
+    }
+
+    @Override
+    public String toString() {
+        return key;
+    }
+}
@@ -1,33 +1,85 @@
 package com.driveclone.service;
 
+import com.driveclone.config.Config;
 import com.driveclone.model.Activity;
+import com.driveclone.model.FileRendition;
 import com.driveclone.model.Space;
 import com.driveclone.model.SpaceFile;
+import com.driveclone.util.NamedThreadFactory;
+import com.driveclone.util.Uuids;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
 
 public class SpaceService {
     private static final Logger logger = LoggerFactory.getLogger(SpaceService.class);
     private final SqliteMetadataService metadataService;
-    private final LocalFileStorageService storageService;
+    private final StorageService storageService;
+    private final ContentIndexer contentIndexer;
+    private final RenditionService renditionService;
+    private final QuotaService quotaService;
+    private final ArchiveWriter archiveWriter;
+    private final ExecutorService storageWorkers;
+    private final ListingCache listingCache;
+    private final ChangeFeed changeFeed;
 
     public SpaceService() {
         this.metadataService = new SqliteMetadataService();
-        this.storageService = new LocalFileStorageService();
+        this.storageService = createStorageService(Config.getInstance().getStorageMode());
+        this.listingCache = new ListingCache(Config.getInstance().getListingCacheMaxBytes());
+        this.changeFeed = new ChangeFeed(metadataService);
+        this.contentIndexer = new ContentIndexer(metadataService, storageService);
+        this.renditionService = new RenditionService(metadataService, storageService, listingCache);
+        this.quotaService = new QuotaService(metadataService);
+        this.archiveWriter = new ArchiveWriter(storageService, Config.getInstance().getCompressionLevel());
+        // Shared by all batch operations, so total parallel storage work stays bounded
+        this.storageWorkers = Executors.newFixedThreadPool(Config.getInstance().getBatchUploadConcurrency(),
+            new NamedThreadFactory("storage-batch"));
+    }
+
+    private static StorageService createStorageService(String mode) {
+        if ("supabase".equalsIgnoreCase(mode)) {
+            return new SupabaseStorageService();
+        }
+        if (!"local".equalsIgnoreCase(mode)) {
+            logger.warn("Unknown STORAGE_MODE '{}', using local storage", mode);
+        }
+        return new LocalFileStorageService();
     }
 
     public String createSpace(String name, String description, String adminId, String adminEmail) {
         Space space = new Space(name, description, adminId, adminEmail);
         // Generate a unique ID for the space
-        space.setId(java.util.UUID.randomUUID().toString());
+        space.setId(Uuids.newId());
         String spaceId = metadataService.createSpace(space);
-        
-        // Log activity
-        metadataService.logActivity(spaceId, adminEmail, "created space", name);
+        try {
+            // Log activity
+            metadataService.logActivity(spaceId, adminEmail, "created space", name);
+        } finally {
+            spaceChanged(spaceId);
+        }
         
         return spaceId;
     }
@@ -36,42 +88,162 @@ public class SpaceService {
         return metadataService.getSpace(spaceId);
     }
 
-    public List<Space> getSpacesForUser(String userEmail) {
-        return metadataService.getSpacesForUser(userEmail);
+    public Optional<Space> getSpace(String spaceId, SpaceFields fields) {
+        return metadataService.getSpace(spaceId, fields);
     }
 
-    public void updateSpace(Space space) {
-        metadataService.updateSpace(space);
+    public List<Space> getSpacesForUser(String userEmail, SpaceFields fields) {
+        return metadataService.getSpacesForUser(userEmail, fields);
     }
 
-    public void deleteSpace(String spaceId) {
-        // Delete all files in the space first
-        storageService.deleteAllFilesInSpace(spaceId);
-        // Then delete the space
-        metadataService.deleteSpace(spaceId);
+    public void updateSpace(Space space, String actorEmail) {
+        try {
+            metadataService.updateSpace(space);
+            metadataService.logActivity(space.getId(), actorEmail, "updated space", space.getName());
+        } finally {
+            spaceChanged(space.getId());
+        }
+    }
+
+    public void deleteSpace(String spaceId, String actorEmail) {
+        String name = metadataService.getSpace(spaceId, SpaceFields.parse("name", SpaceFields.ALL))
+            .map(Space::getName).orElse(null);
+        Set<String> members = metadataService.getMemberEmails(spaceId);
+        try {
+            // Delete all files in the space first
+            storageService.deleteAllFilesInSpace(spaceId);
+            // Then delete the space
+            metadataService.deleteSpace(spaceId);
+            // Kept after the space is gone, so the change feed can tell its members
+            metadataService.logActivity(spaceId, actorEmail, "deleted space", name);
+        } finally {
+            spaceChanged(spaceId, members);
+        }
     }
 
     public void addMemberToSpace(String spaceId, String memberEmail, String actorEmail) {
-        metadataService.addMemberToSpace(spaceId, memberEmail);
-        metadataService.logActivity(spaceId, actorEmail, "added member", memberEmail);
+        try {
+            metadataService.addMemberToSpace(spaceId, memberEmail);
+            metadataService.logActivity(spaceId, actorEmail, "added member", memberEmail);
+        } finally {
+            spaceChanged(spaceId);
+        }
+    }
+
+    /**
+     * Add many members in one transaction with a single activity entry.
+     * Emails are trimmed and de-duplicated; the owner and existing members
+     * are reported as already members.
+     */
+    public InviteResult addMembersToSpace(Space space, Collection<String> memberEmails, String actorEmail) {
+        Set<String> emails = new LinkedHashSet<>();
+        for (String email : memberEmails) {
+            emails.add(email.trim());
+        }
+        List<String> candidates = new ArrayList<>(emails.size());
+        for (String email : emails) {
+            if (!email.equalsIgnoreCase(space.getAdminEmail())) {
+                candidates.add(email);
+            }
+        }
+        Set<String> added = new LinkedHashSet<>(metadataService.addMembersToSpace(space.getId(), candidates, actorEmail));
+        if (!added.isEmpty()) {
+            spaceChanged(space.getId());
+        }
+        List<String> alreadyMembers = new ArrayList<>();
+        for (String email : emails) {
+            if (!added.contains(email)) {
+                alreadyMembers.add(email);
+            }
+        }
+        return new InviteResult(new ArrayList<>(added), alreadyMembers);
+    }
+
+    public record InviteResult(List<String> added, List<String> alreadyMembers) {}
+
+    public SqliteMetadataService.MemberPage getMembers(String spaceId, String cursor, int limit) {
+        return metadataService.getMembers(spaceId, cursor, limit);
     }
 
     public void removeMemberFromSpace(String spaceId, String memberEmail, String actorEmail) {
-        metadataService.removeMemberFromSpace(spaceId, memberEmail);
-        metadataService.logActivity(spaceId, actorEmail, "removed member", memberEmail);
+        try {
+            metadataService.removeMemberFromSpace(spaceId, memberEmail);
+            metadataService.logActivity(spaceId, actorEmail, "removed member", memberEmail);
+        } finally {
+            spaceChanged(spaceId, List.of(memberEmail));
+        }
     }
         
     public void updateMemberRole(String spaceId, String memberEmail, String role, String actorEmail) {
-        metadataService.updateMemberRole(spaceId, memberEmail, role);
-        metadataService.logActivity(spaceId, actorEmail, "updated member role", memberEmail + " -> " + role.toUpperCase());
+        try {
+            metadataService.updateMemberRole(spaceId, memberEmail, role);
+            metadataService.logActivity(spaceId, actorEmail, "updated member role", memberEmail + " -> " + role.toUpperCase());
+        } finally {
+            spaceChanged(spaceId);
+        }
     }
 
+    /**
+     * Membership check, remembered until the space next changes. Only
+     * positive answers are cached, so a failed lookup is never reused.
+     */
     public boolean isUserMemberOfSpace(String spaceId, String userEmail) {
-        return metadataService.isUserMemberOfSpace(spaceId, userEmail);
+        return checkAccess("member", spaceId, userEmail, () -> metadataService.isUserMemberOfSpace(spaceId, userEmail));
     }
 
     public boolean isUserAdminOfSpace(String spaceId, String userEmail) {
-        return metadataService.isUserAdminOfSpace(spaceId, userEmail);
+        return checkAccess("admin", spaceId, userEmail, () -> metadataService.isUserAdminOfSpace(spaceId, userEmail));
+    }
+
+    private boolean checkAccess(String kind, String spaceId, String userEmail, BooleanSupplier lookup) {
+        long version = listingCache.getVersion(spaceId);
+        String key = kind + ":" + spaceId + ":" + userEmail;
+        if (listingCache.get(key, version) != null) {
+            return true;
+        }
+        boolean allowed = lookup.getAsBoolean();
+        if (allowed) {
+            listingCache.put(key, version, Boolean.TRUE);
+        }
+        return allowed;
+    }
+
+    /**
+     * Retire the cached listings of a space and push its new activity to
+     * the change feed. Call after the write commits.
+     */
+    private void changed(String spaceId) {
+        listingCache.bump(spaceId);
+        changeFeed.publish(spaceId);
+    }
+
+    /**
+     * As {@link #changed}, for writes that also show in users' space lists:
+     * the space itself or its membership. Only the lists of its members
+     * are retired.
+     */
+    private void spaceChanged(String spaceId) {
+        spaceChanged(spaceId, List.of());
+    }
+
+    /**
+     * @param formerMembers Users the write took out of the space, whose
+     *                      lists change too
+     */
+    private void spaceChanged(String spaceId, Collection<String> formerMembers) {
+        listingCache.bump(spaceId);
+        try {
+            Set<String> affected = new HashSet<>(metadataService.getMemberEmails(spaceId));
+            affected.addAll(formerMembers);
+            for (String email : affected) {
+                listingCache.bump(ListingCache.spacesOf(email));
+            }
+        } catch (RuntimeException e) {
+            // Without the members, retire every list rather than leave one stale
+            logger.warn("Retiring all space lists after a change to space {}", spaceId, e);
+            listingCache.bump(ListingCache.SPACES);
+        }
+        changeFeed.publish(spaceId);
     }
 
     // File operations
@@ -82,25 +254,383 @@ public class SpaceService {
             throw new RuntimeException("User is not a member of this space");
         }
 
-        // Upload to Local Storage
-        String storagePath = storageService.uploadFile(inputStream, spaceId, originalFilename, contentType);
-        
-        // Save metadata to SQLite
-        SpaceFile file = new SpaceFile(spaceId, originalFilename, storagePath, contentType, size, uploaderId, uploaderEmail);
-        // Generate a unique ID for the file
-        file.setId(java.util.UUID.randomUUID().toString());
-        String fileId = metadataService.createFile(file);
+        // Quota is checked and held before any bytes reach storage
+        SpaceFile file;
+        String fileId;
+        try (QuotaService.Reservation reservation = quotaService.reserve(spaceId, uploaderEmail, size)) {
+            // Upload to Local Storage
+            String storagePath = storageService.uploadFile(inputStream, spaceId, originalFilename, contentType);
+
+            // Save metadata to SQLite; the usage counters move in the same transaction
+            file = new SpaceFile(spaceId, originalFilename, storagePath, contentType, size, uploaderId, uploaderEmail);
+            // Generate a unique ID for the file
+            file.setId(Uuids.newId());
+            try {
+                fileId = metadataService.createFile(file);
+            } catch (RuntimeException e) {
+                deleteQuietly(storagePath);
+                throw e;
+            }
+        }
         
-        // Log activity
-        metadataService.logActivity(spaceId, uploaderEmail, "uploaded file", originalFilename);
+        try {
+            // Log activity
+            metadataService.logActivity(spaceId, uploaderEmail, "uploaded file", originalFilename);
+        } finally {
+            changed(spaceId);
+        }
+
+        // Text extraction runs in the background; this only enqueues
+        contentIndexer.submit(file);
+        renditionService.submit(file);
         
         return fileId;
     }
 
+    /**
+     * One file of a batch upload. The stream is opened on a storage worker.
+     */
+    public record FileUpload(String originalFilename, String contentType, long size, Callable<InputStream> content) {}
+
+    /**
+     * Upload several files at once. Quota is reserved for the whole batch,
+     * the files are written to storage in parallel on the shared upload
+     * pool, and all rows plus one activity entry are inserted in a single
+     * transaction. If any file fails, the ones already stored are removed
+     * and nothing is recorded.
+     * @return IDs of the new files, in upload order
+     */
+    public List<String> uploadFiles(List<FileUpload> uploads, String spaceId, String uploaderId, String uploaderEmail) {
+        if (!isUserMemberOfSpace(spaceId, uploaderEmail)) {
+            throw new RuntimeException("User is not a member of this space");
+        }
+        if (uploads.isEmpty()) {
+            return List.of();
+        }
+
+        long totalSize = uploads.stream().mapToLong(FileUpload::size).sum();
+        List<SpaceFile> files;
+        try (QuotaService.Reservation reservation = quotaService.reserve(spaceId, uploaderEmail, totalSize, uploads.size())) {
+            String[] storagePaths = storeInParallel(uploads, spaceId);
+
+            files = new ArrayList<>(uploads.size());
+            for (int i = 0; i < uploads.size(); i++) {
+                FileUpload upload = uploads.get(i);
+                SpaceFile file = new SpaceFile(spaceId, upload.originalFilename(), storagePaths[i],
+                    upload.contentType(), upload.size(), uploaderId, uploaderEmail);
+                file.setId(Uuids.newId());
+                files.add(file);
+            }
+            try {
+                metadataService.createFiles(files, uploaderEmail, "uploaded files", SqliteMetadataService.summarizeFiles(files));
+            } catch (RuntimeException e) {
+                for (String path : storagePaths) {
+                    deleteQuietly(path);
+                }
+                throw e;
+            }
+        }
+        changed(spaceId);
+
+        List<String> fileIds = new ArrayList<>(files.size());
+        for (SpaceFile file : files) {
+            contentIndexer.submit(file);
+            renditionService.submit(file);
+            fileIds.add(file.getId());
+        }
+        return fileIds;
+    }
+
+    /**
+     * Write every upload to storage on the worker pool and wait for all of
+     * them. On failure, files that did get stored are deleted before the
+     * first error is rethrown; uploads not yet started are skipped.
+     */
+    private String[] storeInParallel(List<FileUpload> uploads, String spaceId) {
+        String[] storagePaths = new String[uploads.size()];
+        List<Callable<Void>> tasks = new ArrayList<>(uploads.size());
+        for (int i = 0; i < uploads.size(); i++) {
+            int index = i;
+            FileUpload upload = uploads.get(i);
+            tasks.add(() -> {
+                try (InputStream in = upload.content().call()) {
+                    storagePaths[index] = storageService.uploadFile(in, spaceId, upload.originalFilename(), upload.contentType());
+                }
+                return null;
+            });
+        }
+
+        Throwable failure = runOnStorageWorkers(tasks);
+        if (failure != null) {
+            for (String path : storagePaths) {
+                if (path != null) {
+                    deleteQuietly(path);
+                }
+            }
+            throw new RuntimeException("Failed to store uploaded files: " + failure.getMessage(), failure);
+        }
+        return storagePaths;
+    }
+
+    /**
+     * Run storage tasks on the shared worker pool and wait for every one to
+     * finish, so none is left running unaccounted for. After the first
+     * failure, tasks that have not started yet are skipped.
+     * @return The first failure, or null if all tasks succeeded
+     */
+    private Throwable runOnStorageWorkers(List<Callable<Void>> tasks) {
+        AtomicBoolean aborted = new AtomicBoolean();
+        List<Future<?>> futures = new ArrayList<>(tasks.size());
+        for (Callable<Void> task : tasks) {
+            futures.add(storageWorkers.submit(() -> {
+                if (aborted.get()) {
+                    return null;
+                }
+                try {
+                    return task.call();
+                } catch (Exception e) {
+                    aborted.set(true);
+                    throw e;
+                }
+            }));
+        }
+
+        Throwable failure = null;
+        boolean interrupted = false;
+        for (Future<?> future : futures) {
+            while (true) {
+                try {
+                    future.get();
+                    break;
+                } catch (ExecutionException e) {
+                    if (failure == null) {
+                        failure = e.getCause();
+                    }
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                    aborted.set(true);
+                    if (failure == null) {
+                        failure = e;
+                    }
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        return failure;
+    }
+
+    /**
+     * Outcome of a batch delete or move.
+     * @param processed Files deleted or moved
+     * @param notFound Requested IDs that matched no file
+     */
+    public record BatchResult(int processed, List<String> notFound) {}
+
+    /**
+     * Delete many files at once. Permissions are checked once per space, all
+     * rows go in one transaction, and the stored content is removed in the
+     * background afterwards.
+     * @throws SecurityException if the user may not delete one of the files
+     */
+    public BatchResult deleteFiles(Collection<String> fileIds, String userEmail) {
+        List<SpaceFile> files = metadataService.getFiles(fileIds);
+        checkCanModify(files, userEmail);
+        if (files.isEmpty()) {
+            return new BatchResult(0, missingIds(fileIds, files));
+        }
+
+        // Renditions are removed with the rows, so collect their paths first
+        Map<String, List<String>> renditionPaths = metadataService.getRenditionPaths(fileIdsOf(files));
+        metadataService.deleteFiles(files, userEmail);
+        for (SpaceFile file : files) {
+            changed(file.getSpaceId());
+        }
+
+        for (SpaceFile file : files) {
+            storageWorkers.execute(() -> deleteQuietly(file.getStoragePath()));
+            for (String path : renditionPaths.getOrDefault(file.getId(), List.of())) {
+                storageWorkers.execute(() -> deleteQuietly(path));
+            }
+        }
+        return new BatchResult(files.size(), missingIds(fileIds, files));
+    }
+
+    /**
+     * Move many files into another space. Content and renditions are moved
+     * within the storage backend in parallel (a rename for local storage),
+     * then every row is updated in one transaction. If either step fails,
+     * content already moved is moved back.
+     * @throws SecurityException if the user may not move one of the files or
+     *         is not a member of the target space
+     * @throws QuotaExceededException if the target space cannot take the files
+     */
+    public BatchResult moveFiles(Collection<String> fileIds, String targetSpaceId, String userEmail) {
+        if (!isUserMemberOfSpace(targetSpaceId, userEmail)) {
+            throw new SecurityException("You are not a member of the target space");
+        }
+        List<SpaceFile> found = metadataService.getFiles(fileIds);
+        List<SpaceFile> files = new ArrayList<>();
+        for (SpaceFile file : found) {
+            if (!file.getSpaceId().equals(targetSpaceId)) {
+                files.add(file);
+            }
+        }
+        checkCanModify(files, userEmail);
+        if (files.isEmpty()) {
+            return new BatchResult(0, missingIds(fileIds, found));
+        }
+
+        // Moved files count against the target space, per uploader
+        Map<String, List<SpaceFile>> byUploader = new LinkedHashMap<>();
+        for (SpaceFile file : files) {
+            byUploader.computeIfAbsent(file.getUploaderEmail(), email -> new ArrayList<>()).add(file);
+        }
+        List<QuotaService.Reservation> reservations = new ArrayList<>();
+        try {
+            for (Map.Entry<String, List<SpaceFile>> uploader : byUploader.entrySet()) {
+                long bytes = uploader.getValue().stream().mapToLong(SpaceFile::getSize).sum();
+                reservations.add(quotaService.reserve(targetSpaceId, uploader.getKey(), bytes, uploader.getValue().size()));
+            }
+
+            Map<String, String> movedPaths = new LinkedHashMap<>();
+            Map<String, List<String>> renditionPaths = metadataService.getRenditionPaths(fileIdsOf(files));
+            for (SpaceFile file : files) {
+                addRelocation(movedPaths, file.getStoragePath(), file.getSpaceId(), targetSpaceId);
+                for (String path : renditionPaths.getOrDefault(file.getId(), List.of())) {
+                    addRelocation(movedPaths, path, file.getSpaceId(), targetSpaceId);
+                }
+            }
+
+            Map<String, String> done = new ConcurrentHashMap<>();
+            List<Callable<Void>> tasks = new ArrayList<>(movedPaths.size());
+            for (Map.Entry<String, String> move : movedPaths.entrySet()) {
+                tasks.add(() -> {
+                    storageService.moveFile(move.getKey(), move.getValue());
+                    done.put(move.getKey(), move.getValue());
+                    return null;
+                });
+            }
+            Throwable failure = runOnStorageWorkers(tasks);
+            if (failure == null) {
+                try {
+                    metadataService.moveFiles(files, targetSpaceId, movedPaths, userEmail);
+                    for (SpaceFile file : files) {
+                        changed(file.getSpaceId());
+                    }
+                    changed(targetSpaceId);
+                } catch (RuntimeException e) {
+                    failure = e;
+                }
+            }
+            if (failure != null) {
+                moveBack(done);
+                throw new RuntimeException("Failed to move files: " + failure.getMessage(), failure);
+            }
+        } finally {
+            for (QuotaService.Reservation reservation : reservations) {
+                reservation.close();
+            }
+        }
+        return new BatchResult(files.size(), missingIds(fileIds, found));
+    }
+
+    /**
+     * Require admin rights, or authorship of every file, in each space the
+     * files belong to. One permission lookup per space.
+     */
+    private void checkCanModify(List<SpaceFile> files, String userEmail) {
+        Map<String, Boolean> adminOf = new HashMap<>();
+        for (SpaceFile file : files) {
+            boolean admin = adminOf.computeIfAbsent(file.getSpaceId(), spaceId -> isUserAdminOfSpace(spaceId, userEmail));
+            if (!admin && !file.getUploaderEmail().equals(userEmail)) {
+                throw new SecurityException("You don't have permission to modify " + file.getOriginalFilename());
+            }
+        }
+    }
+
+    /**
+     * Content under spaces/{source}/ moves to spaces/{target}/; anything
+     * stored elsewhere keeps its path.
+     */
+    private static void addRelocation(Map<String, String> movedPaths, String path, String sourceSpaceId, String targetSpaceId) {
+        String sourcePrefix = "spaces/" + sourceSpaceId + "/";
+        if (path.startsWith(sourcePrefix)) {
+            movedPaths.put(path, "spaces/" + targetSpaceId + "/" + path.substring(sourcePrefix.length()));
+        }
+    }
+
+    private void moveBack(Map<String, String> moved) {
+        for (Map.Entry<String, String> move : moved.entrySet()) {
+            try {
+                storageService.moveFile(move.getValue(), move.getKey());
+            } catch (RuntimeException e) {
+                logger.error("Failed to move {} back to {}: {}", move.getValue(), move.getKey(), e.getMessage());
+            }
+        }
+    }
+
+    private static List<String> fileIdsOf(List<SpaceFile> files) {
+        List<String> ids = new ArrayList<>(files.size());
+        for (SpaceFile file : files) {
+            ids.add(file.getId());
+        }
+        return ids;
+    }
+
+    private static List<String> missingIds(Collection<String> requested, List<SpaceFile> found) {
+        Set<String> foundIds = new HashSet<>(fileIdsOf(found));
+        List<String> missing = new ArrayList<>();
+        for (String id : new LinkedHashSet<>(requested)) {
+            if (!foundIds.contains(id)) {
+                missing.add(id);
+            }
+        }
+        return missing;
+    }
+
+    /**
+     * Reject an upload of roughly this size early, before its body is read.
+     * @throws QuotaExceededException if it cannot fit
+     */
+    public void checkQuota(String spaceId, String uploaderEmail, long size) {
+        quotaService.check(spaceId, uploaderEmail, size);
+    }
+
+    public Map<String, Object> getStorageUsage(String spaceId) {
+        return quotaService.getUsage(spaceId);
+    }
+
+    private void deleteQuietly(String storagePath) {
+        try {
+            storageService.deleteFile(storagePath);
+        } catch (RuntimeException e) {
+            logger.warn("Failed to delete {}: {}", storagePath, e.getMessage());
+        }
+    }
+
     public List<SpaceFile> getFilesForSpace(String spaceId) {
         return metadataService.getFilesForSpace(spaceId);
     }
 
+    /**
+     * File and member changes after a sync cursor, for clients that keep a
+     * copy of the space. See {@link SqliteMetadataService#getChanges}.
+     */
+    public SqliteMetadataService.ChangePage getChanges(String spaceId, long since, int limit) {
+        return metadataService.getChanges(spaceId, since, limit);
+    }
+
+    public List<SpaceFile> searchFiles(String spaceId, String query, int limit, int offset) {
+        return metadataService.searchFiles(spaceId, query, limit, offset);
+    }
+
+    public List<SpaceFile> searchFileContents(String spaceId, String query, int limit, int offset) {
+        return metadataService.searchFileContents(spaceId, query, limit, offset);
+    }
+
     public Optional<SpaceFile> getFile(String fileId) {
         return metadataService.getFile(fileId);
     }
@@ -119,14 +649,25 @@ public class SpaceService {
             throw new RuntimeException("You don't have permission to delete this file");
         }
 
+        // Renditions are removed with the row, so collect their blobs first
+        List<String> renditionPaths = metadataService.getRenditionPaths(fileId);
+
         // Delete from storage
         storageService.deleteFile(file.getStoragePath());
         
-        // Delete from SQLite
-        metadataService.deleteFile(fileId);
-        
-        // Log activity
-        metadataService.logActivity(spaceId, userEmail, "deleted file", file.getOriginalFilename());
+        try {
+            // Delete from SQLite
+            metadataService.deleteFile(fileId, spaceId);
+
+            for (String path : renditionPaths) {
+                deleteQuietly(path);
+            }
+
+            // Log activity
+            metadataService.logActivity(spaceId, userEmail, "deleted file", file.getOriginalFilename());
+        } finally {
+            changed(spaceId);
+        }
     }
 
     public InputStream downloadFile(String fileId, String userEmail) {
@@ -146,7 +687,70 @@ public class SpaceService {
         return storageService.downloadFile(file.getStoragePath());
     }
 
+    /**
+     * Files to put in a space archive: the whole space, or the selected
+     * files that belong to it.
+     * @param fileIds Selected IDs, or null for every file in the space
+     */
+    public List<SpaceFile> getFilesForArchive(String spaceId, Collection<String> fileIds, String userEmail) {
+        if (!isUserMemberOfSpace(spaceId, userEmail)) {
+            throw new RuntimeException("You don't have access to this space");
+        }
+        if (fileIds == null) {
+            List<SpaceFile> files = new ArrayList<>(metadataService.getFilesForSpace(spaceId));
+            Collections.reverse(files);
+            return files;
+        }
+        return metadataService.getFiles(spaceId, fileIds);
+    }
+
+    /**
+     * Stream the files as a ZIP archive, reading them one by one from storage.
+     * @return Total uncompressed bytes written
+     */
+    public long writeArchive(List<SpaceFile> files, OutputStream out) throws IOException {
+        return archiveWriter.write(files, out);
+    }
+
+    /**
+     * Thumbnail of a file, or empty if none has been generated yet.
+     */
+    public Optional<FileRendition> getThumbnail(String fileId) {
+        return metadataService.getRendition(fileId, FileRendition.THUMBNAIL);
+    }
+
+    public InputStream openRendition(FileRendition rendition) {
+        return storageService.downloadFile(rendition.getStoragePath());
+    }
+
     public List<Activity> getActivityLog(String spaceId) {
         return metadataService.getActivityLog(spaceId);
     }
+
+    public ContentIndexer getContentIndexer() {
+        return contentIndexer;
+    }
+
+    public SqliteMetadataService getMetadataService() {
+        return metadataService;
+    }
+
+    public ListingCache getListingCache() {
+        return listingCache;
+    }
+
+    public ChangeFeed getChangeFeed() {
+        return changeFeed;
+    }
+
+    public RenditionService getRenditionService() {
+        return renditionService;
+    }
+
+    /**
+     * Mapped-file cache of the local backend, or null when files are stored remotely.
+     */
+    public MappedFileCache getDownloadCache() {
+        return storageService instanceof LocalFileStorageService local ? local.getMappedFileCache() : null;
+    }
 }
@@ -1,114 +1,292 @@
 package com.driveclone.service;
 
+import com.driveclone.config.Config;
+import com.driveclone.database.CatalogSchema;
+import com.driveclone.database.ConnectionPool;
+import com.driveclone.database.MetadataSchema;
+import com.driveclone.database.SchemaMigrator;
+import com.driveclone.database.ShardLayout;
+import com.driveclone.database.StatementCache;
+import com.driveclone.metrics.Metrics;
 import com.driveclone.model.Activity;
+import com.driveclone.model.ContentIndexJob;
+import com.driveclone.model.FileRendition;
 import com.driveclone.model.Space;
 import com.driveclone.model.SpaceFile;
 import com.driveclone.model.SpaceMember;
+import com.driveclone.model.StorageUsage;
+import com.driveclone.tracing.Span;
+import com.driveclone.tracing.Tracer;
+import com.driveclone.util.EpochMillis;
+import com.driveclone.util.Uuids;
+import io.prometheus.client.Histogram;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.sql.*;
-import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class SqliteMetadataService {
     private static final Logger logger = LoggerFactory.getLogger(SqliteMetadataService.class);
+    private static final int MAX_SEARCH_TERMS = 8;
+    private static final int MAX_IN_PARAMETERS = 500;
+    private static final int MEMBER_INSERT_ROWS = MAX_IN_PARAMETERS / 4;
+    private static final long STALE_CLAIM_MILLIS = 10 * 60_000;
+    private static final String CATALOG_ADD_SQL = "INSERT OR IGNORE INTO user_spaces (member_email, space_id) VALUES (?, ?)";
     private final String dbPath;
+    private final List<ConnectionPool> shards = new ArrayList<>();
+    private final ConnectionPool catalog;
+    private final StatementCache.Stats statementStats = new StatementCache.Stats(Metrics.SQLITE_STATEMENT_CACHE);
+    private final AtomicInteger nextJobShard = new AtomicInteger();
 
     public SqliteMetadataService() {
-        this.dbPath = com.driveclone.config.Config.getInstance().getDbPath();
-        initializeTables();
-    }
-
-    private void initializeTables() {
-        try (Connection conn = getConnection()) {
-            // Create spaces table
-            String createSpacesTable = """
-                CREATE TABLE IF NOT EXISTS spaces (
-                    id TEXT PRIMARY KEY,
-                    name TEXT NOT NULL,
-                    description TEXT,
-                    admin_id TEXT NOT NULL,
-                    admin_email TEXT NOT NULL,
-                    created_at TEXT NOT NULL,
-                    member_emails TEXT
-                )
-            """;
-            
-            // Create members table
-            String createMembersTable = """
-                CREATE TABLE IF NOT EXISTS space_members (
-                    id TEXT PRIMARY KEY,
-                    space_id TEXT NOT NULL,
-                    member_email TEXT NOT NULL,
-                    role TEXT NOT NULL DEFAULT 'MEMBER',
-                    added_at TEXT NOT NULL,
-                    FOREIGN KEY (space_id) REFERENCES spaces (id) ON DELETE CASCADE,
-                    UNIQUE(space_id, member_email)
-                )
-            """;
-            
-            // Create files table
-            String createFilesTable = """
-                CREATE TABLE IF NOT EXISTS space_files (
-                    id TEXT PRIMARY KEY,
-                    space_id TEXT NOT NULL,
-                    original_filename TEXT NOT NULL,
-                    storage_path TEXT NOT NULL,
-                    content_type TEXT,
-                    size INTEGER NOT NULL,
-                    uploader_id TEXT NOT NULL,
-                    uploader_email TEXT NOT NULL,
-                    uploaded_at TEXT NOT NULL,
-                    FOREIGN KEY (space_id) REFERENCES spaces (id)
-                )
-            """;
+        this(Config.getInstance().getDbPath());
+    }
 
-            // Create activity table
-            String createActivityTable = """
-                CREATE TABLE IF NOT EXISTS activity (
-                    id TEXT PRIMARY KEY,
-                    space_id TEXT NOT NULL,
-                    user_email TEXT NOT NULL,
-                    action TEXT NOT NULL,
-                    details TEXT,
-                    timestamp TEXT NOT NULL,
-                    FOREIGN KEY (space_id) REFERENCES spaces (id)
-                )
-            """;
+    public SqliteMetadataService(String dbPath) {
+        this(dbPath, Config.getInstance().getSqliteShards());
+    }
 
-            try (Statement stmt = conn.createStatement()) {
-                stmt.execute(createSpacesTable);
-                stmt.execute(createMembersTable);
-                stmt.execute("CREATE INDEX IF NOT EXISTS idx_space_members_space_id ON space_members(space_id)");
-                stmt.execute("CREATE INDEX IF NOT EXISTS idx_space_members_email ON space_members(member_email)");
-                stmt.execute("CREATE INDEX IF NOT EXISTS idx_space_members_role ON space_members(role)");
-                stmt.execute(createFilesTable);
-                stmt.execute(createActivityTable);
-                logger.info("SQLite metadata tables initialized successfully");
+    /**
+     * @param shardCount Number of shard files, see ShardLayout; 1 for the
+     *                   single database at dbPath
+     */
+    public SqliteMetadataService(String dbPath, int shardCount) {
+        this.dbPath = dbPath;
+        checkLayout(shardCount);
+        if (shardCount > 1) {
+            migrateCatalog(shardCount);
+        }
+        List<String> paths = ShardLayout.shardPaths(dbPath, shardCount);
+        for (String path : paths) {
+            migrateSchema(path);
+        }
+        Config config = Config.getInstance();
+        try {
+            for (String path : paths) {
+                shards.add(openPool(path, config));
             }
+            this.catalog = shardCount > 1 ? openPool(ShardLayout.catalogPath(dbPath), config) : null;
         } catch (SQLException e) {
-            logger.error("Failed to initialize SQLite metadata tables", e);
-            throw new RuntimeException("Failed to initialize SQLite metadata tables", e);
+            close();
+            logger.error("Failed to open SQLite connection pool", e);
+            throw new RuntimeException("Failed to open SQLite connection pool", e);
+        }
+        if (catalog != null) {
+            rebuildCatalog();
+        }
+    }
+
+    private ConnectionPool openPool(String path, Config config) throws SQLException {
+        return new ConnectionPool("jdbc:sqlite:" + path, config.getSqlitePoolSize(),
+            config.getSqliteStatementCacheSize(), config.getSqlitePoolTimeoutMillis(), config.getSqliteBusyTimeoutMillis(),
+            statementStats);
+    }
+
+    /**
+     * Refuse to start on metadata laid out for a different shard count,
+     * which would otherwise come up as empty databases.
+     */
+    private void checkLayout(int shardCount) {
+        boolean single = Files.exists(Path.of(dbPath));
+        boolean sharded = Files.exists(Path.of(ShardLayout.catalogPath(dbPath)));
+        if (shardCount == 1 && sharded) {
+            throw new IllegalStateException("Metadata at " + dbPath + " is sharded; set SQLITE_SHARDS to its shard count");
+        }
+        if (shardCount > 1 && single) {
+            throw new IllegalStateException("Metadata at " + dbPath + " is a single database; keep SQLITE_SHARDS=1"
+                + " or re-import it into shards");
+        }
+    }
+
+    /**
+     * Apply any pending schema migrations. A current database needs only the
+     * user_version read, so startup runs no DDL.
+     */
+    private static void migrateSchema(String path) {
+        try (Connection conn = DriverManager.getConnection("jdbc:sqlite:" + path)) {
+            new SchemaMigrator(MetadataSchema.MIGRATIONS).migrate(conn);
+        } catch (SQLException e) {
+            logger.error("Failed to migrate SQLite metadata schema", e);
+            throw new RuntimeException("Failed to migrate SQLite metadata schema", e);
+        }
+    }
+
+    /**
+     * Migrate the catalog and check it was created for this shard count.
+     */
+    private void migrateCatalog(int shardCount) {
+        String recorded;
+        try (Connection conn = DriverManager.getConnection("jdbc:sqlite:" + ShardLayout.catalogPath(dbPath))) {
+            new SchemaMigrator(CatalogSchema.MIGRATIONS).migrate(conn);
+            try (PreparedStatement insert = conn.prepareStatement(
+                    "INSERT OR IGNORE INTO catalog_settings (name, value) VALUES ('shards', ?)")) {
+                insert.setString(1, Integer.toString(shardCount));
+                insert.executeUpdate();
+            }
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT value FROM catalog_settings WHERE name = 'shards'")) {
+                rs.next();
+                recorded = rs.getString(1);
+            }
+        } catch (SQLException e) {
+            logger.error("Failed to migrate SQLite shard catalog", e);
+            throw new RuntimeException("Failed to migrate SQLite shard catalog", e);
+        }
+        if (!recorded.equals(Integer.toString(shardCount))) {
+            throw new IllegalStateException("Metadata at " + dbPath + " is split over " + recorded
+                + " shards, but SQLITE_SHARDS is " + shardCount);
         }
     }
 
-    private Connection getConnection() throws SQLException {
-        return DriverManager.getConnection("jdbc:sqlite:" + dbPath);
+    /**
+     * Rebuild the catalog from the shards. Catalog rows are written after
+     * the shard transaction they mirror has committed, so a crash in
+     * between can leave them stale; the shards are the record, and the
+     * catalog is derived from them again at every start.
+     */
+    private void rebuildCatalog() {
+        String sql = """
+            SELECT admin_email, id FROM spaces WHERE admin_email IS NOT NULL
+            UNION SELECT member_email, space_id FROM space_members
+        """;
+        try (Span span = timed("rebuildCatalog"); Connection catalogConn = catalog.getConnection()) {
+            catalogConn.setAutoCommit(false);
+            try (Statement clear = catalogConn.createStatement();
+                 PreparedStatement insert = prepare(catalogConn, "catalogAdd", CATALOG_ADD_SQL)) {
+                clear.executeUpdate("DELETE FROM user_spaces");
+                int rows = 0;
+                for (ConnectionPool shard : shards) {
+                    try (Connection conn = shard.getConnection();
+                         Statement stmt = conn.createStatement();
+                         ResultSet rs = stmt.executeQuery(sql)) {
+                        while (rs.next()) {
+                            insert.setString(1, rs.getString(1));
+                            insert.setBytes(2, rs.getBytes(2));
+                            insert.addBatch();
+                            rows++;
+                        }
+                    }
+                    insert.executeBatch();
+                }
+                catalogConn.commit();
+                logger.info("Rebuilt shard catalog: {} memberships across {} shards", rows, shards.size());
+            } catch (SQLException e) {
+                catalogConn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            recordError("rebuildCatalog");
+            logger.error("Error rebuilding shard catalog", e);
+            throw new RuntimeException("Failed to rebuild shard catalog", e);
+        }
+    }
+
+    /**
+     * Connection pool usage and per-query statement cache stats, with the
+     * pool usage of each shard and of the catalog when sharded.
+     */
+    public Map<String, Object> getConnectionStats() {
+        if (catalog == null) {
+            return shards.get(0).getStats();
+        }
+        List<Map<String, Object>> shardStats = new ArrayList<>();
+        for (ConnectionPool shard : shards) {
+            shardStats.add(Map.of("connections", shard.getSize(), "idleConnections", shard.getIdleCount()));
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("shards", shardStats);
+        stats.put("catalog", Map.of("connections", catalog.getSize(), "idleConnections", catalog.getIdleCount()));
+        stats.put("hits", statementStats.getHits());
+        stats.put("prepares", statementStats.getPrepares());
+        stats.put("hitRate", statementStats.getHitRate());
+        stats.put("queries", statementStats.getQueries());
+        return stats;
+    }
+
+    public double getStatementCacheHitRate() {
+        return statementStats.getHitRate();
+    }
+
+    /**
+     * Close the pooled connections and their cached statements.
+     */
+    public void close() {
+        for (ConnectionPool shard : shards) {
+            shard.close();
+        }
+        if (catalog != null) {
+            catalog.close();
+        }
+    }
+
+    public int getShardCount() {
+        return shards.size();
+    }
+
+    /**
+     * Shard holding a space's metadata.
+     */
+    public int shardOf(String spaceId) {
+        return ShardLayout.shardOf(spaceId, shards.size());
+    }
+
+    /**
+     * A connection to the shard of a space. Everything about one space is
+     * in its shard, so its reads and transactions need no other.
+     */
+    private Connection getConnection(String spaceId) throws SQLException {
+        return shards.get(shardOf(spaceId)).getConnection();
+    }
+
+    /**
+     * The connection's cached statement for a query, compiled on first use.
+     * Query IDs are named after the calling method; SQL assembled per call
+     * (IN lists) goes through conn.prepareStatement instead.
+     */
+    private static PreparedStatement prepare(Connection conn, String queryId, String sql) throws SQLException {
+        return conn.unwrap(StatementCache.class).prepare(queryId, sql);
+    }
+
+    private static Span timed(String method) {
+        Histogram.Timer timer = Metrics.SQLITE_QUERY_DURATION.labels(method).startTimer();
+        return Tracer.startSpan("sqlite." + method).onEnd(timer::observeDuration);
+    }
+
+    private static void recordError(String method) {
+        Metrics.SQLITE_ERRORS.labels(method).inc();
+    }
+
+    /**
+     * Bind an ID in its stored 16-byte form (see Uuids).
+     */
+    private static void setId(PreparedStatement stmt, int index, String id) throws SQLException {
+        stmt.setBytes(index, id == null ? null : Uuids.toBytes(id));
+    }
+
+    private static String getId(ResultSet rs, String column) throws SQLException {
+        return Uuids.toString(rs.getBytes(column));
+    }
+
+    private static String getId(ResultSet rs, int column) throws SQLException {
+        return Uuids.toString(rs.getBytes(column));
     }
 
     // Space operations
     public String createSpace(Space space) {
-        try (Connection conn = getConnection()) {
+        try (Span span = timed("createSpace"); Connection conn = getConnection(space.getId())) {
             String sql = "INSERT INTO spaces (id, name, description, admin_id, admin_email, created_at, member_emails) VALUES (?, ?, ?, ?, ?, ?, ?)";
             
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                stmt.setString(1, space.getId());
+            try (PreparedStatement stmt = prepare(conn, "createSpace", sql)) {
+                setId(stmt, 1, space.getId());
                 stmt.setString(2, space.getName());
                 stmt.setString(3, space.getDescription());
                 stmt.setString(4, space.getAdminId());
                 stmt.setString(5, space.getAdminEmail());
-                stmt.setString(6, space.getCreatedAt().toString());
+                stmt.setLong(6, EpochMillis.of(space.getCreatedAt()));
                 
                 // Store member emails as comma-separated string
                 String memberEmails = space.getMemberEmails() != null ? 
@@ -116,159 +294,387 @@ public class SqliteMetadataService {
                 stmt.setString(7, memberEmails);
                 
                 stmt.executeUpdate();
+                catalogAdd(space.getId(), List.of(space.getAdminEmail()));
                 logger.info("Created space: {}", space.getId());
                 return space.getId();
             }
         } catch (SQLException e) {
+            recordError("createSpace");
             logger.error("Error creating space", e);
             throw new RuntimeException("Failed to create space", e);
         }
     }
 
     public Optional<Space> getSpace(String spaceId) {
-        try (Connection conn = getConnection()) {
-            String sql = "SELECT * FROM spaces WHERE id = ?";
+        return getSpace(spaceId, SpaceFields.ALL);
+    }
+
+    /**
+     * A space with only the requested fields; members are queried only if
+     * they are among them.
+     */
+    public Optional<Space> getSpace(String spaceId, SpaceFields fields) {
+        try (Span span = timed("getSpace"); Connection conn = getConnection(spaceId)) {
+            String sql = "SELECT " + fields.columns() + " FROM spaces WHERE id = ?";
             
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                stmt.setString(1, spaceId);
+            try (PreparedStatement stmt = prepare(conn, "getSpace[" + fields.key() + "]", sql)) {
+                setId(stmt, 1, spaceId);
                 
                 try (ResultSet rs = stmt.executeQuery()) {
                     if (rs.next()) {
-                        Space space = mapToSpace(rs);
-                        populateMembers(conn, space);
+                        Space space = mapToSpace(rs, fields);
+                        if (fields.includes(SpaceFields.Field.MEMBERS)) {
+                            populateMembers(conn, space);
+                        }
                         return Optional.of(space);
                     }
                 }
             }
         } catch (SQLException e) {
+            recordError("getSpace");
             logger.error("Error getting space: {}", spaceId, e);
         }
         return Optional.empty();
     }
 
     public List<Space> getSpacesForUser(String userEmail) {
+        return getSpacesForUser(userEmail, SpaceFields.ALL);
+    }
+
+    public List<Space> getSpacesForUser(String userEmail, SpaceFields fields) {
+        if (catalog != null) {
+            return getSpacesForUserSharded(userEmail, fields);
+        }
         List<Space> spaces = new ArrayList<>();
-        try (Connection conn = getConnection()) {
-            String sql = "SELECT * FROM spaces WHERE admin_email = ? OR member_emails LIKE ?";
+        try (Span span = timed("getSpacesForUser"); Connection conn = shards.get(0).getConnection()) {
+            String sql = "SELECT " + fields.columns() + " FROM spaces WHERE admin_email = ? OR member_emails LIKE ?";
             
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            try (PreparedStatement stmt = prepare(conn, "getSpacesForUser[" + fields.key() + "]", sql)) {
                 stmt.setString(1, userEmail);
                 stmt.setString(2, "%" + userEmail + "%");
                 
                 try (ResultSet rs = stmt.executeQuery()) {
                     while (rs.next()) {
-                        Space space = mapToSpace(rs);
-                        populateMembers(conn, space);
+                        Space space = mapToSpace(rs, fields);
+                        if (fields.includes(SpaceFields.Field.MEMBERS)) {
+                            populateMembers(conn, space);
+                        }
                         spaces.add(space);
                     }
                 }
             }
         } catch (SQLException e) {
+            recordError("getSpacesForUser");
+            logger.error("Error getting spaces for user: {}", userEmail, e);
+        }
+        return spaces;
+    }
+
+    /**
+     * The catalog names the user's spaces; each shard holding some of them
+     * is then read once.
+     */
+    private List<Space> getSpacesForUserSharded(String userEmail, SpaceFields fields) {
+        List<Space> spaces = new ArrayList<>();
+        try (Span span = timed("getSpacesForUser")) {
+            Map<Integer, List<String>> byShard = new TreeMap<>();
+            for (String spaceId : queryCatalogSpaceIds(userEmail)) {
+                byShard.computeIfAbsent(shardOf(spaceId), shard -> new ArrayList<>()).add(spaceId);
+            }
+            for (Map.Entry<Integer, List<String>> shard : byShard.entrySet()) {
+                List<String> ids = shard.getValue();
+                try (Connection conn = shards.get(shard.getKey()).getConnection()) {
+                    for (int from = 0; from < ids.size(); from += MAX_IN_PARAMETERS) {
+                        List<String> chunk = ids.subList(from, Math.min(ids.size(), from + MAX_IN_PARAMETERS));
+                        String sql = "SELECT " + fields.columns() + " FROM spaces WHERE id IN (" + placeholders(chunk.size()) + ")";
+                        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                            for (int i = 0; i < chunk.size(); i++) {
+                                setId(stmt, i + 1, chunk.get(i));
+                            }
+                            try (ResultSet rs = stmt.executeQuery()) {
+                                while (rs.next()) {
+                                    Space space = mapToSpace(rs, fields);
+                                    if (fields.includes(SpaceFields.Field.MEMBERS)) {
+                                        populateMembers(conn, space);
+                                    }
+                                    spaces.add(space);
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            recordError("getSpacesForUser");
             logger.error("Error getting spaces for user: {}", userEmail, e);
         }
         return spaces;
     }
 
     public void updateSpace(Space space) {
-        try (Connection conn = getConnection()) {
+        try (Span span = timed("updateSpace"); Connection conn = getConnection(space.getId())) {
             String sql = "UPDATE spaces SET name = ?, description = ?, member_emails = ? WHERE id = ?";
             
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            try (PreparedStatement stmt = prepare(conn, "updateSpace", sql)) {
                 stmt.setString(1, space.getName());
                 stmt.setString(2, space.getDescription());
                 
                 String memberEmails = space.getMemberEmails() != null ? 
                     String.join(",", space.getMemberEmails()) : "";
                 stmt.setString(3, memberEmails);
-                stmt.setString(4, space.getId());
+                setId(stmt, 4, space.getId());
                 
                 stmt.executeUpdate();
                 logger.info("Updated space: {}", space.getId());
             }
         } catch (SQLException e) {
+            recordError("updateSpace");
             logger.error("Error updating space: {}", space.getId(), e);
             throw new RuntimeException("Failed to update space", e);
         }
     }
 
     public void deleteSpace(String spaceId) {
-        try (Connection conn = getConnection()) {
-            // Delete files first (foreign key constraint)
-            String deleteFilesSql = "DELETE FROM space_files WHERE space_id = ?";
-            try (PreparedStatement stmt = conn.prepareStatement(deleteFilesSql)) {
-                stmt.setString(1, spaceId);
-                stmt.executeUpdate();
-            }
+        try (Span span = timed("deleteSpace"); Connection conn = getConnection(spaceId)) {
+            // One transaction, so a failure never leaves tombstones or a space without its files
+            conn.setAutoCommit(false);
+            try {
+                // Delete files first (foreign key constraint)
+                String deleteFilesSql = "DELETE FROM space_files WHERE space_id = ?";
+                try (PreparedStatement stmt = prepare(conn, "deleteSpace.files", deleteFilesSql)) {
+                    setId(stmt, 1, spaceId);
+                    stmt.executeUpdate();
+                }
 
-            // Delete members
-            String deleteMembersSql = "DELETE FROM space_members WHERE space_id = ?";
-            try (PreparedStatement stmt = conn.prepareStatement(deleteMembersSql)) {
-                stmt.setString(1, spaceId);
-                stmt.executeUpdate();
-            }
-            
-            // Delete space
-            String deleteSpaceSql = "DELETE FROM spaces WHERE id = ?";
-            try (PreparedStatement stmt = conn.prepareStatement(deleteSpaceSql)) {
-                stmt.setString(1, spaceId);
-                stmt.executeUpdate();
+                // Delete members
+                String deleteMembersSql = "DELETE FROM space_members WHERE space_id = ?";
+                try (PreparedStatement stmt = prepare(conn, "deleteSpace.members", deleteMembersSql)) {
+                    setId(stmt, 1, spaceId);
+                    stmt.executeUpdate();
+                }
+
+                // Delete space
+                String deleteSpaceSql = "DELETE FROM spaces WHERE id = ?";
+                try (PreparedStatement stmt = prepare(conn, "deleteSpace.space", deleteSpaceSql)) {
+                    setId(stmt, 1, spaceId);
+                    stmt.executeUpdate();
+                }
+
+                // Drop the change journal, including the tombstones the deletes above wrote
+                String deleteChangesSql = "DELETE FROM space_changes WHERE space_id = ?";
+                try (PreparedStatement stmt = prepare(conn, "deleteSpace.changes", deleteChangesSql)) {
+                    setId(stmt, 1, spaceId);
+                    stmt.executeUpdate();
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
             }
-            
+
+            catalogRemove(spaceId, null);
             logger.info("Deleted space: {}", spaceId);
         } catch (SQLException e) {
+            recordError("deleteSpace");
             logger.error("Error deleting space: {}", spaceId, e);
             throw new RuntimeException("Failed to delete space", e);
         }
     }
 
     public void addMemberToSpace(String spaceId, String memberEmail) {
-        try (Connection conn = getConnection()) {
+        try (Span span = timed("addMemberToSpace"); Connection conn = getConnection(spaceId)) {
             String insertSql = "INSERT OR IGNORE INTO space_members (id, space_id, member_email, role, added_at) VALUES (?, ?, ?, ?, ?)";
-            try (PreparedStatement stmt = conn.prepareStatement(insertSql)) {
-                stmt.setString(1, UUID.randomUUID().toString());
-                stmt.setString(2, spaceId);
+            try (PreparedStatement stmt = prepare(conn, "addMemberToSpace", insertSql)) {
+                setId(stmt, 1, Uuids.newId());
+                setId(stmt, 2, spaceId);
                 stmt.setString(3, memberEmail);
                 stmt.setString(4, "MEMBER");
-                stmt.setString(5, LocalDateTime.now().toString());
+                stmt.setLong(5, System.currentTimeMillis());
                 stmt.executeUpdate();
             }
 
             syncMemberEmails(conn, spaceId);
+            catalogAdd(spaceId, List.of(memberEmail));
             logger.info("Added member {} to space {}", memberEmail, spaceId);
         } catch (SQLException e) {
+            recordError("addMemberToSpace");
             logger.error("Error adding member to space", e);
             throw new RuntimeException("Failed to add member to space", e);
         }
     }
 
+    /**
+     * Add many members in one transaction: multi-row inserts, then one
+     * rebuild of spaces.member_emails and one activity entry for the batch.
+     * @param memberEmails Emails to add, without duplicates
+     * @return Emails that were added; existing members are left as they are
+     */
+    public List<String> addMembersToSpace(String spaceId, List<String> memberEmails, String actorEmail) {
+        List<String> added = new ArrayList<>();
+        if (memberEmails.isEmpty()) {
+            return added;
+        }
+        try (Span span = timed("addMembersToSpace"); Connection conn = getConnection(spaceId)) {
+            conn.setAutoCommit(false);
+            try {
+                long now = System.currentTimeMillis();
+                for (int from = 0; from < memberEmails.size(); from += MEMBER_INSERT_ROWS) {
+                    List<String> chunk = memberEmails.subList(from, Math.min(memberEmails.size(), from + MEMBER_INSERT_ROWS));
+                    String sql = "INSERT OR IGNORE INTO space_members (id, space_id, member_email, role, added_at) VALUES "
+                        + String.join(", ", Collections.nCopies(chunk.size(), "(?, ?, ?, 'MEMBER', ?)"))
+                        + " RETURNING member_email";
+                    // Full chunks share one statement text, so only the last, shorter one is compiled per call
+                    try (PreparedStatement stmt = chunk.size() == MEMBER_INSERT_ROWS
+                            ? prepare(conn, "addMembersToSpace", sql) : conn.prepareStatement(sql)) {
+                        int index = 1;
+                        for (String email : chunk) {
+                            setId(stmt, index++, Uuids.newId());
+                            setId(stmt, index++, spaceId);
+                            stmt.setString(index++, email);
+                            stmt.setLong(index++, now);
+                        }
+                        try (ResultSet rs = stmt.executeQuery()) {
+                            while (rs.next()) {
+                                added.add(rs.getString(1));
+                            }
+                        }
+                    }
+                }
+                if (!added.isEmpty()) {
+                    syncMemberEmails(conn, spaceId);
+                    insertActivity(conn, spaceId, actorEmail, "added members", summarize(added, "member", "members"));
+                }
+                conn.commit();
+                catalogAdd(spaceId, added);
+                logger.info("Added {} of {} members to space {}", added.size(), memberEmails.size(), spaceId);
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            recordError("addMembersToSpace");
+            logger.error("Error adding {} members to space: {}", memberEmails.size(), spaceId, e);
+            throw new RuntimeException("Failed to add members to space", e);
+        }
+        return added;
+    }
+
+    /**
+     * One page of a space's members, oldest first, the owner leading the
+     * first page. Pages are keyed on (added_at, id) rather than an offset,
+     * so each page is an index range scan however deep it is. IDs are
+     * time-ordered and never change, unlike the implicit rowid, which a
+     * VACUUM may renumber under an outstanding cursor.
+     * @param cursor nextCursor of the previous page, or null for the first
+     * @param limit Maximum members in the page, the owner included
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public MemberPage getMembers(String spaceId, String cursor, int limit) {
+        long afterAddedAt = Long.MIN_VALUE;
+        String afterId = null;
+        if (cursor != null) {
+            int separator = cursor.indexOf(':');
+            try {
+                afterAddedAt = Long.parseLong(cursor.substring(0, Math.max(separator, 0)));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid member cursor: " + cursor);
+            }
+            afterId = cursor.substring(separator + 1);
+            if (afterId.isEmpty()) {
+                throw new IllegalArgumentException("Invalid member cursor: " + cursor);
+            }
+        }
+
+        List<SpaceMember> members = new ArrayList<>();
+        String nextCursor = null;
+        try (Span span = timed("getMembers"); Connection conn = getConnection(spaceId)) {
+            if (cursor == null) {
+                try (PreparedStatement stmt = prepare(conn, "getMembers.owner",
+                        "SELECT admin_email, created_at FROM spaces WHERE id = ?")) {
+                    setId(stmt, 1, spaceId);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        if (rs.next()) {
+                            members.add(new SpaceMember(rs.getString(1), "ADMIN",
+                                EpochMillis.toLocalDateTime(rs.getLong(2)), true));
+                        }
+                    }
+                }
+            }
+
+            String sql = """
+                SELECT id, member_email, role, added_at FROM space_members
+                WHERE space_id = ? AND (added_at, id) > (?, ?)
+                ORDER BY added_at, id
+                LIMIT ?
+            """;
+            try (PreparedStatement stmt = prepare(conn, "getMembers", sql)) {
+                setId(stmt, 1, spaceId);
+                stmt.setLong(2, afterAddedAt);
+                // An empty blob sorts before every ID
+                stmt.setBytes(3, afterId == null ? new byte[0] : Uuids.toBytes(afterId));
+                // The owner takes a place in the first page
+                int rows = limit - members.size();
+                stmt.setInt(4, rows + 1);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    int count = 0;
+                    while (rs.next()) {
+                        if (++count > rows) {
+                            break;
+                        }
+                        afterAddedAt = rs.getLong("added_at");
+                        afterId = getId(rs, "id");
+                        members.add(new SpaceMember(rs.getString("member_email"),
+                            Optional.ofNullable(rs.getString("role")).orElse("MEMBER"),
+                            EpochMillis.toLocalDateTime(afterAddedAt), false));
+                    }
+                    if (count > rows) {
+                        nextCursor = afterAddedAt + ":" + afterId;
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            recordError("getMembers");
+            logger.error("Error listing members of space: {}", spaceId, e);
+            throw new RuntimeException("Failed to list members", e);
+        }
+        return new MemberPage(members, nextCursor);
+    }
+
+    /**
+     * A page of members and the cursor of the next one (null on the last).
+     */
+    public record MemberPage(List<SpaceMember> members, String nextCursor) {}
+
     public void removeMemberFromSpace(String spaceId, String memberEmail) {
-        try (Connection conn = getConnection()) {
+        try (Span span = timed("removeMemberFromSpace"); Connection conn = getConnection(spaceId)) {
             String deleteSql = "DELETE FROM space_members WHERE space_id = ? AND member_email = ?";
-            try (PreparedStatement stmt = conn.prepareStatement(deleteSql)) {
-                stmt.setString(1, spaceId);
+            try (PreparedStatement stmt = prepare(conn, "removeMemberFromSpace", deleteSql)) {
+                setId(stmt, 1, spaceId);
                 stmt.setString(2, memberEmail);
                 stmt.executeUpdate();
             }
 
             syncMemberEmails(conn, spaceId);
+            catalogRemove(spaceId, memberEmail);
             logger.info("Removed member {} from space {}", memberEmail, spaceId);
         } catch (SQLException e) {
+            recordError("removeMemberFromSpace");
             logger.error("Error removing member from space", e);
             throw new RuntimeException("Failed to remove member from space", e);
         }
     }
 
     public void updateMemberRole(String spaceId, String memberEmail, String role) {
-        try (Connection conn = getConnection()) {
+        try (Span span = timed("updateMemberRole"); Connection conn = getConnection(spaceId)) {
             String normalizedRole = role == null ? "MEMBER" : role.toUpperCase();
             if (!normalizedRole.equals("ADMIN") && !normalizedRole.equals("MEMBER")) {
                 throw new IllegalArgumentException("Invalid member role: " + role);
             }
 
             String updateSql = "UPDATE space_members SET role = ? WHERE space_id = ? AND member_email = ?";
-            try (PreparedStatement stmt = conn.prepareStatement(updateSql)) {
+            try (PreparedStatement stmt = prepare(conn, "updateMemberRole", updateSql)) {
                 stmt.setString(1, normalizedRole);
-                stmt.setString(2, spaceId);
+                setId(stmt, 2, spaceId);
                 stmt.setString(3, memberEmail);
                 int updated = stmt.executeUpdate();
                 if (updated == 0) {
@@ -278,40 +684,42 @@ public class SqliteMetadataService {
 
             logger.info("Updated member {} role to {} in space {}", memberEmail, normalizedRole, spaceId);
         } catch (SQLException e) {
+            recordError("updateMemberRole");
             logger.error("Error updating member role", e);
             throw new RuntimeException("Failed to update member role", e);
         }
     }
 
     public boolean isUserMemberOfSpace(String spaceId, String userEmail) {
-        try (Connection conn = getConnection()) {
+        try (Span span = timed("isUserMemberOfSpace"); Connection conn = getConnection(spaceId)) {
             if (isSpaceOwner(conn, spaceId, userEmail)) {
                 return true;
             }
 
             String sql = "SELECT 1 FROM space_members WHERE space_id = ? AND member_email = ? LIMIT 1";
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                stmt.setString(1, spaceId);
+            try (PreparedStatement stmt = prepare(conn, "isUserMemberOfSpace", sql)) {
+                setId(stmt, 1, spaceId);
                 stmt.setString(2, userEmail);
                 try (ResultSet rs = stmt.executeQuery()) {
                     return rs.next();
                 }
             }
         } catch (SQLException e) {
+            recordError("isUserMemberOfSpace");
             logger.error("Error checking membership", e);
             return false;
         }
     }
 
     public boolean isUserAdminOfSpace(String spaceId, String userEmail) {
-        try (Connection conn = getConnection()) {
+        try (Span span = timed("isUserAdminOfSpace"); Connection conn = getConnection(spaceId)) {
             if (isSpaceOwner(conn, spaceId, userEmail)) {
                 return true;
             }
 
             String sql = "SELECT role FROM space_members WHERE space_id = ? AND member_email = ?";
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                stmt.setString(1, spaceId);
+            try (PreparedStatement stmt = prepare(conn, "isUserAdminOfSpace", sql)) {
+                setId(stmt, 1, spaceId);
                 stmt.setString(2, userEmail);
                 try (ResultSet rs = stmt.executeQuery()) {
                     if (rs.next()) {
@@ -321,6 +729,7 @@ public class SqliteMetadataService {
             }
             return false;
         } catch (SQLException e) {
+            recordError("isUserAdminOfSpace");
             logger.error("Error checking admin membership", e);
             return false;
         }
@@ -328,90 +737,1073 @@ public class SqliteMetadataService {
 
     // File operations
     public String createFile(SpaceFile file) {
-        try (Connection conn = getConnection()) {
+        try (Span span = timed("createFile"); Connection conn = getConnection(file.getSpaceId())) {
             String sql = "INSERT INTO space_files (id, space_id, original_filename, storage_path, content_type, size, uploader_id, uploader_email, uploaded_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
             
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                stmt.setString(1, file.getId());
-                stmt.setString(2, file.getSpaceId());
+            try (PreparedStatement stmt = prepare(conn, "createFile", sql)) {
+                setId(stmt, 1, file.getId());
+                setId(stmt, 2, file.getSpaceId());
                 stmt.setString(3, file.getOriginalFilename());
                 stmt.setString(4, file.getStoragePath());
                 stmt.setString(5, file.getContentType());
                 stmt.setLong(6, file.getSize());
                 stmt.setString(7, file.getUploaderId());
                 stmt.setString(8, file.getUploaderEmail());
-                stmt.setString(9, file.getUploadedAt().toString());
+                stmt.setLong(9, EpochMillis.of(file.getUploadedAt()));
                 
                 stmt.executeUpdate();
                 logger.info("Created file: {}", file.getId());
                 return file.getId();
             }
         } catch (SQLException e) {
+            recordError("createFile");
             logger.error("Error creating file", e);
             throw new RuntimeException("Failed to create file", e);
         }
     }
 
+    /**
+     * Insert several files of one space and a single activity entry in one
+     * transaction. Either every row is written or none is.
+     * @param activityAction Action recorded once for the whole batch
+     * @param activityDetails Details of that activity entry
+     */
+    public void createFiles(List<SpaceFile> files, String actorEmail, String activityAction, String activityDetails) {
+        if (files.isEmpty()) {
+            return;
+        }
+        String spaceId = files.get(0).getSpaceId();
+        String fileSql = "INSERT INTO space_files (id, space_id, original_filename, storage_path, content_type, size, uploader_id, uploader_email, uploaded_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        try (Span span = timed("createFiles"); Connection conn = getConnection(spaceId)) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement fileStmt = prepare(conn, "createFiles", fileSql)) {
+                for (SpaceFile file : files) {
+                    setId(fileStmt, 1, file.getId());
+                    setId(fileStmt, 2, file.getSpaceId());
+                    fileStmt.setString(3, file.getOriginalFilename());
+                    fileStmt.setString(4, file.getStoragePath());
+                    fileStmt.setString(5, file.getContentType());
+                    fileStmt.setLong(6, file.getSize());
+                    fileStmt.setString(7, file.getUploaderId());
+                    fileStmt.setString(8, file.getUploaderEmail());
+                    fileStmt.setLong(9, EpochMillis.of(file.getUploadedAt()));
+                    fileStmt.addBatch();
+                }
+                fileStmt.executeBatch();
+                insertActivity(conn, spaceId, actorEmail, activityAction, activityDetails);
+
+                conn.commit();
+                logger.info("Created {} files in space {}", files.size(), spaceId);
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            recordError("createFiles");
+            logger.error("Error creating {} files in space: {}", files.size(), spaceId, e);
+            throw new RuntimeException("Failed to create files", e);
+        }
+    }
+
     public List<SpaceFile> getFilesForSpace(String spaceId) {
         List<SpaceFile> files = new ArrayList<>();
-        try (Connection conn = getConnection()) {
-            String sql = "SELECT * FROM space_files WHERE space_id = ? ORDER BY uploaded_at DESC";
+        try (Span span = timed("getFilesForSpace"); Connection conn = getConnection(spaceId)) {
+            String sql = """
+                SELECT f.*, (SELECT r.created_at FROM file_renditions r WHERE r.file_id = f.id AND r.kind = ?) AS thumbnail_created_at
+                FROM space_files f WHERE f.space_id = ? ORDER BY f.uploaded_at DESC
+            """;
             
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                stmt.setString(1, spaceId);
+            try (PreparedStatement stmt = prepare(conn, "getFilesForSpace", sql)) {
+                stmt.setString(1, FileRendition.THUMBNAIL);
+                setId(stmt, 2, spaceId);
                 
                 try (ResultSet rs = stmt.executeQuery()) {
                     while (rs.next()) {
-                        files.add(mapToSpaceFile(rs));
+                        SpaceFile file = mapToSpaceFile(rs);
+                        setThumbnailUrl(file, rs);
+                        files.add(file);
                     }
                 }
             }
         } catch (SQLException e) {
+            recordError("getFilesForSpace");
             logger.error("Error getting files for space: {}", spaceId, e);
         }
         return files;
     }
 
-    public Optional<SpaceFile> getFile(String fileId) {
-        try (Connection conn = getConnection()) {
-            String sql = "SELECT * FROM space_files WHERE id = ?";
-            
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                stmt.setString(1, fileId);
-                
+    /**
+     * Changes to a space's files and members after a journal sequence,
+     * oldest first. The journal keeps only the latest entry per item, so a
+     * page lists each item once: changed items with their current state,
+     * deleted ones by ID. Reading from 0 lists the whole space.
+     * @param since Cursor of the previous page, or 0 for everything
+     * @param limit Maximum changes in the page
+     */
+    public ChangePage getChanges(String spaceId, long since, int limit) {
+        String sql = """
+            SELECT c.seq, c.kind, c.item_id, c.deleted, f.*,
+                   (SELECT r.created_at FROM file_renditions r WHERE r.file_id = f.id AND r.kind = ?) AS thumbnail_created_at,
+                   m.role AS member_role, m.added_at AS member_added_at
+            FROM space_changes c
+            LEFT JOIN space_files f ON c.kind = 'file' AND c.deleted = 0 AND f.id = c.item_id
+            LEFT JOIN space_members m ON c.kind = 'member' AND c.deleted = 0
+                AND m.space_id = c.space_id AND m.member_email = c.item_id
+            WHERE c.space_id = ? AND c.seq > ?
+            ORDER BY c.seq LIMIT ?
+        """;
+        List<SpaceFile> files = new ArrayList<>();
+        List<String> deletedFiles = new ArrayList<>();
+        List<SpaceMember> members = new ArrayList<>();
+        List<String> removedMembers = new ArrayList<>();
+        long cursor = since;
+        boolean hasMore = false;
+        try (Span span = timed("getChanges");
+             Connection conn = getConnection(spaceId);
+             PreparedStatement stmt = prepare(conn, "getChanges", sql)) {
+            stmt.setString(1, FileRendition.THUMBNAIL);
+            setId(stmt, 2, spaceId);
+            stmt.setLong(3, since);
+            stmt.setInt(4, limit + 1);
+            try (ResultSet rs = stmt.executeQuery()) {
+                int count = 0;
+                while (rs.next()) {
+                    if (++count > limit) {
+                        hasMore = true;
+                        break;
+                    }
+                    cursor = rs.getLong("seq");
+                    boolean file = "file".equals(rs.getString("kind"));
+                    if (file && rs.getBytes("id") != null) {
+                        SpaceFile spaceFile = mapToSpaceFile(rs);
+                        setThumbnailUrl(spaceFile, rs);
+                        files.add(spaceFile);
+                    } else if (file) {
+                        deletedFiles.add(getId(rs, "item_id"));
+                    } else if (rs.getString("member_role") != null) {
+                        members.add(new SpaceMember(rs.getString("item_id"), rs.getString("member_role"),
+                            EpochMillis.toLocalDateTime(rs.getLong("member_added_at")), false));
+                    } else {
+                        removedMembers.add(rs.getString("item_id"));
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            recordError("getChanges");
+            logger.error("Error getting changes for space: {}", spaceId, e);
+            throw new RuntimeException("Failed to get changes", e);
+        }
+        return new ChangePage(files, deletedFiles, members, removedMembers, cursor, hasMore);
+    }
+
+    /**
+     * A page of space changes. Pass cursor as the next page's since, and
+     * keep it to sync again later.
+     */
+    public record ChangePage(List<SpaceFile> files, List<String> deletedFiles, List<SpaceMember> members,
+                             List<String> removedMembers, long cursor, boolean hasMore) {}
+
+    /**
+     * Search a space's files by filename, content type and uploader. Every
+     * word of the query must match the start of a word in one of those
+     * fields ("quar rep" finds "Quarterly_Report.pdf"). Results are ranked
+     * by BM25 with filename matches weighted highest, newest first on ties.
+     * @param spaceId Space to search
+     * @param query Free text; non-alphanumeric characters separate words
+     * @param limit Maximum results
+     * @param offset Results to skip
+     * @return Matching files, empty if the query has no words
+     */
+    public List<SpaceFile> searchFiles(String spaceId, String query, int limit, int offset) {
+        List<SpaceFile> files = new ArrayList<>();
+        String match = toMatchExpression(spaceId, query, "original_filename content_type uploader_email");
+        if (match == null) {
+            return files;
+        }
+        try (Span span = timed("searchFiles"); Connection conn = getConnection(spaceId)) {
+            String sql = """
+                SELECT f.* FROM space_files_fts
+                JOIN space_files f ON f.rowid = space_files_fts.rowid
+                WHERE space_files_fts MATCH ? AND f.space_id = ?
+                ORDER BY bm25(space_files_fts, 0.0, 0.0, 10.0, 1.0, 2.0), f.uploaded_at DESC
+                LIMIT ? OFFSET ?
+            """;
+            try (PreparedStatement stmt = prepare(conn, "searchFiles", sql)) {
+                stmt.setString(1, match);
+                setId(stmt, 2, spaceId);
+                stmt.setInt(3, limit);
+                stmt.setInt(4, offset);
+
                 try (ResultSet rs = stmt.executeQuery()) {
-                    if (rs.next()) {
-                        return Optional.of(mapToSpaceFile(rs));
+                    while (rs.next()) {
+                        files.add(mapToSpaceFile(rs));
                     }
                 }
             }
         } catch (SQLException e) {
+            recordError("searchFiles");
+            logger.error("Error searching files in space: {}", spaceId, e);
+            throw new RuntimeException("Failed to search files", e);
+        }
+        return files;
+    }
+
+    /**
+     * Build an FTS5 expression from user input. Only letters and digits reach
+     * the query, each as a quoted prefix term, so FTS5 syntax cannot be injected.
+     */
+    static String toMatchExpression(String spaceId, String query, String columns) {
+        if (query == null) {
+            return null;
+        }
+        StringBuilder terms = new StringBuilder();
+        int count = 0;
+        for (String word : query.split("[^\\p{L}\\p{N}]+")) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            if (count > 0) {
+                terms.append(" AND ");
+            }
+            terms.append('"').append(word).append("\"*");
+            if (++count == MAX_SEARCH_TERMS) {
+                break;
+            }
+        }
+        if (count == 0) {
+            return null;
+        }
+        return "space_key : \"" + Uuids.toHex(spaceId) + "\" AND "
+            + "{" + columns + "} : (" + terms + ")";
+    }
+
+    /**
+     * Record a generated rendition. Does nothing if the file has been deleted
+     * since generation started.
+     * @param spaceId Space of the file
+     * @return true if the rendition was recorded
+     */
+    public boolean saveRendition(FileRendition rendition, String spaceId) {
+        String sql = """
+            INSERT OR REPLACE INTO file_renditions (file_id, kind, storage_path, content_type, width, height, size, created_at)
+            SELECT id, ?, ?, ?, ?, ?, ?, ? FROM space_files WHERE id = ?
+        """;
+        try (Span span = timed("saveRendition"); Connection conn = getConnection(spaceId);
+             PreparedStatement stmt = prepare(conn, "saveRendition", sql)) {
+            stmt.setString(1, rendition.getKind());
+            stmt.setString(2, rendition.getStoragePath());
+            stmt.setString(3, rendition.getContentType());
+            stmt.setInt(4, rendition.getWidth());
+            stmt.setInt(5, rendition.getHeight());
+            stmt.setLong(6, rendition.getSize());
+            stmt.setLong(7, EpochMillis.of(rendition.getCreatedAt()));
+            setId(stmt, 8, rendition.getFileId());
+            return stmt.executeUpdate() > 0;
+        } catch (SQLException e) {
+            recordError("saveRendition");
+            logger.error("Error saving {} rendition of file: {}", rendition.getKind(), rendition.getFileId(), e);
+            throw new RuntimeException("Failed to save rendition", e);
+        }
+    }
+
+    /**
+     * A rendition of a file in any space. Looked up by file ID alone, so
+     * each shard is asked in turn until one has it.
+     */
+    public Optional<FileRendition> getRendition(String fileId, String kind) {
+        String sql = "SELECT * FROM file_renditions WHERE file_id = ? AND kind = ?";
+        try (Span span = timed("getRendition")) {
+            for (ConnectionPool shard : shards) {
+                try (Connection conn = shard.getConnection();
+                     PreparedStatement stmt = prepare(conn, "getRendition", sql)) {
+                    setId(stmt, 1, fileId);
+                    stmt.setString(2, kind);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        if (rs.next()) {
+                            return Optional.of(mapToRendition(rs));
+                        }
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            recordError("getRendition");
+            logger.error("Error getting {} rendition of file: {}", kind, fileId, e);
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Storage paths of every rendition of a file, so they can be removed with it.
+     */
+    public List<String> getRenditionPaths(String fileId) {
+        List<String> paths = new ArrayList<>();
+        try (Span span = timed("getRenditionPaths")) {
+            for (ConnectionPool shard : shards) {
+                try (Connection conn = shard.getConnection();
+                     PreparedStatement stmt = prepare(conn, "getRenditionPaths", "SELECT storage_path FROM file_renditions WHERE file_id = ?")) {
+                    setId(stmt, 1, fileId);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            paths.add(rs.getString(1));
+                        }
+                    }
+                }
+                if (!paths.isEmpty()) {
+                    break;
+                }
+            }
+        } catch (SQLException e) {
+            recordError("getRenditionPaths");
+            logger.error("Error getting renditions of file: {}", fileId, e);
+        }
+        return paths;
+    }
+
+    /**
+     * Search a space's files by the text extracted from them. Same query
+     * rules as {@link #searchFiles}.
+     */
+    public List<SpaceFile> searchFileContents(String spaceId, String query, int limit, int offset) {
+        List<SpaceFile> files = new ArrayList<>();
+        String match = toMatchExpression(spaceId, query, "content");
+        if (match == null) {
+            return files;
+        }
+        try (Span span = timed("searchFileContents"); Connection conn = getConnection(spaceId)) {
+            String sql = """
+                SELECT f.* FROM file_contents_fts
+                JOIN space_files f ON f.rowid = file_contents_fts.rowid
+                WHERE file_contents_fts MATCH ? AND f.space_id = ?
+                ORDER BY bm25(file_contents_fts), f.uploaded_at DESC
+                LIMIT ? OFFSET ?
+            """;
+            try (PreparedStatement stmt = prepare(conn, "searchFileContents", sql)) {
+                stmt.setString(1, match);
+                setId(stmt, 2, spaceId);
+                stmt.setInt(3, limit);
+                stmt.setInt(4, offset);
+
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        files.add(mapToSpaceFile(rs));
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            recordError("searchFileContents");
+            logger.error("Error searching file contents in space: {}", spaceId, e);
+            throw new RuntimeException("Failed to search file contents", e);
+        }
+        return files;
+    }
+
+    /**
+     * Replace the indexed text of a file and mark its job indexed, in one
+     * transaction. Does nothing if the file was deleted in the meantime.
+     * @return true if the file still exists and was indexed
+     */
+    public boolean indexFileContent(String fileId, String spaceId, String text, long indexedBytes) {
+        try (Span span = timed("indexFileContent"); Connection conn = getConnection(spaceId)) {
+            conn.setAutoCommit(false);
+            try {
+                int inserted;
+                try (PreparedStatement delete = prepare(conn, "indexFileContent.delete",
+                        "DELETE FROM file_contents_fts WHERE rowid = (SELECT rowid FROM space_files WHERE id = ?)");
+                     PreparedStatement insert = prepare(conn, "indexFileContent.insert", """
+                        INSERT INTO file_contents_fts (rowid, file_id, space_key, content)
+                        SELECT rowid, id, ?, ? FROM space_files WHERE id = ?
+                     """)) {
+                    setId(delete, 1, fileId);
+                    delete.executeUpdate();
+                    insert.setString(1, Uuids.toHex(spaceId));
+                    insert.setString(2, text);
+                    setId(insert, 3, fileId);
+                    inserted = insert.executeUpdate();
+                }
+                if (inserted > 0) {
+                    upsertContentIndexJob(conn, fileId, "indexed", -1, null, indexedBytes, null);
+                }
+                conn.commit();
+                return inserted > 0;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            recordError("indexFileContent");
+            logger.error("Error indexing content of file: {}", fileId, e);
+            throw new RuntimeException("Failed to index file content", e);
+        }
+    }
+
+    /**
+     * Record the state of a content index job. Ignored for deleted files.
+     * @param spaceId Space of the file
+     * @param attempts Attempts made so far
+     * @param nextAttemptAt Epoch millis when a retry is due, or null
+     */
+    public void recordContentIndexJob(String fileId, String spaceId, String status, int attempts, String error,
+                                      Long nextAttemptAt) {
+        try (Span span = timed("recordContentIndexJob"); Connection conn = getConnection(spaceId)) {
+            upsertContentIndexJob(conn, fileId, status, attempts, error, null, nextAttemptAt);
+        } catch (SQLException e) {
+            recordError("recordContentIndexJob");
+            logger.error("Error recording content index job for file: {}", fileId, e);
+        }
+    }
+
+    private void upsertContentIndexJob(Connection conn, String fileId, String status, int attempts, String error,
+                                       Long indexedBytes, Long nextAttemptAt) throws SQLException {
+        String sql = """
+            INSERT INTO content_index_jobs (file_id, status, attempts, last_error, indexed_bytes, next_attempt_at, updated_at)
+            SELECT id, ?, max(?, 0), ?, ?, ?, ? FROM space_files WHERE id = ?
+            ON CONFLICT(file_id) DO UPDATE SET
+                status = excluded.status,
+                attempts = CASE WHEN ? < 0 THEN content_index_jobs.attempts ELSE excluded.attempts END,
+                last_error = excluded.last_error,
+                indexed_bytes = excluded.indexed_bytes,
+                next_attempt_at = excluded.next_attempt_at,
+                updated_at = excluded.updated_at
+        """;
+        try (PreparedStatement stmt = prepare(conn, "upsertContentIndexJob", sql)) {
+            stmt.setString(1, status);
+            stmt.setInt(2, attempts);
+            stmt.setString(3, error);
+            stmt.setObject(4, indexedBytes);
+            stmt.setObject(5, nextAttemptAt);
+            stmt.setLong(6, System.currentTimeMillis());
+            setId(stmt, 7, fileId);
+            stmt.setInt(8, attempts);
+            stmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Jobs that are pending or whose retry is due, oldest first within a
+     * shard. Jobs claimed by a sweep but never finished (e.g. the server
+     * stopped) are returned again once the claim is stale. Shards are read
+     * starting from a different one on each call, so a backlog in one does
+     * not starve the others.
+     */
+    public List<ContentIndexJob> getDueContentIndexJobs(int limit) {
+        List<ContentIndexJob> jobs = new ArrayList<>();
+        String sql = """
+            SELECT j.attempts, f.id, f.space_id, f.storage_path, f.original_filename, f.content_type
+            FROM content_index_jobs j JOIN space_files f ON f.id = j.file_id
+            WHERE (j.status IN ('pending', 'retry') AND coalesce(j.next_attempt_at, 0) <= ?)
+               OR (j.status = 'queued' AND j.updated_at < ?)
+            ORDER BY j.updated_at
+            LIMIT ?
+        """;
+        int first = Math.floorMod(nextJobShard.getAndIncrement(), shards.size());
+        try (Span span = timed("getDueContentIndexJobs")) {
+            for (int i = 0; i < shards.size() && jobs.size() < limit; i++) {
+                long now = System.currentTimeMillis();
+                try (Connection conn = shards.get((first + i) % shards.size()).getConnection();
+                     PreparedStatement stmt = prepare(conn, "getDueContentIndexJobs", sql)) {
+                    stmt.setLong(1, now);
+                    stmt.setLong(2, now - STALE_CLAIM_MILLIS);
+                    stmt.setInt(3, limit - jobs.size());
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            jobs.add(new ContentIndexJob(getId(rs, "id"), getId(rs, "space_id"),
+                                rs.getString("storage_path"), rs.getString("original_filename"),
+                                rs.getString("content_type"), rs.getInt("attempts")));
+                        }
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            recordError("getDueContentIndexJobs");
+            logger.error("Error loading due content index jobs", e);
+        }
+        return jobs;
+    }
+
+    /**
+     * Return jobs claimed by a sweep or submit to pending, on every shard.
+     * Called at startup, when no job can still be on a worker.
+     */
+    public void releaseContentIndexClaims() {
+        try (Span span = timed("releaseContentIndexClaims")) {
+            for (ConnectionPool shard : shards) {
+                try (Connection conn = shard.getConnection();
+                     Statement stmt = conn.createStatement()) {
+                    int released = stmt.executeUpdate("UPDATE content_index_jobs SET status = 'pending' WHERE status = 'queued'");
+                    if (released > 0) {
+                        logger.info("Released {} content index jobs left queued by the last run", released);
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            recordError("releaseContentIndexClaims");
+            logger.error("Error releasing content index jobs", e);
+        }
+    }
+
+    /**
+     * Number of content index jobs per status, over all shards.
+     */
+    public Map<String, Long> getContentIndexJobCounts() {
+        Map<String, Long> counts = new TreeMap<>();
+        try (Span span = timed("getContentIndexJobCounts")) {
+            for (ConnectionPool shard : shards) {
+                try (Connection conn = shard.getConnection();
+                     Statement stmt = conn.createStatement();
+                     ResultSet rs = stmt.executeQuery("SELECT status, count(*) FROM content_index_jobs GROUP BY status")) {
+                    while (rs.next()) {
+                        counts.merge(rs.getString(1), rs.getLong(2), Long::sum);
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            recordError("getContentIndexJobCounts");
+            logger.error("Error counting content index jobs", e);
+        }
+        return counts;
+    }
+
+    /**
+     * A file in any space. Looked up by ID alone, so each shard is asked in
+     * turn until one has it.
+     */
+    public Optional<SpaceFile> getFile(String fileId) {
+        String sql = "SELECT * FROM space_files WHERE id = ?";
+        try (Span span = timed("getFile")) {
+            for (ConnectionPool shard : shards) {
+                try (Connection conn = shard.getConnection();
+                     PreparedStatement stmt = prepare(conn, "getFile", sql)) {
+                    setId(stmt, 1, fileId);
+
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        if (rs.next()) {
+                            return Optional.of(mapToSpaceFile(rs));
+                        }
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            recordError("getFile");
             logger.error("Error getting file: {}", fileId, e);
         }
         return Optional.empty();
     }
 
-    public void deleteFile(String fileId) {
-        try (Connection conn = getConnection()) {
+    /**
+     * Files of a space with the given IDs, oldest upload first. IDs that do
+     * not exist or belong to another space are ignored.
+     */
+    public List<SpaceFile> getFiles(String spaceId, Collection<String> fileIds) {
+        List<SpaceFile> files = queryFilesById("getFiles", spaceId, fileIds);
+        files.sort(Comparator.comparing(SpaceFile::getUploadedAt));
+        return files;
+    }
+
+    /**
+     * Files with the given IDs, in any space. Unknown IDs are ignored. The
+     * shards are read in turn until every ID has been found.
+     */
+    public List<SpaceFile> getFiles(Collection<String> fileIds) {
+        return queryFilesById("getFilesById", null, fileIds);
+    }
+
+    private List<SpaceFile> queryFilesById(String method, String spaceId, Collection<String> fileIds) {
+        List<SpaceFile> files = new ArrayList<>();
+        Set<String> remaining = new LinkedHashSet<>(fileIds);
+        List<ConnectionPool> pools = spaceId != null ? List.of(shards.get(shardOf(spaceId))) : shards;
+        try (Span span = timed(method)) {
+            for (ConnectionPool pool : pools) {
+                if (remaining.isEmpty()) {
+                    break;
+                }
+                List<String> ids = new ArrayList<>(remaining);
+                try (Connection conn = pool.getConnection()) {
+                    for (int from = 0; from < ids.size(); from += MAX_IN_PARAMETERS) {
+                        List<String> chunk = ids.subList(from, Math.min(ids.size(), from + MAX_IN_PARAMETERS));
+                        String sql = "SELECT * FROM space_files WHERE " + (spaceId != null ? "space_id = ? AND " : "")
+                            + "id IN (" + placeholders(chunk.size()) + ")";
+                        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                            int index = 1;
+                            if (spaceId != null) {
+                                setId(stmt, index++, spaceId);
+                            }
+                            for (String id : chunk) {
+                                setId(stmt, index++, id);
+                            }
+                            try (ResultSet rs = stmt.executeQuery()) {
+                                while (rs.next()) {
+                                    SpaceFile file = mapToSpaceFile(rs);
+                                    files.add(file);
+                                    remaining.remove(file.getId());
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            recordError(method);
+            logger.error("Error getting {} files by ID", fileIds.size(), e);
+            throw new RuntimeException("Failed to get files", e);
+        }
+        return files;
+    }
+
+    /**
+     * Storage paths of the renditions of several files, keyed by file ID.
+     */
+    public Map<String, List<String>> getRenditionPaths(Collection<String> fileIds) {
+        Map<String, List<String>> paths = new HashMap<>();
+        List<String> ids = new ArrayList<>(fileIds);
+        try (Span span = timed("getRenditionPathsBatch")) {
+            for (ConnectionPool shard : shards) {
+                try (Connection conn = shard.getConnection()) {
+                    for (int from = 0; from < ids.size(); from += MAX_IN_PARAMETERS) {
+                        List<String> chunk = ids.subList(from, Math.min(ids.size(), from + MAX_IN_PARAMETERS));
+                        String sql = "SELECT file_id, storage_path FROM file_renditions WHERE file_id IN (" + placeholders(chunk.size()) + ")";
+                        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                            for (int i = 0; i < chunk.size(); i++) {
+                                setId(stmt, i + 1, chunk.get(i));
+                            }
+                            try (ResultSet rs = stmt.executeQuery()) {
+                                while (rs.next()) {
+                                    paths.computeIfAbsent(getId(rs, 1), id -> new ArrayList<>()).add(rs.getString(2));
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            recordError("getRenditionPathsBatch");
+            logger.error("Error getting renditions of {} files", ids.size(), e);
+            throw new RuntimeException("Failed to get renditions", e);
+        }
+        return paths;
+    }
+
+    /**
+     * Delete several files and record one activity entry per affected space,
+     * in one transaction per shard involved. Triggers remove their index,
+     * rendition and usage rows in the same transaction.
+     */
+    public void deleteFiles(List<SpaceFile> files, String actorEmail) {
+        try (Span span = timed("deleteFiles")) {
+            for (Map.Entry<Integer, List<SpaceFile>> shard : groupByShard(files).entrySet()) {
+                try (Connection conn = shards.get(shard.getKey()).getConnection()) {
+                    conn.setAutoCommit(false);
+                    try {
+                        deleteFileRows(conn, shard.getValue());
+                        for (Map.Entry<String, List<SpaceFile>> space : groupBySpace(shard.getValue()).entrySet()) {
+                            insertActivity(conn, space.getKey(), actorEmail, "deleted files", summarizeFiles(space.getValue()));
+                        }
+                        conn.commit();
+                    } catch (SQLException e) {
+                        conn.rollback();
+                        throw e;
+                    }
+                }
+            }
+            logger.info("Deleted {} files", files.size());
+        } catch (SQLException e) {
+            recordError("deleteFiles");
+            logger.error("Error deleting {} files", files.size(), e);
+            throw new RuntimeException("Failed to delete files", e);
+        }
+    }
+
+    /**
+     * Reassign several files to another space, along with their new storage
+     * locations and one activity entry per space involved. Files already in
+     * the target's shard are updated in one transaction with everything
+     * else written there. Files in other shards are removed from their
+     * shard first, one transaction per shard, then inserted into the
+     * target's with their renditions and queued for content indexing again.
+     * If any step fails, the removed files are restored from what was read
+     * beforehand, so either every file moves or none does; in between they
+     * are briefly absent from listings.
+     * @param movedPaths Old storage path to new one, for files and renditions
+     *                   whose content was relocated
+     */
+    public void moveFiles(List<SpaceFile> files, String targetSpaceId, Map<String, String> movedPaths, String actorEmail) {
+        int target = shardOf(targetSpaceId);
+        Map<Integer, List<SpaceFile>> sources = groupByShard(files);
+        List<SpaceFile> local = sources.remove(target);
+        List<SpaceFile> copied = new ArrayList<>();
+        Map<Integer, List<FileRendition>> renditions = new HashMap<>();
+        List<Integer> removed = new ArrayList<>();
+        try (Span span = timed("moveFiles")) {
+            for (Map.Entry<Integer, List<SpaceFile>> source : sources.entrySet()) {
+                try (Connection conn = shards.get(source.getKey()).getConnection()) {
+                    renditions.put(source.getKey(), getRenditions(conn, source.getValue()));
+                }
+                copied.addAll(source.getValue());
+            }
+            for (Map.Entry<Integer, List<SpaceFile>> source : sources.entrySet()) {
+                try (Connection conn = shards.get(source.getKey()).getConnection()) {
+                    conn.setAutoCommit(false);
+                    try {
+                        deleteFileRows(conn, source.getValue());
+                        insertMovedOutActivity(conn, source.getValue(), actorEmail);
+                        conn.commit();
+                    } catch (SQLException e) {
+                        conn.rollback();
+                        throw e;
+                    }
+                }
+                removed.add(source.getKey());
+            }
+
+            try (Connection conn = shards.get(target).getConnection()) {
+                conn.setAutoCommit(false);
+                try {
+                    if (local != null) {
+                        updateFileRows(conn, local, targetSpaceId, movedPaths);
+                        insertMovedOutActivity(conn, local, actorEmail);
+                    }
+                    for (Map.Entry<Integer, List<SpaceFile>> source : sources.entrySet()) {
+                        insertFileRows(conn, source.getValue(), targetSpaceId, movedPaths, renditions.get(source.getKey()));
+                    }
+                    insertActivity(conn, targetSpaceId, actorEmail, "moved files in", summarizeFiles(files));
+                    conn.commit();
+                    logger.info("Moved {} files to space {} ({} from other shards)", files.size(), targetSpaceId, copied.size());
+                } catch (SQLException e) {
+                    conn.rollback();
+                    throw e;
+                }
+            }
+        } catch (SQLException e) {
+            recordError("moveFiles");
+            logger.error("Error moving {} files to space: {}", files.size(), targetSpaceId, e);
+            restoreFiles(sources, removed, renditions, actorEmail);
+            throw new RuntimeException("Failed to move files", e);
+        }
+    }
+
+    /**
+     * Put back files a failed move had removed from their shards, in their
+     * own spaces and at their old storage paths.
+     */
+    private void restoreFiles(Map<Integer, List<SpaceFile>> sources, List<Integer> removed,
+                              Map<Integer, List<FileRendition>> renditions, String actorEmail) {
+        for (int shard : removed) {
+            List<SpaceFile> files = sources.get(shard);
+            try (Connection conn = shards.get(shard).getConnection()) {
+                conn.setAutoCommit(false);
+                try {
+                    insertFileRows(conn, files, null, Map.of(), renditions.get(shard));
+                    for (Map.Entry<String, List<SpaceFile>> space : groupBySpace(files).entrySet()) {
+                        insertActivity(conn, space.getKey(), actorEmail, "restored files", summarizeFiles(space.getValue()));
+                    }
+                    conn.commit();
+                } catch (SQLException e) {
+                    conn.rollback();
+                    throw e;
+                }
+            } catch (SQLException e) {
+                recordError("moveFiles.restore");
+                logger.error("Error restoring {} files to shard {} after a failed move; they are lost from the metadata",
+                    files.size(), shard, e);
+            }
+        }
+    }
+
+    private void insertMovedOutActivity(Connection conn, List<SpaceFile> files, String actorEmail) throws SQLException {
+        for (Map.Entry<String, List<SpaceFile>> space : groupBySpace(files).entrySet()) {
+            insertActivity(conn, space.getKey(), actorEmail, "moved files out", summarizeFiles(space.getValue()));
+        }
+    }
+
+    /**
+     * Reassign files within their shard, renditions following their content.
+     */
+    private void updateFileRows(Connection conn, List<SpaceFile> files, String targetSpaceId,
+                                Map<String, String> movedPaths) throws SQLException {
+        try (PreparedStatement moveFile = prepare(conn, "moveFiles.file",
+                "UPDATE space_files SET space_id = ?, storage_path = ? WHERE id = ?");
+             PreparedStatement moveRendition = prepare(conn, "moveFiles.rendition",
+                "UPDATE file_renditions SET storage_path = ? WHERE file_id = ? AND storage_path = ?")) {
+            for (SpaceFile file : files) {
+                setId(moveFile, 1, targetSpaceId);
+                moveFile.setString(2, movedPaths.getOrDefault(file.getStoragePath(), file.getStoragePath()));
+                setId(moveFile, 3, file.getId());
+                moveFile.addBatch();
+            }
+            moveFile.executeBatch();
+
+            Set<String> filePaths = new HashSet<>();
+            for (SpaceFile file : files) {
+                filePaths.add(file.getStoragePath());
+            }
+            Map<String, List<String>> renditions = getRenditionPaths(conn, files);
+            for (Map.Entry<String, List<String>> entry : renditions.entrySet()) {
+                for (String path : entry.getValue()) {
+                    if (movedPaths.containsKey(path) && !filePaths.contains(path)) {
+                        moveRendition.setString(1, movedPaths.get(path));
+                        setId(moveRendition, 2, entry.getKey());
+                        moveRendition.setString(3, path);
+                        moveRendition.addBatch();
+                    }
+                }
+            }
+            moveRendition.executeBatch();
+        }
+    }
+
+    /**
+     * Insert files read from another shard, with their renditions, and queue
+     * their content for indexing; the extracted text is not carried over.
+     * Renditions keep their creation time, so their versions, and the
+     * thumbnail URLs and ETags built from them, stay the same.
+     * @param targetSpaceId New space of every file, or null to keep each one's
+     */
+    private void insertFileRows(Connection conn, List<SpaceFile> files, String targetSpaceId,
+                                Map<String, String> movedPaths, List<FileRendition> renditions) throws SQLException {
+        String fileSql = "INSERT INTO space_files (id, space_id, original_filename, storage_path, content_type, size, uploader_id, uploader_email, uploaded_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        String renditionSql = "INSERT OR REPLACE INTO file_renditions (file_id, kind, storage_path, content_type, width, height, size, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+        try (PreparedStatement fileStmt = prepare(conn, "insertFileRows.file", fileSql);
+             PreparedStatement renditionStmt = prepare(conn, "insertFileRows.rendition", renditionSql)) {
+            for (SpaceFile file : files) {
+                setId(fileStmt, 1, file.getId());
+                setId(fileStmt, 2, targetSpaceId != null ? targetSpaceId : file.getSpaceId());
+                fileStmt.setString(3, file.getOriginalFilename());
+                fileStmt.setString(4, movedPaths.getOrDefault(file.getStoragePath(), file.getStoragePath()));
+                fileStmt.setString(5, file.getContentType());
+                fileStmt.setLong(6, file.getSize());
+                fileStmt.setString(7, file.getUploaderId());
+                fileStmt.setString(8, file.getUploaderEmail());
+                fileStmt.setLong(9, EpochMillis.of(file.getUploadedAt()));
+                fileStmt.addBatch();
+            }
+            fileStmt.executeBatch();
+
+            for (FileRendition rendition : renditions) {
+                setId(renditionStmt, 1, rendition.getFileId());
+                renditionStmt.setString(2, rendition.getKind());
+                renditionStmt.setString(3, movedPaths.getOrDefault(rendition.getStoragePath(), rendition.getStoragePath()));
+                renditionStmt.setString(4, rendition.getContentType());
+                renditionStmt.setInt(5, rendition.getWidth());
+                renditionStmt.setInt(6, rendition.getHeight());
+                renditionStmt.setLong(7, rendition.getSize());
+                renditionStmt.setLong(8, EpochMillis.of(rendition.getCreatedAt()));
+                renditionStmt.addBatch();
+            }
+            renditionStmt.executeBatch();
+        }
+        for (SpaceFile file : files) {
+            upsertContentIndexJob(conn, file.getId(), "pending", 0, null, null, null);
+        }
+    }
+
+    private static void deleteFileRows(Connection conn, List<SpaceFile> files) throws SQLException {
+        try (PreparedStatement delete = prepare(conn, "deleteFiles", "DELETE FROM space_files WHERE id = ?")) {
+            for (SpaceFile file : files) {
+                setId(delete, 1, file.getId());
+                delete.addBatch();
+            }
+            delete.executeBatch();
+        }
+    }
+
+    private List<FileRendition> getRenditions(Connection conn, List<SpaceFile> files) throws SQLException {
+        List<FileRendition> renditions = new ArrayList<>();
+        try (PreparedStatement stmt = prepare(conn, "getRenditions", "SELECT * FROM file_renditions WHERE file_id = ?")) {
+            for (SpaceFile file : files) {
+                setId(stmt, 1, file.getId());
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        renditions.add(mapToRendition(rs));
+                    }
+                }
+            }
+        }
+        return renditions;
+    }
+
+    private Map<String, List<String>> getRenditionPaths(Connection conn, List<SpaceFile> files) throws SQLException {
+        Map<String, List<String>> paths = new HashMap<>();
+        try (PreparedStatement stmt = prepare(conn, "getRenditionPaths", "SELECT storage_path FROM file_renditions WHERE file_id = ?")) {
+            for (SpaceFile file : files) {
+                setId(stmt, 1, file.getId());
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        paths.computeIfAbsent(file.getId(), id -> new ArrayList<>()).add(rs.getString(1));
+                    }
+                }
+            }
+        }
+        return paths;
+    }
+
+    private Map<Integer, List<SpaceFile>> groupByShard(List<SpaceFile> files) {
+        Map<Integer, List<SpaceFile>> byShard = new TreeMap<>();
+        for (SpaceFile file : files) {
+            byShard.computeIfAbsent(shardOf(file.getSpaceId()), shard -> new ArrayList<>()).add(file);
+        }
+        return byShard;
+    }
+
+    private static Map<String, List<SpaceFile>> groupBySpace(List<SpaceFile> files) {
+        Map<String, List<SpaceFile>> bySpace = new LinkedHashMap<>();
+        for (SpaceFile file : files) {
+            bySpace.computeIfAbsent(file.getSpaceId(), id -> new ArrayList<>()).add(file);
+        }
+        return bySpace;
+    }
+
+    /**
+     * Activity details for a group of files: the count and the first few names.
+     */
+    static String summarizeFiles(List<SpaceFile> files) {
+        return summarize(files.stream().map(SpaceFile::getOriginalFilename).toList(), "file", "files");
+    }
+
+    /**
+     * Activity details for a group of names: the count and the first few.
+     */
+    static String summarize(List<String> names, String singular, String plural) {
+        int shown = Math.min(names.size(), 10);
+        StringBuilder details = new StringBuilder().append(names.size()).append(' ')
+            .append(names.size() == 1 ? singular : plural).append(": ");
+        for (int i = 0; i < shown; i++) {
+            details.append(i > 0 ? ", " : "").append(names.get(i));
+        }
+        if (names.size() > shown) {
+            details.append(" and ").append(names.size() - shown).append(" more");
+        }
+        return details.toString();
+    }
+
+    private static void insertActivity(Connection conn, String spaceId, String userEmail, String action, String details)
+            throws SQLException {
+        String sql = "INSERT INTO activity (id, space_id, user_email, action, details, timestamp) VALUES (?, ?, ?, ?, ?, ?)";
+        try (PreparedStatement stmt = prepare(conn, "insertActivity", sql)) {
+            setId(stmt, 1, Uuids.newId());
+            setId(stmt, 2, spaceId);
+            stmt.setString(3, userEmail);
+            stmt.setString(4, action);
+            stmt.setString(5, details);
+            stmt.setLong(6, System.currentTimeMillis());
+            stmt.executeUpdate();
+        }
+    }
+
+    private static String placeholders(int count) {
+        return String.join(",", Collections.nCopies(count, "?"));
+    }
+
+    public void deleteFile(String fileId, String spaceId) {
+        try (Span span = timed("deleteFile"); Connection conn = getConnection(spaceId)) {
             String sql = "DELETE FROM space_files WHERE id = ?";
             
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                stmt.setString(1, fileId);
+            try (PreparedStatement stmt = prepare(conn, "deleteFile", sql)) {
+                setId(stmt, 1, fileId);
                 stmt.executeUpdate();
             }
             
             logger.info("Deleted file: {}", fileId);
         } catch (SQLException e) {
+            recordError("deleteFile");
             logger.error("Error deleting file: {}", fileId, e);
             throw new RuntimeException("Failed to delete file", e);
         }
     }
 
+    /**
+     * Maintained usage of a space, or of one uploader within it.
+     * @param uploaderEmail Uploader, or null for the space total
+     */
+    public StorageUsage getStorageUsage(String spaceId, String uploaderEmail) {
+        String sql = "SELECT bytes, file_count FROM storage_usage WHERE space_id = ? AND uploader_email = ?";
+        try (Span span = timed("getStorageUsage"); Connection conn = getConnection(spaceId);
+             PreparedStatement stmt = prepare(conn, "getStorageUsage", sql)) {
+            setId(stmt, 1, spaceId);
+            stmt.setString(2, uploaderEmail == null ? "" : uploaderEmail);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return new StorageUsage(rs.getLong("bytes"), rs.getLong("file_count"));
+                }
+            }
+        } catch (SQLException e) {
+            recordError("getStorageUsage");
+            logger.error("Error getting storage usage for space: {}", spaceId, e);
+            throw new RuntimeException("Failed to get storage usage", e);
+        }
+        return StorageUsage.EMPTY;
+    }
+
+    /**
+     * Usage of every uploader in a space, largest first.
+     */
+    public Map<String, StorageUsage> getStorageUsageByUploader(String spaceId) {
+        Map<String, StorageUsage> usage = new LinkedHashMap<>();
+        String sql = """
+            SELECT uploader_email, bytes, file_count FROM storage_usage
+            WHERE space_id = ? AND uploader_email <> '' ORDER BY bytes DESC
+        """;
+        try (Span span = timed("getStorageUsageByUploader"); Connection conn = getConnection(spaceId);
+             PreparedStatement stmt = prepare(conn, "getStorageUsageByUploader", sql)) {
+            setId(stmt, 1, spaceId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    usage.put(rs.getString("uploader_email"),
+                        new StorageUsage(rs.getLong("bytes"), rs.getLong("file_count")));
+                }
+            }
+        } catch (SQLException e) {
+            recordError("getStorageUsageByUploader");
+            logger.error("Error getting uploader usage for space: {}", spaceId, e);
+        }
+        return usage;
+    }
+
+    /**
+     * Recompute the usage counters from space_files and replace them, in one
+     * transaction per shard. The triggers keep them exact, so any difference
+     * means a write bypassed them (e.g. a manual edit of the database).
+     * @return Number of counter rows that were wrong, missing or stale
+     */
+    public int reconcileStorageUsage() {
+        int drift = 0;
+        for (ConnectionPool shard : shards) {
+            drift += reconcileStorageUsage(shard);
+        }
+        return drift;
+    }
+
+    private int reconcileStorageUsage(ConnectionPool shard) {
+        try (Span span = timed("reconcileStorageUsage"); Connection conn = shard.getConnection()) {
+            conn.setAutoCommit(false);
+            try (Statement stmt = conn.createStatement()) {
+                int drift;
+                String current = "SELECT space_id, uploader_email, bytes, file_count FROM storage_usage";
+                try (ResultSet rs = stmt.executeQuery(
+                        "SELECT (SELECT count(*) FROM (SELECT * FROM (" + MetadataSchema.EXPECTED_STORAGE_USAGE + ") EXCEPT " + current + "))"
+                        + " + (SELECT count(*) FROM (" + current + " EXCEPT SELECT * FROM (" + MetadataSchema.EXPECTED_STORAGE_USAGE + ")))")) {
+                    drift = rs.next() ? rs.getInt(1) : 0;
+                }
+                if (drift > 0) {
+                    stmt.executeUpdate("DELETE FROM storage_usage");
+                    stmt.executeUpdate("INSERT INTO storage_usage " + MetadataSchema.EXPECTED_STORAGE_USAGE);
+                }
+                conn.commit();
+                return drift;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            recordError("reconcileStorageUsage");
+            logger.error("Error reconciling storage usage", e);
+            throw new RuntimeException("Failed to reconcile storage usage", e);
+        }
+    }
+
     // Helper methods
     private boolean isSpaceOwner(Connection conn, String spaceId, String userEmail) throws SQLException {
         String sql = "SELECT 1 FROM spaces WHERE id = ? AND admin_email = ? LIMIT 1";
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setString(1, spaceId);
+        try (PreparedStatement stmt = prepare(conn, "isSpaceOwner", sql)) {
+            setId(stmt, 1, spaceId);
             stmt.setString(2, userEmail);
             try (ResultSet rs = stmt.executeQuery()) {
                 return rs.next();
@@ -422,8 +1814,8 @@ public class SqliteMetadataService {
     private void syncMemberEmails(Connection conn, String spaceId) throws SQLException {
         String fetchSql = "SELECT member_email FROM space_members WHERE space_id = ? ORDER BY member_email";
         List<String> members = new ArrayList<>();
-        try (PreparedStatement stmt = conn.prepareStatement(fetchSql)) {
-            stmt.setString(1, spaceId);
+        try (PreparedStatement stmt = prepare(conn, "syncMemberEmails.fetch", fetchSql)) {
+            setId(stmt, 1, spaceId);
             try (ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
                     members.add(rs.getString("member_email"));
@@ -432,9 +1824,9 @@ public class SqliteMetadataService {
         }
 
         String updateSql = "UPDATE spaces SET member_emails = ? WHERE id = ?";
-        try (PreparedStatement stmt = conn.prepareStatement(updateSql)) {
+        try (PreparedStatement stmt = prepare(conn, "syncMemberEmails.update", updateSql)) {
             stmt.setString(1, String.join(",", members));
-            stmt.setString(2, spaceId);
+            setId(stmt, 2, spaceId);
             stmt.executeUpdate();
         }
     }
@@ -449,15 +1841,15 @@ public class SqliteMetadataService {
         SpaceMember owner = new SpaceMember(space.getAdminEmail(), "ADMIN", space.getCreatedAt(), true);
         members.add(owner);
 
-        String sql = "SELECT member_email, role, added_at FROM space_members WHERE space_id = ? ORDER BY datetime(added_at) ASC";
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setString(1, space.getId());
+        String sql = "SELECT member_email, role, added_at FROM space_members WHERE space_id = ? ORDER BY added_at ASC";
+        try (PreparedStatement stmt = prepare(conn, "fetchMembers", sql)) {
+            setId(stmt, 1, space.getId());
             try (ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
                     SpaceMember member = new SpaceMember();
                     member.setEmail(rs.getString("member_email"));
                     member.setRole(Optional.ofNullable(rs.getString("role")).orElse("MEMBER"));
-                    member.setAddedAt(parseTimestamp(rs.getString("added_at")));
+                    member.setAddedAt(EpochMillis.toLocalDateTime(rs.getLong("added_at")));
                     member.setOwner(false);
                     members.add(member);
                 }
@@ -467,43 +1859,69 @@ public class SqliteMetadataService {
         return members;
     }
 
-    private LocalDateTime parseTimestamp(String value) {
-        if (value == null || value.isEmpty()) {
-            return LocalDateTime.now();
+    private Space mapToSpace(ResultSet rs, SpaceFields fields) throws SQLException {
+        Space space = new Space();
+        space.setId(getId(rs, "id"));
+        if (fields.includes(SpaceFields.Field.NAME)) {
+            space.setName(rs.getString("name"));
         }
-        return LocalDateTime.parse(value);
-    }
+        if (fields.includes(SpaceFields.Field.DESCRIPTION)) {
+            space.setDescription(rs.getString("description"));
+        }
+        if (fields.includes(SpaceFields.Field.ADMIN_ID)) {
+            space.setAdminId(rs.getString("admin_id"));
+        }
+        if (fields.includes(SpaceFields.Field.ADMIN_EMAIL)) {
+            space.setAdminEmail(rs.getString("admin_email"));
+        }
+        if (fields.includes(SpaceFields.Field.CREATED_AT)) {
+            space.setCreatedAt(EpochMillis.toLocalDateTime(rs.getLong("created_at")));
+        }
+        space.setMembers(null);
 
-    private Space mapToSpace(ResultSet rs) throws SQLException {
-        Space space = new Space();
-        space.setId(rs.getString("id"));
-        space.setName(rs.getString("name"));
-        space.setDescription(rs.getString("description"));
-        space.setAdminId(rs.getString("admin_id"));
-        space.setAdminEmail(rs.getString("admin_email"));
-        space.setCreatedAt(LocalDateTime.parse(rs.getString("created_at")));
-        
-        String memberEmailsStr = rs.getString("member_emails");
-        if (memberEmailsStr != null && !memberEmailsStr.isEmpty()) {
-            space.setMemberEmails(Arrays.asList(memberEmailsStr.split(",")));
-        } else {
-            space.setMemberEmails(new ArrayList<>());
+        if (fields.includesMemberEmails()) {
+            String memberEmailsStr = rs.getString("member_emails");
+            if (memberEmailsStr != null && !memberEmailsStr.isEmpty()) {
+                space.setMemberEmails(Arrays.asList(memberEmailsStr.split(",")));
+            } else {
+                space.setMemberEmails(new ArrayList<>());
+            }
         }
         
         return space;
     }
 
+    private FileRendition mapToRendition(ResultSet rs) throws SQLException {
+        FileRendition rendition = new FileRendition(getId(rs, "file_id"), rs.getString("kind"),
+            rs.getString("storage_path"), rs.getString("content_type"),
+            rs.getInt("width"), rs.getInt("height"), rs.getLong("size"));
+        rendition.setCreatedAt(EpochMillis.toLocalDateTime(rs.getLong("created_at")));
+        return rendition;
+    }
+
+    /**
+     * Thumbnail URL of a listed file, if it has one. The rendition's version
+     * is in the URL, so browsers can cache each one for good.
+     */
+    private static void setThumbnailUrl(SpaceFile file, ResultSet rs) throws SQLException {
+        long createdAt = rs.getLong("thumbnail_created_at");
+        if (!rs.wasNull()) {
+            file.setThumbnailUrl("/api/files/" + file.getId() + "/thumbnail?v="
+                + FileRendition.version(EpochMillis.toLocalDateTime(createdAt)));
+        }
+    }
+
     private SpaceFile mapToSpaceFile(ResultSet rs) throws SQLException {
         SpaceFile file = new SpaceFile();
-        file.setId(rs.getString("id"));
-        file.setSpaceId(rs.getString("space_id"));
+        file.setId(getId(rs, "id"));
+        file.setSpaceId(getId(rs, "space_id"));
         file.setOriginalFilename(rs.getString("original_filename"));
         file.setStoragePath(rs.getString("storage_path"));
         file.setContentType(rs.getString("content_type"));
         file.setSize(rs.getLong("size"));
         file.setUploaderId(rs.getString("uploader_id"));
         file.setUploaderEmail(rs.getString("uploader_email"));
-        file.setUploadedAt(LocalDateTime.parse(rs.getString("uploaded_at")));
+        file.setUploadedAt(EpochMillis.toLocalDateTime(rs.getLong("uploaded_at")));
         
         return file;
     }
@@ -511,22 +1929,24 @@ public class SqliteMetadataService {
     // Activity logging methods
     public void logActivity(String spaceId, String userEmail, String action, String details) {
         String sql = "INSERT INTO activity (id, space_id, user_email, action, details, timestamp) VALUES (?, ?, ?, ?, ?, ?)";
-        try (Connection conn = getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        try (Span span = timed("logActivity");
+             Connection conn = getConnection(spaceId);
+             PreparedStatement pstmt = prepare(conn, "insertActivity", sql)) {
             
             Activity activity = new Activity(spaceId, userEmail, action, details);
-            activity.setId(UUID.randomUUID().toString());
+            activity.setId(Uuids.newId());
             
-            pstmt.setString(1, activity.getId());
-            pstmt.setString(2, activity.getSpaceId());
+            setId(pstmt, 1, activity.getId());
+            setId(pstmt, 2, activity.getSpaceId());
             pstmt.setString(3, activity.getUserEmail());
             pstmt.setString(4, activity.getAction());
             pstmt.setString(5, activity.getDetails());
-            pstmt.setString(6, activity.getTimestamp().toString());
+            pstmt.setLong(6, EpochMillis.of(activity.getTimestamp()));
             
             pstmt.executeUpdate();
             logger.info("Activity logged: {} by {} in space {}", action, userEmail, spaceId);
         } catch (SQLException e) {
+            recordError("logActivity");
             logger.error("Error logging activity", e);
             throw new RuntimeException("Failed to log activity", e);
         }
@@ -536,30 +1956,240 @@ public class SqliteMetadataService {
         List<Activity> activities = new ArrayList<>();
         String sql = "SELECT * FROM activity WHERE space_id = ? ORDER BY timestamp DESC LIMIT 50";
         
-        try (Connection conn = getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        try (Span span = timed("getActivityLog");
+             Connection conn = getConnection(spaceId);
+             PreparedStatement pstmt = prepare(conn, "getActivityLog", sql)) {
             
-            pstmt.setString(1, spaceId);
-            ResultSet rs = pstmt.executeQuery();
-            
-            while (rs.next()) {
-                activities.add(mapToActivity(rs));
+            setId(pstmt, 1, spaceId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    activities.add(mapToActivity(rs));
+                }
             }
         } catch (SQLException e) {
+            recordError("getActivityLog");
             logger.error("Error getting activity log for space: {}", spaceId, e);
         }
         
         return activities;
     }
 
+    /**
+     * Sequence of the newest activity entry in a shard, or 0 if there is
+     * none. The sequence is the table's rowid: SQLite runs one write
+     * transaction at a time per file, so a shard's entries are numbered in
+     * commit order. Shards number their entries independently.
+     */
+    public long getLatestActivitySequence(int shard) {
+        String sql = "SELECT COALESCE(MAX(rowid), 0) FROM activity";
+        try (Span span = timed("getLatestActivitySequence");
+             Connection conn = shards.get(shard).getConnection();
+             PreparedStatement pstmt = prepare(conn, "getLatestActivitySequence", sql);
+             ResultSet rs = pstmt.executeQuery()) {
+            return rs.next() ? rs.getLong(1) : 0;
+        } catch (SQLException e) {
+            recordError("getLatestActivitySequence");
+            logger.error("Error reading latest activity sequence", e);
+            throw new RuntimeException("Failed to read latest activity sequence", e);
+        }
+    }
+
+    /**
+     * Activity entries of a shard after a sequence, oldest first, across all
+     * its spaces.
+     */
+    public List<ActivityEntry> getActivitySince(int shard, long afterSequence, int limit) {
+        String sql = "SELECT rowid AS sequence, * FROM activity WHERE rowid > ? ORDER BY rowid LIMIT ?";
+        try (Span span = timed("getActivitySince");
+             Connection conn = shards.get(shard).getConnection();
+             PreparedStatement pstmt = prepare(conn, "getActivitySince", sql)) {
+            pstmt.setLong(1, afterSequence);
+            pstmt.setInt(2, limit);
+            return readActivityEntries(pstmt, shard);
+        } catch (SQLException e) {
+            recordError("getActivitySince");
+            logger.error("Error reading activity after {}", afterSequence, e);
+            throw new RuntimeException("Failed to read activity", e);
+        }
+    }
+
+    /**
+     * Activity entries of a shard after a sequence in the spaces a user
+     * belongs to now, plus their own removals, oldest first.
+     */
+    public List<ActivityEntry> getActivitySince(int shard, long afterSequence, String userEmail, int limit) {
+        String sql = """
+            SELECT rowid AS sequence, * FROM activity
+            WHERE rowid > ?
+              AND (space_id IN (SELECT id FROM spaces WHERE admin_email = ?
+                                UNION SELECT space_id FROM space_members WHERE member_email = ?)
+                   OR (action = 'removed member' AND details = ?))
+            ORDER BY rowid LIMIT ?
+            """;
+        try (Span span = timed("getActivitySinceForUser");
+             Connection conn = shards.get(shard).getConnection();
+             PreparedStatement pstmt = prepare(conn, "getActivitySinceForUser", sql)) {
+            pstmt.setLong(1, afterSequence);
+            pstmt.setString(2, userEmail);
+            pstmt.setString(3, userEmail);
+            pstmt.setString(4, userEmail);
+            pstmt.setInt(5, limit);
+            return readActivityEntries(pstmt, shard);
+        } catch (SQLException e) {
+            recordError("getActivitySinceForUser");
+            logger.error("Error reading activity after {} for {}", afterSequence, userEmail, e);
+            throw new RuntimeException("Failed to read activity", e);
+        }
+    }
+
+    /**
+     * An activity entry, its shard and its position in that shard's commit
+     * order.
+     */
+    public record ActivityEntry(int shard, long sequence, Activity activity) {}
+
+    private List<ActivityEntry> readActivityEntries(PreparedStatement pstmt, int shard) throws SQLException {
+        List<ActivityEntry> entries = new ArrayList<>();
+        try (ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                entries.add(new ActivityEntry(shard, rs.getLong("sequence"), mapToActivity(rs)));
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * IDs of the spaces a user owns or is a member of. Read from the catalog
+     * when sharded.
+     */
+    public Set<String> getSpaceIdsForUser(String userEmail) {
+        if (catalog != null) {
+            try (Span span = timed("getSpaceIdsForUser")) {
+                return queryCatalogSpaceIds(userEmail);
+            } catch (SQLException e) {
+                recordError("getSpaceIdsForUser");
+                logger.error("Error getting space IDs for user: {}", userEmail, e);
+                throw new RuntimeException("Failed to get spaces for user", e);
+            }
+        }
+        Set<String> spaceIds = new HashSet<>();
+        String sql = "SELECT id FROM spaces WHERE admin_email = ? UNION SELECT space_id FROM space_members WHERE member_email = ?";
+        try (Span span = timed("getSpaceIdsForUser");
+             Connection conn = shards.get(0).getConnection();
+             PreparedStatement pstmt = prepare(conn, "getSpaceIdsForUser", sql)) {
+            pstmt.setString(1, userEmail);
+            pstmt.setString(2, userEmail);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    spaceIds.add(getId(rs, 1));
+                }
+            }
+        } catch (SQLException e) {
+            recordError("getSpaceIdsForUser");
+            logger.error("Error getting space IDs for user: {}", userEmail, e);
+            throw new RuntimeException("Failed to get spaces for user", e);
+        }
+        return spaceIds;
+    }
+
+    private Set<String> queryCatalogSpaceIds(String userEmail) throws SQLException {
+        Set<String> spaceIds = new HashSet<>();
+        try (Connection conn = catalog.getConnection();
+             PreparedStatement stmt = prepare(conn, "catalogSpaceIds", "SELECT space_id FROM user_spaces WHERE member_email = ?")) {
+            stmt.setString(1, userEmail);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    spaceIds.add(getId(rs, 1));
+                }
+            }
+        }
+        return spaceIds;
+    }
+
+    /**
+     * Record memberships in the catalog once the shard write has committed.
+     * A failure is logged rather than thrown: the write itself succeeded,
+     * and the catalog is rebuilt from the shards at the next start.
+     */
+    private void catalogAdd(String spaceId, Collection<String> emails) {
+        if (catalog == null || emails.isEmpty()) {
+            return;
+        }
+        try (Span span = timed("catalogAdd"); Connection conn = catalog.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = prepare(conn, "catalogAdd", CATALOG_ADD_SQL)) {
+                for (String email : emails) {
+                    stmt.setString(1, email);
+                    setId(stmt, 2, spaceId);
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+                conn.commit();
+            }
+        } catch (SQLException e) {
+            recordError("catalogAdd");
+            logger.error("Error adding {} members of space {} to the shard catalog", emails.size(), spaceId, e);
+        }
+    }
+
+    /**
+     * Drop a membership from the catalog, or every membership of a space.
+     * Failures are handled as in {@link #catalogAdd}.
+     * @param memberEmail Member to drop, or null for the whole space
+     */
+    private void catalogRemove(String spaceId, String memberEmail) {
+        if (catalog == null) {
+            return;
+        }
+        String sql = memberEmail == null
+            ? "DELETE FROM user_spaces WHERE space_id = ?"
+            : "DELETE FROM user_spaces WHERE space_id = ? AND member_email = ?";
+        try (Span span = timed("catalogRemove"); Connection conn = catalog.getConnection();
+             PreparedStatement stmt = prepare(conn, memberEmail == null ? "catalogRemove.space" : "catalogRemove", sql)) {
+            setId(stmt, 1, spaceId);
+            if (memberEmail != null) {
+                stmt.setString(2, memberEmail);
+            }
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            recordError("catalogRemove");
+            logger.error("Error removing {} of space {} from the shard catalog",
+                memberEmail == null ? "members" : memberEmail, spaceId, e);
+        }
+    }
+
+    /**
+     * The owner and members of a space; empty once the space is deleted.
+     */
+    public Set<String> getMemberEmails(String spaceId) {
+        Set<String> emails = new HashSet<>();
+        String sql = "SELECT admin_email FROM spaces WHERE id = ? UNION SELECT member_email FROM space_members WHERE space_id = ?";
+        try (Span span = timed("getMemberEmails");
+             Connection conn = getConnection(spaceId);
+             PreparedStatement pstmt = prepare(conn, "getMemberEmails", sql)) {
+            setId(pstmt, 1, spaceId);
+            setId(pstmt, 2, spaceId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    emails.add(rs.getString(1));
+                }
+            }
+        } catch (SQLException e) {
+            recordError("getMemberEmails");
+            logger.error("Error getting member emails for space: {}", spaceId, e);
+            throw new RuntimeException("Failed to get space members", e);
+        }
+        return emails;
+    }
+
     private Activity mapToActivity(ResultSet rs) throws SQLException {
         Activity activity = new Activity();
-        activity.setId(rs.getString("id"));
-        activity.setSpaceId(rs.getString("space_id"));
+        activity.setId(getId(rs, "id"));
+        activity.setSpaceId(getId(rs, "space_id"));
         activity.setUserEmail(rs.getString("user_email"));
         activity.setAction(rs.getString("action"));
         activity.setDetails(rs.getString("details"));
-        activity.setTimestamp(LocalDateTime.parse(rs.getString("timestamp")));
+        activity.setTimestamp(EpochMillis.toLocalDateTime(rs.getLong("timestamp")));
         return activity;
     }
 }
@@ -0,0 +1,31 @@
+package com.driveclone.service;
+
+import java.io.InputStream;
+
+/**
+ * Blob store for file contents. Paths returned by {@link #uploadFile} are
+ * relative ("spaces/{spaceId}/files/{uuid}.ext") and are what the metadata
+ * store keeps in space_files.storage_path.
+ */
+public interface StorageService {
+
+    String uploadFile(InputStream inputStream, String spaceId, String originalFilename, String contentType);
+
+    /**
+     * Write content at a caller-chosen path, replacing anything already there.
+     * Used for derived files such as thumbnails that live beside the original.
+     */
+    void putFile(String storagePath, byte[] content, String contentType);
+
+    InputStream downloadFile(String storagePath);
+
+    void deleteFile(String storagePath);
+
+    /**
+     * Move content to a new path within the same backend, without copying it
+     * through this server.
+     */
+    void moveFile(String fromPath, String toPath);
+
+    void deleteAllFilesInSpace(String spaceId);
+}
@@ -1,8 +1,12 @@
 package com.driveclone.service;
 
 import com.driveclone.config.Config;
+import com.driveclone.metrics.Metrics;
 import com.google.gson.Gson;
 import com.google.gson.JsonObject;
+import com.driveclone.tracing.Span;
+import com.driveclone.tracing.Tracer;
+import io.prometheus.client.Histogram;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -13,7 +17,7 @@ import java.nio.charset.StandardCharsets;
 import java.util.Base64;
 import java.util.UUID;
 
-public class SupabaseStorageService {
+public class SupabaseStorageService implements StorageService {
     private static final Logger logger = LoggerFactory.getLogger(SupabaseStorageService.class);
     private final String supabaseUrl;
     private final String supabaseAnonKey;
@@ -40,8 +44,9 @@ public class SupabaseStorageService {
         logger.info("Supabase Storage Service initialized with URL: {}", supabaseUrl);
     }
 
+    @Override
     public String uploadFile(InputStream inputStream, String spaceId, String originalFilename, String contentType) {
-        try {
+        try (Span span = timed("upload")) {
             // Generate unique filename to avoid conflicts
             String fileExtension = getFileExtension(originalFilename);
             String uniqueFilename = UUID.randomUUID().toString() + fileExtension;
@@ -83,13 +88,46 @@ public class SupabaseStorageService {
             }
             
         } catch (Exception e) {
+            recordError("upload");
             logger.error("Error uploading file to Supabase", e);
             throw new RuntimeException("Failed to upload file to Supabase", e);
         }
     }
 
+    @Override
+    public void putFile(String storagePath, byte[] content, String contentType) {
+        try (Span span = timed("put")) {
+            URL url = new URL(supabaseUrl + "/storage/v1/object/" + storagePath);
+            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+
+            connection.setRequestMethod("POST");
+            connection.setRequestProperty("Authorization", "Bearer " + supabaseServiceKey);
+            connection.setRequestProperty("Content-Type", contentType);
+            connection.setRequestProperty("x-upsert", "true");
+            connection.setFixedLengthStreamingMode(content.length);
+            connection.setDoOutput(true);
+
+            try (OutputStream os = connection.getOutputStream()) {
+                os.write(content);
+            }
+
+            int responseCode = connection.getResponseCode();
+            if (responseCode < 200 || responseCode >= 300) {
+                String errorMessage = readErrorResponse(connection);
+                logger.error("Failed to store file in Supabase. Response code: {}, Error: {}", responseCode, errorMessage);
+                throw new RuntimeException("Failed to store file in Supabase: " + errorMessage);
+            }
+            logger.debug("Stored {} bytes at {} in Supabase", content.length, storagePath);
+        } catch (Exception e) {
+            recordError("put");
+            logger.error("Error storing file in Supabase: {}", storagePath, e);
+            throw new RuntimeException("Failed to store file in Supabase", e);
+        }
+    }
+
+    @Override
     public InputStream downloadFile(String storagePath) {
-        try {
+        try (Span span = timed("download")) {
             String downloadUrl = supabaseUrl + "/storage/v1/object/" + storagePath;
             URL url = new URL(downloadUrl);
             HttpURLConnection connection = (HttpURLConnection) url.openConnection();
@@ -107,13 +145,15 @@ public class SupabaseStorageService {
             }
             
         } catch (Exception e) {
+            recordError("download");
             logger.error("Error downloading file from Supabase: {}", storagePath, e);
             throw new RuntimeException("Failed to download file from Supabase", e);
         }
     }
 
+    @Override
     public void deleteFile(String storagePath) {
-        try {
+        try (Span span = timed("delete")) {
             String deleteUrl = supabaseUrl + "/storage/v1/object/" + storagePath;
             URL url = new URL(deleteUrl);
             HttpURLConnection connection = (HttpURLConnection) url.openConnection();
@@ -133,13 +173,54 @@ public class SupabaseStorageService {
             }
             
         } catch (Exception e) {
+            recordError("delete");
             logger.error("Error deleting file from Supabase: {}", storagePath, e);
             throw new RuntimeException("Failed to delete file from Supabase", e);
         }
     }
 
+    @Override
+    public void moveFile(String fromPath, String toPath) {
+        try (Span span = timed("move")) {
+            // Paths are "{bucket}/{key}"; the move API takes them apart
+            int slash = fromPath.indexOf('/');
+            String bucket = fromPath.substring(0, slash);
+            if (!toPath.startsWith(bucket + "/")) {
+                throw new IllegalArgumentException("Cannot move between buckets: " + fromPath + " -> " + toPath);
+            }
+            JsonObject body = new JsonObject();
+            body.addProperty("bucketId", bucket);
+            body.addProperty("sourceKey", fromPath.substring(slash + 1));
+            body.addProperty("destinationKey", toPath.substring(slash + 1));
+
+            URL url = new URL(supabaseUrl + "/storage/v1/object/move");
+            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+            connection.setRequestMethod("POST");
+            connection.setRequestProperty("Authorization", "Bearer " + supabaseServiceKey);
+            connection.setRequestProperty("Content-Type", "application/json");
+            connection.setDoOutput(true);
+
+            try (OutputStream os = connection.getOutputStream()) {
+                os.write(gson.toJson(body).getBytes(StandardCharsets.UTF_8));
+            }
+
+            int responseCode = connection.getResponseCode();
+            if (responseCode < 200 || responseCode >= 300) {
+                String errorMessage = readErrorResponse(connection);
+                logger.error("Failed to move file in Supabase. Response code: {}, Error: {}", responseCode, errorMessage);
+                throw new RuntimeException("Failed to move file in Supabase: " + errorMessage);
+            }
+            logger.debug("Moved {} to {} in Supabase", fromPath, toPath);
+        } catch (Exception e) {
+            recordError("move");
+            logger.error("Error moving file in Supabase: {} -> {}", fromPath, toPath, e);
+            throw new RuntimeException("Failed to move file in Supabase", e);
+        }
+    }
+
+    @Override
     public void deleteAllFilesInSpace(String spaceId) {
-        try {
+        try (Span span = timed("deleteAll")) {
             // List all files in the space
             String listUrl = supabaseUrl + "/storage/v1/object/list/spaces/" + spaceId + "/files";
             URL url = new URL(listUrl);
@@ -175,11 +256,21 @@ public class SupabaseStorageService {
             }
             
         } catch (Exception e) {
+            recordError("deleteAll");
             logger.error("Error deleting files in space: {}", spaceId, e);
             throw new RuntimeException("Failed to delete files in space", e);
         }
     }
 
+    private static Span timed(String operation) {
+        Histogram.Timer timer = Metrics.STORAGE_OPERATION_DURATION.labels("supabase", operation).startTimer();
+        return Tracer.startSpan("storage.supabase." + operation).onEnd(timer::observeDuration);
+    }
+
+    private static void recordError(String operation) {
+        Metrics.STORAGE_ERRORS.labels("supabase", operation).inc();
+    }
+
     private String getFileExtension(String filename) {
         int lastDotIndex = filename.lastIndexOf('.');
         if (lastDotIndex > 0 && lastDotIndex < filename.length() - 1) {
@@ -0,0 +1,142 @@
+package com.driveclone.tracing;
+
+import com.google.gson.stream.JsonWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Appends one JSON line per span to a local file.
+ *
+ * Request threads only enqueue the finished trace; a daemon thread
+ * serializes and writes them. When the queue is full traces are dropped
+ * rather than slowing requests down, and the drop count is logged.
+ */
+public class FileSpanExporter implements SpanExporter {
+    private static final Logger logger = LoggerFactory.getLogger(FileSpanExporter.class);
+    private static final Span POISON = new Span("shutdown", "", "", null, false);
+
+    private final Path file;
+    private final BlockingQueue<Span> queue;
+    private final Thread writerThread;
+    private final AtomicLong dropped = new AtomicLong();
+
+    public FileSpanExporter(Path file, int queueCapacity) {
+        this.file = file;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.writerThread = new Thread(this::drain, "span-exporter");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+        logger.info("Exporting trace spans to {}", file.toAbsolutePath());
+    }
+
+    @Override
+    public void export(Span root) {
+        if (!queue.offer(root)) {
+            long count = dropped.incrementAndGet();
+            if (count % 1000 == 1) {
+                logger.warn("Span export queue full, dropped {} traces so far", count);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            queue.put(POISON);
+            writerThread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void drain() {
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+        } catch (IOException e) {
+            logger.error("Cannot create trace directory for {}", file, e);
+            return;
+        }
+
+        List<Span> batch = new ArrayList<>();
+        try (Writer out = new BufferedWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND))) {
+            while (true) {
+                batch.add(queue.take());
+                queue.drainTo(batch);
+                for (Span root : batch) {
+                    if (root == POISON) {
+                        out.flush();
+                        return;
+                    }
+                    write(out, root);
+                }
+                batch.clear();
+                out.flush();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            logger.error("Failed writing trace spans to {}", file, e);
+        }
+    }
+
+    private static void write(Writer out, Span span) throws IOException {
+        out.write(toJson(span));
+        out.write('\n');
+        for (Span child : span.getChildren()) {
+            write(out, child);
+        }
+    }
+
+    static String toJson(Span span) {
+        StringWriter buffer = new StringWriter(256);
+        try (JsonWriter json = new JsonWriter(buffer)) {
+            json.beginObject();
+            json.name("traceId").value(span.getTraceId());
+            json.name("spanId").value(span.getSpanId());
+            json.name("parentId").value(span.getParent() != null ? span.getParent().getSpanId() : null);
+            json.name("name").value(span.getName());
+            json.name("startUs").value(span.getStartEpochMicros());
+            json.name("durationMs").value(span.getDurationNanos() / 1_000_000.0);
+            if (span.isError()) {
+                json.name("error").value(true);
+            }
+            if (!span.getAttributes().isEmpty()) {
+                json.name("attributes").beginObject();
+                for (Map.Entry<String, Object> attribute : span.getAttributes().entrySet()) {
+                    json.name(attribute.getKey());
+                    Object value = attribute.getValue();
+                    if (value instanceof Number number) {
+                        json.value(number);
+                    } else {
+                        json.value(value != null ? value.toString() : null);
+                    }
+                }
+                json.endObject();
+            }
+            json.endObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.toString();
+    }
+}
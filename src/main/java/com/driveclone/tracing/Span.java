@@ -0,0 +1,151 @@
+package com.driveclone.tracing;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A timed operation within a request trace. Spans are opened with
+ * {@link Tracer#startSpan(String)} and closed with try-with-resources; the
+ * root span of a request is opened by the tracing before-filter.
+ *
+ * Spans are confined to the request thread, so they are not synchronized.
+ */
+public class Span implements AutoCloseable {
+    private String name;
+    private final String traceId;
+    private final String spanId;
+    private final Span parent;
+    private final boolean recording;
+    private final long startEpochMicros;
+    private final long startNanos;
+    private final List<Span> children;
+    private Map<String, Object> attributes;
+    private Runnable onEnd;
+    private long durationNanos = -1;
+    private boolean error;
+
+    Span(String name, String traceId, String spanId, Span parent, boolean recording) {
+        this.name = name;
+        this.traceId = traceId;
+        this.spanId = spanId;
+        this.parent = parent;
+        this.recording = recording;
+        this.startEpochMicros = recording ? epochMicros(Instant.now()) : 0;
+        this.startNanos = System.nanoTime();
+        this.children = recording ? new ArrayList<>(4) : Collections.emptyList();
+    }
+
+    /**
+     * Rename the span, e.g. once the route template is known.
+     */
+    public Span rename(String newName) {
+        this.name = newName;
+        return this;
+    }
+
+    /**
+     * Attach a key/value pair, e.g. the route template or status code.
+     */
+    public Span attribute(String key, Object value) {
+        if (recording) {
+            if (attributes == null) {
+                attributes = new LinkedHashMap<>();
+            }
+            attributes.put(key, value);
+        }
+        return this;
+    }
+
+    /**
+     * Mark the span as failed.
+     */
+    public Span error(Throwable cause) {
+        if (recording) {
+            error = true;
+            attribute("error", cause.getClass().getSimpleName() + ": " + cause.getMessage());
+        }
+        return this;
+    }
+
+    /**
+     * Run a callback when the span closes, whether or not a trace is active.
+     * Used to keep the Prometheus timers and spans on a single code path.
+     */
+    public Span onEnd(Runnable callback) {
+        this.onEnd = callback;
+        return this;
+    }
+
+    @Override
+    public void close() {
+        if (durationNanos >= 0) {
+            return;
+        }
+        durationNanos = System.nanoTime() - startNanos;
+        if (onEnd != null) {
+            onEnd.run();
+        }
+        Tracer.ended(this);
+    }
+
+    private static long epochMicros(Instant instant) {
+        return instant.getEpochSecond() * 1_000_000 + instant.getNano() / 1_000;
+    }
+
+    void addChild(Span child) {
+        if (recording) {
+            children.add(child);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getTraceId() {
+        return traceId;
+    }
+
+    public String getSpanId() {
+        return spanId;
+    }
+
+    public Span getParent() {
+        return parent;
+    }
+
+    public boolean isRecording() {
+        return recording;
+    }
+
+    public long getStartEpochMicros() {
+        return startEpochMicros;
+    }
+
+    public long getStartNanos() {
+        return startNanos;
+    }
+
+    /**
+     * Duration in nanoseconds, or -1 while the span is still open.
+     */
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    public boolean isError() {
+        return error;
+    }
+
+    public List<Span> getChildren() {
+        return children;
+    }
+
+    public Map<String, Object> getAttributes() {
+        return attributes != null ? attributes : Collections.emptyMap();
+    }
+}
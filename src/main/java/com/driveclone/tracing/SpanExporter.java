@@ -0,0 +1,18 @@
+package com.driveclone.tracing;
+
+/**
+ * Receives each finished request trace. Called on the request thread, so
+ * implementations should hand off any I/O.
+ */
+public interface SpanExporter {
+
+    /**
+     * @param root Finished root span; children are reachable via {@link Span#getChildren()}
+     */
+    void export(Span root);
+
+    default void close() {
+    }
+
+    SpanExporter NONE = root -> { };
+}
@@ -0,0 +1,160 @@
+package com.driveclone.tracing;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Request-scoped tracing.
+ *
+ * The tracing before-filter opens a root span per request with
+ * {@link #startTrace}; code below it opens child spans with
+ * {@link #startSpan}, which nest under whatever span is current on the
+ * thread. Outside a trace (startup, background jobs, benchmarks) startSpan
+ * returns a non-recording span that still runs its onEnd callback.
+ *
+ * When the root span closes, the trace goes to the configured
+ * {@link SpanExporter}, and if it took longer than the slow threshold the
+ * whole span tree is written to the "slow-requests" logger.
+ */
+public final class Tracer {
+    private static final Logger slowLogger = LoggerFactory.getLogger("slow-requests");
+    private static final ThreadLocal<Span> CURRENT = new ThreadLocal<>();
+    private static final HexFormat HEX = HexFormat.of();
+
+    private static volatile SpanExporter exporter = SpanExporter.NONE;
+    private static volatile long slowThresholdNanos = Long.MAX_VALUE;
+
+    private Tracer() {}
+
+    /**
+     * @param spanExporter Destination for finished traces
+     * @param slowThresholdMillis Requests at or above this are logged with their span tree; 0 or less disables
+     */
+    public static void configure(SpanExporter spanExporter, long slowThresholdMillis) {
+        exporter = spanExporter;
+        slowThresholdNanos = slowThresholdMillis > 0 ? slowThresholdMillis * 1_000_000 : Long.MAX_VALUE;
+    }
+
+    public static SpanExporter getExporter() {
+        return exporter;
+    }
+
+    /**
+     * Open the root span of a new trace on this thread, replacing any stale one.
+     * @param name Span name
+     * @param traceId Propagated trace ID (32 hex chars), or null to generate one
+     */
+    public static Span startTrace(String name, String traceId) {
+        Span root = new Span(name, traceId != null ? traceId : newId(16), newId(8), null, true);
+        CURRENT.set(root);
+        return root;
+    }
+
+    /**
+     * Open a child of the current span.
+     */
+    public static Span startSpan(String name) {
+        Span parent = CURRENT.get();
+        if (parent == null) {
+            return new Span(name, null, null, null, false);
+        }
+        Span child = new Span(name, parent.getTraceId(), newId(8), parent, true);
+        parent.addChild(child);
+        CURRENT.set(child);
+        return child;
+    }
+
+    /**
+     * The innermost open span on this thread, or null outside a trace.
+     */
+    public static Span current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Trace ID of the current request, or null outside a trace.
+     */
+    public static String currentTraceId() {
+        Span span = CURRENT.get();
+        return span != null ? span.getTraceId() : null;
+    }
+
+    static void ended(Span span) {
+        if (!span.isRecording()) {
+            return;
+        }
+        if (CURRENT.get() == span) {
+            CURRENT.set(span.getParent());
+        }
+        if (span.getParent() == null) {
+            CURRENT.remove();
+            exporter.export(span);
+            if (span.getDurationNanos() >= slowThresholdNanos) {
+                slowLogger.warn("Slow request {} took {} ms, trace {}\n{}", span.getName(),
+                    String.format(Locale.ROOT, "%.1f", span.getDurationNanos() / 1_000_000.0),
+                    span.getTraceId(), formatTree(span));
+            }
+        }
+    }
+
+    /**
+     * Extract the trace ID from a W3C traceparent header
+     * ("00-{32 hex trace id}-{16 hex parent id}-{flags}").
+     * @return Trace ID, or null if the header is missing or malformed
+     */
+    public static String parseTraceParent(String header) {
+        if (header == null) {
+            return null;
+        }
+        String[] parts = header.trim().split("-");
+        if (parts.length < 4 || parts[1].length() != 32 || !isHex(parts[1]) || parts[1].chars().allMatch(c -> c == '0')) {
+            return null;
+        }
+        return parts[1].toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Render a span tree, one span per line with its offset from the root and duration.
+     */
+    public static String formatTree(Span root) {
+        StringBuilder out = new StringBuilder();
+        appendTree(out, root, root.getStartNanos(), 0);
+        return out.toString();
+    }
+
+    private static void appendTree(StringBuilder out, Span span, long rootStart, int depth) {
+        out.append(String.format(Locale.ROOT, "  +%8.2fms %9.2fms ",
+            (span.getStartNanos() - rootStart) / 1_000_000.0, span.getDurationNanos() / 1_000_000.0));
+        out.append("  ".repeat(depth)).append(span.getName());
+        if (span.isError()) {
+            out.append(" [error]");
+        }
+        for (Map.Entry<String, Object> attribute : span.getAttributes().entrySet()) {
+            out.append(' ').append(attribute.getKey()).append('=').append(attribute.getValue());
+        }
+        out.append('\n');
+        for (Span child : span.getChildren()) {
+            appendTree(out, child, rootStart, depth + 1);
+        }
+    }
+
+    private static String newId(int bytes) {
+        byte[] id = new byte[bytes];
+        ThreadLocalRandom.current().nextBytes(id);
+        return HEX.formatHex(id);
+    }
+
+    private static boolean isHex(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            if (Character.digit(s.charAt(i), 16) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,165 @@
+package com.driveclone.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Locale;
+import java.util.Set;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Utility methods for HTTP content compression.
+ */
+public class Compression {
+
+    private static final Set<String> PRECOMPRESSED_EXTENSIONS = Set.of(
+        "zip", "gz", "tgz", "bz2", "xz", "zst", "7z", "rar", "jar", "apk", "epub",
+        "docx", "xlsx", "pptx", "odt", "ods", "odp", "pdf",
+        "jpg", "jpeg", "png", "gif", "webp", "avif", "heic",
+        "mp3", "aac", "ogg", "opus", "m4a", "flac", "mp4", "m4v", "mov", "mkv", "webm", "avi"
+    );
+
+    /**
+     * Gzip a byte array with the given compression level.
+     * @param data Uncompressed bytes
+     * @param level Deflater level (1-9, or -1 for the default)
+     * @return Gzip-encoded bytes
+     */
+    public static byte[] gzip(byte[] data, int level) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(Math.max(64, data.length / 4));
+        try (OutputStream out = gzipStream(buffer, level)) {
+            out.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to gzip content", e);
+        }
+        return buffer.toByteArray();
+    }
+
+    /**
+     * Wrap a stream in a gzip encoder with the given compression level.
+     * @param out Destination stream
+     * @param level Deflater level (1-9, or -1 for the default)
+     * @return Gzip output stream
+     */
+    public static GZIPOutputStream gzipStream(OutputStream out, int level) throws IOException {
+        int clamped = level < Deflater.DEFAULT_COMPRESSION || level > Deflater.BEST_COMPRESSION
+            ? Deflater.DEFAULT_COMPRESSION : level;
+        return new GZIPOutputStream(out, 8192) {
+            {
+                def.setLevel(clamped);
+            }
+        };
+    }
+
+    /**
+     * Check whether a client accepts the given content coding.
+     * Codings listed with q=0 are treated as refused. "*" covers only
+     * codings not listed by name, so "*, gzip;q=0" still refuses gzip.
+     * @param acceptEncoding Value of the Accept-Encoding request header
+     * @param coding Content coding to look for (e.g. "gzip")
+     * @return true if the coding is acceptable
+     */
+    public static boolean accepts(String acceptEncoding, String coding) {
+        if (acceptEncoding == null || acceptEncoding.isEmpty()) {
+            return false;
+        }
+        double wildcard = -1;
+        for (String part : acceptEncoding.toLowerCase(Locale.ROOT).split(",")) {
+            String[] params = part.trim().split(";");
+            String name = params[0].trim();
+            if (name.equals(coding)) {
+                return quality(params) > 0;
+            }
+            if (name.equals("*")) {
+                wildcard = quality(params);
+            }
+        }
+        return wildcard > 0;
+    }
+
+    /**
+     * Quality value of one Accept-Encoding entry: 1 when absent, 0 when
+     * unreadable.
+     */
+    private static double quality(String[] params) {
+        for (int i = 1; i < params.length; i++) {
+            String param = params[i].trim();
+            if (param.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(param.substring(2));
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+
+    /**
+     * ETag of a representation sent with a content coding. A strong
+     * validator must differ between codings of the same resource, so the
+     * coding is appended inside the quotes; weak tags are returned as is.
+     * @param etag ETag of the uncoded representation
+     * @param coding Content coding applied (e.g. "gzip")
+     * @return ETag for the coded representation
+     */
+    public static String codedEtag(String etag, String coding) {
+        if (etag.startsWith("W/") || !etag.endsWith("\"")) {
+            return etag;
+        }
+        return etag.substring(0, etag.length() - 1) + "-" + coding + "\"";
+    }
+
+    /**
+     * Check whether a file's bytes are already compressed, so deflating them
+     * again would cost CPU for no gain.
+     * @param contentType MIME type, possibly with parameters (may be null)
+     * @param filename Original filename, used when the type is missing or generic
+     * @return true for archives, compressed images, audio and video
+     */
+    public static boolean isPrecompressed(String contentType, String filename) {
+        if (contentType != null) {
+            String type = contentType.toLowerCase(Locale.ROOT);
+            if ((type.startsWith("image/") && !type.startsWith("image/svg") && !type.startsWith("image/bmp"))
+                    || type.startsWith("video/")
+                    || (type.startsWith("audio/") && !type.contains("wav"))
+                    || type.contains("zip") || type.contains("compressed") || type.contains("x-7z")
+                    || type.contains("x-rar") || type.contains("x-xz") || type.contains("x-bzip")
+                    || type.contains("zstd") || type.contains("openxmlformats") || type.contains("opendocument")
+                    || type.startsWith("application/pdf")) {
+                return true;
+            }
+        }
+        if (filename == null) {
+            return false;
+        }
+        int dot = filename.lastIndexOf('.');
+        return dot >= 0 && PRECOMPRESSED_EXTENSIONS.contains(filename.substring(dot + 1).toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Check whether a content type is worth compressing.
+     * @param contentType MIME type, possibly with parameters
+     * @return true for text-like types
+     */
+    public static boolean isCompressible(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        String type = contentType.toLowerCase(Locale.ROOT);
+        int semicolon = type.indexOf(';');
+        if (semicolon >= 0) {
+            type = type.substring(0, semicolon).trim();
+        }
+        return type.startsWith("text/")
+            || type.endsWith("+json")
+            || type.endsWith("+xml")
+            || type.equals("application/json")
+            || type.equals("application/javascript")
+            || type.equals("application/xml")
+            || type.equals("image/svg+xml")
+            || type.equals("application/wasm");
+    }
+}
@@ -0,0 +1,23 @@
+package com.driveclone.util;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Conversions between the epoch-millisecond timestamps stored in SQLite and
+ * the LocalDateTime values used by the models. Models hold server-local
+ * time, as LocalDateTime.now() produces.
+ */
+public class EpochMillis {
+
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+
+    public static long of(LocalDateTime value) {
+        return value.atZone(ZONE).toInstant().toEpochMilli();
+    }
+
+    public static LocalDateTime toLocalDateTime(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZONE);
+    }
+}
@@ -1,6 +1,8 @@
 package com.driveclone.util;
 
 import com.google.gson.Gson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import spark.Response;
 
 import java.util.List;
@@ -12,6 +14,7 @@ import java.util.Map;
  */
 public class JsonResponse {
     
+    private static final Logger logger = LoggerFactory.getLogger(JsonResponse.class);
     private static final Gson gson = GsonConfig.getGson();
     
     /**
@@ -102,6 +105,16 @@ public class JsonResponse {
         return error(response, message, 400);
     }
     
+    /**
+     * Send a 413 payload too large error response.
+     * @param response Spark Response object
+     * @param message Error message
+     * @return JSON string
+     */
+    public static String payloadTooLarge(Response response, String message) {
+        return error(response, message, 413);
+    }
+    
     /**
      * Send a 503 service unavailable error response.
      * @param response Spark Response object
@@ -122,14 +135,16 @@ public class JsonResponse {
     }
     
     /**
-     * Log API call for debugging.
+     * Log API call for debugging. The structured access log records every
+     * request; this only adds handler-level detail at DEBUG.
      * @param method HTTP method
      * @param uri Request URI
      * @param statusCode Response status code
      * @param userEmail User email (can be null)
      */
     public static void logApiCall(String method, String uri, int statusCode, String userEmail) {
-        String userInfo = userEmail != null ? " (user: " + userEmail + ")" : "";
-        System.out.println("📡 " + method + " " + uri + " -> " + statusCode + userInfo);
+        if (logger.isDebugEnabled()) {
+            logger.debug("{} {} -> {} (user: {})", method, uri, statusCode, userEmail);
+        }
     }
 }
@@ -0,0 +1,97 @@
+package com.driveclone.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+
+/**
+ * Identifier generation and the 16-byte form IDs are stored in.
+ *
+ * New IDs are UUIDv7: a 48-bit millisecond timestamp followed by random
+ * bits, so IDs created later sort later, both as strings and as bytes, and
+ * inserts land at the end of the key index instead of all over it. The
+ * random part comes from SecureRandom, as with UUID.randomUUID(), so IDs
+ * stay unguessable.
+ */
+public class Uuids {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    /**
+     * A new time-ordered UUID in the usual 36-character form.
+     */
+    public static String newId() {
+        byte[] bytes = new byte[16];
+        RANDOM.nextBytes(bytes);
+        long millis = System.currentTimeMillis();
+        for (int i = 0; i < 6; i++) {
+            bytes[i] = (byte) (millis >>> (40 - 8 * i));
+        }
+        bytes[6] = (byte) ((bytes[6] & 0x0f) | 0x70);
+        bytes[8] = (byte) ((bytes[8] & 0x3f) | 0x80);
+        return toString(bytes);
+    }
+
+    /**
+     * Stored form of an ID: the 16 bytes of a UUID, or the UTF-8 bytes of
+     * anything that is not UUID-shaped, so every string round-trips.
+     */
+    public static byte[] toBytes(String id) {
+        if (id.length() == 36) {
+            byte[] bytes = new byte[16];
+            int b = 0;
+            for (int i = 0; i < 36; i++) {
+                if (i == 8 || i == 13 || i == 18 || i == 23) {
+                    if (id.charAt(i) != '-') {
+                        return id.getBytes(StandardCharsets.UTF_8);
+                    }
+                    continue;
+                }
+                int high = Character.digit(id.charAt(i), 16);
+                int low = Character.digit(id.charAt(++i), 16);
+                if (high < 0 || low < 0) {
+                    return id.getBytes(StandardCharsets.UTF_8);
+                }
+                bytes[b++] = (byte) (high << 4 | low);
+            }
+            return bytes;
+        }
+        return id.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * ID string from its stored form; the inverse of {@link #toBytes}.
+     */
+    public static String toString(byte[] bytes) {
+        if (bytes == null) {
+            return null;
+        }
+        if (bytes.length != 16) {
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+        char[] chars = new char[36];
+        int c = 0;
+        for (int i = 0; i < 16; i++) {
+            if (i == 4 || i == 6 || i == 8 || i == 10) {
+                chars[c++] = '-';
+            }
+            chars[c++] = HEX[(bytes[i] >> 4) & 0x0f];
+            chars[c++] = HEX[bytes[i] & 0x0f];
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Lowercase hex of the stored form, used as the space token in the
+     * full-text indexes (hex(space_id) in SQL, lowercased).
+     */
+    public static String toHex(String id) {
+        byte[] bytes = toBytes(id);
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[2 * i] = HEX[(bytes[i] >> 4) & 0x0f];
+            chars[2 * i + 1] = HEX[bytes[i] & 0x0f];
+        }
+        return new String(chars);
+    }
+}
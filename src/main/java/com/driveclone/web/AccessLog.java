@@ -0,0 +1,147 @@
+package com.driveclone.web;
+
+import com.driveclone.model.User;
+import com.google.gson.stream.JsonWriter;
+import org.eclipse.jetty.server.HttpOutput;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import spark.Request;
+import spark.Response;
+import spark.Route;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+
+/**
+ * One structured record per request, written to the "access" logger.
+ *
+ * The logger is routed to an asynchronous rolling file appender in
+ * logback.xml, so request threads only enqueue the record. Route templates
+ * are recorded by wrapping each route with {@link #route(String, Route)};
+ * requests that never reach a route (auth failures, 404s) are logged as
+ * "unmatched".
+ */
+public class AccessLog {
+    private static final Logger accessLogger = LoggerFactory.getLogger("access");
+
+    static final String START_ATTRIBUTE = "accessLog.startNanos";
+    static final String ROUTE_ATTRIBUTE = "accessLog.route";
+    static final String UNMATCHED = "unmatched";
+
+    /**
+     * Wrap a route so the access log can report its path template.
+     * @param template Route path as registered, e.g. "/api/files/:fileId"
+     * @param route The route handler
+     * @return Route that tags the request before delegating
+     */
+    public static Route route(String template, Route route) {
+        return (request, response) -> {
+            request.attribute(ROUTE_ATTRIBUTE, template);
+            return route.handle(request, response);
+        };
+    }
+
+    /**
+     * Before-filter that stamps the request start time. Register it first.
+     */
+    public static void start(Request request, Response response) {
+        request.attribute(START_ATTRIBUTE, System.nanoTime());
+    }
+
+    /**
+     * Route template recorded for the request, or "unmatched".
+     */
+    public static String routeOf(Request request) {
+        String template = request.attribute(ROUTE_ATTRIBUTE);
+        return template != null ? template : UNMATCHED;
+    }
+
+    /**
+     * Nanoseconds since {@link #start}, or 0 if the request was never stamped.
+     */
+    public static long elapsedNanos(Request request) {
+        Long start = request.attribute(START_ATTRIBUTE);
+        return start != null ? System.nanoTime() - start : 0L;
+    }
+
+    /**
+     * Bytes sent or about to be sent for the response body.
+     */
+    public static long bytesSent(Response response) {
+        long written = 0;
+        try {
+            if (response.raw().getOutputStream() instanceof HttpOutput output) {
+                written = output.getWritten();
+            }
+        } catch (IOException | IllegalStateException e) {
+            // Writer already in use; fall back to the pending body only
+        }
+        if (!response.raw().isCommitted()) {
+            written += utf8Length(response.body());
+        }
+        return written;
+    }
+
+    /**
+     * afterAfter filter that emits the access record.
+     */
+    public static void finish(Request request, Response response) {
+        if (!accessLogger.isInfoEnabled()) {
+            return;
+        }
+        User user = request.attribute("user");
+        accessLogger.info(format(
+            request.requestMethod(),
+            routeOf(request),
+            request.uri(),
+            response.raw().getStatus(),
+            user != null ? user.getEmail() : null,
+            RequestTracing.traceIdOf(request),
+            bytesSent(response),
+            elapsedNanos(request)));
+    }
+
+    private static String format(String method, String route, String path, int status,
+                                 String user, String traceId, long bytes, long latencyNanos) {
+        StringWriter out = new StringWriter(192);
+        try (JsonWriter json = new JsonWriter(out)) {
+            json.beginObject();
+            json.name("ts").value(Instant.now().toString());
+            json.name("method").value(method);
+            json.name("route").value(route);
+            json.name("path").value(path);
+            json.name("status").value(status);
+            json.name("user").value(user);
+            json.name("traceId").value(traceId);
+            json.name("bytes").value(bytes);
+            json.name("latencyMs").value(latencyNanos / 1_000_000.0);
+            json.endObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toString();
+    }
+
+    private static long utf8Length(String s) {
+        if (s == null) {
+            return 0;
+        }
+        long length = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                length += 1;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c)) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+}
@@ -0,0 +1,30 @@
+package com.driveclone.web;
+
+import com.driveclone.metrics.Metrics;
+import spark.Request;
+import spark.Response;
+
+/**
+ * Filters that feed the HTTP request metrics: an in-flight gauge and a
+ * latency histogram labelled by method, route template and status.
+ * Timing reuses the start stamp recorded by {@link AccessLog#start}.
+ */
+public class RequestMetrics {
+
+    private static final String IN_FLIGHT_ATTRIBUTE = "requestMetrics.inFlight";
+
+    public static void start(Request request, Response response) {
+        Metrics.HTTP_IN_FLIGHT.inc();
+        request.attribute(IN_FLIGHT_ATTRIBUTE, Boolean.TRUE);
+    }
+
+    public static void finish(Request request, Response response) {
+        if (request.attribute(IN_FLIGHT_ATTRIBUTE) == null) {
+            return;
+        }
+        Metrics.HTTP_IN_FLIGHT.dec();
+        Metrics.HTTP_REQUEST_DURATION
+            .labels(request.requestMethod(), AccessLog.routeOf(request), String.valueOf(response.raw().getStatus()))
+            .observe(AccessLog.elapsedNanos(request) / 1_000_000_000.0);
+    }
+}
@@ -0,0 +1,48 @@
+package com.driveclone.web;
+
+import com.driveclone.tracing.Span;
+import com.driveclone.tracing.Tracer;
+import spark.Request;
+import spark.Response;
+
+/**
+ * Filters that open and close the root span of each request.
+ *
+ * An incoming W3C traceparent header is honoured so traces can be joined
+ * with the Next.js side; otherwise a new trace ID is generated. The ID is
+ * returned in X-Trace-Id and recorded in the access log.
+ */
+public class RequestTracing {
+
+    static final String SPAN_ATTRIBUTE = "tracing.rootSpan";
+    public static final String TRACE_ID_HEADER = "X-Trace-Id";
+
+    public static void start(Request request, Response response) {
+        Span root = Tracer.startTrace(request.requestMethod() + " " + request.uri(),
+            Tracer.parseTraceParent(request.headers("traceparent")));
+        request.attribute(SPAN_ATTRIBUTE, root);
+        response.header(TRACE_ID_HEADER, root.getTraceId());
+    }
+
+    public static void finish(Request request, Response response) {
+        Span root = request.attribute(SPAN_ATTRIBUTE);
+        if (root == null) {
+            return;
+        }
+        String route = AccessLog.routeOf(request);
+        if (!AccessLog.UNMATCHED.equals(route)) {
+            root.rename(request.requestMethod() + " " + route);
+        }
+        root.attribute("path", request.uri())
+            .attribute("status", response.raw().getStatus());
+        root.close();
+    }
+
+    /**
+     * Trace ID of the request, or null if it was not traced.
+     */
+    public static String traceIdOf(Request request) {
+        Span root = request.attribute(SPAN_ATTRIBUTE);
+        return root != null ? root.getTraceId() : null;
+    }
+}
@@ -0,0 +1,74 @@
+package com.driveclone.web;
+
+import com.driveclone.config.Config;
+import com.driveclone.util.Compression;
+import spark.Request;
+import spark.Response;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * After-filter that gzips API response bodies for clients that accept it.
+ *
+ * Only uncommitted, compressible bodies of at least COMPRESSION_MIN_SIZE
+ * bytes are touched; streamed responses such as file downloads have already
+ * been written by the time this runs and are left alone. The JDK ships no
+ * brotli or zstd encoder, so gzip is the only coding offered here. A
+ * strong ETag on a gzipped body gets a "-gzip" suffix, as the two
+ * representations are not byte-identical.
+ */
+public class ResponseCompressor {
+
+    private final int level;
+    private final int minSize;
+
+    public ResponseCompressor() {
+        Config config = Config.getInstance();
+        this.level = config.getCompressionLevel();
+        this.minSize = config.getCompressionMinSize();
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public void compress(Request request, Response response) throws IOException {
+        if (response.raw().isCommitted() || response.raw().containsHeader("Content-Encoding")) {
+            return;
+        }
+
+        String body = response.body();
+        if (body == null || body.length() < minSize || !Compression.isCompressible(response.raw().getContentType())) {
+            return;
+        }
+
+        response.header("Vary", "Accept-Encoding");
+        if (!Compression.accepts(request.headers("Accept-Encoding"), "gzip")) {
+            return;
+        }
+
+        byte[] plain = body.getBytes(StandardCharsets.UTF_8);
+        if (plain.length < minSize) {
+            return;
+        }
+        byte[] compressed = Compression.gzip(plain, level);
+        if (compressed.length >= plain.length) {
+            return;
+        }
+
+        response.header("Content-Encoding", "gzip");
+        response.raw().setContentLength(compressed.length);
+        String etag = response.raw().getHeader("ETag");
+        if (etag != null) {
+            response.raw().setHeader("ETag", Compression.codedEtag(etag, "gzip"));
+        }
+
+        // Write directly; Spark skips serializing the body once the response is committed
+        OutputStream out = response.raw().getOutputStream();
+        out.write(compressed);
+        out.flush();
+        response.body("");
+    }
+}
@@ -0,0 +1,245 @@
+package com.driveclone.web;
+
+import com.driveclone.util.Compression;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import spark.Request;
+import spark.Response;
+import spark.Spark;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.URL;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystemNotFoundException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Serves the bundled /public directory from memory.
+ *
+ * Every asset is read once at startup together with a gzip variant and, if
+ * the build shipped one, a precompressed brotli sibling (name.br). Responses
+ * carry strong ETags, and If-None-Match is answered with 304. Fingerprinted
+ * file names (app.3f9c2a1b.js) are cached for a year; everything else must
+ * revalidate.
+ */
+public class StaticAssets {
+    private static final Logger logger = LoggerFactory.getLogger(StaticAssets.class);
+
+    private static final Pattern FINGERPRINTED = Pattern.compile(".*\\.[0-9a-fA-F]{8,}\\.[A-Za-z0-9]+$");
+    private static final String IMMUTABLE = "public, max-age=31536000, immutable";
+    private static final String REVALIDATE = "no-cache";
+    private static final Map<String, String> CONTENT_TYPES = Map.ofEntries(
+        Map.entry("html", "text/html; charset=utf-8"),
+        Map.entry("css", "text/css; charset=utf-8"),
+        Map.entry("js", "application/javascript; charset=utf-8"),
+        Map.entry("mjs", "application/javascript; charset=utf-8"),
+        Map.entry("json", "application/json; charset=utf-8"),
+        Map.entry("map", "application/json; charset=utf-8"),
+        Map.entry("svg", "image/svg+xml"),
+        Map.entry("png", "image/png"),
+        Map.entry("jpg", "image/jpeg"),
+        Map.entry("jpeg", "image/jpeg"),
+        Map.entry("gif", "image/gif"),
+        Map.entry("webp", "image/webp"),
+        Map.entry("ico", "image/x-icon"),
+        Map.entry("woff", "font/woff"),
+        Map.entry("woff2", "font/woff2"),
+        Map.entry("txt", "text/plain; charset=utf-8"),
+        Map.entry("wasm", "application/wasm")
+    );
+
+    private final Map<String, Asset> assets;
+
+    private StaticAssets(Map<String, Asset> assets) {
+        this.assets = assets;
+    }
+
+    /**
+     * Load every resource below the given classpath directory.
+     * @param root Classpath directory, e.g. "/public"
+     * @return Loaded assets keyed by request path
+     */
+    public static StaticAssets load(String root) {
+        URL url = StaticAssets.class.getResource(root);
+        if (url == null) {
+            logger.warn("Static asset directory {} not found on classpath", root);
+            return new StaticAssets(Collections.emptyMap());
+        }
+
+        try {
+            URI uri = url.toURI();
+            if ("jar".equals(uri.getScheme())) {
+                try (FileSystem fs = openJarFileSystem(uri)) {
+                    return new StaticAssets(readTree(fs.getPath(root)));
+                }
+            }
+            return new StaticAssets(readTree(Paths.get(uri)));
+        } catch (Exception e) {
+            logger.error("Failed to load static assets from {}", root, e);
+            throw new RuntimeException("Failed to load static assets", e);
+        }
+    }
+
+    private static FileSystem openJarFileSystem(URI uri) throws IOException {
+        try {
+            FileSystems.getFileSystem(uri).close();
+        } catch (FileSystemNotFoundException ignored) {
+            // Not open yet
+        }
+        return FileSystems.newFileSystem(uri, Collections.emptyMap());
+    }
+
+    private static Map<String, Asset> readTree(Path base) throws IOException {
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(base)) {
+            files = walk.filter(Files::isRegularFile).collect(Collectors.toList());
+        }
+
+        Map<String, Path> byPath = new HashMap<>();
+        for (Path file : files) {
+            byPath.put(base.relativize(file).toString().replace('\\', '/'), file);
+        }
+
+        Map<String, Asset> loaded = new HashMap<>();
+        for (Map.Entry<String, Path> entry : byPath.entrySet()) {
+            String relative = entry.getKey();
+            if (relative.endsWith(".br") || relative.endsWith(".gz")) {
+                continue;
+            }
+            Path brotliSibling = byPath.get(relative + ".br");
+            byte[] brotli = brotliSibling != null ? Files.readAllBytes(brotliSibling) : null;
+            Asset asset = Asset.create(relative, Files.readAllBytes(entry.getValue()), brotli);
+            loaded.put("/" + relative, asset);
+        }
+        return loaded;
+    }
+
+    /**
+     * Register a GET route for every loaded asset. index.html is also served at "/".
+     */
+    public void registerRoutes() {
+        for (Map.Entry<String, Asset> entry : assets.entrySet()) {
+            Asset asset = entry.getValue();
+            Spark.get(entry.getKey(), AccessLog.route(entry.getKey(), (request, response) -> serve(asset, request, response)));
+            if (entry.getKey().equals("/index.html")) {
+                Spark.get("/", AccessLog.route("/", (request, response) -> serve(asset, request, response)));
+            }
+        }
+        logger.info("Registered {} static assets", assets.size());
+    }
+
+    private Object serve(Asset asset, Request request, Response response) throws IOException {
+        String acceptEncoding = request.headers("Accept-Encoding");
+        String encoding = null;
+        byte[] body = asset.identity;
+        if (asset.brotli != null && Compression.accepts(acceptEncoding, "br")) {
+            encoding = "br";
+            body = asset.brotli;
+        } else if (asset.gzip != null && Compression.accepts(acceptEncoding, "gzip")) {
+            encoding = "gzip";
+            body = asset.gzip;
+        }
+        String etag = encoding == null ? asset.etag : asset.etag.substring(0, asset.etag.length() - 1) + "-" + encoding + "\"";
+
+        response.header("ETag", etag);
+        response.header("Cache-Control", asset.cacheControl);
+        if (asset.gzip != null || asset.brotli != null) {
+            response.header("Vary", "Accept-Encoding");
+        }
+
+        if (matches(request.headers("If-None-Match"), etag)) {
+            response.status(304);
+            return "";
+        }
+
+        response.type(asset.contentType);
+        if (encoding != null) {
+            response.header("Content-Encoding", encoding);
+        }
+        response.raw().setContentLength(body.length);
+
+        // Write directly so Spark does not try to re-encode a precompressed body
+        OutputStream out = response.raw().getOutputStream();
+        out.write(body);
+        out.flush();
+        return "";
+    }
+
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static final class Asset {
+        final byte[] identity;
+        final byte[] gzip;
+        final byte[] brotli;
+        final String contentType;
+        final String etag;
+        final String cacheControl;
+
+        private Asset(byte[] identity, byte[] gzip, byte[] brotli, String contentType, String etag, String cacheControl) {
+            this.identity = identity;
+            this.gzip = gzip;
+            this.brotli = brotli;
+            this.contentType = contentType;
+            this.etag = etag;
+            this.cacheControl = cacheControl;
+        }
+
+        static Asset create(String relativePath, byte[] content, byte[] brotli) {
+            String contentType = contentTypeFor(relativePath);
+            byte[] gzip = null;
+            if (Compression.isCompressible(contentType)) {
+                byte[] compressed = Compression.gzip(content, 9);
+                if (compressed.length < content.length) {
+                    gzip = compressed;
+                }
+            }
+            String cacheControl = FINGERPRINTED.matcher(relativePath).matches() ? IMMUTABLE : REVALIDATE;
+            return new Asset(content, gzip, brotli, contentType, "\"" + digest(content) + "\"", cacheControl);
+        }
+
+        private static String contentTypeFor(String path) {
+            int dot = path.lastIndexOf('.');
+            String ext = dot >= 0 ? path.substring(dot + 1).toLowerCase(Locale.ROOT) : "";
+            return CONTENT_TYPES.getOrDefault(ext, "application/octet-stream");
+        }
+
+        private static String digest(byte[] content) {
+            try {
+                byte[] hash = MessageDigest.getInstance("SHA-256").digest(content);
+                return Base64.getUrlEncoder().withoutPadding().encodeToString(hash).substring(0, 27);
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 not available", e);
+            }
+        }
+    }
+}
@@ -1,72 +0,0 @@
--- DriveClone Database Schema
--- This file contains the SQL schema for the SQLite database
-
--- Users table
-CREATE TABLE IF NOT EXISTS users (
-    id INTEGER PRIMARY KEY AUTOINCREMENT,
-    email TEXT UNIQUE NOT NULL,
-    name TEXT NOT NULL,
-    firebase_uid TEXT UNIQUE NOT NULL,
-    created_at DATETIME DEFAULT CURRENT_TIMESTAMP,
-    last_login DATETIME
-);
-
--- Spaces table
-CREATE TABLE IF NOT EXISTS spaces (
-    id TEXT PRIMARY KEY,
-    name TEXT NOT NULL,
-    description TEXT,
-    admin_id TEXT NOT NULL,
-    admin_email TEXT NOT NULL,
-    created_at DATETIME DEFAULT CURRENT_TIMESTAMP,
-    FOREIGN KEY (admin_id) REFERENCES users(firebase_uid)
-);
-
--- Space members table
-CREATE TABLE IF NOT EXISTS space_members (
-    id INTEGER PRIMARY KEY AUTOINCREMENT,
-    space_id TEXT NOT NULL,
-    member_email TEXT NOT NULL,
-    role TEXT DEFAULT 'MEMBER',
-    added_at DATETIME DEFAULT CURRENT_TIMESTAMP,
-    FOREIGN KEY (space_id) REFERENCES spaces(id),
-    UNIQUE(space_id, member_email)
-);
-
--- Files table
-CREATE TABLE IF NOT EXISTS files (
-    id TEXT PRIMARY KEY,
-    space_id TEXT NOT NULL,
-    original_filename TEXT NOT NULL,
-    storage_path TEXT NOT NULL,
-    content_type TEXT,
-    size INTEGER,
-    uploader_id TEXT NOT NULL,
-    uploader_email TEXT NOT NULL,
-    uploaded_at DATETIME DEFAULT CURRENT_TIMESTAMP,
-    FOREIGN KEY (space_id) REFERENCES spaces(id),
-    FOREIGN KEY (uploader_id) REFERENCES users(firebase_uid)
-);
-
--- Activity logs table
-CREATE TABLE IF NOT EXISTS activity_logs (
-    id INTEGER PRIMARY KEY AUTOINCREMENT,
-    space_id TEXT NOT NULL,
-    user_id TEXT NOT NULL,
-    action TEXT NOT NULL,
-    details TEXT,
-    timestamp DATETIME DEFAULT CURRENT_TIMESTAMP,
-    FOREIGN KEY (space_id) REFERENCES spaces(id),
-    FOREIGN KEY (user_id) REFERENCES users(firebase_uid)
-);
-
--- Create indexes for better performance
-CREATE INDEX IF NOT EXISTS idx_users_email ON users(email);
-CREATE INDEX IF NOT EXISTS idx_users_firebase_uid ON users(firebase_uid);
-CREATE INDEX IF NOT EXISTS idx_spaces_admin_id ON spaces(admin_id);
-CREATE INDEX IF NOT EXISTS idx_space_members_space_id ON space_members(space_id);
-CREATE INDEX IF NOT EXISTS idx_space_members_email ON space_members(member_email);
-CREATE INDEX IF NOT EXISTS idx_files_space_id ON files(space_id);
-CREATE INDEX IF NOT EXISTS idx_files_uploader_id ON files(uploader_id);
-CREATE INDEX IF NOT EXISTS idx_activity_logs_space_id ON activity_logs(space_id);
-CREATE INDEX IF NOT EXISTS idx_activity_logs_user_id ON activity_logs(user_id);
@@ -0,0 +1,127 @@
+package com.driveclone.database;
+
+import com.driveclone.util.Uuids;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Runs the metadata migrations against real SQLite files: a new database,
+ * and one left by a build from before schema versioning, with text IDs and
+ * timestamps.
+ */
+class MetadataSchemaTest {
+    private static final String SPACE_ID = "0b1c2d3e-4f50-4617-8293-a4b5c6d7e8f9";
+    private static final String FILE_ID = "1a2b3c4d-5e6f-4708-9a1b-2c3d4e5f6a7b";
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void migratesNewDatabase() throws SQLException {
+        try (Connection conn = open("new.db")) {
+            SchemaMigrator migrator = new SchemaMigrator(MetadataSchema.MIGRATIONS);
+
+            assertEquals(migrator.getLatestVersion(), migrator.migrate(conn));
+            assertEquals(migrator.getLatestVersion(), SchemaMigrator.getVersion(conn));
+            assertEquals(0, migrator.migrate(conn));
+            assertEquals("BLOB", queryString(conn, "SELECT type FROM pragma_table_info('space_files') WHERE name = 'id'"));
+            assertEquals("id", queryString(conn, "SELECT name FROM pragma_index_info('idx_space_members_space_added') WHERE seqno = 2"));
+        }
+    }
+
+    @Test
+    void migratesUnversionedDatabase() throws SQLException {
+        try (Connection conn = open("unversioned.db")) {
+            // The tables an unversioned build created at startup, which the baseline reproduces
+            new SchemaMigrator(MetadataSchema.MIGRATIONS.subList(0, 1)).migrate(conn);
+            execute(conn,
+                "PRAGMA user_version = 0",
+                "INSERT INTO spaces VALUES ('" + SPACE_ID + "', 'Team', NULL, 'u1', 'owner@example.com', '2024-03-01T10:15:30', 'owner@example.com')",
+                "INSERT INTO space_members VALUES ('" + Uuids.newId() + "', '" + SPACE_ID + "', 'member@example.com', 'MEMBER', '2024-03-02T08:00')",
+                "INSERT INTO space_files VALUES ('" + FILE_ID + "', '" + SPACE_ID + "', 'quarterly report.txt', 'files/a', 'text/plain', 42, 'u1', 'owner@example.com', '2024-03-03T09:30:00.123')",
+                "INSERT INTO space_files VALUES ('" + Uuids.newId() + "', '" + SPACE_ID + "', 'photo.jpg', 'files/b', 'image/jpeg', 8, 'u1', 'owner@example.com', '2024-03-04T12:00:00')",
+                "INSERT INTO activity VALUES ('" + Uuids.newId() + "', '" + SPACE_ID + "', 'owner@example.com', 'UPLOAD', 'quarterly report.txt', '2024-03-03T09:30:00.123')",
+                "INSERT INTO content_index_jobs (file_id, status, attempts, updated_at) VALUES ('" + FILE_ID + "', 'indexed', 1, 0)",
+                "INSERT INTO file_contents_fts (rowid, file_id, space_key, content) SELECT rowid, id, replace(space_id, '-', ''), 'revenue forecast' FROM space_files WHERE id = '" + FILE_ID + "'",
+                "INSERT INTO file_renditions VALUES ('" + FILE_ID + "', 'thumbnail', 'thumbs/a', 'image/jpeg', 64, 64, 900, '2024-03-03T09:30:01')");
+
+            SchemaMigrator migrator = new SchemaMigrator(MetadataSchema.MIGRATIONS);
+            assertEquals(migrator.getLatestVersion(), migrator.migrate(conn));
+            assertEquals(0, migrator.migrate(conn));
+
+            // IDs and timestamps were converted in place
+            assertArrayEquals(Uuids.toBytes(FILE_ID), queryBytes(conn, "SELECT id FROM space_files ORDER BY rowid"));
+            assertArrayEquals(Uuids.toBytes(SPACE_ID), queryBytes(conn, "SELECT space_id FROM space_members"));
+            assertArrayEquals(Uuids.toBytes(FILE_ID), queryBytes(conn, "SELECT file_id FROM content_index_jobs WHERE status = 'indexed'"));
+            assertArrayEquals(Uuids.toBytes(FILE_ID), queryBytes(conn, "SELECT file_id FROM file_renditions"));
+            assertEquals("integer", queryString(conn, "SELECT typeof(uploaded_at) FROM space_files"));
+            assertEquals("integer", queryString(conn, "SELECT typeof(timestamp) FROM activity"));
+            assertEquals("integer", queryString(conn, "SELECT typeof(created_at) FROM file_renditions"));
+
+            // Both search indexes still line up with the rebuilt space_files
+            String space = Uuids.toHex(SPACE_ID);
+            assertEquals(1, count(conn, "SELECT count(*) FROM space_files_fts JOIN space_files ON space_files.rowid = space_files_fts.rowid"
+                + " WHERE space_files_fts MATCH 'space_key : " + space + " AND original_filename : quart*'"));
+            assertEquals(1, count(conn, "SELECT count(*) FROM file_contents_fts JOIN space_files ON space_files.rowid = file_contents_fts.rowid"
+                + " WHERE file_contents_fts MATCH 'space_key : " + space + " AND content : revenue'"));
+            assertEquals(50, count(conn, "SELECT bytes FROM storage_usage WHERE uploader_email = ''"));
+            assertEquals(3, count(conn, "SELECT count(*) FROM space_changes"));
+
+            // Files that were never indexed are queued for the indexer
+            assertEquals(1, count(conn, "SELECT count(*) FROM content_index_jobs WHERE status = 'pending'"));
+
+            // The rowid the indexes are keyed by is an INTEGER PRIMARY KEY, which VACUUM never renumbers
+            assertEquals(1, count(conn, "SELECT pk FROM pragma_table_info('space_files') WHERE name = 'file_no' AND type = 'INTEGER'"));
+            assertEquals(count(conn, "SELECT max(rowid) FROM space_files"), count(conn, "SELECT max(file_no) FROM space_files"));
+
+            // Triggers kept by the rebuilds still fire
+            execute(conn, "DELETE FROM space_files");
+            assertEquals(0, count(conn, "SELECT count(*) FROM space_files_fts"));
+            assertEquals(0, count(conn, "SELECT count(*) FROM file_contents_fts"));
+            assertEquals(0, count(conn, "SELECT count(*) FROM content_index_jobs"));
+            assertEquals(0, count(conn, "SELECT count(*) FROM file_renditions"));
+            assertEquals(0, count(conn, "SELECT count(*) FROM storage_usage"));
+            assertEquals(2, count(conn, "SELECT count(*) FROM space_changes WHERE kind = 'file' AND deleted = 1"));
+        }
+    }
+
+    private Connection open(String name) throws SQLException {
+        return DriverManager.getConnection("jdbc:sqlite:" + dir.resolve(name));
+    }
+
+    private static void execute(Connection conn, String... sql) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            for (String statement : sql) {
+                stmt.execute(statement);
+            }
+        }
+    }
+
+    private static long count(Connection conn, String sql) throws SQLException {
+        try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery(sql)) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    private static String queryString(Connection conn, String sql) throws SQLException {
+        try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery(sql)) {
+            return rs.next() ? rs.getString(1) : null;
+        }
+    }
+
+    private static byte[] queryBytes(Connection conn, String sql) throws SQLException {
+        try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery(sql)) {
+            return rs.next() ? rs.getBytes(1) : null;
+        }
+    }
+}